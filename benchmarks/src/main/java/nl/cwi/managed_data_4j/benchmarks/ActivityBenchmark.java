@@ -0,0 +1,58 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import nl.cwi.examples.uml_activity_diagram.examples.TestPerformanceVariant_1;
+import nl.cwi.examples.uml_activity_diagram.examples.TestPerformanceVariant_2;
+import nl.cwi.examples.uml_activity_diagram.examples.TestPerformanceVariant_3_1;
+import nl.cwi.examples.uml_activity_diagram.helpers.FactoriesProvider;
+import nl.cwi.examples.uml_activity_diagram.schemas.runtime_diagram.runtime_activity.RuntimeActivity;
+import nl.cwi.examples.uml_activity_diagram.schemas.runtime_diagram.runtime_activity.RuntimeActivityFactory;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.GeneratedDataManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The performance variants of the uml activity diagram example end-to-end:
+ * building the activity and executing it (as uml_activity_diagram.Main does, for variant 3_1).
+ * Each execution takes about a second, so every iteration is a single shot.
+ * @author Theologos Zacharopoulos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ActivityBenchmark {
+
+    @Param({"1", "2", "3_1"})
+    public String variant;
+
+    @Param({"proxy", "generated"})
+    public String dataManager;
+
+    private RuntimeActivityFactory factory;
+
+    @Setup
+    public void setup() {
+        factory = FactoriesProvider.getRuntimeActivityDiagramFactory(
+            "generated".equals(dataManager) ? new GeneratedDataManager() : new BasicDataManager());
+    }
+
+    @Benchmark
+    public RuntimeActivity run() {
+        final RuntimeActivity activity = build();
+        activity.main(Collections.emptyList());
+        return activity;
+    }
+
+    private RuntimeActivity build() {
+        switch (variant) {
+            case "1": return (RuntimeActivity) TestPerformanceVariant_1.getActivity(factory);
+            case "2": return (RuntimeActivity) TestPerformanceVariant_2.getActivity(factory);
+            default: return (RuntimeActivity) TestPerformanceVariant_3_1.getActivity(factory);
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * The main of the benchmarks jar, runs JMH with the given command line options
+ * and writes the results as JSON (to jmh-result.json), unless another format (-rf) or file (-rff) is given.
+ *
+ * e.g. java -jar target/benchmarks.jar ActivityBenchmark -rff activity.json
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws Exception {
+        final CommandLineOptions commandLine = new CommandLineOptions(args);
+
+        // listing and help are left to the JMH main
+        if (commandLine.shouldHelp() || commandLine.shouldList() || commandLine.shouldListWithParams() ||
+            commandLine.shouldListProfilers() || commandLine.shouldListResultFormats())
+        {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+
+        final ChainedOptionsBuilder options = new OptionsBuilder().parent(commandLine);
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON);
+        }
+        if (!commandLine.getResult().hasValue()) {
+            options.result("jmh-result.json");
+        }
+
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,53 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import nl.cwi.managed_data_4j.benchmarks.schemas.Counter;
+import nl.cwi.managed_data_4j.benchmarks.schemas.CounterFactory;
+import nl.cwi.managed_data_4j.benchmarks.schemas.Item;
+import nl.cwi.managed_data_4j.benchmarks.schemas.ItemFactory;
+import nl.cwi.managed_data_4j.benchmarks.schemas.Node;
+import nl.cwi.managed_data_4j.benchmarks.schemas.NodeFactory;
+import nl.cwi.managed_data_4j.framework.SchemaFactoryProvider;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.IDataManager;
+import nl.cwi.managed_data_4j.language.primitives.Primitives;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaLoader;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+
+/**
+ * Schemas and factories shared by the benchmarks.
+ * @author Theologos Zacharopoulos
+ */
+public class BenchmarkSchemas {
+
+    public static Schema counterSchema() {
+        return SchemaLoader.load(SchemaFactoryProvider.getSchemaFactory(), Counter.class, Primitives.class);
+    }
+
+    public static Schema itemSchema() {
+        return SchemaLoader.load(SchemaFactoryProvider.getSchemaFactory(), Item.class, Primitives.class);
+    }
+
+    public static Schema nodeSchema() {
+        return SchemaLoader.load(SchemaFactoryProvider.getSchemaFactory(), Node.class, Primitives.class);
+    }
+
+    public static ItemFactory itemFactory(IDataManager dataManager) {
+        return dataManager.factory(ItemFactory.class, itemSchema());
+    }
+
+    public static NodeFactory nodeFactory() {
+        return nodeFactory(new BasicDataManager());
+    }
+
+    public static NodeFactory nodeFactory(IDataManager dataManager) {
+        return dataManager.factory(NodeFactory.class, nodeSchema());
+    }
+
+    public static CounterFactory counterFactory() {
+        return counterFactory(new BasicDataManager());
+    }
+
+    public static CounterFactory counterFactory(IDataManager dataManager) {
+        return dataManager.factory(CounterFactory.class, counterSchema());
+    }
+}
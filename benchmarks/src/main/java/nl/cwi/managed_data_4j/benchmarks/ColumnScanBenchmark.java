@@ -0,0 +1,73 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import nl.cwi.managed_data_4j.benchmarks.schemas.Counter;
+import nl.cwi.managed_data_4j.benchmarks.schemas.CounterFactory;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.ColumnarDataManager;
+import nl.cwi.managed_data_4j.language.managed_object.columnar.KlassColumns;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The sum of the count() of many counters,
+ * read object by object (basic and columnar data manager) and scanned by column (columnar data manager).
+ * @author Theologos Zacharopoulos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ColumnScanBenchmark {
+
+    @Param({"100000"})
+    public int counters;
+
+    private List<Counter> basicCounters;
+    private List<Counter> columnarCounters;
+    private KlassColumns columns;
+
+    @Setup
+    public void setup() {
+        basicCounters = createCounters(BenchmarkSchemas.counterFactory(new BasicDataManager()));
+
+        final ColumnarDataManager columnarDataManager = new ColumnarDataManager();
+        columnarCounters = createCounters(BenchmarkSchemas.counterFactory(columnarDataManager));
+        columns = columnarDataManager.columns(columnarCounters.get(0).schemaKlass());
+    }
+
+    private List<Counter> createCounters(CounterFactory counterFactory) {
+        final List<Counter> list = new ArrayList<>(counters);
+        for (int i = 0; i < counters; i++) {
+            list.add(counterFactory.Counter(i, "counter"));
+        }
+        return list;
+    }
+
+    @Benchmark
+    public long basicObjects() {
+        return sum(basicCounters);
+    }
+
+    @Benchmark
+    public long columnarObjects() {
+        return sum(columnarCounters);
+    }
+
+    @Benchmark
+    public long columnarScan() {
+        return columns.longs("count").sum();
+    }
+
+    private static long sum(List<Counter> counters) {
+        long sum = 0;
+        for (Counter counter : counters) {
+            sum += counter.count();
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,55 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import nl.cwi.managed_data_4j.benchmarks.schemas.Node;
+import nl.cwi.managed_data_4j.benchmarks.schemas.NodeFactory;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.CopyOnWriteDataManager;
+import nl.cwi.managed_data_4j.language.utils.MObjectUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Copy of the trees of EqualsBenchmark, a deep copy (MObjectUtils.copy),
+ * and a fork of a CopyOnWriteDataManager, which only copies the path to a changed leaf.
+ * @author Theologos Zacharopoulos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CopyBenchmark {
+
+    @Param({"10", "30"})
+    public int width;
+
+    private BasicDataManager dataManager;
+    private Node tree;
+
+    private CopyOnWriteDataManager copyOnWriteDataManager;
+    private Node copyOnWriteTree;
+
+    @Setup
+    public void setup() {
+        dataManager = new BasicDataManager();
+        tree = EqualsBenchmark.tree(BenchmarkSchemas.nodeFactory(dataManager), width);
+
+        copyOnWriteDataManager = new CopyOnWriteDataManager();
+        final NodeFactory copyOnWriteFactory = BenchmarkSchemas.nodeFactory(copyOnWriteDataManager);
+        copyOnWriteTree = EqualsBenchmark.tree(copyOnWriteFactory, width);
+    }
+
+    @Benchmark
+    public Node copy() {
+        return MObjectUtils.copy(tree, dataManager);
+    }
+
+    @Benchmark
+    public Node forkAndChangeLeaf() {
+        final Node fork = copyOnWriteDataManager.fork(copyOnWriteTree);
+        fork.children().iterator().next().children().iterator().next().weight(-1);
+        return fork;
+    }
+}
@@ -0,0 +1,85 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import nl.cwi.examples.uml_activity_diagram.helpers.FactoriesProvider;
+import nl.cwi.examples.uml_activity_diagram.schemas.runtime_diagram.runtime_activity.RuntimeActivityFactory;
+import nl.cwi.examples.uml_activity_diagram.schemas.runtime_diagram.tokens.ControlToken;
+import nl.cwi.examples.uml_activity_diagram.schemas.runtime_diagram.trace.Offer;
+import nl.cwi.managed_data_4j.benchmarks.schemas.Counter;
+import nl.cwi.managed_data_4j.benchmarks.schemas.CounterFactory;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.GeneratedDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.IDataManager;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creation of managed objects by the factories of a data manager,
+ * of a small schema (Counter) and of the schema of the runtime activity diagrams,
+ * one by one and at once (createMany).
+ * @author Theologos Zacharopoulos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CreationBenchmark {
+
+    @Param({"proxy", "generated"})
+    public String dataManager;
+
+    // the number of the objects of the bulk benchmarks
+    private static final int BULK = 100;
+
+    private IDataManager manager;
+    private CounterFactory counterFactory;
+    private RuntimeActivityFactory activityFactory;
+    private Klass offerKlass;
+
+    @Setup
+    public void setup() {
+        manager = "generated".equals(dataManager) ? new GeneratedDataManager() : new BasicDataManager();
+        counterFactory = BenchmarkSchemas.counterFactory(manager);
+        activityFactory = FactoriesProvider.getRuntimeActivityDiagramFactory(manager);
+        offerKlass = FactoriesProvider.loadRuntimeActivityDiagramSchema().klasses().stream()
+            .filter(klass -> klass.name().equals("Offer"))
+            .findFirst()
+            .get();
+    }
+
+    @Benchmark
+    public Counter counter() {
+        return counterFactory.Counter(1, "counter");
+    }
+
+    @Benchmark
+    public ControlToken token() {
+        return activityFactory.ControlToken();
+    }
+
+    @Benchmark
+    public Offer offer() {
+        return activityFactory.Offer();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK)
+    public List<Offer> offers() {
+        final List<Offer> offers = new ArrayList<>(BULK);
+        for (int i = 0; i < BULK; i++) {
+            offers.add(activityFactory.Offer());
+        }
+        return offers;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BULK)
+    public List<Offer> offersMany() {
+        return manager.createMany(offerKlass, BULK, null);
+    }
+}
@@ -0,0 +1,65 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import nl.cwi.managed_data_4j.benchmarks.schemas.Counter;
+import nl.cwi.managed_data_4j.language.managed_object.dispatch.DefaultMethodHandles;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Default method invocation: cached special handles against building them on every call.
+ * @author Theologos Zacharopoulos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class DefaultMethodBenchmark {
+
+    private Counter counter;
+    private Method next;
+    private Method add;
+    private Object[] addArgs;
+
+    @Setup
+    public void setup() throws NoSuchMethodException {
+        counter = BenchmarkSchemas.counterFactory().Counter(1, "counter");
+        next = Counter.class.getMethod("next");
+        add = Counter.class.getMethod("add", Integer.class);
+        addArgs = new Object[]{0};
+    }
+
+    /**
+     * End to end, through the proxy of the managed object.
+     */
+    @Benchmark
+    public Integer proxyCall() {
+        return counter.next();
+    }
+
+    @Benchmark
+    public Object cachedHandle() throws Throwable {
+        return DefaultMethodHandles.invoke(Counter.class, next, counter, null);
+    }
+
+    @Benchmark
+    public Object cachedHandleWithArgs() throws Throwable {
+        return DefaultMethodHandles.invoke(Counter.class, add, counter, addArgs);
+    }
+
+    /**
+     * The handle is built (lookup, unreflectSpecial) and bound on every call.
+     */
+    @Benchmark
+    public Object uncachedHandle() throws Throwable {
+        return DefaultMethodHandles.create(Counter.class, next).invokeWithArguments(counter, new Object[0]);
+    }
+
+    @Benchmark
+    public Object uncachedHandleWithArgs() throws Throwable {
+        return DefaultMethodHandles.create(Counter.class, add).invokeWithArguments(counter, addArgs);
+    }
+}
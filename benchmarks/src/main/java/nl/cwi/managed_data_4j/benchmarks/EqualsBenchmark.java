@@ -0,0 +1,57 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import nl.cwi.managed_data_4j.benchmarks.schemas.Node;
+import nl.cwi.managed_data_4j.benchmarks.schemas.NodeFactory;
+import nl.cwi.managed_data_4j.language.utils.MObjectUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Structural equality (MObjectUtils.equals) of two equal trees of nodes,
+ * a root with width children, each with width children of its own.
+ * The children are kept in a keyed Set (the spine) and refer back to their parent (cross-reference).
+ * @author Theologos Zacharopoulos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EqualsBenchmark {
+
+    @Param({"10", "30"})
+    public int width;
+
+    private Node x;
+    private Node y;
+
+    @Setup
+    public void setup() {
+        final NodeFactory factory = BenchmarkSchemas.nodeFactory();
+        x = tree(factory, width);
+        y = tree(factory, width);
+
+        if (!MObjectUtils.equals(x, y)) {
+            throw new IllegalStateException("The trees should be equal");
+        }
+    }
+
+    static Node tree(NodeFactory factory, int width) {
+        final Node root = factory.Node("root", 0);
+        for (int i = 0; i < width; i++) {
+            final Node child = factory.Node("node" + i, i);
+            for (int j = 0; j < width; j++) {
+                child.children(factory.Node("node" + i + "_" + j, j));
+            }
+            root.children(child);
+        }
+        return root;
+    }
+
+    @Benchmark
+    public boolean equals() {
+        return MObjectUtils.equals(x, y);
+    }
+}
@@ -0,0 +1,62 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import nl.cwi.managed_data_4j.benchmarks.schemas.Counter;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.GeneratedDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.IDataManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Getter, setter and default method calls on the managed objects of a data manager.
+ * The increments compare an Integer field with an int field (run with -prof gc for the allocations).
+ * @author Theologos Zacharopoulos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FieldAccessBenchmark {
+
+    @Param({"proxy", "generated"})
+    public String dataManager;
+
+    private Counter counter;
+    private Integer value = 42;
+
+    @Setup
+    public void setup() {
+        final IDataManager manager = "generated".equals(dataManager) ? new GeneratedDataManager() : new BasicDataManager();
+        counter = BenchmarkSchemas.counterFactory(manager).Counter(1, "counter");
+        counter.count(1000);
+        counter.ticks(1000);
+    }
+
+    @Benchmark
+    public Integer get() {
+        return counter.count();
+    }
+
+    @Benchmark
+    public void set() {
+        counter.count(value);
+    }
+
+    @Benchmark
+    public Integer defaultMethod() {
+        return counter.next();
+    }
+
+    @Benchmark
+    public void incrementInteger() {
+        counter.add(1);
+    }
+
+    @Benchmark
+    public void incrementInt() {
+        counter.tick();
+    }
+}
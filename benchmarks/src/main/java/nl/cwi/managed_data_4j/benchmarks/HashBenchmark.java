@@ -0,0 +1,83 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import nl.cwi.managed_data_4j.benchmarks.schemas.Node;
+import nl.cwi.managed_data_4j.benchmarks.schemas.NodeFactory;
+import nl.cwi.managed_data_4j.language.data_manager.HashingDataManager;
+import nl.cwi.managed_data_4j.language.managed_object.hashing.Fingerprinted;
+import nl.cwi.managed_data_4j.language.utils.MObjectUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Structural hash (MObjectUtils.hash) of the trees of EqualsBenchmark,
+ * computed at once, and kept by the objects of a HashingDataManager, after the change of a leaf.
+ * Then structural equality of two trees which differ in a leaf, with a walk,
+ * and with the kept hashes.
+ * @author Theologos Zacharopoulos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HashBenchmark {
+
+    @Param({"10", "30"})
+    public int width;
+
+    // trees of a basic data manager
+    private Node x;
+    private Node y;
+
+    // trees of a hashing data manager
+    private Node hashedX;
+    private Node hashedY;
+
+    // a leaf of hashedX
+    private Node leaf;
+
+    @Setup
+    public void setup() {
+        final NodeFactory factory = BenchmarkSchemas.nodeFactory();
+        x = EqualsBenchmark.tree(factory, width);
+        y = EqualsBenchmark.tree(factory, width);
+
+        final NodeFactory hashingFactory = BenchmarkSchemas.nodeFactory(new HashingDataManager());
+        hashedX = EqualsBenchmark.tree(hashingFactory, width);
+        hashedY = EqualsBenchmark.tree(hashingFactory, width);
+
+        // x and y, hashedX and hashedY differ in the weight of a leaf
+        leaf = hashedX.children().iterator().next().children().iterator().next();
+        leaf.weight(-1);
+        y.children().iterator().next().children().iterator().next().weight(-1);
+
+        ((Fingerprinted) hashedX).fingerprint();
+        ((Fingerprinted) hashedY).fingerprint();
+        if (MObjectUtils.equals(x, y) || MObjectUtils.equals(hashedX, hashedY)) {
+            throw new IllegalStateException("The trees should differ");
+        }
+    }
+
+    @Benchmark
+    public long hash() {
+        return MObjectUtils.hash(x);
+    }
+
+    @Benchmark
+    public long fingerprintAfterChange() {
+        leaf.weight(leaf.weight() == -1 ? -2 : -1);
+        return ((Fingerprinted) hashedX).fingerprint();
+    }
+
+    @Benchmark
+    public boolean equalsDifferent() {
+        return MObjectUtils.equals(x, y);
+    }
+
+    @Benchmark
+    public boolean equalsDifferentHashed() {
+        return MObjectUtils.equals(hashedX, hashedY);
+    }
+}
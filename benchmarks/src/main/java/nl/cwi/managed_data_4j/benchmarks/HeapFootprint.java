@@ -0,0 +1,57 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import nl.cwi.managed_data_4j.benchmarks.schemas.CounterFactory;
+import nl.cwi.managed_data_4j.benchmarks.schemas.Node;
+import nl.cwi.managed_data_4j.benchmarks.schemas.NodeFactory;
+import nl.cwi.managed_data_4j.language.data_manager.ColumnarDataManager;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Heap footprint of the managed objects, in bytes per object.
+ *
+ * The graph of N objects is measured with JOL, and the graph of a single object is subtracted,
+ * so that the shared parts (schema, klasses, plans) are not counted.
+ *
+ * Run: java -cp target/benchmarks.jar nl.cwi.managed_data_4j.benchmarks.HeapFootprint [N]
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class HeapFootprint {
+
+    public static void main(String[] args) {
+        final int n = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+
+        final CounterFactory counterFactory = BenchmarkSchemas.counterFactory();
+        final NodeFactory nodeFactory = BenchmarkSchemas.nodeFactory();
+
+        report("Counter (2 primitive fields)", n, () -> counterFactory.Counter(1, "counter"));
+
+        final CounterFactory columnarCounterFactory = BenchmarkSchemas.counterFactory(new ColumnarDataManager());
+        report("Counter, columnar", n, () -> columnarCounterFactory.Counter(1, "counter"));
+        report("Node (2 primitive, 1 many, 1 inverse field)", n, () -> nodeFactory.Node("node", 1));
+        report("Node with a parent", n, () -> {
+            final Node node = nodeFactory.Node("node", 1);
+            node.parent(nodeFactory.Node("parent", 1));
+            return node;
+        });
+    }
+
+    private static void report(String name, int n, Supplier<Object> create) {
+        final long one = footprint(1, create);
+        final long all = footprint(n + 1, create);
+
+        System.out.printf("%-45s %8.1f bytes/object%n", name, (all - one) / (double) n);
+    }
+
+    private static long footprint(int n, Supplier<Object> create) {
+        final List<Object> objects = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            objects.add(create.get());
+        }
+        return GraphLayout.parseInstance(objects.toArray()).totalSize() - (16L + 4L * n);
+    }
+}
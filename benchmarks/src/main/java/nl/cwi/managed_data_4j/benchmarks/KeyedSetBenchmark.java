@@ -0,0 +1,75 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import nl.cwi.managed_data_4j.benchmarks.schemas.Node;
+import nl.cwi.managed_data_4j.benchmarks.schemas.NodeFactory;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.GeneratedDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.IDataManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding n children to a keyed Set many-field, removing them again through their inverse (parent),
+ * and reading the Set (size, contains) of a parent with n children.
+ * @author Theologos Zacharopoulos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KeyedSetBenchmark {
+
+    @Param({"proxy", "generated"})
+    public String dataManager;
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    private NodeFactory factory;
+    private Node[] children;
+    private Node fullParent;
+
+    @Setup
+    public void setup() {
+        final IDataManager manager = "generated".equals(dataManager) ? new GeneratedDataManager() : new BasicDataManager();
+        factory = BenchmarkSchemas.nodeFactory(manager);
+
+        children = new Node[size];
+        for (int i = 0; i < size; i++) {
+            children[i] = factory.Node("node" + i, i);
+        }
+        fullParent = add();
+    }
+
+    @Benchmark
+    public Node add() {
+        final Node parent = factory.Node("parent", 0);
+        for (Node child : children) {
+            parent.children(child);
+        }
+        return parent;
+    }
+
+    @Benchmark
+    public Node addAndRemove() {
+        final Node parent = add();
+        for (Node child : children) {
+            child.parent((Node) null);
+        }
+        return parent;
+    }
+
+    @Benchmark
+    public int read() {
+        int found = 0;
+        for (Node child : children) {
+            if (fullParent.children().contains(child)) {
+                found += fullParent.children().size();
+            }
+        }
+        return found;
+    }
+}
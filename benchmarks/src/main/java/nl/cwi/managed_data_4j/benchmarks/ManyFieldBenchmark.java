@@ -0,0 +1,61 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import nl.cwi.managed_data_4j.benchmarks.schemas.Item;
+import nl.cwi.managed_data_4j.benchmarks.schemas.ItemFactory;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.GeneratedDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.IDataManager;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Adding n children to a List many-field, and removing them again through their inverse (owner).
+ * @author Theologos Zacharopoulos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ManyFieldBenchmark {
+
+    @Param({"proxy", "generated"})
+    public String dataManager;
+
+    @Param({"1000", "10000"})
+    public int size;
+
+    private ItemFactory factory;
+    private Item[] children;
+
+    @Setup
+    public void setup() {
+        final IDataManager manager = "generated".equals(dataManager) ? new GeneratedDataManager() : new BasicDataManager();
+        factory = BenchmarkSchemas.itemFactory(manager);
+
+        children = new Item[size];
+        for (int i = 0; i < size; i++) {
+            children[i] = factory.Item(i);
+        }
+    }
+
+    @Benchmark
+    public Item add() {
+        final Item parent = factory.Item(0);
+        for (Item child : children) {
+            parent.items(child);
+        }
+        return parent;
+    }
+
+    @Benchmark
+    public Item addAndRemove() {
+        final Item parent = add();
+        for (Item child : children) {
+            child.owner((Item) null);
+        }
+        return parent;
+    }
+}
@@ -0,0 +1,72 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import nl.cwi.managed_data_4j.benchmarks.schemas.Counter;
+import nl.cwi.managed_data_4j.benchmarks.schemas.CounterFactory;
+import nl.cwi.managed_data_4j.language.data_manager.MappedDataManager;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Reopening a model of counters of the mapped data manager, and reading its last counter,
+ * which should not depend on the number of the counters.
+ * @author Theologos Zacharopoulos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MappedBenchmark {
+
+    @Param({"1000", "100000"})
+    public int counters;
+
+    private Schema schema;
+    private Klass counterKlass;
+    private Path directory;
+
+    @Setup
+    public void setup() throws IOException {
+        schema = BenchmarkSchemas.counterSchema();
+        directory = Files.createTempDirectory("mapped-benchmark");
+
+        try (MappedDataManager dataManager = new MappedDataManager(directory, schema)) {
+            final CounterFactory counterFactory = dataManager.factory(CounterFactory.class, schema);
+            for (int i = 0; i < counters; i++) {
+                counterFactory.Counter(i, "counter" + i);
+            }
+            counterKlass = counterFactory.Counter(counters, "last").schemaKlass();
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> {
+                try {
+                    Files.delete(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+    }
+
+    @Benchmark
+    public String reopen() throws IOException {
+        try (MappedDataManager dataManager = new MappedDataManager(directory, schema)) {
+            final Counter last = (Counter) dataManager.object(counterKlass, dataManager.size(counterKlass) - 1);
+            return last.name();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import nl.cwi.examples.uml_activity_diagram.helpers.FactoriesProvider;
+import nl.cwi.examples.uml_activity_diagram.schemas.runtime_diagram.runtime_activity.RuntimeActivityFactory;
+import nl.cwi.examples.uml_activity_diagram.schemas.runtime_diagram.tokens.ControlToken;
+import nl.cwi.examples.uml_activity_diagram.schemas.runtime_diagram.trace.Offer;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.PoolingDataManager;
+import nl.cwi.managed_data_4j.language.managed_object.pooling.Releasable;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The life of the short-lived offers of an activity: an offer is created, offers a token and is dropped,
+ * by the basic data manager (garbage collected) and by the pooling data manager (released and recycled).
+ * Run with -prof gc for the allocation rate.
+ * @author Theologos Zacharopoulos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoolingBenchmark {
+
+    @Param({"proxy", "pooling"})
+    public String dataManager;
+
+    private RuntimeActivityFactory activityFactory;
+    private ControlToken token;
+
+    @Setup
+    public void setup() {
+        activityFactory = FactoriesProvider.getRuntimeActivityDiagramFactory(
+            "pooling".equals(dataManager) ? new PoolingDataManager() : new BasicDataManager());
+        token = activityFactory.ControlToken();
+    }
+
+    @Benchmark
+    public int offer() {
+        final Offer offer = activityFactory.Offer();
+        offer.offeredTokens().add(token);
+        final int size = offer.offeredTokens().size();
+
+        if (offer instanceof Releasable) {
+            ((Releasable) offer).release();
+        }
+        return size;
+    }
+}
@@ -0,0 +1,97 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import nl.cwi.managed_data_4j.benchmarks.schemas.CounterFactory;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.GeneratedDataManager;
+import nl.cwi.managed_data_4j.language.utils.ReflectionUtils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Field access by name through ReflectionUtils (get, set)
+ * and sorting by name (compare, as in MObjectUtils.equals),
+ * on managed objects (proxy, generated) and on plain objects.
+ * @author Theologos Zacharopoulos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReflectionBenchmark {
+
+    private static final int SORTED = 100;
+
+    @Param({"proxy", "generated", "plain"})
+    public String target;
+
+    private Object counter;
+    private Object[] counters;
+    private Integer value = 42;
+
+    @Setup
+    public void setup() {
+        final Random random = new Random(42);
+
+        counters = new Object[SORTED];
+        for (int i = 0; i < SORTED; i++) {
+            counters[i] = create(i, "counter" + random.nextInt(SORTED * 10));
+        }
+        counter = counters[0];
+    }
+
+    private Object create(Integer count, String name) {
+        if ("plain".equals(target)) {
+            return new PlainCounter(count, name);
+        }
+        final CounterFactory factory = "generated".equals(target)
+            ? BenchmarkSchemas.counterFactory(new GeneratedDataManager())
+            : BenchmarkSchemas.counterFactory(new BasicDataManager());
+        return factory.Counter(count, name);
+    }
+
+    @Benchmark
+    public Object get() {
+        return ReflectionUtils.getValueFromFieldSafe(counter, "count", Integer.class);
+    }
+
+    @Benchmark
+    public void set() {
+        ReflectionUtils.setValueToFieldSafe(counter, "count", Integer.class, value);
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Object[] compare() {
+        final Object[] sorted = counters.clone();
+        Arrays.sort(sorted, ReflectionUtils.fieldNameComparison());
+        return sorted;
+    }
+
+    /**
+     * A counter with the field methods of a schema, which is not managed.
+     */
+    public static class PlainCounter {
+        private Integer count;
+        private String name;
+
+        PlainCounter(Integer count, String name) {
+            this.count = count;
+            this.name = name;
+        }
+
+        public String name(String... name) {
+            if (name.length > 0) this.name = name[0];
+            return this.name;
+        }
+
+        public Integer count(Integer... count) {
+            if (count.length > 0) this.count = count[0];
+            return this.count;
+        }
+    }
+}
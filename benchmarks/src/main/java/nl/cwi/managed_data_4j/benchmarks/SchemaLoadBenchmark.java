@@ -0,0 +1,67 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import nl.cwi.examples.uml_activity_diagram.helpers.FactoriesProvider;
+import nl.cwi.managed_data_4j.framework.SchemaFactoryProvider;
+import nl.cwi.managed_data_4j.language.schema.boot.SchemaFactory;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaImage;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaLoader;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading the schemas of the uml activity diagram example,
+ * from the definitions (SchemaLoader.loadUncached, SchemaLoader.loadParallel),
+ * from a schema image (SchemaLoader.loadImage) and from the schema cache (SchemaLoader.load).
+ * @author Theologos Zacharopoulos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchemaLoadBenchmark {
+
+    private SchemaFactory schemaFactory;
+
+    private byte[] runtimeActivitySchemaImage;
+
+    @Setup
+    public void setup() throws IOException {
+        schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+
+        final ByteArrayOutputStream image = new ByteArrayOutputStream();
+        SchemaImage.write(runtimeActivitySchema(), image, FactoriesProvider.runtimeActivityDiagramDefinitions());
+        runtimeActivitySchemaImage = image.toByteArray();
+    }
+
+    @Benchmark
+    public Schema activitySchema() {
+        return SchemaLoader.loadUncached(schemaFactory, FactoriesProvider.activityDiagramDefinitions());
+    }
+
+    @Benchmark
+    public Schema runtimeActivitySchema() {
+        return SchemaLoader.loadUncached(schemaFactory, FactoriesProvider.runtimeActivityDiagramDefinitions());
+    }
+
+    @Benchmark
+    public Schema parallelRuntimeActivitySchema() {
+        return SchemaLoader.loadParallel(schemaFactory, FactoriesProvider.runtimeActivityDiagramDefinitions());
+    }
+
+    @Benchmark
+    public Schema imageRuntimeActivitySchema() throws IOException {
+        return SchemaLoader.loadImage(schemaFactory, new ByteArrayInputStream(runtimeActivitySchemaImage));
+    }
+
+    @Benchmark
+    public Schema cachedRuntimeActivitySchema() {
+        return SchemaLoader.load(schemaFactory, FactoriesProvider.runtimeActivityDiagramDefinitions());
+    }
+}
@@ -0,0 +1,66 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import nl.cwi.managed_data_4j.framework.SchemaFactoryProvider;
+import nl.cwi.managed_data_4j.language.primitives.Primitives;
+import nl.cwi.managed_data_4j.language.schema.boot.SchemaFactory;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaImage;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaLoader;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading generated schemas of many klasses (see SyntheticSchemas),
+ * serially (SchemaLoader.loadUncached), in parallel (SchemaLoader.loadParallel)
+ * and from their image (SchemaLoader.loadImage).
+ * @author Theologos Zacharopoulos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SchemaStartupBenchmark {
+
+    @Param({"50", "200", "800"})
+    private int klasses;
+
+    private SchemaFactory schemaFactory;
+
+    private Class<?>[] definitions;
+
+    private byte[] schemaImage;
+
+    @Setup
+    public void setup() throws IOException {
+        schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+
+        definitions = Arrays.copyOf(SyntheticSchemas.definitions(klasses), klasses + 1);
+        definitions[klasses] = Primitives.class;
+
+        final ByteArrayOutputStream image = new ByteArrayOutputStream();
+        SchemaImage.write(serial(), image, definitions);
+        schemaImage = image.toByteArray();
+    }
+
+    @Benchmark
+    public Schema serial() {
+        return SchemaLoader.loadUncached(schemaFactory, definitions);
+    }
+
+    @Benchmark
+    public Schema parallel() {
+        return SchemaLoader.loadParallel(schemaFactory, definitions);
+    }
+
+    @Benchmark
+    public Schema image() throws IOException {
+        return SchemaLoader.loadImage(schemaFactory, new ByteArrayInputStream(schemaImage), definitions[0].getClassLoader());
+    }
+}
@@ -0,0 +1,64 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import nl.cwi.examples.uml_activity_diagram.examples.TestPerformanceVariant_3_1;
+import nl.cwi.examples.uml_activity_diagram.helpers.FactoriesProvider;
+import nl.cwi.examples.uml_activity_diagram.schemas.runtime_diagram.runtime_activity.RuntimeActivity;
+import nl.cwi.examples.uml_activity_diagram.schemas.runtime_diagram.runtime_activity.RuntimeActivityFactory;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+import nl.cwi.managed_data_4j.language.serialization.MObjectReader;
+import nl.cwi.managed_data_4j.language.serialization.MObjectWriter;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The activity of performance variant 3_1, built by its (generated) code,
+ * and written to and read from the binary format of MObjectWriter and MObjectReader.
+ * @author Theologos Zacharopoulos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SerializationBenchmark {
+
+    private RuntimeActivityFactory factory;
+    private Schema schema;
+    private RuntimeActivity activity;
+    private byte[] bytes;
+
+    @Setup
+    public void setup() throws IOException {
+        factory = FactoriesProvider.getRuntimeActivityDiagramFactory(new BasicDataManager());
+        schema = FactoriesProvider.loadRuntimeActivityDiagramSchema();
+        activity = build();
+        bytes = write();
+    }
+
+    @Benchmark
+    public RuntimeActivity build() {
+        return (RuntimeActivity) TestPerformanceVariant_3_1.getActivity(factory);
+    }
+
+    @Benchmark
+    public byte[] write() throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MObjectWriter writer = new MObjectWriter(out)) {
+            writer.write(activity);
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public RuntimeActivity read() throws IOException {
+        try (MObjectReader reader = new MObjectReader(new ByteArrayInputStream(bytes), schema, new BasicDataManager())) {
+            return reader.read();
+        }
+    }
+}
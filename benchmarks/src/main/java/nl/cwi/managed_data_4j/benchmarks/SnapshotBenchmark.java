@@ -0,0 +1,75 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import nl.cwi.managed_data_4j.benchmarks.schemas.Node;
+import nl.cwi.managed_data_4j.language.data_manager.SnapshotDataManager;
+import nl.cwi.managed_data_4j.language.managed_object.snapshot.Snapshot;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes of a leaf of the trees of EqualsBenchmark, of a basic data manager,
+ * and of a SnapshotDataManager, without snapshots, and with a snapshot before every write
+ * (the oldest snapshot is closed, a few stay open), then a read of the leaf in a snapshot.
+ * @author Theologos Zacharopoulos
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SnapshotBenchmark {
+
+    private static final int OPEN_SNAPSHOTS = 4;
+
+    private Node leaf;
+
+    private SnapshotDataManager dataManager;
+    private Node versionedLeaf;
+
+    private final Snapshot[] snapshots = new Snapshot[OPEN_SNAPSHOTS];
+    private int next;
+
+    @Setup
+    public void setup() {
+        leaf = leaf(EqualsBenchmark.tree(BenchmarkSchemas.nodeFactory(), 10));
+
+        dataManager = new SnapshotDataManager();
+        versionedLeaf = leaf(EqualsBenchmark.tree(BenchmarkSchemas.nodeFactory(dataManager), 10));
+        for (int i = 0; i < OPEN_SNAPSHOTS; i++) {
+            snapshots[i] = dataManager.snapshot();
+        }
+    }
+
+    @Benchmark
+    public int write() {
+        leaf.weight(leaf.weight() + 1);
+        return leaf.weight();
+    }
+
+    @Benchmark
+    public int writeVersioned() {
+        versionedLeaf.weight(versionedLeaf.weight() + 1);
+        return versionedLeaf.weight();
+    }
+
+    @Benchmark
+    public int snapshotAndWrite() {
+        snapshots[next].close();
+        snapshots[next] = dataManager.snapshot();
+        next = (next + 1) % OPEN_SNAPSHOTS;
+
+        versionedLeaf.weight(versionedLeaf.weight() + 1);
+        return versionedLeaf.weight();
+    }
+
+    @Benchmark
+    public int readSnapshot() {
+        return snapshots[next].of(versionedLeaf).weight();
+    }
+
+    private static Node leaf(Node tree) {
+        return tree.children().iterator().next().children().iterator().next();
+    }
+}
@@ -0,0 +1,83 @@
+package nl.cwi.managed_data_4j.benchmarks;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.annotation.AnnotationDescription;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.description.type.TypeDescription;
+import nl.cwi.managed_data_4j.M;
+import nl.cwi.managed_data_4j.language.schema.models.definition.annotations.Contain;
+
+import java.lang.reflect.Array;
+import java.util.List;
+
+/**
+ * Schema definitions (interfaces) of any size, generated at runtime,
+ * for benchmarks of schemas with many more klasses than the ones of the examples.
+ *
+ * Klass K{i} has the fields:
+ *      - String name(String... name)
+ *      - Integer size(Integer... size)
+ *      - Boolean enabled(Boolean... enabled)
+ *      - K{i-1} previous(K{i-1}... previous)
+ *      - @Contain List{K{i-1}} items(K{i-1}... items)
+ * (M for K0) and extends M, or the first klass of its group of ten (e.g. K13 extends K10).
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class SyntheticSchemas {
+
+    private static final String PACKAGE = "nl.cwi.managed_data_4j.benchmarks.generated";
+
+    private static final int GROUP = 10;
+
+    /**
+     * Generates the definitions of a schema, in a new class loader.
+     * @param klasses the number of the klasses
+     * @return the definitions, K0 to K{klasses-1}
+     */
+    public static Class<?>[] definitions(int klasses) {
+        final DefinitionsClassLoader classLoader = new DefinitionsClassLoader();
+        final ByteBuddy byteBuddy = new ByteBuddy();
+
+        final Class<?>[] definitions = new Class<?>[klasses];
+        for (int i = 0; i < klasses; i++) {
+            final Class<?> previous = i == 0 ? M.class : definitions[i - 1];
+            final Class<?> superKlass = i % GROUP == 0 ? M.class : definitions[i - i % GROUP];
+            final String name = PACKAGE + ".K" + i;
+
+            final byte[] bytes = byteBuddy
+                .makeInterface(superKlass)
+                .name(name)
+                .defineMethod("name", String.class, Visibility.PUBLIC)
+                    .withParameters(String[].class).withoutCode()
+                .defineMethod("size", Integer.class, Visibility.PUBLIC)
+                    .withParameters(Integer[].class).withoutCode()
+                .defineMethod("enabled", Boolean.class, Visibility.PUBLIC)
+                    .withParameters(Boolean[].class).withoutCode()
+                .defineMethod("previous", previous, Visibility.PUBLIC)
+                    .withParameters(Array.newInstance(previous, 0).getClass()).withoutCode()
+                .defineMethod("items", TypeDescription.Generic.Builder.parameterizedType(List.class, previous).build(), Visibility.PUBLIC)
+                    .withParameters(Array.newInstance(previous, 0).getClass()).withoutCode()
+                    .annotateMethod(AnnotationDescription.Builder.ofType(Contain.class).build())
+                .make()
+                .getBytes();
+
+            definitions[i] = classLoader.define(name, bytes);
+        }
+        return definitions;
+    }
+
+    /**
+     * Loads the generated definitions, one after the other, so that they can refer to each other.
+     */
+    private static final class DefinitionsClassLoader extends ClassLoader {
+
+        DefinitionsClassLoader() {
+            super(SyntheticSchemas.class.getClassLoader());
+        }
+
+        Class<?> define(String name, byte[] bytes) {
+            return defineClass(name, bytes, 0, bytes.length);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package nl.cwi.managed_data_4j.benchmarks.schemas;
+
+import nl.cwi.managed_data_4j.M;
+
+public interface Counter extends M {
+
+    String name(String... name);
+
+    Integer count(Integer... count);
+
+    int ticks(int... ticks);
+
+    default Integer next() {
+        return count() + 1;
+    }
+
+    default void add(Integer amount) {
+        count(count() + amount);
+    }
+
+    default void tick() {
+        ticks(ticks() + 1);
+    }
+}
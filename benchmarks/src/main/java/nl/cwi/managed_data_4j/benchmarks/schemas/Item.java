@@ -0,0 +1,23 @@
+package nl.cwi.managed_data_4j.benchmarks.schemas;
+
+import nl.cwi.managed_data_4j.M;
+import nl.cwi.managed_data_4j.language.schema.models.definition.annotations.Contain;
+import nl.cwi.managed_data_4j.language.schema.models.definition.annotations.Inverse;
+import nl.cwi.managed_data_4j.language.schema.models.definition.annotations.Optional;
+
+import java.util.List;
+
+/**
+ * A Klass without key, its many-fields are Lists.
+ */
+public interface Item extends M {
+
+    Integer weight(Integer... weight);
+
+    @Contain
+    List<Item> items(Item... items);
+
+    @Optional
+    @Inverse(other = Item.class, field = "items")
+    Item owner(Item... owner);
+}
@@ -0,0 +1,8 @@
+package nl.cwi.managed_data_4j.benchmarks.schemas;
+
+import nl.cwi.managed_data_4j.IFactory;
+
+public interface ItemFactory extends IFactory {
+    Item Item();
+    Item Item(Integer weight);
+}
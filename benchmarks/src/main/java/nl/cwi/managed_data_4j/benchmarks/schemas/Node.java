@@ -0,0 +1,24 @@
+package nl.cwi.managed_data_4j.benchmarks.schemas;
+
+import nl.cwi.managed_data_4j.M;
+import nl.cwi.managed_data_4j.language.schema.models.definition.annotations.Contain;
+import nl.cwi.managed_data_4j.language.schema.models.definition.annotations.Inverse;
+import nl.cwi.managed_data_4j.language.schema.models.definition.annotations.Key;
+import nl.cwi.managed_data_4j.language.schema.models.definition.annotations.Optional;
+
+import java.util.Set;
+
+public interface Node extends M {
+
+    @Key
+    String name(String... name);
+
+    Integer weight(Integer... weight);
+
+    @Contain
+    Set<Node> children(Node... children);
+
+    @Optional
+    @Inverse(other = Node.class, field = "children")
+    Node parent(Node... parent);
+}
@@ -0,0 +1,8 @@
+package nl.cwi.examples.ccconcerns.patterns.transaction;
+
+import java.util.List;
+
+@FunctionalInterface
+public interface CommitObserver {
+    void committed(List<FieldWrite> writes);
+}
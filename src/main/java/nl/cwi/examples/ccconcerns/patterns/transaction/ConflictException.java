@@ -0,0 +1,16 @@
+package nl.cwi.examples.ccconcerns.patterns.transaction;
+
+/**
+ * Thrown by the commit of a transaction, if another commit has written a slot that the transaction has read,
+ * the writes of the transaction are dropped.
+ * @author Theologos Zacharopoulos
+ */
+public class ConflictException extends RuntimeException {
+    public ConflictException() {
+        super();
+    }
+
+    public ConflictException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,31 @@
+package nl.cwi.examples.ccconcerns.patterns.transaction;
+
+/**
+ * A field of a managed object that a transaction has written,
+ * with the value that the field has after the commit.
+ * @author Theologos Zacharopoulos
+ */
+public final class FieldWrite {
+
+    private final Object object;
+    private final String field;
+    private final Object value;
+
+    FieldWrite(Object object, String field, Object value) {
+        this.object = object;
+        this.field = field;
+        this.value = value;
+    }
+
+    public Object object() {
+        return this.object;
+    }
+
+    public String field() {
+        return this.field;
+    }
+
+    public Object value() {
+        return this.value;
+    }
+}
@@ -0,0 +1,151 @@
+package nl.cwi.examples.ccconcerns.patterns.transaction;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+/**
+ * A data manager whose managed objects are written in transactions.
+ *
+ * A transaction belongs to a thread (begin), its writes are kept in its write set (see TransactionalMObject),
+ * they are seen only by the thread, until they are applied at once (commit) or dropped (rollback).
+ * Unlike the observers of ObservableMObject, which are notified on every _set,
+ * the observers of the data manager are notified once per commit, with all the written fields,
+ * also the inverses, with their new values.
+ *
+ * The commits are applied one after the other. A commit fails (ConflictException) if a slot that the transaction
+ * has read has been written since, by another commit or out of a transaction, then none of its writes is applied.
+ * The last commit wins for a slot that two transactions write without reading it.
+ * The writes out of a transaction are applied directly, and they are not observed.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class TransactionalDataManager extends BasicDataManager {
+
+    // the open transaction of every thread.
+    private final ThreadLocal<WriteSet> transactions = new ThreadLocal<>();
+
+    // the number of open transactions, the objects do not look for a transaction if there is none.
+    private final AtomicInteger open = new AtomicInteger();
+
+    private final List<CommitObserver> observers = new CopyOnWriteArrayList<>();
+
+    @Override
+    public MObject createManagedObject(Klass klass, Object... inits) {
+        return new TransactionalMObject(klass, this, inits);
+    }
+
+    @Override
+    protected Object createManagedObjectProxy(Constructor<?> proxyConstructor, Klass schemaKlass, Object... inits) {
+        // the writes of the inverses of an object refer to its proxy before it is called
+        final Object proxy = super.createManagedObjectProxy(proxyConstructor, schemaKlass, inits);
+        MObject.of(proxy).setProxy(proxy);
+        return proxy;
+    }
+
+    public void addObserver(CommitObserver observer) {
+        this.observers.add(observer);
+    }
+
+    /**
+     * Starts a transaction on the current thread.
+     * @throws IllegalStateException if the thread has an open transaction.
+     */
+    public void begin() {
+        if (this.transactions.get() != null) {
+            throw new IllegalStateException("A transaction is already open on this thread.");
+        }
+        this.transactions.set(new WriteSet());
+        this.open.incrementAndGet();
+    }
+
+    /**
+     * Applies the writes of the transaction of the current thread, and then notifies the observers, once.
+     * @throws IllegalStateException if the thread has no open transaction.
+     * @throws ConflictException if another commit has written a slot that the transaction has read,
+     *      the transaction is closed, and none of its writes is applied.
+     */
+    public void commit() {
+        final WriteSet writeSet = close();
+
+        final List<FieldWrite> fieldWrites = new ArrayList<>();
+        synchronized (this) {
+            for (TransactionalMObject mObject : writeSet.objects()) {
+                if (!mObject.unchanged(writeSet.of(mObject))) {
+                    throw new ConflictException("The transaction has read " + mObject.schemaKlass().name() + " before a commit wrote it.");
+                }
+            }
+            for (TransactionalMObject mObject : writeSet.objects()) {
+                mObject.apply(writeSet.of(mObject), fieldWrites);
+            }
+        }
+
+        if (!fieldWrites.isEmpty()) {
+            final List<FieldWrite> committed = Collections.unmodifiableList(fieldWrites);
+            this.observers.forEach(observer -> observer.committed(committed));
+        }
+    }
+
+    /**
+     * Drops the writes of the transaction of the current thread.
+     * @throws IllegalStateException if the thread has no open transaction.
+     */
+    public void rollback() {
+        close();
+    }
+
+    /**
+     * Runs an action in a transaction, which is committed, or rolled back in case of an exception.
+     * The action runs again, in a new transaction, as long as its commit conflicts with another one.
+     * @param action the action
+     */
+    public void atomically(Runnable action) {
+        while (true) {
+            begin();
+            try {
+                action.run();
+            } catch (RuntimeException | Error e) {
+                rollback();
+                throw e;
+            }
+            try {
+                commit();
+                return;
+            } catch (ConflictException e) {
+                // another commit has written what the action has read
+            }
+        }
+    }
+
+    /**
+     * Returns true if the current thread has an open transaction.
+     */
+    public boolean inTransaction() {
+        return writeSet() != null;
+    }
+
+    /**
+     * Returns the write set of the transaction of the current thread, null if there is none.
+     */
+    WriteSet writeSet() {
+        return this.open.get() == 0 ? null : this.transactions.get();
+    }
+
+    // closes the transaction of the current thread, its objects are read and written directly again.
+    private WriteSet close() {
+        final WriteSet writeSet = this.transactions.get();
+        if (writeSet == null) {
+            throw new IllegalStateException("No transaction is open on this thread.");
+        }
+        this.transactions.remove();
+        this.open.decrementAndGet();
+        return writeSet;
+    }
+}
@@ -0,0 +1,282 @@
+package nl.cwi.examples.ccconcerns.patterns.transaction;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.MObjectField;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.NoKeyFieldException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.IndexedList;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.KeyedSet;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldMany;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldManyList;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldManySet;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+/**
+ * A Managed Object whose writes in a transaction are kept in the write set of the transaction,
+ * until it is committed (see TransactionalDataManager).
+ *
+ * The writes are kept per slot, thus the writes of the inverses (MObjectFieldSingleMObj.notify,
+ * MObjectFieldMany.notify) are kept as well, since they are slot writes of the other objects.
+ * In a transaction a many-field is read and changed in a copy of its collection.
+ * Outside of a transaction, and while the object is constructed, the slots are read and written directly.
+ *
+ * Every slot has a version, which grows on every write of the slot, also a change of the collection of a many-field.
+ * A transaction keeps the version of every slot that it reads, the commit fails if one of them has grown since.
+ *
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class TransactionalMObject extends MObject {
+
+    // null while the object is constructed.
+    private final TransactionalDataManager dataManager;
+
+    // the versions of the slots, and then of the primitive slots, null while the object is constructed.
+    private final AtomicLongArray versions;
+
+    public TransactionalMObject(Klass schemaKlass, TransactionalDataManager dataManager, Object... initializers) {
+        super(schemaKlass, initializers);
+        this.dataManager = dataManager;
+        this.versions = new AtomicLongArray(this.values.length + (this.unboxedValues == null ? 0 : this.unboxedValues.length));
+    }
+
+    @Override
+    protected Object initialValue(MObjectField mObjectField) throws UnknownTypeException {
+        if (mObjectField instanceof MObjectFieldManyList) {
+            return new VersionedList(mObjectField.getSlot(), ((MObjectFieldManyList) mObjectField).byReference());
+        }
+        if (mObjectField instanceof MObjectFieldManySet) {
+            return new VersionedSet(mObjectField.getSlot(), (MObjectFieldManySet) mObjectField);
+        }
+        return super.initialValue(mObjectField);
+    }
+
+    @Override
+    public Object __getSlot(int slot) {
+        final WriteSet writeSet = writeSet();
+        if (writeSet == null) {
+            return super.__getSlot(slot);
+        }
+
+        final WriteSet.Writes writes = writesOf(writeSet);
+        if (writes.values[slot] != WriteSet.Writes.NONE) {
+            return writes.values[slot];
+        }
+        if (isMany(slot)) {
+            return copy(writes, slot);
+        }
+        read(writes, slot);
+        return super.__getSlot(slot);
+    }
+
+    @Override
+    public void __setSlot(int slot, Object value) {
+        final WriteSet writeSet = writeSet();
+        if (writeSet == null) {
+            super.__setSlot(slot, value);
+            written(slot);
+        } else {
+            writesOf(writeSet).values[slot] = value;
+        }
+    }
+
+    @Override
+    public long __getUnboxed(int unboxedSlot) {
+        final WriteSet writeSet = writeSet();
+        if (writeSet == null) {
+            return super.__getUnboxed(unboxedSlot);
+        }
+
+        final WriteSet.Writes writes = writesOf(writeSet);
+        if (writes.unboxedWritten[unboxedSlot]) {
+            return writes.bits[unboxedSlot];
+        }
+        read(writes, this.values.length + unboxedSlot);
+        return super.__getUnboxed(unboxedSlot);
+    }
+
+    @Override
+    public void __setUnboxed(int unboxedSlot, long bits) {
+        final WriteSet writeSet = writeSet();
+        if (writeSet == null) {
+            super.__setUnboxed(unboxedSlot, bits);
+            written(this.values.length + unboxedSlot);
+        } else {
+            final WriteSet.Writes writes = writesOf(writeSet);
+            writes.bits[unboxedSlot] = bits;
+            writes.unboxedWritten[unboxedSlot] = true;
+        }
+    }
+
+    /**
+     * Returns true if no slot that a transaction has read has been written since, called under the commit lock.
+     * @param writes the writes of the object
+     */
+    boolean unchanged(WriteSet.Writes writes) {
+        for (int index = 0; index < writes.reads.length; index++) {
+            final long version = writes.reads[index];
+            if (version != WriteSet.Writes.NOT_READ && version != this.versions.get(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Applies the writes of a transaction to the object, out of the transaction, called under the commit lock.
+     * @param writes the writes of the object
+     * @param fieldWrites the written fields, with their new values
+     */
+    void apply(WriteSet.Writes writes, List<FieldWrite> fieldWrites) {
+        final MObjectField[] mObjectFields = this.layout.mObjectFields();
+
+        for (int unboxedSlot = 0; unboxedSlot < writes.bits.length; unboxedSlot++) {
+            if (writes.unboxedWritten[unboxedSlot]) {
+                super.__setUnboxed(unboxedSlot, writes.bits[unboxedSlot]);
+                written(this.values.length + unboxedSlot);
+            }
+        }
+
+        for (int slot = 0; slot < writes.values.length; slot++) {
+            final Object value = writes.values[slot];
+            if (value == WriteSet.Writes.NONE) continue;
+
+            if (isMany(slot)) {
+                if (!replace((MObjectFieldMany) mObjectFields[slot], (Collection<?>) value)) continue;
+            } else {
+                super.__setSlot(slot, value);
+                written(slot);
+            }
+            fieldWrites.add(new FieldWrite(getProxy(), mObjectFields[slot].getField().name(), mObjectFields[slot].get(this)));
+        }
+    }
+
+    // the copy of the collection of a many-field in the transaction, it is read and changed instead of the collection.
+    private Object copy(WriteSet.Writes writes, int slot) {
+        final MObjectFieldMany mObjectField = (MObjectFieldMany) this.layout.mObjectFields()[slot];
+
+        // the commits change the collection under the commit lock
+        final List<Object> values;
+        synchronized (this.dataManager) {
+            read(writes, slot);
+            values = new ArrayList<>((Collection<?>) super.__getSlot(slot));
+        }
+
+        try {
+            final Object copy = initialValue(mObjectField);
+            writes.values[slot] = copy;
+            for (Object value : values) {
+                mObjectField.__insert(this, value);
+            }
+            return copy;
+        } catch (UnknownTypeException | NoKeyFieldException e) {
+            throw new IllegalStateException("Error on copy of " + mObjectField.getField().name() + " of " + schemaKlass.name(), e);
+        }
+    }
+
+    // replaces the values of a many-field with the values of its copy, returns false if they are the same.
+    private boolean replace(MObjectFieldMany mObjectField, Collection<?> copy) {
+        final Collection<?> values = (Collection<?>) super.__getSlot(mObjectField.getSlot());
+        if (sameValues(values, copy)) {
+            return false;
+        }
+
+        mObjectField.clear(this);
+        try {
+            for (Object value : copy) {
+                mObjectField.__insert(this, value);
+            }
+        } catch (NoKeyFieldException e) {
+            throw new IllegalStateException("Error on commit of " + mObjectField.getField().name() + " of " + schemaKlass.name(), e);
+        }
+        return true;
+    }
+
+    private static boolean sameValues(Collection<?> values, Collection<?> copy) {
+        if (values.size() != copy.size()) {
+            return false;
+        }
+        final Iterator<?> copyIterator = copy.iterator();
+        for (Object value : values) {
+            if (value != copyIterator.next()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // keeps the version of a slot, or of a primitive slot (index after the slots), before it is first read.
+    private void read(WriteSet.Writes writes, int index) {
+        if (writes.reads[index] == WriteSet.Writes.NOT_READ) {
+            writes.reads[index] = this.versions.get(index);
+        }
+    }
+
+    // a slot, or a primitive slot (index after the slots), is written: after a value, before a change of a collection.
+    private void written(int index) {
+        if (this.versions != null) {
+            this.versions.incrementAndGet(index);
+        }
+    }
+
+    private WriteSet.Writes writesOf(WriteSet writeSet) {
+        return writeSet.writesOf(this, this.values.length, this.unboxedValues == null ? 0 : this.unboxedValues.length);
+    }
+
+    private WriteSet writeSet() {
+        return this.dataManager == null ? null : this.dataManager.writeSet();
+    }
+
+    private boolean isMany(int slot) {
+        return this.layout.mObjectFields()[slot] instanceof MObjectFieldMany;
+    }
+
+    // a change of the collection of a many-field, not of its copy in a transaction.
+    private void changing(int slot, Collection<?> collection) {
+        if (this.values[slot] == collection) {
+            written(slot);
+        }
+    }
+
+    /**
+     * The list of a List many-field, whose changes are writes of its slot.
+     */
+    private final class VersionedList extends IndexedList<Object> {
+
+        private final int slot;
+
+        VersionedList(int slot, boolean byReference) {
+            super(byReference);
+            this.slot = slot;
+        }
+
+        @Override
+        protected void changing() {
+            TransactionalMObject.this.changing(this.slot, this);
+        }
+    }
+
+    /**
+     * The set of a Set many-field, whose changes are writes of its slot.
+     */
+    private final class VersionedSet extends KeyedSet {
+
+        private final int slot;
+
+        VersionedSet(int slot, MObjectFieldManySet field) {
+            super(TransactionalMObject.this, field);
+            this.slot = slot;
+        }
+
+        @Override
+        protected void changing() {
+            TransactionalMObject.this.changing(this.slot, this);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package nl.cwi.examples.ccconcerns.patterns.transaction;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The writes of a transaction, and the versions of the slots that it has read,
+ * per managed object, in the order that the objects are first read or written.
+ * Discarding a transaction only drops its write set.
+ * @author Theologos Zacharopoulos
+ */
+final class WriteSet {
+
+    // <managed object, its writes>, objects are compared by reference
+    private final Map<TransactionalMObject, Writes> writes = new IdentityHashMap<>();
+
+    // the written objects, in order
+    private final List<TransactionalMObject> order = new ArrayList<>();
+
+    /**
+     * Returns the writes of an object, null if the transaction has not read or written it.
+     */
+    Writes of(TransactionalMObject mObject) {
+        return this.writes.get(mObject);
+    }
+
+    /**
+     * Returns the writes of an object, they are added if the transaction has not read or written it yet.
+     */
+    Writes writesOf(TransactionalMObject mObject, int slots, int unboxedSlots) {
+        Writes objectWrites = this.writes.get(mObject);
+        if (objectWrites == null) {
+            objectWrites = new Writes(slots, unboxedSlots);
+            this.writes.put(mObject, objectWrites);
+            this.order.add(mObject);
+        }
+        return objectWrites;
+    }
+
+    List<TransactionalMObject> objects() {
+        return this.order;
+    }
+
+    /**
+     * The written slots of a managed object, a many-field has the copy of its collection in the transaction,
+     * and the versions of the slots that the transaction has read before it wrote them.
+     */
+    static final class Writes {
+
+        // the value of a slot that has not been written
+        static final Object NONE = new Object();
+
+        // the version of a slot that has not been read
+        static final long NOT_READ = -1L;
+
+        final Object[] values;
+
+        final long[] bits;
+        final boolean[] unboxedWritten;
+
+        // the versions of the slots, and then of the primitive slots, as they were first read
+        final long[] reads;
+
+        Writes(int slots, int unboxedSlots) {
+            this.values = new Object[slots];
+            Arrays.fill(this.values, NONE);
+            this.bits = new long[unboxedSlots];
+            this.unboxedWritten = new boolean[unboxedSlots];
+            this.reads = new long[slots + unboxedSlots];
+            Arrays.fill(this.reads, NOT_READ);
+        }
+    }
+}
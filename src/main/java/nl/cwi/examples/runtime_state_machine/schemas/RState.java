@@ -4,7 +4,7 @@ import nl.cwi.examples.state_machine.schemas.State;
 import nl.cwi.examples.state_machine.schemas.Transition;
 
 public interface RState extends State {
-    Integer count(Integer... count);
+    int count(int... count);
 
     default boolean handle(String event) {
         for (Transition transition : out()) {
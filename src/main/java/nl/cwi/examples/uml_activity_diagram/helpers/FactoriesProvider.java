@@ -35,13 +35,43 @@ import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
 import nl.cwi.managed_data_4j.language.data_manager.IDataManager;
 import nl.cwi.managed_data_4j.language.schema.boot.SchemaFactory;
 import nl.cwi.managed_data_4j.language.schema.load.SchemaLoader;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
 import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
 
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
 public class FactoriesProvider {
 
     final static SchemaFactory schemaFactory = SchemaFactoryProvider.getSchemaFactory();
 
-    final static Schema activityDiagramSchema = SchemaLoader.load(schemaFactory,
+    final static Schema activityDiagramSchema = loadActivityDiagramSchema();
+
+    final static Schema runtimeActivityDiagramSchema = loadRuntimeActivityDiagramSchema();
+
+    /**
+     * Loads the schema of the (static) activity diagrams.
+     * @return the schema
+     */
+    public static Schema loadActivityDiagramSchema() {
+        return SchemaLoader.load(schemaFactory, activityDiagramDefinitions());
+    }
+
+    /**
+     * Loads the schema of the runtime activity diagrams, which extends the static one.
+     * @return the schema
+     */
+    public static Schema loadRuntimeActivityDiagramSchema() {
+        return SchemaLoader.load(schemaFactory, runtimeActivityDiagramDefinitions());
+    }
+
+    /**
+     * Returns the definitions of the schema of the (static) activity diagrams.
+     */
+    public static Class<?>[] activityDiagramDefinitions() {
+        return new Class<?>[] {
 
             // Activity
             Activity.class,
@@ -67,9 +97,15 @@ public class FactoriesProvider {
             IntegerExpression.class, IntegerCalculationExpression.class, IntegerComparisonExpression.class,
 
             // Primitives
-            OperatorsPrimitives.class);
+            OperatorsPrimitives.class
+        };
+    }
 
-    final static Schema runtimeActivityDiagramSchema = SchemaLoader.load(schemaFactory,
+    /**
+     * Returns the definitions of the schema of the runtime activity diagrams.
+     */
+    public static Class<?>[] runtimeActivityDiagramDefinitions() {
+        return new Class<?>[] {
 
             // Activity
             Activity.class,
@@ -109,7 +145,9 @@ public class FactoriesProvider {
             Offer.class, Trace.class,
 
             // Primitives
-            OperatorsPrimitives.class);
+            OperatorsPrimitives.class
+        };
+    }
 
     private static IDataManager dataManager = new BasicDataManager();
 
@@ -130,4 +168,41 @@ public class FactoriesProvider {
     public static RuntimeActivityFactory getRuntimeActivityDiagramFactory() {
         return runtimeActivityFactory;
     }
+
+    /**
+     * Runs the activities on another data manager, the objects that they create while they run
+     * (e.g. the tokens and the offers) are created by it, e.g. a PoolingDataManager recycles the taken offers.
+     * @param dataManager the data manager of the static and the runtime factory
+     */
+    public static void useDataManager(IDataManager dataManager) {
+        FactoriesProvider.dataManager = dataManager;
+        activityDiagramFactory = dataManager.factory(ActivityFactory.class, runtimeActivityDiagramSchema);
+        runtimeActivityFactory = dataManager.factory(RuntimeActivityFactory.class, runtimeActivityDiagramSchema);
+    }
+
+    // <Klass name, Klass> of the runtime schema
+    private static Map<String, Klass> runtimeKlasses = new HashMap<>();
+    static {
+        runtimeActivityDiagramSchema.klasses().forEach(klass -> runtimeKlasses.put(klass.name(), klass));
+    }
+
+    /**
+     * Creates many runtime objects at once, by the data manager of the runtime factory.
+     * @param definition the definition of the objects (e.g. ForkedToken.class)
+     * @param count the number of the objects
+     * @param initializer initializes every object with its index
+     * @return the new objects, in order.
+     */
+    public static <T> List<T> createRuntimeObjects(Class<T> definition, int count, ObjIntConsumer<? super T> initializer) {
+        return dataManager.createMany(runtimeKlasses.get(definition.getSimpleName()), count, initializer);
+    }
+
+    /**
+     * Returns a new runtime factory of another data manager.
+     * @param dataManager the data manager
+     * @return the runtime factory
+     */
+    public static RuntimeActivityFactory getRuntimeActivityDiagramFactory(IDataManager dataManager) {
+        return dataManager.factory(RuntimeActivityFactory.class, runtimeActivityDiagramSchema);
+    }
 }
@@ -1,6 +1,7 @@
 package nl.cwi.examples.uml_activity_diagram.schemas.runtime_diagram.runtime_edges;
 
 import nl.cwi.examples.uml_activity_diagram.helpers.FactoriesProvider;
+import nl.cwi.managed_data_4j.language.managed_object.pooling.Releasable;
 import nl.cwi.managed_data_4j.language.schema.models.definition.annotations.Contain;
 import nl.cwi.examples.uml_activity_diagram.schemas.runtime_diagram.tokens.Token;
 import nl.cwi.examples.uml_activity_diagram.schemas.runtime_diagram.trace.Offer;
@@ -27,11 +28,19 @@ public interface RuntimeActivityEdge extends ActivityEdge {
     default List<Token> takeOfferedTokens() {
         List<Token> tokens = new ArrayList<Token>();
 
-        for (Offer o : offers()) {
+        List<Offer> takenOffers = new ArrayList<Offer>(offers());
+        for (Offer o : takenOffers) {
             tokens.addAll(o.offeredTokens());
         }
         offers().clear();
 
+        // the offers are not used anymore, they can be recycled (see PoolingDataManager)
+        for (Offer o : takenOffers) {
+            if (o instanceof Releasable) {
+                ((Releasable) o).release();
+            }
+        }
+
         return tokens;
     }
 
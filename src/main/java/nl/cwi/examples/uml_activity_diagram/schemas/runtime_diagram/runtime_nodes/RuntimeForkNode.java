@@ -12,14 +12,12 @@ public interface RuntimeForkNode extends RuntimeControlNode, ForkNode {
 
     @Override
     default void fire(List<Token> tokens) {
-        List<Token> forkedTokens = new ArrayList<Token>();
-        for(Token token : tokens) {
-            ForkedToken forkedToken = FactoriesProvider.getRuntimeActivityDiagramFactory().ForkedToken();
-
-            forkedToken.baseToken(token);
-            forkedToken.remainingOffersCount(outgoing().size());
-            forkedTokens.add(forkedToken);
-        }
+        final int outgoingCount = outgoing().size();
+        List<Token> forkedTokens = new ArrayList<Token>(FactoriesProvider.createRuntimeObjects(
+            ForkedToken.class, tokens.size(), (forkedToken, i) -> {
+                forkedToken.baseToken(tokens.get(i));
+                forkedToken.remainingOffersCount(outgoingCount);
+            }));
         addTokens(forkedTokens);
         sendOffers(forkedTokens);
     }
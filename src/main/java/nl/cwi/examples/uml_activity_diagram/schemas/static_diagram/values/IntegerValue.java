@@ -1,5 +1,5 @@
 package nl.cwi.examples.uml_activity_diagram.schemas.static_diagram.values;
 
 public interface IntegerValue extends Value {
-	Integer value(Integer... value);
+	int value(int... value);
 }
\ No newline at end of file
@@ -1,12 +1,22 @@
 package nl.cwi.managed_data_4j.language.data_manager;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
 import java.util.stream.Collectors;
 
 import nl.cwi.managed_data_4j.IFactory;
+import nl.cwi.managed_data_4j.language.managed_object.KlassLayout;
+import nl.cwi.managed_data_4j.language.managed_object.KlassMObject;
 import nl.cwi.managed_data_4j.language.managed_object.MObject;
 import nl.cwi.managed_data_4j.language.primitives.PrimitivesManager;
 import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
@@ -18,6 +28,14 @@ import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
  */
 public class BasicDataManager implements IDataManager {
 
+    protected static final Object[] NO_INITS = new Object[0];
+
+    protected static final Class<?>[] NO_INTERFACES = new Class<?>[0];
+
+    // the key of the proxy constructors of the data manager in the layouts of the klasses (see proxyConstructorFor):
+    // Proxy and the interfaces of the data manager, null until it is first used.
+    private volatile List<Class<?>> proxyKey;
+
     /**
      * Used to build data managers which build managed objects.
      *
@@ -28,70 +46,198 @@ public class BasicDataManager implements IDataManager {
      * @param factoryClass the Class of the Schema-Factory.
      * @param schema the schema of the managed object which will be built.
      * @param additionalInterfaces (Optional) extra proxy Interfaces which will be attached to
-     *                          the Dynamic proxy of the managed object.
+     *                          the Dynamic proxy of the managed object, besides the ones of the data manager.
      * @return a new factory which creates managed objects.
      */
     @SuppressWarnings("unchecked")
     public <T extends IFactory> T factory(Class<T> factoryClass, Schema schema, Class<?>... additionalInterfaces) {
     	
     	List<Class<?>> ifaces = interfacesForSchema(schema);
-    	ifaces.addAll(Arrays.asList(additionalInterfaces));
-    	
+    	ifaces.addAll(withOwnInterfaces(additionalInterfaces));
+
+        // the proxies of all the managed objects of the factory have the same interfaces, thus the same class.
+        final Class<?>[] proxyInterfaces = onlyNonPrimitives(ifaces).toArray(new Class<?>[0]);
+        final Constructor<?> proxyConstructor = proxyConstructor(factoryClass.getClassLoader(), proxyInterfaces);
+
+        // <factory method, what it creates>
+        final Map<Method, FactoryMethod> factoryMethods = new HashMap<>();
+        klassesForMethods(factoryClass, schema).forEach((method, klass) ->
+            factoryMethods.put(method, new FactoryMethod(klass, proxyConstructor)));
+
         return (T) Proxy.newProxyInstance(
             factoryClass.getClassLoader(),
             new Class<?>[]{factoryClass},
-            (proxy, method, args) ->
-                createManagedObjectProxy(factoryClass, schema, 
-                		onlyNonPrimitives(ifaces),
-                		method, args)
+            (proxy, method, args) -> {
+                final FactoryMethod factoryMethod = factoryMethods.get(method);
+                final Klass schemaKlass = factoryMethod != null ? factoryMethod.klass : klassForMethod(method, schema);
+                return createManagedObjectProxy(proxyConstructor, schemaKlass, args);
+            }
         );
     }
 
+    /**
+     * Returns the interfaces that the managed objects of the data manager have besides the ones of their schema,
+     * e.g. Releasable. The factories add them to their additional interfaces,
+     * and the objects that are created without a factory (createMany) have them as well.
+     * @return the interfaces, the same on every call
+     */
+    protected Class<?>[] additionalInterfaces() {
+        return NO_INTERFACES;
+    }
+
+    /**
+     * Creates many managed objects of a klass at once,
+     * with the interfaces of its schema and of the data manager (additionalInterfaces).
+     * The proxy class is resolved once, all the objects are created one after the other,
+     * and then initialized in order, thus the initializer can already refer to all of them.
+     *
+     * @param klass the schema klass of the managed objects
+     * @param count the number of the managed objects
+     * @param initializer (Optional) initializes every object with its index, e.g. sets its fields.
+     * @return the new managed objects (proxies), in order.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<T> createMany(Klass klass, int count, ObjIntConsumer<? super T> initializer) {
+        checkCount(klass, count);
+
+        final Constructor<?> proxyConstructor = proxyConstructorFor(klass);
+
+        final List<T> objects = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            objects.add((T) createManagedObjectProxy(proxyConstructor, klass, NO_INITS));
+        }
+        initialize(objects, initializer);
+        return objects;
+    }
+
+    /**
+     * Returns the constructor of the proxies of the managed objects of a klass,
+     * with the interfaces of its schema and of the data manager (additionalInterfaces).
+     * It is built once per klass and data manager class, and kept with the layout of the klass.
+     * @param klass the schema klass
+     * @return the proxy constructor, it takes the managed object (invocation handler).
+     */
+    protected Constructor<?> proxyConstructorFor(Klass klass) {
+        List<Class<?>> key = this.proxyKey;
+        if (key == null) {
+            key = new ArrayList<>();
+            key.add(Proxy.class);
+            key.addAll(withOwnInterfaces(NO_INTERFACES));
+            this.proxyKey = key;
+        }
+
+        final List<Class<?>> ownInterfaces = key.subList(1, key.size());
+        return KlassLayout.of(klass).shared(key, () -> {
+            final List<Class<?>> ifaces = interfacesForSchema(klass.schema());
+            ifaces.addAll(ownInterfaces);
+            return proxyConstructor(klass.classOf().getClassLoader(), onlyNonPrimitives(ifaces).toArray(new Class<?>[0]));
+        });
+    }
+
+    /**
+     * Returns the interfaces of the data manager (additionalInterfaces) and the given ones, without repetitions.
+     * @param additionalInterfaces the additional interfaces of a factory
+     * @return the interfaces, the ones of the data manager first
+     */
+    protected List<Class<?>> withOwnInterfaces(Class<?>[] additionalInterfaces) {
+        final LinkedHashSet<Class<?>> ifaces = new LinkedHashSet<>(Arrays.asList(additionalInterfaces()));
+        ifaces.addAll(Arrays.asList(additionalInterfaces));
+        return new ArrayList<>(ifaces);
+    }
+
+    /**
+     * Checks the number of the objects of createMany.
+     */
+    protected static void checkCount(Klass klass, int count) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Negative number of objects of " + klass.name() + ": " + count);
+        }
+    }
+
+    /**
+     * Initializes the objects of createMany in order, with their index.
+     */
+    protected static <T> void initialize(List<T> objects, ObjIntConsumer<? super T> initializer) {
+        if (initializer == null) return;
+
+        for (int i = 0; i < objects.size(); i++) {
+            initializer.accept(objects.get(i), i);
+        }
+    }
+
     private List<Class<?>> interfacesForSchema(Schema schema){
     	return schema.klasses().stream()
     		.map((klass) -> { return klass.classOf(); })
     		.collect(Collectors.toList());
     }
     
-    private List<Class<?>> onlyNonPrimitives(List<Class<?>> ifaces){
+    protected List<Class<?>> onlyNonPrimitives(List<Class<?>> ifaces){
     	return ifaces.stream()
     		.filter((iface) -> (!PrimitivesManager.getInstance().isPrimitiveClass(iface)))
     		.collect(Collectors.toList());
     }
+
+    /**
+     * Resolves the Klass that every method of a factory creates, the klass of the return type of the method.
+     * @param factoryClass the Class of the Schema-Factory.
+     * @param schema the schema of the managed objects.
+     * @return the klasses by method, methods which do not create a klass of the schema are left out.
+     */
+    protected Map<Method, Klass> klassesForMethods(Class<?> factoryClass, Schema schema) {
+        final Map<String, Klass> klassesByName = new HashMap<>();
+        schema.klasses().forEach(klass -> klassesByName.putIfAbsent(klass.name(), klass));
+
+        final Map<Method, Klass> klasses = new HashMap<>();
+        for (Method method : factoryClass.getMethods()) {
+            final Klass klass = klassesByName.get(method.getReturnType().getSimpleName());
+            if (klass != null) {
+                klasses.put(method, klass);
+            }
+        }
+        return klasses;
+    }
+
+    /**
+     * The constructor of the proxy class of the given interfaces, it takes the invocation handler.
+     * The class is the class of a first proxy, which is not used.
+     */
+    private static Constructor<?> proxyConstructor(ClassLoader classLoader, Class<?>[] interfaces) {
+        final InvocationHandler unused = (proxy, method, args) -> {
+            throw new UnsupportedOperationException(method.getName());
+        };
+        try {
+            return Proxy.newProxyInstance(classLoader, interfaces, unused).getClass().getConstructor(InvocationHandler.class);
+        } catch (NoSuchMethodException e) {
+            throw new RuntimeException("Error on proxy creation of " + Arrays.toString(interfaces), e);
+        }
+    }
     
     /**
      * Creates a proxy for a managed object.
      * The reason of using a proxy here is to add methods
      * on the returned object since Java does not support dynamic method attachment.
      *
-     * @param factoryClass the Class of the IFactory.
-     * @param schema the schema of the managed object which will be built.
-     * @param schemaFactoryCallingMethod the method that is called to the schema factory
-     *                                    in order to create a managed object instance.
+     * @param proxyConstructor the constructor of the proxy class, which proxies the interfaces of the schema.
+     * @param schemaKlass the schema klass of the managed object which will be built.
      * @param inits (Optional) a list of initialization props for the object construction.
      *
      * @return a new Proxied ManagedObject.
      */
-    private Object createManagedObjectProxy(
-            Class<?> factoryClass, Schema schema, List<Class<?>> additionalIfaces,
-            Method schemaFactoryCallingMethod, Object... inits)
-    {
-        // Find the schema klass
-        final Klass schemaKlass = klassForMethod(schemaFactoryCallingMethod, schema);
-        
-        return Proxy.newProxyInstance(
-        		// the class loader of the return type of the called method of the schema factory.
-                factoryClass.getClassLoader(),
-
-                // the interfaces that the Proxy will proxy.
-                additionalIfaces.toArray(new Class[additionalIfaces.size()]),
-
-                // proxy it to a new Managed Object
-                createManagedObject(schemaKlass, inits));
+    protected Object createManagedObjectProxy(Constructor<?> proxyConstructor, Klass schemaKlass, Object... inits) {
 
+        // proxy it to a new Managed Object
+        final MObject mObject = createManagedObject(schemaKlass, inits);
+        try {
+            return proxyConstructor.newInstance(mObject);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException("Error on creation of " + schemaKlass.name(), e.getCause());
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new RuntimeException("Error on creation of " + schemaKlass.name(), e);
+        }
     }
     
-    private Klass klassForMethod(Method method, Schema schema){
+    protected Klass klassForMethod(Method method, Schema schema){
     	return  schema.klasses().stream()
                 .filter(klass -> klass.name().equals(method.getReturnType().getSimpleName()))
                 .findFirst()
@@ -109,9 +255,29 @@ public class BasicDataManager implements IDataManager {
      */
     @Override
 	public MObject createManagedObject(Klass klass, Object... inits) {
+
+        // the klasses of a schema keep the layouts of their objects
+        if (KlassLayout.of(klass).isKlassOfKlasses()) {
+            return new KlassMObject(klass, inits);
+        }
         return new MObject(klass, inits); // return a basic managed object
     }
 
+    /**
+     * What a method of a factory creates, resolved once when the factory is built:
+     * the Klass and the constructor of the managed objects.
+     */
+    protected static final class FactoryMethod {
+
+        public final Klass klass;
+        public final Constructor<?> constructor;
+
+        public FactoryMethod(Klass klass, Constructor<?> constructor) {
+            this.klass = klass;
+            this.constructor = constructor;
+        }
+    }
+
     protected static Class<?>[] addAll(Class<?>[] additional, Class<?> push) {
         Class<?>[] longer = new Class<?>[additional.length + 1];
         System.arraycopy(additional, 0, longer, 0, additional.length);
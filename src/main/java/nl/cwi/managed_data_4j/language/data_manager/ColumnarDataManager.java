@@ -0,0 +1,76 @@
+package nl.cwi.managed_data_4j.language.data_manager;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import nl.cwi.managed_data_4j.language.managed_object.KlassLayout;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.columnar.ColumnarMObject;
+import nl.cwi.managed_data_4j.language.managed_object.columnar.KlassColumns;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+/**
+ * A data manager which keeps the values of its managed objects in columns per Klass (see KlassColumns),
+ * instead of in the objects, for large populations of objects of the same Klass (e.g. values, counters).
+ *
+ * A managed object is only a handle to its id in the columns, without values of its own,
+ * and the values of a field of all the objects can be scanned in id order, e.g.
+ *      columnarDataManager.columns(counterKlass).longs("count").sum()
+ * The columns keep the values of an object until it is released (see release), not the object itself,
+ * which is opened again, as a new handle of its id, when it is needed after it is collected.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class ColumnarDataManager extends BasicDataManager {
+
+    // <Klass, columns>, klasses are compared by reference
+    private final Map<Klass, KlassColumns> columns = new IdentityHashMap<>();
+
+    /**
+     * Returns the columns of the managed objects of a Klass.
+     * @param klass the schema klass
+     * @return the columns, empty if the Klass has no objects yet.
+     */
+    public synchronized KlassColumns columns(Klass klass) {
+        return this.columns.computeIfAbsent(klass, k -> new KlassColumns(KlassLayout.of(k), id -> open(k, id)));
+    }
+
+    /**
+     * Releases a managed object, its values are dropped and its id is reused by the next object of its Klass.
+     * Only the values are dropped, the program must not refer to the object anymore (e.g. by the fields of others).
+     * @param object the managed object (proxy)
+     */
+    public void release(Object object) {
+        final ColumnarMObject mObject = (ColumnarMObject) MObject.of(object);
+        columns(mObject.schemaKlass()).release(mObject.__id());
+    }
+
+    @Override
+    public MObject createManagedObject(Klass klass, Object... inits) {
+        return new ColumnarMObject(klass, columns(klass), inits);
+    }
+
+    @Override
+    protected Object createManagedObjectProxy(Constructor<?> proxyConstructor, Klass schemaKlass, Object... inits) {
+
+        // the columns refer to the proxy of the object
+        final Object proxy = super.createManagedObjectProxy(proxyConstructor, schemaKlass, inits);
+        MObject.of(proxy).setProxy(proxy);
+        return proxy;
+    }
+
+    // opens a handle of an existing id, with a new proxy
+    private MObject open(Klass klass, int id) {
+        final MObject mObject = ColumnarMObject.existing(klass, columns(klass), id);
+        try {
+            mObject.setProxy(proxyConstructorFor(klass).newInstance(mObject));
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException("Error on opening of " + klass.name(), e.getCause());
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new RuntimeException("Error on opening of " + klass.name(), e);
+        }
+        return mObject;
+    }
+}
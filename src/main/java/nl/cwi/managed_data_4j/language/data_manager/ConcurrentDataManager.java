@@ -0,0 +1,19 @@
+package nl.cwi.managed_data_4j.language.data_manager;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.concurrent.ConcurrentMObject;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+/**
+ * A data manager which builds managed objects that can be shared by many threads,
+ * without any synchronization from the outside (see ConcurrentMObject).
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class ConcurrentDataManager extends BasicDataManager {
+
+    @Override
+    public MObject createManagedObject(Klass klass, Object... inits) {
+        return new ConcurrentMObject(klass, inits);
+    }
+}
@@ -0,0 +1,49 @@
+package nl.cwi.managed_data_4j.language.data_manager;
+
+import nl.cwi.managed_data_4j.M;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.copy_on_write.CopyOnWriteMObject;
+import nl.cwi.managed_data_4j.language.managed_object.copy_on_write.Fork;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+import java.lang.reflect.Constructor;
+
+/**
+ * A data manager whose graphs can be forked: a fork is a copy of the spine of a graph
+ * whose objects share the values of the graph, until either of them is written (see CopyOnWriteMObject).
+ *
+ * Forking a graph only walks its spine, the copies are created and filled as the fork is used,
+ * e.g. a runtime activity can be forked to try an execution, and only the changed objects are copied.
+ * See MObjectUtils.copy for a copy of a graph at once, of any data manager.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class CopyOnWriteDataManager extends BasicDataManager {
+
+    @Override
+    public MObject createManagedObject(Klass klass, Object... inits) {
+        return new CopyOnWriteMObject(klass, inits);
+    }
+
+    @Override
+    protected Object createManagedObjectProxy(Constructor<?> proxyConstructor, Klass schemaKlass, Object... inits) {
+        // an object of a fork creates its copy by its proxy, even if it is not called yet
+        final Object proxy = super.createManagedObjectProxy(proxyConstructor, schemaKlass, inits);
+        MObject.of(proxy).setProxy(proxy);
+        return proxy;
+    }
+
+    /**
+     * Forks a graph of managed objects of this data manager.
+     * @param root the root of the graph
+     * @return the copy of the root
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends M> T fork(T root) {
+        return (T) Fork.fork(root, this::createCopy);
+    }
+
+    private Object createCopy(Klass klass) {
+        return createManagedObjectProxy(proxyConstructorFor(klass), klass, NO_INITS);
+    }
+}
@@ -0,0 +1,125 @@
+package nl.cwi.managed_data_4j.language.data_manager;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+import nl.cwi.managed_data_4j.IFactory;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.generated.MObjectClassGenerator;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+
+/**
+ * A data manager which builds managed objects of generated classes instead of dynamic proxies.
+ *
+ * A class is generated per Klass when the factory is built,
+ * it extends the Managed Object of the data manager and implements the schema definition of the Klass,
+ * therefore the managed objects are called directly, and the default methods are inherited.
+ *
+ * Derived data managers choose the Managed Object to extend with managedObjectClass(),
+ * it should have a constructor (Klass, Object...).
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class GeneratedDataManager extends BasicDataManager {
+
+    private final MObjectClassGenerator generator = new MObjectClassGenerator();
+
+    // the interfaces of the data manager (additionalInterfaces), null until they are first used.
+    private volatile List<Class<?>> ownInterfaces;
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends IFactory> T factory(Class<T> factoryClass, Schema schema, Class<?>... additionalInterfaces) {
+        final List<Class<?>> ifaces = onlyNonPrimitives(withOwnInterfaces(additionalInterfaces));
+
+        // generate the classes of the schema ahead of the first object
+        schema.klasses().forEach(klass -> generator.constructorFor(klass, managedObjectClass(), ifaces));
+
+        // <factory method, what it creates>
+        final Map<Method, FactoryMethod> factoryMethods = new HashMap<>();
+        klassesForMethods(factoryClass, schema).forEach((method, klass) ->
+            factoryMethods.put(method, new FactoryMethod(klass, generator.constructorFor(klass, managedObjectClass(), ifaces))));
+
+        return (T) Proxy.newProxyInstance(
+            factoryClass.getClassLoader(),
+            new Class<?>[]{factoryClass},
+            (proxy, method, args) -> {
+                final FactoryMethod factoryMethod = factoryMethods.get(method);
+                if (factoryMethod == null) {
+                    final Klass klass = klassForMethod(method, schema);
+                    return newManagedObject(klass, generator.constructorFor(klass, managedObjectClass(), ifaces), args);
+                }
+                return newManagedObject(factoryMethod.klass, factoryMethod.constructor, args);
+            }
+        );
+    }
+
+    /**
+     * The Managed Object which the generated classes extend.
+     * @return the class of the Managed Object
+     */
+    protected Class<? extends MObject> managedObjectClass() {
+        return MObject.class;
+    }
+
+    @Override
+    public MObject createManagedObject(Klass klass, Object... inits) {
+        return newManagedObject(klass, generator.constructorFor(klass, managedObjectClass(), ownInterfaces()), inits);
+    }
+
+    /**
+     * Creates many managed objects of a klass at once, with the interfaces of the data manager (additionalInterfaces).
+     * The generated class is resolved once, all the objects are created one after the other,
+     * and then initialized in order.
+     *
+     * @param klass the schema klass of the managed objects
+     * @param count the number of the managed objects
+     * @param initializer (Optional) initializes every object with its index, e.g. sets its fields.
+     * @return the new managed objects, in order.
+     */
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> List<T> createMany(Klass klass, int count, ObjIntConsumer<? super T> initializer) {
+        checkCount(klass, count);
+
+        final Constructor<?> constructor = generator.constructorFor(klass, managedObjectClass(), ownInterfaces());
+
+        final List<T> objects = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            objects.add((T) newManagedObject(klass, constructor, NO_INITS));
+        }
+        initialize(objects, initializer);
+        return objects;
+    }
+
+    // the interfaces of the data manager, the same for every klass.
+    private List<Class<?>> ownInterfaces() {
+        List<Class<?>> ifaces = this.ownInterfaces;
+        if (ifaces == null) {
+            ifaces = onlyNonPrimitives(withOwnInterfaces(NO_INTERFACES));
+            this.ownInterfaces = ifaces;
+        }
+        return ifaces;
+    }
+
+    private MObject newManagedObject(Klass klass, Constructor<?> constructor, Object... inits) {
+        try {
+            return (MObject) constructor.newInstance(klass, inits);
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException("Error on creation of " + klass.name(), e.getCause());
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new RuntimeException("Error on creation of " + klass.name(), e);
+        }
+    }
+}
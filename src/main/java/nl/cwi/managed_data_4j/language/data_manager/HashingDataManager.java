@@ -0,0 +1,32 @@
+package nl.cwi.managed_data_4j.language.data_manager;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.hashing.Fingerprinted;
+import nl.cwi.managed_data_4j.language.managed_object.hashing.HashedMObject;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+/**
+ * A data manager whose managed objects remember the structural hash of their spine.
+ *
+ * The managed objects are Fingerprinted, a hash is computed once and kept until the object changes
+ * (see HashedMObject), thus a graph can be hashed again after a change in the time of the change,
+ * and MObjectUtils.equals returns false at once for two graphs with different hashes.
+ * It is meant for models that are compared or used as keys (see GraphKey) more often than they change.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class HashingDataManager extends BasicDataManager {
+
+    // the managed objects are Fingerprinted.
+    private static final Class<?>[] INTERFACES = { Fingerprinted.class };
+
+    @Override
+    protected Class<?>[] additionalInterfaces() {
+        return INTERFACES;
+    }
+
+    @Override
+    public MObject createManagedObject(Klass klass, Object... inits) {
+        return new HashedMObject(klass, inits);
+    }
+}
@@ -5,6 +5,10 @@ import nl.cwi.managed_data_4j.M;
 import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
 import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+
 /**
  * The Data manager interface
  * @author Theologos Zacharopoulos
@@ -12,4 +16,33 @@ import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
 public interface IDataManager {
     <T extends IFactory> T factory(Class<T> factoryClass, Schema schema, Class<?>... additionalInterfaces);
     M createManagedObject(Klass klass, Object... inits);
+
+    /**
+     * Creates many managed objects of a klass at once, as the objects of a factory of its schema.
+     * By default the objects are created one by one (createManagedObject), and then initialized in order,
+     * the data managers resolve everything that does not depend on the object
+     * (the klass, its layout, the class of the objects) once for all of them.
+     *
+     * @param klass the schema klass of the managed objects
+     * @param count the number of the managed objects
+     * @param initializer (Optional) initializes every object with its index, e.g. sets its fields.
+     * @return the new managed objects, in order.
+     */
+    @SuppressWarnings("unchecked")
+    default <T> List<T> createMany(Klass klass, int count, ObjIntConsumer<? super T> initializer) {
+        if (count < 0) {
+            throw new IllegalArgumentException("Negative number of objects of " + klass.name() + ": " + count);
+        }
+
+        final List<T> objects = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            objects.add((T) createManagedObject(klass));
+        }
+        if (initializer != null) {
+            for (int i = 0; i < count; i++) {
+                initializer.accept(objects.get(i), i);
+            }
+        }
+        return objects;
+    }
 }
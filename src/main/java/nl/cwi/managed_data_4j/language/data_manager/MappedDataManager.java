@@ -0,0 +1,201 @@
+package nl.cwi.managed_data_4j.language.data_manager;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationTargetException;
+import java.nio.file.Path;
+import java.util.AbstractList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.mapped.MappedMObject;
+import nl.cwi.managed_data_4j.language.managed_object.mapped.MappedStore;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+
+/**
+ * A data manager which keeps its managed objects in memory mapped files (see MappedStore),
+ * thus they outlive the program, and a model is reopened without reading (or deserializing) it.
+ *
+ * The managed objects of a reopened model are created when they are first reached,
+ * from a reference or by their id, e.g.
+ *      final MappedDataManager manager = new MappedDataManager(directory, schema);
+ *      final PersonFactory factory = manager.factory(PersonFactory.class, schema);
+ *      final List<Person> people = manager.objects(personKlass);
+ *      ...
+ *      manager.close();
+ * Every record has a single managed object, so they can be compared by reference.
+ * The data manager does not keep the objects that are no longer used (but not flushed yet, see MappedMObject),
+ * the object of a record is opened again the next time it is reached.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class MappedDataManager extends BasicDataManager implements Closeable {
+
+    private final MappedStore store;
+
+    // <record, its managed object (proxy)>, weakly referenced
+    private final Map<RecordKey, ObjectReference> objects = new HashMap<>();
+
+    // the references of the collected objects, they are removed from the objects.
+    private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+
+    /**
+     * Opens the managed objects of a schema in a directory, it is created if it does not exist.
+     * @param directory the directory of the files
+     * @param schema the schema of the managed objects
+     * @throws IOException in case the files can not be mapped, or they are not of the schema.
+     */
+    public MappedDataManager(Path directory, Schema schema) throws IOException {
+        this.store = MappedStore.open(directory, schema, this::object);
+    }
+
+    /**
+     * Returns the managed object of a record.
+     * @param klass the schema klass of the object
+     * @param id the id of the object in its klass
+     * @return the managed object (proxy)
+     */
+    public synchronized Object object(Klass klass, int id) {
+        expunge();
+        final RecordKey key = new RecordKey(klass, id);
+        final ObjectReference reference = this.objects.get(key);
+        final Object existing = reference == null ? null : reference.get();
+        if (existing != null) {
+            return existing;
+        }
+
+        final MObject mObject = MappedMObject.existing(klass, this.store, id);
+        final Object proxy = newProxy(proxyConstructorFor(klass), klass, mObject);
+        mObject.setProxy(proxy);
+        this.objects.put(key, new ObjectReference(proxy, key, this.collected));
+        return proxy;
+    }
+
+    /**
+     * Returns the managed objects of a Klass, in id order.
+     * @param klass the schema klass
+     * @return a view of the objects, they are created when they are used.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> List<T> objects(Klass klass) {
+        return new AbstractList<T>() {
+            @Override
+            public T get(int id) {
+                return (T) object(klass, id);
+            }
+
+            @Override
+            public int size() {
+                return MappedDataManager.this.size(klass);
+            }
+        };
+    }
+
+    /**
+     * Returns the number of the managed objects of a Klass.
+     * @param klass the schema klass
+     * @return the number of the objects
+     */
+    public int size(Klass klass) {
+        return this.store.count(klass);
+    }
+
+    @Override
+    public MObject createManagedObject(Klass klass, Object... inits) {
+        return new MappedMObject(klass, this.store, inits);
+    }
+
+    @Override
+    protected Object createManagedObjectProxy(Constructor<?> proxyConstructor, Klass schemaKlass, Object... inits) {
+
+        // the records refer to the proxy of the object
+        final Object proxy = super.createManagedObjectProxy(proxyConstructor, schemaKlass, inits);
+        final MappedMObject mObject = (MappedMObject) MObject.of(proxy);
+        mObject.setProxy(proxy);
+        synchronized (this) {
+            expunge();
+            final RecordKey key = new RecordKey(schemaKlass, mObject.__id());
+            this.objects.put(key, new ObjectReference(proxy, key, this.collected));
+        }
+        return proxy;
+    }
+
+    // removes the records of the collected objects.
+    private void expunge() {
+        Reference<?> reference;
+        while ((reference = this.collected.poll()) != null) {
+            final RecordKey key = ((ObjectReference) reference).key;
+            if (this.objects.get(key) == reference) {
+                this.objects.remove(key);
+            }
+        }
+    }
+
+    private static Object newProxy(Constructor<?> proxyConstructor, Klass klass, MObject mObject) {
+        try {
+            return proxyConstructor.newInstance(mObject);
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException("Error on opening of " + klass.name(), e.getCause());
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new RuntimeException("Error on opening of " + klass.name(), e);
+        }
+    }
+
+    /**
+     * Writes all the changes to the files, the files are consistent only after a flush (see MappedMObject).
+     */
+    public void flush() {
+        this.store.flush();
+    }
+
+    /**
+     * Writes all the changes to the files and closes them, the managed objects can not be used after.
+     * @throws IOException in case the files can not be written.
+     */
+    @Override
+    public void close() throws IOException {
+        this.store.close();
+    }
+
+    /**
+     * A weak reference to the managed object of a record.
+     */
+    private static final class ObjectReference extends WeakReference<Object> {
+        private final RecordKey key;
+
+        ObjectReference(Object proxy, RecordKey key, ReferenceQueue<Object> queue) {
+            super(proxy, queue);
+            this.key = key;
+        }
+    }
+
+    /**
+     * The key of a record, its klass (by reference) and its id.
+     */
+    private static final class RecordKey {
+        private final Klass klass;
+        private final int id;
+
+        RecordKey(Klass klass, int id) {
+            this.klass = klass;
+            this.id = id;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof RecordKey && ((RecordKey) other).klass == this.klass && ((RecordKey) other).id == this.id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(this.klass) + this.id;
+        }
+    }
+}
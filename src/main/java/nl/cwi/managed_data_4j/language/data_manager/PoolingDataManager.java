@@ -0,0 +1,69 @@
+package nl.cwi.managed_data_4j.language.data_manager;
+
+import java.lang.reflect.Constructor;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.pooling.MObjectPool;
+import nl.cwi.managed_data_4j.language.managed_object.pooling.PooledMObject;
+import nl.cwi.managed_data_4j.language.managed_object.pooling.Releasable;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+/**
+ * A data manager which recycles its managed objects.
+ *
+ * The managed objects are Releasable, a released object is kept in the pool of the data manager,
+ * and the next object of its Klass is the released one, reset, instead of a new one (see PooledMObject).
+ * It is meant for the many short-lived objects of long runs, e.g. the offers and the tokens of an activity.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class PoolingDataManager extends BasicDataManager {
+
+    private final MObjectPool pool;
+
+    public PoolingDataManager() {
+        this(MObjectPool.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity the maximum number of released objects that are kept per Klass.
+     */
+    public PoolingDataManager(int capacity) {
+        this.pool = new MObjectPool(capacity);
+    }
+
+    // the managed objects are Releasable.
+    private static final Class<?>[] INTERFACES = { Releasable.class };
+
+    @Override
+    protected Class<?>[] additionalInterfaces() {
+        return INTERFACES;
+    }
+
+    @Override
+    public MObject createManagedObject(Klass klass, Object... inits) {
+        return new PooledMObject(klass, this.pool, inits);
+    }
+
+    @Override
+    protected Object createManagedObjectProxy(Constructor<?> proxyConstructor, Klass schemaKlass, Object... inits) {
+
+        // a released object is recycled, unless it was created by a factory with other interfaces.
+        final Object released = this.pool.poll(schemaKlass);
+        if (released != null && released.getClass() == proxyConstructor.getDeclaringClass()) {
+            ((PooledMObject) MObject.of(released)).__reuse(inits);
+            return released;
+        }
+
+        final Object proxy = super.createManagedObjectProxy(proxyConstructor, schemaKlass, inits);
+        MObject.of(proxy).setProxy(proxy);
+        return proxy;
+    }
+
+    /**
+     * Returns the pool of the released objects.
+     */
+    public MObjectPool pool() {
+        return this.pool;
+    }
+}
@@ -0,0 +1,51 @@
+package nl.cwi.managed_data_4j.language.data_manager;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.snapshot.Snapshot;
+import nl.cwi.managed_data_4j.language.managed_object.snapshot.SnapshotMObject;
+import nl.cwi.managed_data_4j.language.managed_object.snapshot.VersionClock;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+import java.lang.reflect.InvocationTargetException;
+
+/**
+ * A data manager whose managed objects can be read as they were at a point in time,
+ * while they are still written (see Snapshot).
+ *
+ * Taking a snapshot only starts a new version, nothing is copied:
+ * the objects keep the versions of their slots (see SnapshotMObject) as long as an open snapshot may see them.
+ * A snapshot is taken between writes, by the thread that writes the objects (e.g. after every event of a machine),
+ * and it can be read by any thread, e.g. a monitor reads the current state and the counts of a running machine.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class SnapshotDataManager extends BasicDataManager {
+
+    private final VersionClock clock = new VersionClock();
+
+    @Override
+    public MObject createManagedObject(Klass klass, Object... inits) {
+        return new SnapshotMObject(klass, this.clock, inits);
+    }
+
+    /**
+     * Takes a snapshot of the managed objects of this data manager.
+     * @return the snapshot, to be closed when it is not read anymore.
+     */
+    public Snapshot snapshot() {
+        return this.clock.snapshot(this::createView);
+    }
+
+    private Object createView(MObject view) {
+        final Klass klass = view.schemaKlass();
+        try {
+            final Object proxy = proxyConstructorFor(klass).newInstance(view);
+            view.setProxy(proxy);
+            return proxy;
+        } catch (InvocationTargetException e) {
+            throw new RuntimeException("Error on snapshot of " + klass.name(), e.getCause());
+        } catch (InstantiationException | IllegalAccessException e) {
+            throw new RuntimeException("Error on snapshot of " + klass.name(), e);
+        }
+    }
+}
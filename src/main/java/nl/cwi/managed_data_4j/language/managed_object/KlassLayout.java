@@ -0,0 +1,321 @@
+package nl.cwi.managed_data_4j.language.managed_object;
+
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.MObjectField;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldManyList;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldManySet;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSingleMObj;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSinglePrimitive;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSingleUnboxed;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Supplier;
+
+/**
+ * The storage layout of the managed objects of a Klass.
+ *
+ * Every field of the Klass is assigned a slot, the managed objects keep only
+ * the values of their fields in a plain array indexed by the slots.
+ * Everything else, the fields (MObjectField), their inverses and the super klasses,
+ * is built once per Klass and shared by all its managed objects.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public final class KlassLayout {
+
+    // the layout of a klass that is a KlassMObject is kept in its managed object (KlassMObject.klassLayout),
+    // it is collected together with the klass.
+    private static final AtomicReferenceFieldUpdater<KlassMObject, KlassLayout> klassLayouts =
+        AtomicReferenceFieldUpdater.newUpdater(KlassMObject.class, KlassLayout.class, "klassLayout");
+
+    // the layouts of the other klasses: the few klasses of the boot schema,
+    // and the klasses of schema factories whose data managers do not create KlassMObjects, which are kept.
+    // <Klass, layout>, klasses are compared by reference
+    private static final Map<KlassKey, KlassLayout> bootLayouts = new ConcurrentHashMap<>();
+
+    private final Klass klass;
+
+    // the fields of the klass, in slot order.
+    private final Field[] fields;
+
+    // the managed fields, in slot order, null in case of a field without type.
+    private final MObjectField[] mObjectFields;
+
+    // <Field name, slot>
+    private final Map<String, Integer> slots;
+
+    // the number of the fields that are kept unboxed (primitive slots).
+    private final int unboxedCount;
+
+    // all the super klasses of the klass.
+    private final Set<Klass> supers;
+
+    // the key field of the klass, null if the klass has no key.
+    private final MObjectField keyField;
+
+    // true if the objects of the klass are klasses of schemas (see KlassMObject).
+    private final boolean klassOfKlasses;
+
+    // what the other parts build once per klass (e.g. the dispatch plans), see shared.
+    private final Map<Object, Object> shared = new ConcurrentHashMap<>();
+
+    private KlassLayout(Klass klass) {
+        this.klass = klass;
+        this.supers = Collections.unmodifiableSet(collectSuperKlasses(klass));
+
+        final Set<Field> klassFields = klass.fields();
+        this.fields = klassFields.toArray(new Field[klassFields.size()]);
+        this.mObjectFields = new MObjectField[this.fields.length];
+        this.slots = new HashMap<>();
+
+        for (int slot = 0; slot < this.fields.length; slot++) {
+            this.slots.put(this.fields[slot].name(), slot);
+        }
+        int unboxedSlot = 0;
+        for (int slot = 0; slot < this.fields.length; slot++) {
+            try {
+                this.mObjectFields[slot] = createField(this.fields[slot], slot, unboxedSlot);
+                if (this.mObjectFields[slot] instanceof MObjectFieldSingleUnboxed) {
+                    unboxedSlot++;
+                }
+            } catch (UnknownTypeException e) {
+                throw new RuntimeException("Error on field setup of klass '" + klass.name() + "'", e);
+            }
+        }
+        this.unboxedCount = unboxedSlot;
+
+        final Field key = klass.key();
+        final int keySlot = key == null ? -1 : slotOf(key.name());
+        this.keyField = keySlot < 0 ? null : this.mObjectFields[keySlot];
+        this.klassOfKlasses = Klass.class.getSimpleName().equals(klass.name());
+    }
+
+    /**
+     * Returns the layout of a klass, builds it if it does not exist.
+     * @param klass the schema klass
+     * @return the layout
+     */
+    public static KlassLayout of(Klass klass) {
+        final KlassLayout layout = find(klass);
+        if (layout != null) {
+            return layout;
+        }
+
+        // built outside of the klass, the fields may need the layouts of the super klasses.
+        final KlassLayout newLayout = new KlassLayout(klass);
+        final KlassMObject klassMObject = klassMObjectOf(klass);
+        if (klassMObject != null) {
+            return klassLayouts.compareAndSet(klassMObject, null, newLayout) ? newLayout : klassMObject.klassLayout;
+        }
+        final KlassLayout existing = bootLayouts.putIfAbsent(new KlassKey(klass), newLayout);
+        return existing != null ? existing : newLayout;
+    }
+
+    // the layout of a klass if it is already built, null otherwise.
+    private static KlassLayout find(Klass klass) {
+        final KlassMObject klassMObject = klassMObjectOf(klass);
+        if (klassMObject != null) {
+            return klassMObject.klassLayout;
+        }
+        return bootLayouts.get(new KlassKey(klass));
+    }
+
+    // the managed object of a klass, null if it is not a KlassMObject.
+    private static KlassMObject klassMObjectOf(Klass klass) {
+        if (!MObject.isManaged(klass)) {
+            return null;
+        }
+        final MObject mObject = MObject.of(klass);
+        return mObject instanceof KlassMObject ? (KlassMObject) mObject : null;
+    }
+
+    /**
+     * Returns all the super klasses of a klass,
+     * from its layout if it is already built.
+     * @param klass the schema klass
+     * @return the super klasses
+     */
+    public static Set<Klass> supersOf(Klass klass) {
+        final KlassLayout layout = find(klass);
+        if (layout != null) {
+            return layout.supers;
+        }
+        return Collections.unmodifiableSet(collectSuperKlasses(klass));
+    }
+
+    /**
+     * Create a MObjectField according to an input Field
+     * @param field the input field.
+     * @param slot the slot of the field.
+     * @param unboxedSlot the next free primitive slot, in case the field can be kept unboxed.
+     * @return the new MObjectField, null if the field has no type (yet).
+     * @throws UnknownTypeException in case there is a weird primitive.
+     */
+    private static MObjectField createField(Field field, int slot, int unboxedSlot) throws UnknownTypeException {
+
+        if (field.type() == null) {
+            return null;
+        }
+
+        if (!field.many()) {
+
+            // if it is a primitive make it a Primitive field, otherwise a reference (managed object)
+            // numeric and boolean Java primitives are kept unboxed.
+            if (field.type().schemaKlass().name().equals("Primitive")) {
+                final MObjectFieldSingleUnboxed unboxed = MObjectFieldSingleUnboxed.create(field, slot, unboxedSlot);
+                return unboxed != null ? unboxed : new MObjectFieldSinglePrimitive(field, slot);
+            } else {
+                return new MObjectFieldSingleMObj(field, slot);
+            }
+        } else {
+
+            // in case it is a Primitive, then is always a List
+            // Sets of Primitives are not supported (yet)
+            if (field.type().schemaKlass().name().equals("Primitive")) {
+                return new MObjectFieldManyList(field, slot);
+            } else {
+                final Klass klassType = (Klass) field.type();
+                if (klassType.key()!= null) {
+                    return new MObjectFieldManySet(field, slot);
+                } else {
+                    return new MObjectFieldManyList(field, slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the slot of a field.
+     * @param fieldName the field name
+     * @return the slot, -1 if there is no such field.
+     */
+    public int slotOf(String fieldName) {
+        final Integer slot = this.slots.get(fieldName);
+        return slot == null ? -1 : slot;
+    }
+
+    public Klass klass() {
+        return this.klass;
+    }
+
+    public Field[] fields() {
+        return this.fields;
+    }
+
+    public MObjectField[] mObjectFields() {
+        return this.mObjectFields;
+    }
+
+    /**
+     * Returns the key field of the klass, null if the klass has no key.
+     */
+    public MObjectField keyField() {
+        return this.keyField;
+    }
+
+    /**
+     * Returns true if the managed objects of the klass are klasses of schemas, which are KlassMObjects.
+     */
+    public boolean isKlassOfKlasses() {
+        return this.klassOfKlasses;
+    }
+
+    /**
+     * Returns the number of the primitive slots of the managed objects.
+     */
+    public int unboxedCount() {
+        return this.unboxedCount;
+    }
+
+    /**
+     * Returns a hash of the fields of the layout (names, types and multiplicity), in slot order,
+     * which is the same in every run, to check that stored values match the slots of the klass.
+     * @return the hash of the fields
+     */
+    public int fieldsHash() {
+        int hash = 1;
+        for (Field field : this.fields) {
+            hash = 31 * hash + field.name().hashCode();
+            hash = 31 * hash + (field.type() == null ? 0 : field.type().name().hashCode());
+            hash = 31 * hash + (field.many() ? 1 : 0);
+        }
+        return hash;
+    }
+
+    /**
+     * Returns what is built once per klass for a key (e.g. the dispatch plan of a managed object class),
+     * builds it if it does not exist. It is kept with the layout, thus with the klass,
+     * and it is not kept alive by a static cache after the klass is no longer used.
+     * @param key the key, compared by equals
+     * @param builder builds the value, it may use the layout of the klass
+     * @return the value of the key
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T shared(Object key, Supplier<T> builder) {
+        final Object value = this.shared.get(key);
+        if (value != null) {
+            return (T) value;
+        }
+
+        // built outside of the map, the builder may need other values of the klass.
+        final T newValue = builder.get();
+        final Object existing = this.shared.putIfAbsent(key, newValue);
+        return existing != null ? (T) existing : newValue;
+    }
+
+    /**
+     * Returns all the super klasses of the klass.
+     */
+    public Set<Klass> supers() {
+        return this.supers;
+    }
+
+    /**
+     * Helper method
+     * Returns all super klasses from a klass
+     * @param klass the Klass
+     * @return the super klasses
+     */
+    private static Set<Klass> collectSuperKlasses(Klass klass) {
+        final Set<Klass> supers = new LinkedHashSet<>();
+        collectSuperKlasses(klass, supers);
+        return supers;
+    }
+
+    private static void collectSuperKlasses(Klass klass, Set<Klass> stack) {
+        if (klass.supers() != null) {
+            for (Klass superKlass : klass.supers()) {
+                stack.add(superKlass);
+
+                if (superKlass != null && superKlass.supers() != null && superKlass.supers().size() > 0) {
+                    collectSuperKlasses(superKlass, stack);
+                }
+            }
+        }
+    }
+
+    /**
+     * Key of a layout, klasses are compared by reference.
+     */
+    private static final class KlassKey {
+        private final Klass klass;
+
+        KlassKey(Klass klass) {
+            this.klass = klass;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof KlassKey && ((KlassKey) o).klass == this.klass;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(klass);
+        }
+    }
+}
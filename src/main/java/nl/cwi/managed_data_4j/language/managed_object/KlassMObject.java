@@ -0,0 +1,20 @@
+package nl.cwi.managed_data_4j.language.managed_object;
+
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+/**
+ * The Managed Object of a Klass of a schema (an object of the Klass klass of a schema schema),
+ * which keeps the layout of the objects of the klass (see KlassLayout.of),
+ * thus the layout is collected together with the klass, and the other managed objects do not carry it.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class KlassMObject extends MObject {
+
+    // the layout of the objects of the klass, null until it is built.
+    volatile KlassLayout klassLayout;
+
+    public KlassMObject(Klass schemaKlass, Object... initializers) {
+        super(schemaKlass, initializers);
+    }
+}
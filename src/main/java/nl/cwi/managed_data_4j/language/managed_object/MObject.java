@@ -1,6 +1,9 @@
 package nl.cwi.managed_data_4j.language.managed_object;
 
 import nl.cwi.managed_data_4j.M;
+import nl.cwi.managed_data_4j.language.managed_object.dispatch.DefaultMethodHandles;
+import nl.cwi.managed_data_4j.language.managed_object.dispatch.DispatchPlan;
+import nl.cwi.managed_data_4j.language.managed_object.generated.GeneratedMObject;
 import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.MObjectField;
 import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.InvalidFieldValueException;
 import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.NoKeyFieldException;
@@ -8,15 +11,19 @@ import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.error
 import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldMany;
 import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldManyList;
 import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldManySet;
-import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSingleMObj;
-import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSinglePrimitive;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSingleBoolean;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSingleDouble;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSingleFloat;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSingleInteger;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSingleLong;
 import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
 import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
 
-import java.lang.invoke.MethodHandles;
-import java.lang.reflect.Constructor;
+import java.lang.reflect.Array;
 import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
 import java.util.*;
 
 /**
@@ -36,6 +43,32 @@ public class MObject implements InvocationHandler, M {
         return thisObject;
     }
 
+    /**
+     * Checks if a value is a managed object (a managed object proxy or a generated managed object).
+     * @param value the value
+     * @return true if it is a managed object.
+     */
+    public static boolean isManaged(Object value) {
+        if (value instanceof MObject) return true;
+
+        return value != null &&
+            Proxy.isProxyClass(value.getClass()) &&
+            Proxy.getInvocationHandler(value) instanceof MObject;
+    }
+
+    /**
+     * Returns the managed object behind an object of a data manager,
+     * which is either its proxy or a generated managed object.
+     * @param managedObject the proxy or the generated managed object
+     * @return the managed object
+     */
+    public static MObject of(Object managedObject) {
+        if (managedObject instanceof MObject) {
+            return (MObject) managedObject;
+        }
+        return (MObject) Proxy.getInvocationHandler(managedObject);
+    }
+
     @Override
     public Klass schemaKlass(Klass... schemaKlass) {
         if (schemaKlass.length > 0) {
@@ -44,14 +77,20 @@ public class MObject implements InvocationHandler, M {
         return this.schemaKlass;
     }
 
-    // Store props for the object: <Name, Field>
-    protected Map<String, MObjectField> props = new LinkedHashMap<>();
-
     // Keeps the types (schemaKlass pointer)
     protected Klass schemaKlass;
 
-    // keeps the methods that have been defined in object's class
-    protected final Method[] objectMethods;
+    // the pre-resolved dispatch of the object, shared by all the objects of its klass.
+    protected final DispatchPlan plan;
+
+    // the fields of the object (slots, inverses, super klasses), shared by all the objects of its klass.
+    protected final KlassLayout layout;
+
+    // the values of the fields of the object, indexed by the slots of the layout.
+    protected final Object[] values;
+
+    // the unboxed values (raw bits) of the numeric and boolean fields of the object, null if there is none.
+    protected final long[] unboxedValues;
 
     /**
      * A managed object.
@@ -61,25 +100,69 @@ public class MObject implements InvocationHandler, M {
      */
     public MObject(Klass schemaKlass, Object... initializers) {
         this.schemaKlass = schemaKlass;
+        this.plan = DispatchPlan.of(schemaKlass, this.getClass());
+        this.layout = this.plan.layout();
 
-        // setup fields and properties / set default values.
-        this.schemaKlass.fields().forEach(this::safeSetupField);
+        // a generated managed object is its own proxy.
+        if (this instanceof GeneratedMObject) {
+            this.thisObject = this;
+        }
+        this.values = new Object[this.layout.fields().length];
+        this.unboxedValues = this.layout.unboxedCount() > 0 ? new long[this.layout.unboxedCount()] : null;
+
+        // setup fields and properties / set default values, slot by slot.
+        for (int slot = 0; slot < this.values.length; slot++) {
+            this.safeSetupField(slot);
+        }
 
         // initialize fields with actual values.
         if (initializers != null) {
             this.safeInitializeProps(initializers);
         }
+    }
 
-        this.objectMethods = this.getClass().getMethods();
+    /**
+     * A managed object whose values are not kept in the object, but in a storage of its data manager
+     * (e.g. the columns of ColumnarMObject), which overrides setupField and the slot accessors (__getSlot, ...).
+     * The fields are not set up yet, the derived managed object calls setupFields and initialize
+     * once its storage is ready.
+     *
+     * @param plan the dispatch plan of the klass for the derived managed object class.
+     */
+    protected MObject(DispatchPlan plan) {
+        this.schemaKlass = plan.klass();
+        this.plan = plan;
+        this.layout = plan.layout();
+        this.values = null;
+        this.unboxedValues = null;
+    }
+
+    /**
+     * Sets up all the fields of the object with their default values.
+     */
+    protected void setupFields() {
+        for (int slot = 0; slot < this.layout.fields().length; slot++) {
+            this.safeSetupField(slot);
+        }
+    }
+
+    /**
+     * Initializes the fields of the object with actual values.
+     * @param initializers initialization values for the object.
+     */
+    protected void initialize(Object... initializers) {
+        if (initializers != null) {
+            this.safeInitializeProps(initializers);
+        }
     }
 
     /**
      * Wrapper to handle exceptions.
-     * @param _field the input field.
+     * @param slot the slot of the field.
      */
-    private void safeSetupField(Field _field) {
+    private void safeSetupField(int slot) {
         try {
-            this.setupField(_field);
+            this.setupField(slot);
         } catch (InvalidFieldValueException | UnknownTypeException e) {
             e.printStackTrace();
             throw new RuntimeException("Error on field setup");
@@ -87,40 +170,84 @@ public class MObject implements InvocationHandler, M {
     }
 
     /**
-     * Create a MObjectField and put it in the object values, according to an input Field
-     * @param field the input field.
-     * @throws UnknownTypeException in case there is a weird primitive.
+     * Put the default value of a field in the object values, according to its slot.
+     * The layout has no managed field for a field without type, thus the type is not checked again per object.
+     * @param slot the slot of the field.
+     * @throws UnknownTypeException in case there is a weird primitive, or the field has no type.
      * @throws InvalidFieldValueException in case of wrong value assignment to the field.
      */
-    protected void setupField(Field field) throws UnknownTypeException, InvalidFieldValueException {
+    protected void setupField(int slot) throws UnknownTypeException, InvalidFieldValueException {
+        final MObjectField mObjectField = this.layout.mObjectFields()[slot];
 
-        if (field.type() == null) {
-            throw new UnknownTypeException("Type of field '" + field.name() + "' is NULL");
+        if (mObjectField == null) {
+            throw new UnknownTypeException("Type of field '" + this.layout.fields()[slot].name() + "' is NULL");
         }
 
-        if (!field.many()) {
+        this.values[slot] = initialValue(mObjectField);
+    }
 
-            // if it is a primitive make it a Primitive field, otherwise a reference (managed object)
-            if (field.type().schemaKlass().name().equals("Primitive")) {
-                this.props.put(field.name(), new MObjectFieldSinglePrimitive(this, field));
-            } else {
-                this.props.put(field.name(), new MObjectFieldSingleMObj(this, field));
-            }
-        } else {
+    /**
+     * Returns the initial value of a field of the object,
+     * derived managed objects can keep the fields in other collections.
+     * @param mObjectField the field
+     * @return the initial value
+     * @throws UnknownTypeException in case there is a weird primitive.
+     */
+    protected Object initialValue(MObjectField mObjectField) throws UnknownTypeException {
+        return mObjectField.initialValue(this);
+    }
 
-            // in case it is a Primitive, then is always a List
-            // Sets of Primitives are not supported (yet)
-            if (field.type().schemaKlass().name().equals("Primitive")) {
-                this.props.put(field.name(), new MObjectFieldManyList(this, field));
-            } else {
-                final Klass klassType = (Klass) field.type();
-                if (klassType.key()!= null) {
-                    this.props.put(field.name(), new MObjectFieldManySet(this, field));
-                } else {
-                    this.props.put(field.name(), new MObjectFieldManyList(this, field));
-                }
-            }
+    /**
+     * Returns the value of the key field of the object, used by the keyed Set many-fields.
+     * The key is read directly from its slot, unless a data manager intercepts _get.
+     * @return the key value, null if the klass has no key.
+     */
+    public Object __getKey() {
+        final MObjectField keyField = this.layout.keyField();
+        if (keyField == null) {
+            return null;
         }
+        if (this.plan.interceptsGet()) {
+            return _get(keyField.getField().name());
+        }
+        return keyField.get(this);
+    }
+
+    /**
+     * Returns the raw value of a slot, used by the fields of the object.
+     * @param slot the slot of the field
+     * @return the value in the slot
+     */
+    public Object __getSlot(int slot) {
+        return this.values[slot];
+    }
+
+    /**
+     * Sets the raw value of a slot, used by the fields of the object.
+     * No checks or inverses, see _set for a normal assignment.
+     * @param slot the slot of the field
+     * @param value the new value of the slot
+     */
+    public void __setSlot(int slot, Object value) {
+        this.values[slot] = value;
+    }
+
+    /**
+     * Returns the raw bits of a primitive slot, used by the unboxed fields of the object.
+     * @param unboxedSlot the primitive slot of the field
+     * @return the raw bits
+     */
+    public long __getUnboxed(int unboxedSlot) {
+        return this.unboxedValues[unboxedSlot];
+    }
+
+    /**
+     * Sets the raw bits of a primitive slot, used by the unboxed fields of the object.
+     * @param unboxedSlot the primitive slot of the field
+     * @param bits the raw bits
+     */
+    public void __setUnboxed(int unboxedSlot, long bits) {
+        this.unboxedValues[unboxedSlot] = bits;
     }
 
     /**
@@ -143,13 +270,11 @@ public class MObject implements InvocationHandler, M {
      * @throws NoKeyFieldException if no key field found.
      */
     protected void initializeProps(Object... initializers) throws InvalidFieldValueException, NoKeyFieldException {
-        final List<Field> fieldList = new LinkedList<>();
-        fieldList.addAll(this.schemaKlass.fields());
+        final Field[] fields = this.layout.fields();
 
-        for (int i = 0; i < fieldList.size(); i++) {
+        for (int i = 0; i < fields.length; i++) {
             if (i < initializers.length) {
-                final Field fld = fieldList.get(i);
-                this._set(fld.name(), initializers[i]);
+                this._set(fields[i].name(), initializers[i]);
             }
         }
     }
@@ -161,18 +286,27 @@ public class MObject implements InvocationHandler, M {
      * @throws NoSuchFieldError in case there no field with this name.
      */
     public Object _get(String name) throws NoSuchFieldError {
-        return _getField(name).get(); // return the field's value
+        return _getField(name).get(this); // return the field's value
+    }
+
+    /**
+     * Checks if the object has a field.
+     * @param name the name of the field
+     * @return true if the klass of the object has such a field.
+     */
+    public boolean __hasField(String name) {
+        return this.layout.slotOf(name) >= 0;
     }
 
     public MObjectField _getField(String name) throws NoSuchFieldError {
-        final MObjectField mObjectField = this.props.get(name);
+        final int slot = this.layout.slotOf(name);
 
         // check if the field exists
-        if (mObjectField == null) {
+        if (slot < 0) {
             throw new NoSuchFieldError(
                 "No field named '" + name + "' in class '" + schemaKlass.name() + "'");
         }
-        return mObjectField;
+        return this.layout.mObjectFields()[slot];
     }
 
     /**
@@ -184,14 +318,26 @@ public class MObject implements InvocationHandler, M {
      * @throws NoKeyFieldException if no key field found.
      */
     public void _set(String name, Object value) throws NoSuchFieldError, InvalidFieldValueException, NoKeyFieldException {
-        final MObjectField mObjectField = this.props.get(name);
+        final int slot = this.layout.slotOf(name);
 
         // check if the field exists
-        if (mObjectField == null) {
+        if (slot < 0) {
             throw new NoSuchFieldError(
                 "No field named'" + name + "' in class '" + schemaKlass.name() + "'");
         }
 
+        setField(this.layout.mObjectFields()[slot], value);
+    }
+
+    /**
+     * Sets the value of a existing field, without going through _set.
+     * @param mObjectField the field
+     * @param value the value of the field
+     * @throws InvalidFieldValueException in case the value is not the right type.
+     * @throws NoKeyFieldException if no key field found.
+     */
+    protected void setField(MObjectField mObjectField, Object value) throws InvalidFieldValueException, NoKeyFieldException {
+
         // set the fields value
         final Field field = mObjectField.getField();
         if (field.many()) {
@@ -202,27 +348,30 @@ public class MObject implements InvocationHandler, M {
             // in the case it initialized with a zero size array,
             // then clear the values.
             if (inits.length == 0) {
-                ((MObjectFieldMany) mObjectField).clear();
+                ((MObjectFieldMany) mObjectField).clear(this);
             }
 
             // in case it is a Primitive, then is always a List
             // Sets of Primitives are not supported (yet)
             if (field.type().schemaKlass().name().equals("Primitive")) {
-                ((MObjectFieldManyList) mObjectField).init(new LinkedList<>(Arrays.asList(inits)));
-                Arrays.asList(inits).forEach(((MObjectFieldManyList)mObjectField)::add);
+                final MObjectFieldManyList mObjectFieldList = (MObjectFieldManyList) mObjectField;
+                mObjectFieldList.init(this, new LinkedList<>(Arrays.asList(inits)));
+                Arrays.asList(inits).forEach(initValue -> mObjectFieldList.add(this, initValue));
             } else {
                 final Klass klassType = (Klass) field.type();
                 if (klassType.key() != null) {
                     for (Object initValue : Arrays.asList(inits)) {
-                        ((MObjectFieldManySet) mObjectField).add(initValue);
+                        ((MObjectFieldManySet) mObjectField).add(this, initValue);
                     }
                 } else {
-                    Arrays.asList(inits).forEach(((MObjectFieldManyList)mObjectField)::add);
+                    for (Object initValue : Arrays.asList(inits)) {
+                        ((MObjectFieldManyList) mObjectField).add(this, initValue);
+                    }
                 }
             }
 
         } else {
-            mObjectField.init(value);
+            mObjectField.init(this, value);
         }
     }
 
@@ -234,11 +383,9 @@ public class MObject implements InvocationHandler, M {
      * @throws Throwable in case of invocation error.
      */
     protected void invokeLocalMethod(Method method, Object[] args) throws Throwable {
-        for (Method objMethod : objectMethods) {
-            if (method.getName().equals(objMethod.getName()) && method.getReturnType().equals(objMethod.getReturnType())) {
-                objMethod.invoke(this, args);
-                return;
-            }
+        final Method localMethod = this.plan.resolve(method).localMethod;
+        if (localMethod != null) {
+            localMethod.invoke(this, args);
         }
     }
 
@@ -257,27 +404,8 @@ public class MObject implements InvocationHandler, M {
      * @throws Throwable in case of error during invocation
      */
     protected Object invokeDefaultMethod(Object proxy, Method method, Object[] args) throws Throwable {
-
-        final Class<?> declaringClass = schemaKlass.classOf();
-
-        final Method schemaKlassMethod = declaringClass.getMethod(method.getName(), method.getParameterTypes());
-
-        // declare MethodHandles.Lookup constructor accessible
-        final Constructor<MethodHandles.Lookup> constructor = MethodHandles.Lookup.class.getDeclaredConstructor(Class.class, int.class);
-
-        // use the constructor to create a lookup object with PRIVATE access
-        constructor.setAccessible(true);
-
-        // create a lookup for the default method
-        final MethodHandles.Lookup defaultMethodLookup = constructor.newInstance(declaringClass, MethodHandles.Lookup.PRIVATE);
-
-        // create a method handle that will not check for overridden method (unreflectSpecial)
-        // Since it is "special" it will skip the overriding done
-        // by the proxying and invoke the default implementation
-        return defaultMethodLookup
-            .unreflectSpecial(schemaKlassMethod, declaringClass)
-            .bindTo(proxy)
-            .invokeWithArguments(args);
+        // the handle is built once per schema class and method, and shared by all the managed objects.
+        return DefaultMethodHandles.invoke(schemaKlass.classOf(), method, proxy, args);
     }
 
     /**
@@ -303,40 +431,57 @@ public class MObject implements InvocationHandler, M {
     public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
     	if (getProxy() == null)
     		setProxy(proxy);
-    	
-        final String fieldName = method.getName();
-
-        // if the method is default, invoke this one
-        if (method.isDefault()) {
-            return _callDefaultMethod(proxy, method, args);
-        }
-
-        // This is a way to execute the "attached" methods of the derived Managed Objects,
-        // from the proxied objects. (e.g. point.observe()).
-        //
-        // In case there is already the method declared
-        // (in one of the sub-classes/sub managedObjects),
-        // then invoke it dynamically, and return.
-        for (Method declaredMethod : objectMethods) {
-            if (declaredMethod.getName().equals(fieldName)) {
-                return method.invoke(this, args);
-            }
-        }
 
-        // ================
-        // Managed Object
-        final MObjectField mObjectField = this.props.get(fieldName);
+        final DispatchPlan.Target target = this.plan.resolve(method);
+
+        switch (target.kind) {
+
+            // if the method is default, invoke this one
+            case DEFAULT:
+                return _callDefaultMethod(proxy, method, args);
+
+            // This is a way to execute the "attached" methods of the derived Managed Objects,
+            // from the proxied objects. (e.g. point.observe()).
+            //
+            // In case there is already the method declared
+            // (in one of the sub-classes/sub managedObjects),
+            // then invoke it dynamically, and return.
+            case LOCAL:
+                try {
+                    return method.invoke(this, args);
+                } catch (InvocationTargetException e) {
+                    throw e.getCause();
+                }
+
+            // ================
+            // Managed Object
+            case FIELD:
+                final Object value = invokeField(target, args);
 
-        if (mObjectField == null) {
-            throw new NoSuchFieldError("No field named '" + fieldName + "' found in klass '" + schemaKlass.name() + "'");
+                // an assignment returns null, which can not be returned for e.g. int count(int... count)
+                return value == null ? target.primitiveDefault : value;
+
+            default:
+                throw new NoSuchFieldError("No field named '" + target.name + "' found in klass '" + schemaKlass.name() + "'");
         }
+    }
 
-        final boolean isMany = mObjectField.getField().many();
+    /**
+     * Field access in managed object.
+     * Reads the field if no values are given, otherwise assigns them.
+     *
+     * @param target the resolved field
+     * @param args any arguments of the method
+     * @return the field's value, null in case of assignment
+     * @throws Throwable in case of error during the assignment
+     */
+    protected Object invokeField(DispatchPlan.Target target, Object[] args) throws Throwable {
+        final boolean isMany = target.many;
 
         // if no args given, then just return the field's value.
-        if (args == null) {
+        if (args == null || args.length == 0) {
             // If is not an assignment, get the value.
-            return _get(fieldName); // return the field's value
+            return getSlot(target); // return the field's value
         }
 
         boolean isAssignment = false;
@@ -345,18 +490,19 @@ public class MObject implements InvocationHandler, M {
 
         // If it is null and it is not many, then one sets the value to null
         if (fieldArgs == null && !isMany) {
-            _set(fieldName, null);
+            setSlot(target, null);
             return null;
         }
 
         // If it is null and it is not many, then empty it
         if (fieldArgs == null) {
-            _set(fieldName, new Object[0]);
+            setSlot(target, new Object[0]);
             return null;
         }
 
         // If there are arguments, then it is considered as assignment.
-        if (fieldArgs.getClass().isArray() && ((Object [])fieldArgs).length > 0) {
+        // (the arguments of e.g. int count(int... count) are not an Object[])
+        if (fieldArgs.getClass().isArray() && Array.getLength(fieldArgs) > 0) {
             isAssignment = true;
         }
 
@@ -365,16 +511,120 @@ public class MObject implements InvocationHandler, M {
 
             // if it has one (1) argument, then means that it is a single field
             // At the same time, check always if the field is not many, for safety
-            if (((Object [])fieldArgs).length == 1 && !isMany) {
-                _set(fieldName, ((Object [])fieldArgs)[0]);
+            if (Array.getLength(fieldArgs) == 1 && !isMany) {
+                setSlot(target, Array.get(fieldArgs, 0));
             } else {
-                _set(fieldName, fieldArgs);
+                setSlot(target, fieldArgs);
             }
 
             return null;
         }
 
         // If it is not an assignment, then just return the field's value.
-        return _get(fieldName);
+        return getSlot(target);
+    }
+
+    /**
+     * Unboxed field access in managed object, for fields that are declared
+     * with a java primitive in the schema (e.g. int count(int... count)).
+     * Used by the generated managed objects, the value is neither boxed on read nor on write,
+     * unless a data manager intercepts the field access.
+     *
+     * @param target the resolved field
+     * @param args the arguments of the method
+     * @return the field's value, 0 in case of assignment
+     * @throws Throwable in case of error during the assignment
+     */
+    protected int invokeIntField(DispatchPlan.Target target, int[] args) throws Throwable {
+        if (intercepts(args.length)) {
+            return (Integer) invokeBoxedField(target, args);
+        }
+
+        final MObjectFieldSingleInteger field = (MObjectFieldSingleInteger) this.layout.mObjectFields()[target.slot];
+        if (args.length == 0) {
+            return field.getInt(this);
+        }
+        field.setInt(this, args[0]);
+        return 0;
+    }
+
+    protected long invokeLongField(DispatchPlan.Target target, long[] args) throws Throwable {
+        if (intercepts(args.length)) {
+            return (Long) invokeBoxedField(target, args);
+        }
+
+        final MObjectFieldSingleLong field = (MObjectFieldSingleLong) this.layout.mObjectFields()[target.slot];
+        if (args.length == 0) {
+            return field.getLong(this);
+        }
+        field.setLong(this, args[0]);
+        return 0L;
+    }
+
+    protected double invokeDoubleField(DispatchPlan.Target target, double[] args) throws Throwable {
+        if (intercepts(args.length)) {
+            return (Double) invokeBoxedField(target, args);
+        }
+
+        final MObjectFieldSingleDouble field = (MObjectFieldSingleDouble) this.layout.mObjectFields()[target.slot];
+        if (args.length == 0) {
+            return field.getDouble(this);
+        }
+        field.setDouble(this, args[0]);
+        return 0.;
+    }
+
+    protected float invokeFloatField(DispatchPlan.Target target, float[] args) throws Throwable {
+        if (intercepts(args.length)) {
+            return (Float) invokeBoxedField(target, args);
+        }
+
+        final MObjectFieldSingleFloat field = (MObjectFieldSingleFloat) this.layout.mObjectFields()[target.slot];
+        if (args.length == 0) {
+            return field.getFloat(this);
+        }
+        field.setFloat(this, args[0]);
+        return 0.f;
+    }
+
+    protected boolean invokeBooleanField(DispatchPlan.Target target, boolean[] args) throws Throwable {
+        if (intercepts(args.length)) {
+            return (Boolean) invokeBoxedField(target, args);
+        }
+
+        final MObjectFieldSingleBoolean field = (MObjectFieldSingleBoolean) this.layout.mObjectFields()[target.slot];
+        if (args.length == 0) {
+            return field.getBoolean(this);
+        }
+        field.setBoolean(this, args[0]);
+        return false;
+    }
+
+    // true if the read (no args) or the write has to go through _get or _set.
+    private boolean intercepts(int argsLength) {
+        return argsLength == 0 ? this.plan.interceptsGet() : this.plan.interceptsSet();
+    }
+
+    // the field access of the proxies, with the java primitive arguments as they are given to the proxy.
+    private Object invokeBoxedField(DispatchPlan.Target target, Object args) throws Throwable {
+        final Object value = invokeField(target, new Object[] { args });
+        return value == null ? target.primitiveDefault : value;
+    }
+
+    // goes through _get only if a data manager intercepts it.
+    private Object getSlot(DispatchPlan.Target target) {
+        if (this.plan.interceptsGet()) {
+            return _get(target.name);
+        }
+        return this.layout.mObjectFields()[target.slot].get(this);
+    }
+
+    // goes through _set only if a data manager intercepts it.
+    private void setSlot(DispatchPlan.Target target, Object value) throws InvalidFieldValueException, NoKeyFieldException {
+        if (this.plan.interceptsSet()) {
+            _set(target.name, value);
+        } else {
+            setField(this.layout.mObjectFields()[target.slot], value);
+        }
     }
 }
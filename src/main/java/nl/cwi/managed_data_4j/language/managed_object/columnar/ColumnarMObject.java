@@ -0,0 +1,120 @@
+package nl.cwi.managed_data_4j.language.managed_object.columnar;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.dispatch.DispatchPlan;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.MObjectField;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.InvalidFieldValueException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.KeyedSet;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldManySet;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+/**
+ * A Managed Object that keeps its values in the columns of its Klass (see KlassColumns).
+ * The object itself is only a handle, its id in the columns,
+ * all the field accesses go through the slot accessors to the columns.
+ * The columns keep the values, a handle that is collected is opened again for its id (see existing).
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class ColumnarMObject extends MObject {
+
+    // the columns of the klass of the object
+    private final KlassColumns columns;
+
+    // the id of the object in the columns
+    private final int id;
+
+    public ColumnarMObject(Klass schemaKlass, KlassColumns columns, Object... initializers) {
+        super(DispatchPlan.of(schemaKlass, ColumnarMObject.class));
+        this.columns = columns;
+        this.id = columns.add(this);
+
+        this.setupFields();
+        this.initialize(initializers);
+    }
+
+    private ColumnarMObject(Klass schemaKlass, KlassColumns columns, int id) {
+        super(DispatchPlan.of(schemaKlass, ColumnarMObject.class));
+        this.columns = columns;
+        this.id = id;
+    }
+
+    /**
+     * The managed object of an existing id of the columns, its values are already in the columns.
+     * @param schemaKlass the schema klass of the object
+     * @param columns the columns of the klass
+     * @param id the id of the object in the columns
+     * @return the managed object
+     */
+    public static ColumnarMObject existing(Klass schemaKlass, KlassColumns columns, int id) {
+        return new ColumnarMObject(schemaKlass, columns, id);
+    }
+
+    /**
+     * Returns the id of the object in the columns of its klass.
+     */
+    public int __id() {
+        return this.id;
+    }
+
+    @Override
+    protected void setupField(int slot) throws UnknownTypeException, InvalidFieldValueException {
+        final MObjectField mObjectField = this.layout.mObjectFields()[slot];
+
+        if (mObjectField == null) {
+            throw new UnknownTypeException("Type of field '" + this.layout.fields()[slot].name() + "' is NULL");
+        }
+
+        this.columns.set(slot, this.id, initialValue(mObjectField));
+    }
+
+    @Override
+    protected Object initialValue(MObjectField mObjectField) throws UnknownTypeException {
+
+        // the columns keep the set, it must not keep the handle
+        if (mObjectField instanceof MObjectFieldManySet) {
+            return new ColumnarSet(this.columns, this.id, (MObjectFieldManySet) mObjectField);
+        }
+        return super.initialValue(mObjectField);
+    }
+
+    @Override
+    public Object __getSlot(int slot) {
+        return this.columns.get(slot, this.id);
+    }
+
+    @Override
+    public void __setSlot(int slot, Object value) {
+        this.columns.set(slot, this.id, value);
+    }
+
+    @Override
+    public long __getUnboxed(int unboxedSlot) {
+        return this.columns.getUnboxed(unboxedSlot, this.id);
+    }
+
+    @Override
+    public void __setUnboxed(int unboxedSlot, long bits) {
+        this.columns.setUnboxed(unboxedSlot, this.id, bits);
+    }
+
+    /**
+     * The set of a Set field in the columns, it finds its owner by the id.
+     */
+    private static final class ColumnarSet extends KeyedSet {
+        private final KlassColumns columns;
+        private final int id;
+
+        ColumnarSet(KlassColumns columns, int id, MObjectFieldManySet field) {
+            super(null, field);
+            this.columns = columns;
+            this.id = id;
+        }
+
+        @Override
+        protected MObject owner() {
+            return MObject.of(this.columns.object(this.id));
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package nl.cwi.managed_data_4j.language.managed_object.columnar;
+
+import nl.cwi.managed_data_4j.language.managed_object.KlassLayout;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.MObjectField;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSinglePrimitive;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSingleUnboxed;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.IntFunction;
+import java.util.stream.DoubleStream;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import static nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSingleUnboxed.UNBOXED;
+
+/**
+ * The values of all the managed objects of a Klass, kept by field in columns (arrays) indexed by the object id.
+ *
+ * Every slot of the layout of the Klass is a column of values,
+ * and every primitive slot (fields of numeric and boolean Java primitives) is a column of raw bits,
+ * thus the values of a field of all the objects are next to each other, and can be scanned without the objects.
+ *
+ * The values are kept by the columns, not by the managed objects, which are only handles to their ids:
+ * the columns refer to them weakly, and the handle of an id is opened again when it is needed (see object).
+ * The values of an object are kept until it is released, then its id is reused by the next object.
+ *
+ * The columns are not synchronized, like the managed objects of the basic data manager.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public final class KlassColumns {
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // the types of the fields that can be scanned, and the floating point ones of them
+    private static final Set<Class<?>> SCANNED_TYPES = new HashSet<>(Arrays.asList(
+        int.class, Integer.class, long.class, Long.class, double.class, Double.class,
+        float.class, Float.class, boolean.class, Boolean.class));
+    private static final Set<Class<?>> FLOATING_TYPES = new HashSet<>(Arrays.asList(
+        double.class, Double.class, float.class, Float.class));
+
+    private final KlassLayout layout;
+
+    // <slot, <object id, value>>
+    private Object[][] slots;
+
+    // <primitive slot, <object id, raw bits>>
+    private long[][] unboxed;
+
+    // <object id, managed object>, weakly referenced, null if the id is released
+    private WeakReference<MObject>[] objects;
+
+    // opens the managed object of an id, once the previous one is collected
+    private final IntFunction<MObject> opener;
+
+    // the released ids, which are reused first
+    private final BitSet released = new BitSet();
+
+    // the number of the ids, of the objects and the released ones
+    private int end = 0;
+
+    // the number of the objects
+    private int size = 0;
+
+    /**
+     * The columns of the managed objects of a Klass.
+     * @param layout the layout of the Klass
+     * @param opener opens a managed object (e.g. with its proxy) for an id, whose previous one is collected
+     */
+    @SuppressWarnings("unchecked")
+    public KlassColumns(KlassLayout layout, IntFunction<MObject> opener) {
+        this.layout = layout;
+        this.opener = opener;
+        this.slots = new Object[layout.fields().length][INITIAL_CAPACITY];
+        this.unboxed = new long[layout.unboxedCount()][INITIAL_CAPACITY];
+        this.objects = new WeakReference[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Adds a managed object, its values are null (zero) until it sets up its fields.
+     * @param mObject the managed object
+     * @return the id of the object, a released one if any
+     */
+    int add(MObject mObject) {
+        int id = this.released.nextSetBit(0);
+        if (id >= 0) {
+            this.released.clear(id);
+        } else {
+            if (this.end == this.objects.length) {
+                grow();
+            }
+            id = this.end++;
+        }
+        this.objects[id] = new WeakReference<>(mObject);
+        this.size++;
+        return id;
+    }
+
+    /**
+     * Releases a managed object, its values are dropped and its id is reused by the next object.
+     * The released object (and any other handle of its id) must not be used anymore.
+     * @param id the id of the object
+     */
+    public void release(int id) {
+        checkId(id);
+        for (Object[] values : this.slots) {
+            values[id] = null;
+        }
+        for (long[] bits : this.unboxed) {
+            bits[id] = 0L;
+        }
+        this.objects[id] = null;
+        this.released.set(id);
+        this.size--;
+    }
+
+    private void grow() {
+        final int capacity = this.objects.length + (this.objects.length >> 1);
+        this.objects = Arrays.copyOf(this.objects, capacity);
+        for (int slot = 0; slot < this.slots.length; slot++) {
+            this.slots[slot] = Arrays.copyOf(this.slots[slot], capacity);
+        }
+        for (int unboxedSlot = 0; unboxedSlot < this.unboxed.length; unboxedSlot++) {
+            this.unboxed[unboxedSlot] = Arrays.copyOf(this.unboxed[unboxedSlot], capacity);
+        }
+    }
+
+    Object get(int slot, int id) {
+        return this.slots[slot][id];
+    }
+
+    void set(int slot, int id, Object value) {
+        this.slots[slot][id] = value;
+    }
+
+    long getUnboxed(int unboxedSlot, int id) {
+        return this.unboxed[unboxedSlot][id];
+    }
+
+    void setUnboxed(int unboxedSlot, int id, long bits) {
+        this.unboxed[unboxedSlot][id] = bits;
+    }
+
+    public KlassLayout layout() {
+        return this.layout;
+    }
+
+    /**
+     * Returns the number of the managed objects of the Klass.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Returns the number of the ids, the ids of the objects are less than it (released ones included).
+     */
+    public int ids() {
+        return this.end;
+    }
+
+    /**
+     * Returns a managed object by its id, it is opened again if it is no longer used.
+     * @param id the id of the object
+     * @return the object, its proxy if it has one.
+     */
+    public Object object(int id) {
+        checkId(id);
+        MObject mObject = this.objects[id].get();
+        if (mObject == null) {
+            mObject = this.opener.apply(id);
+            this.objects[id] = new WeakReference<>(mObject);
+        }
+        return mObject.getProxy() != null ? mObject.getProxy() : mObject;
+    }
+
+    private void checkId(int id) {
+        if (id < 0 || id >= this.end || this.released.get(id)) {
+            throw new IndexOutOfBoundsException("No object " + id + " of " + this.layout.klass().name());
+        }
+    }
+
+    /**
+     * Scans the values of an integer (e.g. int, Integer, long) or boolean field of all the objects, in id order.
+     * Booleans are 1 (true) and 0 (false), null values (and released ids) are left out.
+     * @param fieldName the name of the field
+     * @return the values
+     */
+    public LongStream longs(String fieldName) {
+        final MObjectField field = scannedField(fieldName);
+        final Class<?> type = field.getField().type().classOf();
+        if (FLOATING_TYPES.contains(type)) {
+            throw new IllegalArgumentException(
+                "Field '" + fieldName + "' of " + this.layout.klass().name() + " is not an integer field");
+        }
+
+        final Object[] values = this.slots[field.getSlot()];
+        final long[] bits = unboxedColumn(field);
+        return IntStream.range(0, this.end)
+            .filter(id -> values[id] != null)
+            .mapToLong(id -> values[id] == UNBOXED ? bits[id] : toLong(values[id]));
+    }
+
+    /**
+     * Scans the values of a numeric field of all the objects, in id order,
+     * null values (and released ids) are left out.
+     * @param fieldName the name of the field
+     * @return the values
+     */
+    public DoubleStream doubles(String fieldName) {
+        final MObjectField field = scannedField(fieldName);
+        final Class<?> type = field.getField().type().classOf();
+        if (type == boolean.class || type == Boolean.class) {
+            throw new IllegalArgumentException(
+                "Field '" + fieldName + "' of " + this.layout.klass().name() + " is not a numeric field");
+        }
+
+        final Object[] values = this.slots[field.getSlot()];
+        final long[] bits = unboxedColumn(field);
+        return IntStream.range(0, this.end)
+            .filter(id -> values[id] != null)
+            .mapToDouble(id -> values[id] == UNBOXED ? toDouble(type, bits[id]) : ((Number) values[id]).doubleValue());
+    }
+
+    private MObjectField scannedField(String fieldName) {
+        final int slot = this.layout.slotOf(fieldName);
+        if (slot < 0) {
+            throw new NoSuchFieldError(
+                "No field named '" + fieldName + "' in class '" + this.layout.klass().name() + "'");
+        }
+
+        final MObjectField field = this.layout.mObjectFields()[slot];
+        if (!(field instanceof MObjectFieldSinglePrimitive) || !SCANNED_TYPES.contains(field.getField().type().classOf())) {
+            throw new IllegalArgumentException(
+                "Field '" + fieldName + "' of " + this.layout.klass().name() + " is not a numeric or boolean field");
+        }
+        return field;
+    }
+
+    // the raw bits of an unboxed field (a Java primitive), null for a boxed one
+    private long[] unboxedColumn(MObjectField field) {
+        return field instanceof MObjectFieldSingleUnboxed
+            ? this.unboxed[((MObjectFieldSingleUnboxed) field).getUnboxedSlot()]
+            : null;
+    }
+
+    private static long toLong(Object value) {
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1L : 0L;
+        }
+        return ((Number) value).longValue();
+    }
+
+    private static double toDouble(Class<?> type, long bits) {
+        if (type == double.class) {
+            return Double.longBitsToDouble(bits);
+        }
+        if (type == float.class) {
+            return Float.intBitsToFloat((int) bits);
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,342 @@
+package nl.cwi.managed_data_4j.language.managed_object.concurrent;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.MObjectField;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.InvalidFieldValueException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.NoKeyFieldException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.IndexedList;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.KeyedSet;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldManyList;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldManySet;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSingleMObj;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * A Managed Object that can be shared by many threads.
+ *
+ * The field access is guarded by striped read-write locks, an object is assigned to a stripe by its identity.
+ *      - a read locks the stripe of the object,
+ *      - a write locks the stripes of all the managed objects that it changes:
+ *        the object, its old value and its new values (inverses, keys),
+ *        so that an assignment and the update of its inverse are seen as one change.
+ *        The stripes are always locked in the same order, so that two writes can not deadlock.
+ *
+ * The List many-fields are kept in IndexedLists (managed objects compared by reference) that are guarded
+ * by the stripe of the object, their iterators iterate a copy, so they can be iterated while they change.
+ * The Set many-fields are live KeyedSets, guarded in the same way, a change (add, remove)
+ * also locks the stripe of the value, whose inverse it changes.
+ *
+ * A single read or write is atomic, a sequence of them (e.g. count(count() + 1)) is not.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class ConcurrentMObject extends MObject {
+
+    // the number of lock stripes (power of 2)
+    private static final int STRIPES = 128;
+
+    private static final ReentrantReadWriteLock[] locks = new ReentrantReadWriteLock[STRIPES];
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantReadWriteLock();
+        }
+    }
+
+    public ConcurrentMObject(Klass schemaKlass, Object... initializers) {
+        super(schemaKlass, initializers);
+    }
+
+    @Override
+    protected Object initialValue(MObjectField mObjectField) throws UnknownTypeException {
+        if (mObjectField instanceof MObjectFieldManyList) {
+            return new LockedList(((MObjectFieldManyList) mObjectField).byReference());
+        }
+        if (mObjectField instanceof MObjectFieldManySet) {
+            return new LockedSet((MObjectFieldManySet) mObjectField);
+        }
+        return super.initialValue(mObjectField);
+    }
+
+    @Override
+    public Object _get(String name) throws NoSuchFieldError {
+        final ReentrantReadWriteLock.ReadLock lock = locks[stripe(this)].readLock();
+        lock.lock();
+        try {
+            return super._get(name);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void _set(String name, Object value) throws NoSuchFieldError, InvalidFieldValueException, NoKeyFieldException {
+        final int slot = this.layout.slotOf(name);
+
+        // no such field, nothing to lock.
+        if (slot < 0) {
+            super._set(name, value);
+            return;
+        }
+
+        // the old value is changed only by a reference with an inverse,
+        // in case it is replaced before the locks are taken, try again.
+        final boolean changesOldValue = this.layout.mObjectFields()[slot] instanceof MObjectFieldSingleMObj;
+
+        while (true) {
+            final Object oldValue = changesOldValue ? this.values[slot] : null;
+            final int[] stripes = stripesOf(oldValue, value);
+
+            lockAll(stripes);
+            try {
+                if (!changesOldValue || this.values[slot] == oldValue) {
+                    super._set(name, value);
+                    return;
+                }
+            } finally {
+                unlockAll(stripes);
+            }
+        }
+    }
+
+    /**
+     * Helper method
+     * Returns the ordered stripes of this object and the managed objects of the old and new values.
+     * @param oldValue the old value of the field
+     * @param newValue the new value (or values) of the field
+     * @return the stripes, sorted and unique
+     */
+    private int[] stripesOf(Object oldValue, Object newValue) {
+        final Object[] newValues = newValue instanceof Object[] ? (Object[]) newValue : new Object[] { newValue };
+
+        int[] stripes = new int[newValues.length + 2];
+        int count = 0;
+
+        stripes[count++] = stripe(this);
+        if (MObject.isManaged(oldValue)) {
+            stripes[count++] = stripe(MObject.of(oldValue));
+        }
+        for (Object value : newValues) {
+            if (MObject.isManaged(value)) {
+                stripes[count++] = stripe(MObject.of(value));
+            }
+        }
+
+        // lock order
+        Arrays.sort(stripes, 0, count);
+
+        int unique = 0;
+        for (int i = 0; i < count; i++) {
+            if (unique == 0 || stripes[unique - 1] != stripes[i]) {
+                stripes[unique++] = stripes[i];
+            }
+        }
+        return Arrays.copyOf(stripes, unique);
+    }
+
+    // a read of the collection of a many-field, with the stripe of the object locked for reading.
+    private <T> T read(Supplier<T> read) {
+        final ReentrantReadWriteLock.ReadLock lock = locks[stripe(this)].readLock();
+        lock.lock();
+        try {
+            return read.get();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // a change of the collection of a many-field, with the stripes of the object and of the value locked.
+    private <T> T write(Object value, Supplier<T> change) {
+        final int[] stripes = stripesOf(null, value);
+        lockAll(stripes);
+        try {
+            return change.get();
+        } finally {
+            unlockAll(stripes);
+        }
+    }
+
+    private static List<Object> copyOf(Iterator<Object> iterator) {
+        final List<Object> copy = new ArrayList<>();
+        iterator.forEachRemaining(copy::add);
+        return copy;
+    }
+
+    private static int stripe(MObject mObject) {
+        final int hash = System.identityHashCode(mObject);
+        return (hash ^ (hash >>> 16)) & (STRIPES - 1);
+    }
+
+    private static void lockAll(int[] stripes) {
+        for (int stripe : stripes) {
+            locks[stripe].writeLock().lock();
+        }
+    }
+
+    private static void unlockAll(int[] stripes) {
+        for (int i = stripes.length - 1; i >= 0; i--) {
+            locks[stripes[i]].writeLock().unlock();
+        }
+    }
+
+    /**
+     * The list of a List many-field, its reads and changes lock the stripe of the object,
+     * its iterator iterates a copy of the elements.
+     */
+    private final class LockedList extends IndexedList<Object> {
+
+        LockedList(boolean byReference) {
+            super(byReference);
+        }
+
+        @Override
+        public int size() {
+            return read(super::size);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return read(() -> super.contains(o));
+        }
+
+        @Override
+        public Object get(int index) {
+            return read(() -> super.get(index));
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            return read(() -> super.indexOf(o));
+        }
+
+        @Override
+        public boolean add(Object e) {
+            return write(null, () -> super.add(e));
+        }
+
+        @Override
+        public Object set(int index, Object element) {
+            return write(null, () -> super.set(index, element));
+        }
+
+        @Override
+        public void add(int index, Object element) {
+            write(null, () -> {
+                super.add(index, element);
+                return null;
+            });
+        }
+
+        @Override
+        public Object remove(int index) {
+            return write(null, () -> super.remove(index));
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return write(null, () -> super.remove(o));
+        }
+
+        @Override
+        public void clear() {
+            write(null, () -> {
+                super.clear();
+                return null;
+            });
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            return new CopyIterator(read(() -> copyOf(super.iterator())), this);
+        }
+    }
+
+    /**
+     * The set of a Set many-field, its reads lock the stripe of the object, its changes also the stripe of the value,
+     * its iterator iterates a copy of the values.
+     */
+    private final class LockedSet extends KeyedSet {
+
+        LockedSet(MObjectFieldManySet field) {
+            super(ConcurrentMObject.this, field);
+        }
+
+        @Override
+        public int size() {
+            return read(super::size);
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return read(super::isEmpty);
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return read(() -> super.contains(o));
+        }
+
+        @Override
+        public boolean add(Object value) {
+            return write(value, () -> super.add(value));
+        }
+
+        @Override
+        public boolean remove(Object o) {
+            return write(o, () -> super.remove(o));
+        }
+
+        @Override
+        public Iterator<Object> iterator() {
+            return new CopyIterator(read(() -> copyOf(super.iterator())), this);
+        }
+    }
+
+    /**
+     * Iterates a copy of the values of a many-field, a removal removes the value from the collection.
+     */
+    private static final class CopyIterator implements Iterator<Object> {
+
+        private static final Object NONE = new Object();
+
+        private final Iterator<Object> copy;
+
+        private final Collection<Object> collection;
+
+        // the last returned value, NONE if it is removed or there is none.
+        private Object last = NONE;
+
+        CopyIterator(List<Object> copy, Collection<Object> collection) {
+            this.copy = copy.iterator();
+            this.collection = collection;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.copy.hasNext();
+        }
+
+        @Override
+        public Object next() {
+            this.last = this.copy.next();
+            return this.last;
+        }
+
+        @Override
+        public void remove() {
+            if (this.last == NONE) {
+                throw new IllegalStateException();
+            }
+            this.collection.remove(this.last);
+            this.last = NONE;
+        }
+    }
+}
@@ -0,0 +1,262 @@
+package nl.cwi.managed_data_4j.language.managed_object.copy_on_write;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.MObjectField;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.NoKeyFieldException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.IndexedList;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.KeyedSet;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldMany;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldManyList;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldManySet;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * A Managed Object which can be the copy of another one (see CopyOnWriteDataManager.fork),
+ * the copy reads the values of its source until it has its own values:
+ *      - before the copy is written (_set, or the update of an inverse),
+ *      - before a many-field of the copy is read, since the collection of the field is live,
+ *      - before the source is written, also a change of the collection of a many-field of the source,
+ * the values of the source are copied to the copy, the objects of the fork are mapped to their copies.
+ * The copy of an object is created when it is read for the first time,
+ * or before the object is written, while a fork of it is open, thus a subtree that is not used is not copied at all.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class CopyOnWriteMObject extends MObject {
+
+    // the object that this object is a copy of, null if the object has its own values.
+    private CopyOnWriteMObject source;
+
+    // the fork that the object is a copy in, null if the object has its own values.
+    private Fork fork;
+
+    // the copies which read the values of this object, null if none.
+    private List<WeakReference<CopyOnWriteMObject>> copies;
+
+    // the forks whose spine has this object, its copy in them may not be created yet, null if none.
+    private List<WeakReference<Fork>> forks;
+
+    public CopyOnWriteMObject(Klass schemaKlass, Object... initializers) {
+        super(schemaKlass, initializers);
+    }
+
+    /**
+     * Makes the object a copy of another one, in a fork.
+     */
+    void copyOf(CopyOnWriteMObject source, Fork fork) {
+        this.source = source;
+        this.fork = fork;
+        source.addCopy(this);
+    }
+
+    /**
+     * Registers a fork whose spine has the object, its copy is created before the object is written.
+     */
+    void forkedIn(Fork fork) {
+        this.forks = addWeakly(this.forks, fork);
+    }
+
+    /**
+     * Returns true if the object reads the values of another one.
+     */
+    public boolean __isShared() {
+        return this.source != null;
+    }
+
+    @Override
+    protected Object initialValue(MObjectField mObjectField) throws UnknownTypeException {
+        if (mObjectField instanceof MObjectFieldManyList) {
+            return new CopyOnWriteList(((MObjectFieldManyList) mObjectField).byReference());
+        }
+        if (mObjectField instanceof MObjectFieldManySet) {
+            return new CopyOnWriteSet((MObjectFieldManySet) mObjectField);
+        }
+        return super.initialValue(mObjectField);
+    }
+
+    @Override
+    public Object __getSlot(int slot) {
+        if (isMany(slot)) {
+            // the collection is live, it may change after the read
+            ownValues();
+        }
+        return peek(slot);
+    }
+
+    @Override
+    public void __setSlot(int slot, Object value) {
+        detachCopies();
+        ownValues();
+        super.__setSlot(slot, value);
+    }
+
+    @Override
+    public long __getUnboxed(int unboxedSlot) {
+        return peekUnboxed(unboxedSlot);
+    }
+
+    @Override
+    public void __setUnboxed(int unboxedSlot, long bits) {
+        detachCopies();
+        ownValues();
+        super.__setUnboxed(unboxedSlot, bits);
+    }
+
+    /**
+     * Returns the value of a slot, as the object sees it, without copying any values.
+     * The many-fields of a copy are returned as lists of the values that it would have.
+     */
+    Object peek(int slot) {
+        if (this.source == null) {
+            return super.__getSlot(slot);
+        }
+
+        final MObjectField mObjectField = this.layout.mObjectFields()[slot];
+        final Object value = this.source.peek(slot);
+        if (!isMany(slot)) {
+            return this.fork.map(value, mObjectField);
+        }
+
+        final List<Object> values = new ArrayList<>(((Collection<?>) value).size());
+        for (Object element : (Collection<?>) value) {
+            final Object mapped = this.fork.map(element, mObjectField);
+            if (mapped != null) {
+                values.add(mapped);
+            }
+        }
+        return values;
+    }
+
+    private long peekUnboxed(int unboxedSlot) {
+        return this.source == null ? super.__getUnboxed(unboxedSlot) : this.source.peekUnboxed(unboxedSlot);
+    }
+
+    /**
+     * Copies the values of the source to the object, if it is a copy.
+     */
+    private void ownValues() {
+        final CopyOnWriteMObject from = this.source;
+        if (from == null) {
+            return;
+        }
+
+        // the copies of the copy read its values through its source, before it changes
+        detachCopies();
+
+        final Fork fromFork = this.fork;
+        this.source = null;
+        this.fork = null;
+
+        final MObjectField[] mObjectFields = this.layout.mObjectFields();
+        try {
+            for (int slot = 0; slot < mObjectFields.length; slot++) {
+                final MObjectField mObjectField = mObjectFields[slot];
+                final Object value = from.peek(slot);
+
+                if (isMany(slot)) {
+                    for (Object element : (Collection<?>) value) {
+                        final Object mapped = fromFork.map(element, mObjectField);
+                        if (mapped != null) {
+                            ((MObjectFieldMany) mObjectField).__insert(this, mapped);
+                        }
+                    }
+                } else {
+                    this.values[slot] = fromFork.map(value, mObjectField);
+                }
+            }
+        } catch (NoKeyFieldException e) {
+            throw new IllegalStateException("Error on copy of " + schemaKlass.name(), e);
+        }
+
+        if (this.unboxedValues != null) {
+            for (int unboxedSlot = 0; unboxedSlot < this.unboxedValues.length; unboxedSlot++) {
+                this.unboxedValues[unboxedSlot] = from.peekUnboxed(unboxedSlot);
+            }
+        }
+    }
+
+    /**
+     * The copies of the object get their own values, before the object changes.
+     */
+    private void detachCopies() {
+        final List<WeakReference<Fork>> pending = this.forks;
+        if (pending != null) {
+            // the copies that are not created yet would read the changed values
+            this.forks = null;
+            for (WeakReference<Fork> reference : pending) {
+                final Fork fork = reference.get();
+                if (fork != null) {
+                    fork.copyOf(getProxy());
+                }
+            }
+        }
+
+        final List<WeakReference<CopyOnWriteMObject>> detached = this.copies;
+        if (detached == null) {
+            return;
+        }
+        this.copies = null;
+
+        for (WeakReference<CopyOnWriteMObject> reference : detached) {
+            final CopyOnWriteMObject copy = reference.get();
+            if (copy != null) {
+                copy.ownValues();
+            }
+        }
+    }
+
+    private void addCopy(CopyOnWriteMObject copy) {
+        this.copies = addWeakly(this.copies, copy);
+    }
+
+    private static <T> List<WeakReference<T>> addWeakly(List<WeakReference<T>> references, T referent) {
+        if (references == null) {
+            references = new ArrayList<>(1);
+        } else if (references.size() >= 8) {
+            // the ones that are not used anymore
+            references.removeIf(reference -> reference.get() == null);
+        }
+        references.add(new WeakReference<>(referent));
+        return references;
+    }
+
+    private boolean isMany(int slot) {
+        return this.layout.mObjectFields()[slot] instanceof MObjectFieldMany;
+    }
+
+    /**
+     * The list of a List many-field, whose copies get their own values before it changes.
+     */
+    private final class CopyOnWriteList extends IndexedList<Object> {
+
+        CopyOnWriteList(boolean byReference) {
+            super(byReference);
+        }
+
+        @Override
+        protected void changing() {
+            detachCopies();
+        }
+    }
+
+    /**
+     * The set of a Set many-field, whose copies get their own values before it changes.
+     */
+    private final class CopyOnWriteSet extends KeyedSet {
+
+        CopyOnWriteSet(MObjectFieldManySet field) {
+            super(CopyOnWriteMObject.this, field);
+        }
+
+        @Override
+        protected void changing() {
+            detachCopies();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package nl.cwi.managed_data_4j.language.managed_object.copy_on_write;
+
+import nl.cwi.managed_data_4j.language.managed_object.KlassLayout;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.MObjectField;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A copy-on-write copy of a graph of managed objects (see CopyOnWriteMObject),
+ * the objects of the spine of the graph and their copies, which are created when they are first read.
+ *
+ * As the deep copy (MObjectUtils.copy), the references to objects of the spine refer to their copies,
+ * the references to objects out of the spine are kept, except for fields with an inverse.
+ * The fork is isolated from the graph: an object of the spine creates its copy before it is written.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public final class Fork {
+
+    // <object of the spine, its copy>, null until the copy is created, objects are compared by reference
+    private final Map<Object, Object> copies;
+
+    // creates a new managed object (proxy) of a klass.
+    private final Function<Klass, Object> factory;
+
+    private Fork(Map<Object, Object> copies, Function<Klass, Object> factory) {
+        this.copies = copies;
+        this.factory = factory;
+    }
+
+    /**
+     * Forks a graph, only its spine is walked, no object is copied yet.
+     * @param root the root of the graph, of copy-on-write managed objects
+     * @param factory creates a new copy-on-write managed object (proxy) of a klass
+     * @return the copy of the root
+     */
+    public static Object fork(Object root, Function<Klass, Object> factory) {
+        final Map<Object, Object> copies = new IdentityHashMap<>();
+        final Deque<Object> stack = new ArrayDeque<>();
+        copies.put(root, null);
+        stack.push(root);
+
+        while (!stack.isEmpty()) {
+            final CopyOnWriteMObject mObject = copyOnWrite(stack.pop());
+            final Field[] fields = KlassLayout.of(mObject.schemaKlass()).fields();
+
+            for (int slot = 0; slot < fields.length; slot++) {
+                if (!fields[slot].contain()) continue;
+
+                final Object value = mObject.peek(slot);
+                if (value instanceof Collection) {
+                    for (Object element : (Collection<?>) value) {
+                        push(copies, stack, element);
+                    }
+                } else {
+                    push(copies, stack, value);
+                }
+            }
+        }
+
+        // the objects of the spine create their copies before they are written
+        final Fork fork = new Fork(copies, factory);
+        for (Object source : copies.keySet()) {
+            copyOnWrite(source).forkedIn(fork);
+        }
+        return fork.copyOf(root);
+    }
+
+    private static void push(Map<Object, Object> copies, Deque<Object> stack, Object child) {
+        if (MObject.isManaged(child) && !copies.containsKey(child)) {
+            copies.put(child, null);
+            stack.push(child);
+        }
+    }
+
+    /**
+     * Maps a value of a source to the value of its copy:
+     *      - an object of the spine to its copy,
+     *      - an object out of the spine stays the same, unless the field has an inverse (then null),
+     *      - a primitive stays the same.
+     */
+    Object map(Object value, MObjectField mObjectField) {
+        if (!MObject.isManaged(value)) {
+            return value;
+        }
+        if (!this.copies.containsKey(value)) {
+            return mObjectField.getInverse() == null ? value : null;
+        }
+        return copyOf(value);
+    }
+
+    /**
+     * Returns the copy of an object of the spine, it is created if it does not exist yet.
+     */
+    Object copyOf(Object object) {
+        Object copy = this.copies.get(object);
+        if (copy == null) {
+            final CopyOnWriteMObject source = copyOnWrite(object);
+            copy = this.factory.apply(source.schemaKlass());
+            copyOnWrite(copy).copyOf(source, this);
+            this.copies.put(object, copy);
+        }
+        return copy;
+    }
+
+    private static CopyOnWriteMObject copyOnWrite(Object object) {
+        final MObject mObject = MObject.of(object);
+        if (!(mObject instanceof CopyOnWriteMObject)) {
+            throw new IllegalArgumentException(
+                "Cannot fork " + mObject.schemaKlass().name() + ", it is not a copy-on-write managed object.");
+        }
+        return (CopyOnWriteMObject) mObject;
+    }
+}
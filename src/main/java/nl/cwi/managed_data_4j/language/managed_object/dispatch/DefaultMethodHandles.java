@@ -0,0 +1,130 @@
+package nl.cwi.managed_data_4j.language.managed_object.dispatch;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the method handles of the default methods of the schema definitions.
+ *
+ * The default methods of a schema are overridden by the proxy of a managed object,
+ * so they can only be invoked through a "special" method handle of the schema class.
+ * The handles are built once per (schema class, method), they are not bound to any proxy
+ * and they are adapted to the fixed type (Object proxy, Object[] args)Object,
+ * thus a call is a single invokeExact.
+ * They are kept with their schema class (ClassValue), thus they do not keep it, or its loader, alive.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public final class DefaultMethodHandles {
+
+    // the type of all the cached handles: (proxy, args) -> result
+    private static final MethodType INVOKER_TYPE = MethodType.methodType(Object.class, Object.class, Object[].class);
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    // Java 9+: MethodHandles.privateLookupIn(Class, Lookup), null on Java 8
+    private static final Method privateLookupIn = findPrivateLookupIn();
+
+    // <Schema class, <Method, Handle>>
+    private static final ClassValue<Map<Method, MethodHandle>> handles = new HandleCache();
+
+    private DefaultMethodHandles() {}
+
+    /**
+     * Invokes the default implementation of a method on a proxy.
+     * @param schemaClass the schema definition class of the proxy
+     * @param method the default method
+     * @param proxy the proxy instance
+     * @param args any arguments of the method, can be null
+     * @return any return values of the method, null if none
+     * @throws Throwable in case of error during invocation
+     */
+    public static Object invoke(Class<?> schemaClass, Method method, Object proxy, Object[] args) throws Throwable {
+        final Object[] arguments = args == null ? NO_ARGS : args;
+        return (Object) get(schemaClass, method).invokeExact(proxy, arguments);
+    }
+
+    /**
+     * Returns the cached handle of a default method, builds it if it does not exist.
+     * @param schemaClass the schema definition class
+     * @param method the default method
+     * @return a handle of type (Object proxy, Object[] args)Object
+     */
+    public static MethodHandle get(Class<?> schemaClass, Method method) {
+        final Map<Method, MethodHandle> classHandles = handles.get(schemaClass);
+        final MethodHandle handle = classHandles.get(method);
+        if (handle != null) {
+            return handle;
+        }
+        return classHandles.computeIfAbsent(method, m -> create(schemaClass, method));
+    }
+
+    /**
+     * Builds a new handle of a default method, without caching it.
+     * @param schemaClass the schema definition class
+     * @param method the default method
+     * @return a handle of type (Object proxy, Object[] args)Object
+     */
+    public static MethodHandle create(Class<?> schemaClass, Method method) {
+        try {
+            final Method schemaKlassMethod = schemaClass.getMethod(method.getName(), method.getParameterTypes());
+
+            // create a method handle that will not check for overridden method (unreflectSpecial)
+            // Since it is "special" it will skip the overriding done
+            // by the proxying and invoke the default implementation
+            return privateLookup(schemaClass)
+                .unreflectSpecial(schemaKlassMethod, schemaClass)
+                .asFixedArity()
+                .asSpreader(Object[].class, schemaKlassMethod.getParameterCount())
+                .asType(INVOKER_TYPE);
+
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(
+                "Cannot access default method '" + method.getName() + "' of " + schemaClass.getSimpleName(), e);
+        }
+    }
+
+    /**
+     * Creates a lookup with PRIVATE access on a class.
+     * Java 9+ provides it with privateLookupIn,
+     * on Java 8 it is done by the (inaccessible) MethodHandles.Lookup constructor.
+     * @param declaringClass the class to lookup in
+     * @return the private lookup
+     * @throws ReflectiveOperationException in case the lookup cannot be created
+     */
+    private static MethodHandles.Lookup privateLookup(Class<?> declaringClass) throws ReflectiveOperationException {
+        if (privateLookupIn != null) {
+            return (MethodHandles.Lookup) privateLookupIn.invoke(null, declaringClass, MethodHandles.lookup());
+        }
+
+        // declare MethodHandles.Lookup constructor accessible
+        final Constructor<MethodHandles.Lookup> constructor =
+            MethodHandles.Lookup.class.getDeclaredConstructor(Class.class, int.class);
+        constructor.setAccessible(true);
+
+        return constructor.newInstance(declaringClass, MethodHandles.Lookup.PRIVATE);
+    }
+
+    private static Method findPrivateLookupIn() {
+        try {
+            return MethodHandles.class.getMethod("privateLookupIn", Class.class, MethodHandles.Lookup.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    /**
+     * The handles of a schema class, by method.
+     */
+    private static final class HandleCache extends ClassValue<Map<Method, MethodHandle>> {
+        @Override
+        protected Map<Method, MethodHandle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
+    }
+}
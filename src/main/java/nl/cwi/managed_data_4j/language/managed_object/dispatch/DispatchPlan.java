@@ -0,0 +1,224 @@
+package nl.cwi.managed_data_4j.language.managed_object.dispatch;
+
+import nl.cwi.managed_data_4j.language.managed_object.KlassLayout;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.generated.GeneratedMObject;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The pre-resolved dispatch of the calls on a managed object.
+ *
+ * A plan is built once for a Klass and a kind of Managed Object (the data manager's MObject class),
+ * and it is shared by all the instances of this combination.
+ * It maps every called method, on top of the slots of the KlassLayout,
+ * to what it should be dispatched to (a field, a local method or a default method),
+ * so that an invocation on the proxy does not have to search for it again.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public final class DispatchPlan {
+
+    /**
+     * The kind of a dispatch target.
+     */
+    public enum Kind {
+        /** A field of the klass, read or written according to the arguments. */
+        FIELD,
+        /** A method that is declared in the managed object itself (e.g. lock()). */
+        LOCAL,
+        /** A default method of the schema definition. */
+        DEFAULT,
+        /** Nothing found for this method. */
+        MISSING
+    }
+
+    /**
+     * A resolved dispatch target of a method.
+     */
+    public static final class Target {
+
+        public final Kind kind;
+
+        // the slot of the field in the managed object, -1 if it is not a field.
+        public final int slot;
+
+        // the called method name, which is the field name in case of a field.
+        public final String name;
+
+        // true in case of a many field.
+        public final boolean many;
+
+        // the local method of the managed object which has to be called
+        // before the default method, if any.
+        public final Method localMethod;
+
+        // the value returned by an assignment, in case the method returns a java primitive (e.g. 0 for int).
+        public final Object primitiveDefault;
+
+        private Target(Kind kind, int slot, String name, boolean many, Method localMethod, Object primitiveDefault) {
+            this.kind = kind;
+            this.slot = slot;
+            this.name = name;
+            this.many = many;
+            this.localMethod = localMethod;
+            this.primitiveDefault = primitiveDefault;
+        }
+
+        private Target(Kind kind, int slot, String name, boolean many, Method localMethod) {
+            this(kind, slot, name, many, localMethod, null);
+        }
+    }
+
+    private final Klass klass;
+
+    // the slots of the fields of the klass.
+    private final KlassLayout layout;
+
+    // the methods that have been defined in the managed object class.
+    private final Method[] localMethods;
+
+    // true in case the managed object intercepts the field access (overrides _get or _set)
+    private final boolean interceptsGet;
+    private final boolean interceptsSet;
+
+    // <Called method, Target>
+    private final Map<Method, Target> targets = new ConcurrentHashMap<>();
+
+    private DispatchPlan(Klass klass, Class<? extends MObject> mObjectClass) {
+        this.klass = klass;
+
+        this.layout = KlassLayout.of(klass);
+
+        this.localMethods = mObjectClass.getMethods();
+        this.interceptsGet = isOverridden(mObjectClass, "_get", String.class);
+        this.interceptsSet = isOverridden(mObjectClass, "_set", String.class, Object.class);
+
+        // resolve the schema methods ahead of the first call
+        final Class<?> schemaClass = klass.classOf();
+        if (schemaClass != null) {
+            for (Method method : schemaClass.getMethods()) {
+                this.targets.put(method, resolveTarget(method));
+            }
+        }
+    }
+
+    /**
+     * Returns the plan of a klass for a kind of managed object, builds it if it does not exist.
+     * The plans are kept with the layout of the klass (KlassLayout.shared), per managed object class.
+     * @param klass the schema klass
+     * @param mObjectClass the class of the managed object
+     * @return the dispatch plan
+     */
+    @SuppressWarnings("unchecked")
+    public static DispatchPlan of(Klass klass, Class<? extends MObject> mObjectClass) {
+        // generated managed objects are dispatched as the managed object they extend
+        while (GeneratedMObject.class.isAssignableFrom(mObjectClass)) {
+            mObjectClass = (Class<? extends MObject>) mObjectClass.getSuperclass();
+        }
+
+        final Class<? extends MObject> dispatchClass = mObjectClass;
+        return KlassLayout.of(klass).shared(dispatchClass, () -> new DispatchPlan(klass, dispatchClass));
+    }
+
+    /**
+     * Builds the layouts and the plans of the basic managed objects for all the klasses of a schema.
+     * @param klasses the klasses of the schema
+     */
+    public static void prepare(Collection<Klass> klasses) {
+        klasses.forEach(klass -> of(klass, MObject.class));
+    }
+
+    /**
+     * Returns the dispatch target of a called method.
+     * @param method the called method
+     * @return the target
+     */
+    public Target resolve(Method method) {
+        final Target target = this.targets.get(method);
+        if (target != null) {
+            return target;
+        }
+        return this.targets.computeIfAbsent(method, this::resolveTarget);
+    }
+
+    /**
+     * Returns the slot of a field.
+     * @param fieldName the field name
+     * @return the slot, -1 if there is no such field.
+     */
+    public int slotOf(String fieldName) {
+        return this.layout.slotOf(fieldName);
+    }
+
+    public Field[] fields() {
+        return this.layout.fields();
+    }
+
+    public KlassLayout layout() {
+        return this.layout;
+    }
+
+    public Klass klass() {
+        return this.klass;
+    }
+
+    public boolean interceptsGet() {
+        return this.interceptsGet;
+    }
+
+    public boolean interceptsSet() {
+        return this.interceptsSet;
+    }
+
+    private Target resolveTarget(Method method) {
+        final String name = method.getName();
+
+        // default methods, with a possible local method to be called before.
+        if (method.isDefault()) {
+            Method localMethod = null;
+            for (Method objMethod : this.localMethods) {
+                if (name.equals(objMethod.getName()) && method.getReturnType().equals(objMethod.getReturnType())) {
+                    localMethod = objMethod;
+                    break;
+                }
+            }
+            return new Target(Kind.DEFAULT, -1, name, false, localMethod);
+        }
+
+        // methods attached by the derived managed objects (e.g. point.observe()).
+        for (Method declaredMethod : this.localMethods) {
+            if (declaredMethod.getName().equals(name)) {
+                return new Target(Kind.LOCAL, -1, name, false, declaredMethod);
+            }
+        }
+
+        final int slot = slotOf(name);
+        if (slot < 0) {
+            return new Target(Kind.MISSING, -1, name, false, null);
+        }
+        return new Target(Kind.FIELD, slot, name, this.layout.fields()[slot].many(), null, primitiveDefault(method));
+    }
+
+    private static Object primitiveDefault(Method method) {
+        final Class<?> returnType = method.getReturnType();
+        if (!returnType.isPrimitive() || returnType == void.class) {
+            return null;
+        }
+        // the default value of a java primitive, e.g. 0 for int.
+        return Array.get(Array.newInstance(returnType, 1), 0);
+    }
+
+    private static boolean isOverridden(Class<?> mObjectClass, String name, Class<?>... parameterTypes) {
+        try {
+            return mObjectClass.getMethod(name, parameterTypes).getDeclaringClass() != MObject.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package nl.cwi.managed_data_4j.language.managed_object.generated;
+
+/**
+ * Marks the managed object classes which are generated for a Klass.
+ * A generated managed object implements its schema definition itself, so it is its own proxy.
+ * @author Theologos Zacharopoulos
+ */
+public interface GeneratedMObject {
+}
@@ -0,0 +1,202 @@
+package nl.cwi.managed_data_4j.language.managed_object.generated;
+
+import net.bytebuddy.ByteBuddy;
+import net.bytebuddy.description.modifier.Visibility;
+import net.bytebuddy.dynamic.DynamicType;
+import net.bytebuddy.dynamic.loading.ClassLoadingStrategy;
+import net.bytebuddy.dynamic.scaffold.subclass.ConstructorStrategy;
+import net.bytebuddy.implementation.MethodCall;
+import net.bytebuddy.implementation.bytecode.assign.Assigner;
+import nl.cwi.managed_data_4j.language.managed_object.KlassLayout;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.dispatch.DispatchPlan;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.MObjectField;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSingleUnboxed;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+import static net.bytebuddy.matcher.ElementMatchers.is;
+
+/**
+ * Generates a concrete managed object class per Klass, as an alternative to the dynamic proxies.
+ *
+ * The generated class extends the Managed Object of the data manager and implements the
+ * schema definition of the Klass directly:
+ *      - the field methods call the field access of the managed object with their resolved slot,
+ *        without any InvocationHandler or method lookup in between,
+ *      - the field methods with java primitives (e.g. int count(int... count)) do not box their values,
+ *      - the default methods are inherited from the schema definition,
+ *        unless the managed object declares a local method for them (pointcut),
+ *      - anything else is handled as the proxy would do.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class MObjectClassGenerator {
+
+    private static final Method INVOKE_FIELD = mObjectMethod("invokeField", DispatchPlan.Target.class, Object[].class);
+    private static final Method CALL_DEFAULT_METHOD = mObjectMethod("_callDefaultMethod", Object.class, Method.class, Object[].class);
+    private static final Method INVOKE = mObjectMethod("invoke", Object.class, Method.class, Object[].class);
+
+    // <java primitive, unboxed field access>, e.g. int count(int... count)
+    private static final Map<Class<?>, Method> INVOKE_UNBOXED_FIELD = new HashMap<>();
+    static {
+        INVOKE_UNBOXED_FIELD.put(int.class, mObjectMethod("invokeIntField", DispatchPlan.Target.class, int[].class));
+        INVOKE_UNBOXED_FIELD.put(long.class, mObjectMethod("invokeLongField", DispatchPlan.Target.class, long[].class));
+        INVOKE_UNBOXED_FIELD.put(double.class, mObjectMethod("invokeDoubleField", DispatchPlan.Target.class, double[].class));
+        INVOKE_UNBOXED_FIELD.put(float.class, mObjectMethod("invokeFloatField", DispatchPlan.Target.class, float[].class));
+        INVOKE_UNBOXED_FIELD.put(boolean.class, mObjectMethod("invokeBooleanField", DispatchPlan.Target.class, boolean[].class));
+    }
+
+    private final ByteBuddy byteBuddy = new ByteBuddy();
+
+    /**
+     * Returns the constructor (Klass, Object...) of the generated class of a klass,
+     * generates the class if it does not exist.
+     * The constructors are kept with the layout of the klass (KlassLayout.shared),
+     * per managed object class and additional interfaces.
+     * @param klass the schema klass
+     * @param mObjectClass the managed object class to extend
+     * @param additionalInterfaces extra interfaces that the class implements
+     * @return the constructor of the generated class
+     */
+    public Constructor<? extends MObject> constructorFor(
+            Klass klass, Class<? extends MObject> mObjectClass, List<Class<?>> additionalInterfaces)
+    {
+        final List<Class<?>> key = new ArrayList<>();
+        key.add(mObjectClass);
+        key.addAll(additionalInterfaces);
+
+        return KlassLayout.of(klass).shared(key, () -> generate(klass, mObjectClass, additionalInterfaces));
+    }
+
+    private Constructor<? extends MObject> generate(
+            Klass klass, Class<? extends MObject> mObjectClass, List<Class<?>> additionalInterfaces)
+    {
+        final Class<?> schemaClass = klass.classOf();
+        final DispatchPlan plan = DispatchPlan.of(klass, mObjectClass);
+
+        final Set<Class<?>> interfaces = new LinkedHashSet<>();
+        interfaces.add(schemaClass);
+        interfaces.addAll(additionalInterfaces);
+        interfaces.add(GeneratedMObject.class);
+
+        DynamicType.Builder<? extends MObject> builder = byteBuddy
+            .subclass(mObjectClass, ConstructorStrategy.Default.IMITATE_SUPER_CLASS_OPENING)
+            .implement(new ArrayList<>(interfaces));
+
+        for (Class<?> anInterface : interfaces) {
+            for (Method method : anInterface.getMethods()) {
+                if (Modifier.isStatic(method.getModifiers())) continue;
+
+                final DispatchPlan.Target target = plan.resolve(method);
+
+                switch (target.kind) {
+
+                    // direct field access, with the slot resolved
+                    case FIELD:
+                        final Method invokeUnboxedField = unboxedFieldAccess(plan, target, method);
+                        if (invokeUnboxedField != null) {
+                            builder = builder.method(is(method)).intercept(
+                                MethodCall.invoke(invokeUnboxedField)
+                                    .with(target)
+                                    .withArgument(0));
+                            break;
+                        }
+
+                        builder = builder.method(is(method)).intercept(
+                            MethodCall.invoke(INVOKE_FIELD)
+                                .with(target)
+                                .withArgumentArray()
+                                .withAssigner(Assigner.DEFAULT, Assigner.Typing.DYNAMIC));
+                        break;
+
+                    // default methods are inherited, unless there is a local method to be called before.
+                    case DEFAULT:
+                        if (target.localMethod != null) {
+                            builder = builder.method(is(method)).intercept(
+                                MethodCall.invoke(CALL_DEFAULT_METHOD)
+                                    .withThis()
+                                    .with(method)
+                                    .withArgumentArray()
+                                    .withAssigner(Assigner.DEFAULT, Assigner.Typing.DYNAMIC));
+                        }
+                        break;
+
+                    // local methods are inherited, if they are implemented by the managed object.
+                    case LOCAL:
+                        if (isImplemented(mObjectClass, method)) break;
+
+                    default:
+                        builder = builder.method(is(method)).intercept(
+                            MethodCall.invoke(INVOKE)
+                                .withThis()
+                                .with(method)
+                                .withArgumentArray()
+                                .withAssigner(Assigner.DEFAULT, Assigner.Typing.DYNAMIC));
+                }
+            }
+        }
+
+        final Class<? extends MObject> generatedClass = builder
+            .name(schemaClass.getName() + "$Managed$" + mObjectClass.getSimpleName())
+            .modifiers(Visibility.PUBLIC)
+            .make()
+            .load(schemaClass.getClassLoader(), ClassLoadingStrategy.Default.WRAPPER)
+            .getLoaded();
+
+        try {
+            return generatedClass.getConstructor(Klass.class, Object[].class);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalArgumentException(
+                "Managed object " + mObjectClass.getSimpleName() + " has no constructor (Klass, Object...)", e);
+        }
+    }
+
+    /**
+     * Returns the unboxed field access for a field method with a java primitive, if any.
+     * @param plan the dispatch plan
+     * @param target the resolved field
+     * @param method the field method
+     * @return the field access method of the managed object, null if the field can not be accessed unboxed.
+     */
+    private static Method unboxedFieldAccess(DispatchPlan plan, DispatchPlan.Target target, Method method) {
+        final Class<?> returnType = method.getReturnType();
+        final Method invokeUnboxedField = INVOKE_UNBOXED_FIELD.get(returnType);
+
+        if (invokeUnboxedField == null || target.many ||
+            method.getParameterCount() != 1 || method.getParameterTypes()[0].getComponentType() != returnType)
+        {
+            return null;
+        }
+
+        // the field has to be kept unboxed by the same java primitive, e.g. int count(int... count)
+        final MObjectField field = plan.layout().mObjectFields()[target.slot];
+        final Class<?> fieldAccessType = invokeUnboxedField.getReturnType();
+        if (!(field instanceof MObjectFieldSingleUnboxed) || field.getField().type().classOf() != fieldAccessType) {
+            return null;
+        }
+        return invokeUnboxedField;
+    }
+
+    private static boolean isImplemented(Class<?> mObjectClass, Method method) {
+        try {
+            final Method implementation = mObjectClass.getMethod(method.getName(), method.getParameterTypes());
+            return !Modifier.isAbstract(implementation.getModifiers()) &&
+                method.getReturnType().isAssignableFrom(implementation.getReturnType());
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+
+    private static Method mObjectMethod(String name, Class<?>... parameterTypes) {
+        try {
+            return MObject.class.getDeclaredMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package nl.cwi.managed_data_4j.language.managed_object.hashing;
+
+/**
+ * A managed object which remembers the structural hash of its spine (see HashingDataManager).
+ *
+ * @author Theologos Zacharopoulos
+ */
+public interface Fingerprinted {
+
+    /**
+     * Returns the structural hash of the graph under the object (see MObjectUtils.hash),
+     * only the changed parts of the graph are hashed again.
+     */
+    long fingerprint();
+}
@@ -0,0 +1,141 @@
+package nl.cwi.managed_data_4j.language.managed_object.hashing;
+
+import nl.cwi.managed_data_4j.M;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.MObjectField;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.IndexedList;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.KeyedSet;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldManyList;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldManySet;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+import nl.cwi.managed_data_4j.language.utils.MObjectUtils;
+
+/**
+ * A Managed Object which keeps the structural hash of its spine (see MObjectUtils.hash).
+ *
+ * The hash is kept until the object changes:
+ *      - a write of a slot (_set, or the update of an inverse),
+ *      - a change of the collection of a many-field, also directly through the collection,
+ * then the hash of the object and the hashes of its containers, up to the root, are dropped.
+ * The container of an object is the object that contained it the last time that it was hashed,
+ * thus a hash is dropped only along the path to the root, and only the dropped hashes are computed again.
+ *
+ * The spine has to be a tree, an object that is contained by two objects
+ * drops only the hash of the container that hashed it last.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class HashedMObject extends MObject implements Fingerprinted {
+
+    private long hash;
+
+    // true if the hash is up to date.
+    private boolean hashed;
+
+    // the object that contained this object the last time it was hashed.
+    private HashedMObject container;
+
+    public HashedMObject(Klass schemaKlass, Object... initializers) {
+        super(schemaKlass, initializers);
+    }
+
+    @Override
+    public long fingerprint() {
+        return MObjectUtils.hash((M) getProxy());
+    }
+
+    @Override
+    protected Object initialValue(MObjectField mObjectField) throws UnknownTypeException {
+        if (mObjectField instanceof MObjectFieldManyList) {
+            return new HashedList(((MObjectFieldManyList) mObjectField).byReference());
+        }
+        if (mObjectField instanceof MObjectFieldManySet) {
+            return new HashedSet((MObjectFieldManySet) mObjectField);
+        }
+        return super.initialValue(mObjectField);
+    }
+
+    @Override
+    public void __setSlot(int slot, Object value) {
+        __invalidate();
+        super.__setSlot(slot, value);
+    }
+
+    @Override
+    public void __setUnboxed(int unboxedSlot, long bits) {
+        __invalidate();
+        super.__setUnboxed(unboxedSlot, bits);
+    }
+
+    /**
+     * Returns true if the hash of the object is up to date.
+     */
+    public boolean __isHashed() {
+        return this.hashed;
+    }
+
+    /**
+     * Returns the hash of the object, valid only if it is up to date (see __isHashed).
+     */
+    public long __hash() {
+        return this.hash;
+    }
+
+    /**
+     * Keeps the hash of the object, used by MObjectUtils.hash.
+     * @param hash the structural hash of the object
+     */
+    public void __keepHash(long hash) {
+        this.hash = hash;
+        this.hashed = true;
+    }
+
+    /**
+     * Sets the container of the object, whose hash is dropped with the hash of the object.
+     * @param container the object that contains this object in its spine
+     */
+    public void __setContainer(HashedMObject container) {
+        this.container = container;
+    }
+
+    /**
+     * Drops the hash of the object and of its containers,
+     * up to the first one that is already dropped (its containers are dropped too).
+     */
+    public void __invalidate() {
+        for (HashedMObject object = this; object != null && object.hashed; object = object.container) {
+            object.hashed = false;
+        }
+    }
+
+    /**
+     * The list of a List many-field, which drops the hash of the object when it changes.
+     */
+    private final class HashedList extends IndexedList<Object> {
+
+        HashedList(boolean byReference) {
+            super(byReference);
+        }
+
+        @Override
+        protected void changing() {
+            __invalidate();
+        }
+    }
+
+    /**
+     * The set of a Set many-field, which drops the hash of the object when it changes.
+     */
+    private final class HashedSet extends KeyedSet {
+
+        HashedSet(MObjectFieldManySet field) {
+            super(HashedMObject.this, field);
+        }
+
+        @Override
+        protected void changing() {
+            __invalidate();
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package nl.cwi.managed_data_4j.language.managed_object.managed_object_field;
 
+import nl.cwi.managed_data_4j.language.managed_object.KlassLayout;
 import nl.cwi.managed_data_4j.language.managed_object.MObject;
 import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.InvalidFieldValueException;
 import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.NoKeyFieldException;
@@ -7,21 +8,24 @@ import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.error
 import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
 import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
 
-import java.util.LinkedHashSet;
 import java.util.Set;
 
 /**
  * Represents the field of a managed object.
+ *
+ * A MObjectField is shared by all the managed objects of a Klass (see KlassLayout),
+ * the value of the field is kept in the slot of each owner managed object.
+ *
  * @author Theologos Zacharopoulos
  */
 public abstract class MObjectField {
 
-    // the owner of the field as an Managed Object.
-    protected final MObject owner;
-
     // the Field.
     protected final Field field;
 
+    // the slot of the field in the owner managed objects.
+    protected final int slot;
+
     // the Inverse of the field.
     protected Field inverse;
 
@@ -29,12 +33,12 @@ public abstract class MObjectField {
 
     /**
      * A field of the Managed Object
-     * @param owner the owner Klass of the field.
      * @param field the field
+     * @param slot the slot of the field in the owner managed objects.
      */
-    public MObjectField(MObject owner, Field field) {
-        this.owner = owner;
+    public MObjectField(Field field, int slot) {
         this.field = field;
+        this.slot = slot;
 
         this.inverse = field.inverse();
         this.fieldOwnerSuperKlass = getAllSuperKlasses(this.field.owner());
@@ -42,13 +46,24 @@ public abstract class MObjectField {
         this.buildInverse();
     }
 
+    /**
+     * Returns the initial value of the field of a new managed object.
+     * @param owner the new managed object
+     * @return the initial value
+     * @throws UnknownTypeException when the field type name is unknown.
+     */
+    public Object initialValue(MObject owner) throws UnknownTypeException {
+        return defaultValue();
+    }
+
     /**
      * Initializes the field with a value
+     * @param owner the owner managed object
      * @param value the initialization value
      * @throws InvalidFieldValueException when an invalid value for this field is given.
      * @throws NoKeyFieldException if no key field found.
      */
-    public abstract void init(Object value) throws InvalidFieldValueException, NoKeyFieldException;
+    public abstract void init(MObject owner, Object value) throws InvalidFieldValueException, NoKeyFieldException;
 
     /**
      * Checks the given value if it is valid
@@ -66,17 +81,19 @@ public abstract class MObjectField {
 
     /**
      * Sets a value to the field.
+     * @param owner the owner managed object
      * @param value the initialization value
      * @throws InvalidFieldValueException when an invalid value for this field is given
      * @throws NoKeyFieldException if no key field found.
      */
-    public abstract void set(Object value) throws InvalidFieldValueException, NoKeyFieldException;
+    public abstract void set(MObject owner, Object value) throws InvalidFieldValueException, NoKeyFieldException;
 
     /**
      * Returns the value of the field
+     * @param owner the owner managed object
      * @return the fields value.
      */
-    public abstract Object get();
+    public abstract Object get(MObject owner);
 
     /**
      * Returns the Field object that is wrapped.
@@ -86,10 +103,24 @@ public abstract class MObjectField {
         return this.field;
     }
 
+    /**
+     * Returns the inverse of the field, also the one inherited by the super klasses.
+     * @return the inverse Field, null if there is none.
+     */
+    public Field getInverse() {
+        return this.inverse;
+    }
+
+    /**
+     * Returns the slot of the field in the owner managed objects.
+     * @return the slot
+     */
+    public int getSlot() {
+        return this.slot;
+    }
+
     protected Set<Klass> getAllSuperKlasses(Klass klass) {
-        Set<Klass> supers = new LinkedHashSet<>();
-        getAllSuperKlasses(klass, supers);
-        return supers;
+        return KlassLayout.supersOf(klass);
     }
 
     /**
@@ -101,6 +132,8 @@ public abstract class MObjectField {
 
         if (this.inverse == null) {
             for (Klass aSuper : this.fieldOwnerSuperKlass) {
+                if (aSuper == null) continue;
+
                 for (Field aSuperField : aSuper.fields()) {
                     if (aSuperField.name().equals(field.name()) && aSuperField.inverse() != null) {
                         this.inverse = aSuperField.inverse();
@@ -110,24 +143,4 @@ public abstract class MObjectField {
             }
         }
     }
-
-    /**
-     * Helper method
-     * Returns all super klasses from a klass
-     * @param klass the Klass
-     * @param stack a stack that tracks the super classes
-     */
-    protected void getAllSuperKlasses(Klass klass, Set<Klass> stack) {
-        if (klass.supers() != null) {
-            for (Klass superKlass : klass.supers()) {
-
-                if (superKlass.supers() != null && superKlass.supers().size() > 0) {
-                    stack.add(superKlass);
-                    getAllSuperKlasses(superKlass, stack);
-                } else {
-                    stack.add(superKlass);
-                }
-            }
-        }
-    }
 }
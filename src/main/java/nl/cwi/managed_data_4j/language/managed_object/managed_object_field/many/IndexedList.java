@@ -0,0 +1,408 @@
+package nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many;
+
+import java.util.*;
+
+/**
+ * The List of a List many-field, an array list with a hash index of its elements.
+ *
+ * The elements are kept in an array in insertion order and the index keeps the position of every element,
+ * therefore add, contains and remove(Object) take constant (amortized) time.
+ * A removed element leaves a hole in the array, which is counted in a Fenwick tree of the holes,
+ * therefore the positional reads (e.g. get(i), indexOf) skip the holes in logarithmic time (constant without holes),
+ * they never change the list, since it may be read by other threads (e.g. the snapshots of SnapshotMObject).
+ * The holes are compacted on the next insertion at a position (add(i, e)), or when they outnumber the elements.
+ *
+ * Managed objects are compared by reference (their proxies do not implement equals),
+ * primitives by equals.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class IndexedList<E> extends AbstractList<E> {
+
+    // the place of a removed element in the array.
+    private static final Object HOLE = new Object();
+
+    private static final Object[] EMPTY = new Object[0];
+
+    // the elements and the holes, in insertion order.
+    private Object[] elements = EMPTY;
+
+    // the used part of the array (elements and holes).
+    private int end = 0;
+
+    // the number of the elements.
+    private int size = 0;
+
+    // the Fenwick tree of the holes, holes[i] counts the holes of the positions (i - (i & -i), i],
+    // one longer than the array, null if there were no holes since the last compaction.
+    private int[] holes = null;
+
+    // <element, position of its first occurrence>
+    private final Map<Object, Integer> positions;
+
+    // true if the elements are compared by reference.
+    private final boolean byReference;
+
+    // the number of the elements which occur more than once (added directly to the list).
+    private int duplicates = 0;
+
+    /**
+     * A new empty list.
+     * @param byReference true if the elements are compared by reference, false by equals.
+     */
+    public IndexedList(boolean byReference) {
+        this.byReference = byReference;
+        this.positions = byReference ? new IdentityHashMap<>() : new HashMap<>();
+    }
+
+    @Override
+    public int size() {
+        return this.size;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        return this.positions.containsKey(o);
+    }
+
+    @Override
+    public boolean add(E e) {
+        changing();
+        ensureCapacity(this.end + 1);
+        this.elements[this.end] = e;
+        if (this.positions.putIfAbsent(e, this.end) != null) {
+            this.duplicates++;
+        }
+        this.end++;
+        this.size++;
+        this.modCount++;
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        final Integer position = this.positions.get(o);
+        if (position == null) {
+            return false;
+        }
+        removeAt(position);
+        return true;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E get(int index) {
+        checkIndex(index, this.size);
+        return (E) this.elements[positionOf(index)];
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E set(int index, E element) {
+        checkIndex(index, this.size);
+        changing();
+
+        final int position = positionOf(index);
+        final E old = (E) this.elements[position];
+        this.elements[position] = element;
+
+        unindex(old, position);
+        index(element, position);
+        return old;
+    }
+
+    @Override
+    public void add(int index, E element) {
+        checkIndex(index, this.size + 1);
+        if (index == this.size) {
+            add(element);
+            return;
+        }
+
+        changing();
+        compact();
+        ensureCapacity(this.end + 1);
+        System.arraycopy(this.elements, index, this.elements, index + 1, this.end - index);
+        this.elements[index] = element;
+        this.end++;
+        this.size++;
+        this.modCount++;
+        reindex();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E remove(int index) {
+        checkIndex(index, this.size);
+
+        final int position = positionOf(index);
+        final E old = (E) this.elements[position];
+        removeAt(position);
+        return old;
+    }
+
+    @Override
+    public int indexOf(Object o) {
+        final Integer position = this.positions.get(o);
+        if (position == null) {
+            return -1;
+        }
+        if (this.end == this.size) {
+            return position;
+        }
+
+        // the holes before the element are not counted
+        return position - holesBefore(position);
+    }
+
+    @Override
+    public void clear() {
+        changing();
+        Arrays.fill(this.elements, 0, this.end, null);
+        this.end = 0;
+        this.size = 0;
+        this.holes = null;
+        this.duplicates = 0;
+        this.positions.clear();
+        this.modCount++;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * Called before every change of the elements (add, set, remove, clear), does nothing,
+     * lists that keep track of their changes override it (e.g. the lists of HashedMObject).
+     */
+    protected void changing() {
+    }
+
+    /**
+     * Removes the element of a position of the array.
+     * @param position the position in the array (holes included)
+     */
+    private void removeAt(int position) {
+        changing();
+        final Object element = this.elements[position];
+        this.elements[position] = HOLE;
+        countHole(position, 1);
+        this.size--;
+        this.modCount++;
+
+        unindex(element, position);
+
+        // trailing holes are dropped directly
+        while (this.end > 0 && this.elements[this.end - 1] == HOLE) {
+            this.elements[--this.end] = null;
+            countHole(this.end, -1);
+        }
+
+        if (this.end - this.size > 16 && this.end - this.size > this.size) {
+            compact();
+        }
+    }
+
+    private void index(Object element, int position) {
+        final Integer existing = this.positions.get(element);
+        if (existing == null) {
+            this.positions.put(element, position);
+        } else {
+            this.duplicates++;
+            if (existing > position) {
+                this.positions.put(element, position);
+            }
+        }
+    }
+
+    private void unindex(Object element, int position) {
+        final Integer indexed = this.positions.get(element);
+        if (indexed == null || indexed != position) {
+            if (indexed != null) this.duplicates--;
+            return;
+        }
+        this.positions.remove(element);
+
+        // in case it occurs again, index the next occurrence
+        if (this.duplicates > 0) {
+            for (int i = position + 1; i < this.end; i++) {
+                if (same(this.elements[i], element)) {
+                    this.positions.put(element, i);
+                    this.duplicates--;
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the position in the array of the element at an index, skipping the holes before it.
+     * @param index the index of the element, in range
+     */
+    private int positionOf(int index) {
+        if (this.end == this.size) {
+            return index;
+        }
+
+        // descends the tree to the last position with at most index elements up to it (1-based),
+        // the next one is the element, the positions after the end count as elements
+        int position = 0;
+        int remaining = index;
+        for (int step = Integer.highestOneBit(this.holes.length - 1); step > 0; step >>= 1) {
+            final int next = position + step;
+            if (next < this.holes.length && step - this.holes[next] <= remaining) {
+                position = next;
+                remaining -= step - this.holes[next];
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Returns the number of the holes before a position of the array.
+     * @param position the position in the array (holes included)
+     */
+    private int holesBefore(int position) {
+        if (this.holes == null) {
+            return 0;
+        }
+        int count = 0;
+        for (int i = position; i > 0; i -= i & -i) {
+            count += this.holes[i];
+        }
+        return count;
+    }
+
+    /**
+     * Counts a hole that is made (1) or dropped (-1) at a position of the array.
+     * @param position the position in the array
+     * @param delta 1 for a new hole, -1 for a dropped one
+     */
+    private void countHole(int position, int delta) {
+        if (this.holes == null) {
+            this.holes = new int[this.elements.length + 1];
+        }
+        for (int i = position + 1; i < this.holes.length; i += i & -i) {
+            this.holes[i] += delta;
+        }
+    }
+
+    private boolean same(Object a, Object b) {
+        return this.byReference ? a == b : Objects.equals(a, b);
+    }
+
+    /**
+     * Removes the holes of the array.
+     */
+    private void compact() {
+        if (this.end == this.size) {
+            return;
+        }
+
+        int live = 0;
+        for (int i = 0; i < this.end; i++) {
+            if (this.elements[i] != HOLE) {
+                this.elements[live++] = this.elements[i];
+            }
+        }
+        Arrays.fill(this.elements, live, this.end, null);
+        this.end = live;
+        this.holes = null;
+        reindex();
+    }
+
+    private void reindex() {
+        this.positions.clear();
+        this.duplicates = 0;
+        for (int i = 0; i < this.end; i++) {
+            if (this.positions.putIfAbsent(this.elements[i], i) != null) {
+                this.duplicates++;
+            }
+        }
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > this.elements.length) {
+            this.elements = Arrays.copyOf(this.elements, Math.max(capacity, Math.max(8, this.elements.length * 2)));
+
+            // the tree covers the whole array, it is built again for the new length
+            if (this.holes != null) {
+                this.holes = null;
+                for (int i = 0; i < this.end; i++) {
+                    if (this.elements[i] == HOLE) countHole(i, 1);
+                }
+            }
+        }
+    }
+
+    private static void checkIndex(int index, int size) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        }
+    }
+
+    /**
+     * Iterates the elements, skipping the holes.
+     */
+    private class Itr implements Iterator<E> {
+
+        // the position of the next element in the array
+        private int cursor = 0;
+
+        // the position of the last returned element, -1 if none.
+        private int last = -1;
+
+        private int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            skipHoles();
+            return this.cursor < end;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E next() {
+            checkForComodification();
+            skipHoles();
+            if (this.cursor >= end) {
+                throw new NoSuchElementException();
+            }
+            this.last = this.cursor++;
+            return (E) elements[this.last];
+        }
+
+        @Override
+        public void remove() {
+            if (this.last < 0) {
+                throw new IllegalStateException();
+            }
+            checkForComodification();
+            changing();
+
+            // no compaction while iterating, the positions of the array have to stay the same
+            final Object element = elements[this.last];
+            elements[this.last] = HOLE;
+            countHole(this.last, 1);
+            size--;
+            unindex(element, this.last);
+            modCount++;
+
+            this.last = -1;
+            this.expectedModCount = modCount;
+        }
+
+        private void skipHoles() {
+            while (this.cursor < end && elements[this.cursor] == HOLE) {
+                this.cursor++;
+            }
+        }
+
+        private void checkForComodification() {
+            if (modCount != this.expectedModCount) {
+                throw new ConcurrentModificationException();
+            }
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.NoKeyFieldException;
+
+import java.util.*;
+
+/**
+ * The Set of a Set many-field, a live view of the managed objects of the field by their key.
+ *
+ * The set is kept in the slot of the owner managed object and returned as is when the field is read,
+ * reads (size, contains, iteration) go directly to the key map and do not allocate.
+ * Changes go through the field, so that the inverses stay consistent:
+ *      - add inserts the value and sets its inverse to the owner,
+ *      - remove (also by the iterator) deletes the value and clears its inverse.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class KeyedSet extends AbstractSet<Object> {
+
+    // the owner managed object of the field.
+    private final MObject owner;
+
+    // the field that the set belongs to.
+    private final MObjectFieldManySet field;
+
+    // <key, managed object>
+    final Map<Object, Object> values = new LinkedHashMap<>();
+
+    protected KeyedSet(MObject owner, MObjectFieldManySet field) {
+        this.owner = owner;
+        this.field = field;
+    }
+
+    /**
+     * Returns the owner managed object of the field, sets that do not keep it override it.
+     */
+    protected MObject owner() {
+        return this.owner;
+    }
+
+    @Override
+    public int size() {
+        return this.values.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return this.values.isEmpty();
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        final Object keyValue = this.field.keyOf(o);
+        return keyValue != null && this.values.get(keyValue) == o;
+    }
+
+    @Override
+    public boolean add(Object value) {
+        if (contains(value)) {
+            return false;
+        }
+        try {
+            this.field.add(owner(), value);
+        } catch (NoKeyFieldException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+        return contains(value);
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (!contains(o)) {
+            return false;
+        }
+        this.field.remove(owner(), o);
+        return true;
+    }
+
+    @Override
+    public Iterator<Object> iterator() {
+        return new Itr();
+    }
+
+    /**
+     * Called before every change of the managed objects of the set, does nothing,
+     * sets that keep track of their changes override it (e.g. the sets of HashedMObject).
+     */
+    protected void changing() {
+    }
+
+    // the changes of the field, without inverses.
+
+    void put(Object keyValue, Object value) {
+        changing();
+        this.values.put(keyValue, value);
+    }
+
+    void delete(Object keyValue) {
+        if (this.values.containsKey(keyValue)) {
+            changing();
+            this.values.remove(keyValue);
+        }
+    }
+
+    void clearValues() {
+        changing();
+        this.values.clear();
+    }
+
+    /**
+     * Iterates the managed objects in insertion order,
+     * a removal through the iterator also clears the inverse of the removed object.
+     */
+    private class Itr implements Iterator<Object> {
+
+        private final Iterator<Object> iterator = values.values().iterator();
+
+        // the last returned managed object.
+        private Object last;
+
+        @Override
+        public boolean hasNext() {
+            return this.iterator.hasNext();
+        }
+
+        @Override
+        public Object next() {
+            this.last = this.iterator.next();
+            return this.last;
+        }
+
+        @Override
+        public void remove() {
+            changing();
+            this.iterator.remove();
+            field.unlink(owner(), this.last);
+            this.last = null;
+        }
+    }
+}
@@ -9,27 +9,28 @@ import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.singl
 import nl.cwi.managed_data_4j.language.primitives.PrimitivesManager;
 import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
 
-import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collection;
 
 /**
  * Represents a multi value field.
  * @author Theologos Zacharopoulos
  */
-public abstract class MObjectFieldMany extends MObjectField implements Iterable {
+public abstract class MObjectFieldMany extends MObjectField {
 
-    public MObjectFieldMany(MObject owner, Field field) throws UnknownTypeException {
-        super(owner, field);
+    public MObjectFieldMany(Field field, int slot) {
+        super(field, slot);
     }
 
     @Override
-    public void init(Object values) throws InvalidFieldValueException, NoKeyFieldException {
+    public void init(MObject owner, Object values) throws InvalidFieldValueException, NoKeyFieldException {
         if (!PrimitivesManager.getInstance().isMany(values.getClass())) {
             throw new InvalidFieldValueException("Non-array value passed to many-field");
         }
     }
 
     @Override
-    public void set(Object value) throws InvalidFieldValueException {
+    public void set(MObject owner, Object value) throws InvalidFieldValueException {
         throw new InvalidFieldValueException("Cannot assign to many-values field " + field.name());
     }
 
@@ -39,23 +40,68 @@ public abstract class MObjectFieldMany extends MObjectField implements Iterable
         return null;
     }
 
-    public abstract void add(Object value) throws NoKeyFieldException;
+    /**
+     * Every managed object gets its own (empty) collection.
+     */
+    @Override
+    public abstract Object initialValue(MObject owner);
+
+    public abstract void add(MObject owner, Object value) throws NoKeyFieldException;
+
+    public abstract void __insert(MObject owner, Object value) throws NoKeyFieldException;
 
-    public abstract void __insert(Object value) throws NoKeyFieldException;
+    public abstract void __delete(MObject owner, Object value) throws NoKeyFieldException;
 
-    public abstract void __delete(Object value) throws NoKeyFieldException;
+    public abstract boolean isEmpty(MObject owner);
 
-    public abstract boolean isEmpty();
+    public abstract void clear(MObject owner);
 
-    public abstract void clear();
+    /**
+     * Removes all the values of the field, and the owner from the inverse fields of the values.
+     * @param owner the owner managed object
+     * @throws NoKeyFieldException if an inverse Set has no key field.
+     */
+    public void detach(MObject owner) throws NoKeyFieldException {
+        if (this.inverse != null) {
+            for (Object value : new ArrayList<>((Collection<?>) get(owner))) {
+                if (this.inverse.many()) {
+                    final MObject valueMObject = MObject.of(value);
+                    final MObjectFieldMany valueMObjectInverseField =
+                            (MObjectFieldMany) valueMObject._getField(inverse.name());
+                    valueMObjectInverseField.__delete(valueMObject, owner.getProxy());
+                } else {
+                    unlink(owner, value);
+                }
+            }
+        }
+        clear(owner);
+    }
 
-    protected void notify(Object value) {
+    protected void notify(MObject owner, Object value) {
         if (this.inverse != null && !this.inverse.many()) {
-            final MObject valueMObject = (MObject) Proxy.getInvocationHandler(value);
+            final MObject valueMObject = MObject.of(value);
             final MObjectFieldSingleMObj newValueMObjectInverseField =
                     (MObjectFieldSingleMObj) valueMObject._getField(inverse.name());
 
-            newValueMObjectInverseField.__set(owner.getProxy());
+            newValueMObjectInverseField.__set(valueMObject, owner.getProxy());
+        }
+    }
+
+    /**
+     * Clears the inverse of a value that is removed from the field,
+     * in case it still refers to the owner.
+     * @param owner the owner managed object
+     * @param value the removed value
+     */
+    protected void unlink(MObject owner, Object value) {
+        if (this.inverse != null && !this.inverse.many()) {
+            final MObject valueMObject = MObject.of(value);
+            final MObjectFieldSingleMObj valueMObjectInverseField =
+                    (MObjectFieldSingleMObj) valueMObject._getField(inverse.name());
+
+            if (valueMObjectInverseField.get(valueMObject) == owner.getProxy()) {
+                valueMObjectInverseField.__set(valueMObject, null);
+            }
         }
     }
 }
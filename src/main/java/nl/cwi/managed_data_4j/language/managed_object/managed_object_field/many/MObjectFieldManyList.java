@@ -3,12 +3,9 @@ package nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many
 import nl.cwi.managed_data_4j.language.managed_object.MObject;
 import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.InvalidFieldValueException;
 import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.NoKeyFieldException;
-import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
 import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
 
 import java.util.Collection;
-import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
@@ -17,64 +14,73 @@ import java.util.List;
  */
 public class MObjectFieldManyList extends MObjectFieldMany {
 
-    private List<Object> values;
+    // true if the values are managed objects, which are compared by reference.
+    private final boolean byReference;
 
-    public MObjectFieldManyList(MObject owner, Field field) throws UnknownTypeException {
-        super(owner, field);
-        this.values = defaultValue();
+    public MObjectFieldManyList(Field field, int slot) {
+        super(field, slot);
+        this.byReference = !field.type().schemaKlass().name().equals("Primitive");
     }
 
     @Override
-    public void init(Object values) throws InvalidFieldValueException, NoKeyFieldException {
-        super.init(values);
+    public void init(MObject owner, Object values) throws InvalidFieldValueException, NoKeyFieldException {
+        super.init(owner, values);
 
         // it's an array since it's many
-        ((Collection)values).forEach(this::add);
+        for (Object initValue : ((Collection) values)) {
+            this.add(owner, initValue);
+        }
     }
 
-    protected List<Object> defaultValue() throws UnknownTypeException {
-        return new LinkedList<>();
+    @Override
+    public List<Object> initialValue(MObject owner) {
+        return new IndexedList<>(this.byReference);
     }
 
-    @Override
-    public Iterator iterator() {
-        return this.values.iterator();
+    /**
+     * Returns true if the values are managed objects, which are compared by reference (see IndexedList).
+     */
+    public boolean byReference() {
+        return this.byReference;
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object> values(MObject owner) {
+        return (List<Object>) owner.__getSlot(this.slot);
     }
 
     @Override
-    public void add(Object value) {
+    public void add(MObject owner, Object value) {
         if (value == null) return;
 
-        if (!this.values.contains(value)) {
-            __insert(value);
-            notify(value);
+        if (!values(owner).contains(value)) {
+            __insert(owner, value);
+            notify(owner, value);
         }
     }
 
     @Override
-    public void __insert(Object value) {
-        this.values.add(value);
+    public void __insert(MObject owner, Object value) {
+        values(owner).add(value);
     }
 
     @Override
-    public void __delete(Object value) {
-        if (this.values.contains(value)) {
-            this.values.remove(value);
-        }
+    public void __delete(MObject owner, Object value) {
+        values(owner).remove(value);
     }
 
     @Override
-    public boolean isEmpty() {
-        return this.values.isEmpty();
+    public boolean isEmpty(MObject owner) {
+        return values(owner).isEmpty();
     }
 
     @Override
-    public Object get() {
-        return this.values;
+    public Object get(MObject owner) {
+        return values(owner);
     }
 
     @Override
-    public void clear() {
-        this.values.clear();
+    public void clear(MObject owner) {
+        values(owner).clear();
     }
 }
@@ -1,12 +1,9 @@
 package nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many;
 
-import nl.cwi.managed_data_4j.M;
 import nl.cwi.managed_data_4j.language.managed_object.MObject;
 import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.InvalidFieldValueException;
 import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.NoKeyFieldException;
-import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
 import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
-import nl.cwi.managed_data_4j.language.utils.ReflectionUtils;
 
 import java.util.*;
 
@@ -16,80 +13,111 @@ import java.util.*;
  */
 public class MObjectFieldManySet extends MObjectFieldMany {
 
-    protected Map<Object, Object> values;
-
-    public MObjectFieldManySet(MObject owner, Field field) throws UnknownTypeException {
-        super(owner, field);
-        this.values = defaultValue();
+    public MObjectFieldManySet(Field field, int slot) {
+        super(field, slot);
     }
 
     @Override
-    public void init(Object values) throws InvalidFieldValueException, NoKeyFieldException  {
-        super.init(values);
+    public void init(MObject owner, Object values) throws InvalidFieldValueException, NoKeyFieldException  {
+        super.init(owner, values);
 
         // it's an array since it's many
         for (Object initValue : ((Collection) values)) {
-            this.add(initValue);
+            this.add(owner, initValue);
         }
     }
 
     @Override
-    protected Map<Object, Object> defaultValue() throws UnknownTypeException {
-        return new LinkedHashMap<>();
+    public KeyedSet initialValue(MObject owner) {
+        return new KeyedSet(owner, this);
     }
 
-    @Override
-    public Iterator iterator() {
-        return this.values.values().iterator();
+    protected Map<Object, Object> values(MObject owner) {
+        return set(owner).values;
+    }
+
+    private KeyedSet set(MObject owner) {
+        return (KeyedSet) owner.__getSlot(this.slot);
     }
 
+    /**
+     * Returns the live Set of the field (see KeyedSet).
+     */
     @Override
-    public Object get() {
-        return new LinkedHashSet<>(this.values.values());
+    public Object get(MObject owner) {
+        return owner.__getSlot(this.slot);
     }
 
     @Override
-    public void add(Object value) throws NoKeyFieldException {
+    public void add(MObject owner, Object value) throws NoKeyFieldException {
+        if (value == null) return;
+
         final Object keyValue = getKeyValue(value);
-        if (value != null && keyValue != null) {
-            if (this.values.get(keyValue) != value) {
-                __insert(value);
-                notify(value);
+        if (keyValue != null) {
+            final KeyedSet set = set(owner);
+            if (set.values.get(keyValue) != value) {
+                set.put(keyValue, value);
+                notify(owner, value);
             }
         }
     }
 
     @Override
-    public void __insert(Object value) throws NoKeyFieldException {
+    public void __insert(MObject owner, Object value) throws NoKeyFieldException {
         final Object keyValue = getKeyValue(value);
-        this.values.put(keyValue, value);
+        set(owner).put(keyValue, value);
     }
 
     @Override
-    public void __delete(Object value) throws NoKeyFieldException {
+    public void __delete(MObject owner, Object value) throws NoKeyFieldException {
         final Object keyValue = getKeyValue(value);
-        this.values.remove(keyValue);
+        set(owner).delete(keyValue);
+    }
+
+    /**
+     * Removes a value from the field and clears its inverse.
+     * @param owner the owner managed object
+     * @param value the value to remove
+     */
+    public void remove(MObject owner, Object value) {
+        final Object keyValue = keyOf(value);
+        if (keyValue != null && values(owner).get(keyValue) == value) {
+            set(owner).delete(keyValue);
+            unlink(owner, value);
+        }
     }
 
     @Override
-    public boolean isEmpty() {
-        return this.values.isEmpty();
+    public boolean isEmpty(MObject owner) {
+        return values(owner).isEmpty();
     }
 
+    /**
+     * Returns the key of a value, read directly from the storage of the value (see MObject.__getKey).
+     * @param value the value, a managed object (Sets of primitives are not supported yet)
+     * @return the key value
+     * @throws NoKeyFieldException if the klass of the value has no key.
+     */
     private Object getKeyValue(Object value) throws NoKeyFieldException {
-        // since we do not support (yet) Sets of primitives,
-        // this would be a managed object.
-        final M mObjectNewValue = (M)value;
-        final Field newValueKeyField = mObjectNewValue.schemaKlass().key();
-
-        if (newValueKeyField == null) {
-            throw new NoKeyFieldException("No key when adding " + mObjectNewValue.schemaKlass().name() + " to " + this.field.name());
+        final MObject valueMObject = MObject.of(value);
+        final Object keyValue = valueMObject.__getKey();
+        if (keyValue == null && valueMObject.schemaKlass().key() == null) {
+            throw new NoKeyFieldException("No key when adding " + valueMObject.schemaKlass().name() + " to " + this.field.name());
         }
-        return ReflectionUtils.getValueFromFieldSafe(value, newValueKeyField.name(), newValueKeyField.type().classOf());
+        return keyValue;
+    }
+
+    /**
+     * Returns the key of a value, null if the value is not a managed object with a key.
+     * @param value the value
+     * @return the key value
+     */
+    Object keyOf(Object value) {
+        return MObject.isManaged(value) ? MObject.of(value).__getKey() : null;
     }
 
     @Override
-    public void clear() {
-        this.values.clear();
+    public void clear(MObject owner) {
+        set(owner).clearValues();
     }
 }
@@ -13,25 +13,20 @@ import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
  */
 public abstract class MObjectFieldSingle extends MObjectField {
 
-    protected Object value;
-
-    public MObjectFieldSingle(MObject owner, Field field)
-            throws UnknownTypeException, InvalidFieldValueException
-    {
-        super(owner, field);
-        this.value = defaultValue();
+    public MObjectFieldSingle(Field field, int slot) {
+        super(field, slot);
     }
 
-    public void init(Object value) throws InvalidFieldValueException, NoKeyFieldException {
-        this.set(value);
+    public void init(MObject owner, Object value) throws InvalidFieldValueException, NoKeyFieldException {
+        this.set(owner, value);
     }
 
     @Override
-    public void set(Object value) throws InvalidFieldValueException, NoKeyFieldException {
+    public void set(MObject owner, Object value) throws InvalidFieldValueException, NoKeyFieldException {
         if (value != null) {
             this.check(value);
         }
-        this.value = value;
+        owner.__setSlot(this.slot, value);
     }
 
     @Override
@@ -40,7 +35,7 @@ public abstract class MObjectFieldSingle extends MObjectField {
     }
 
     @Override
-    public Object get() {
-        return this.value;
+    public Object get(MObject owner) {
+        return owner.__getSlot(this.slot);
     }
 }
@@ -0,0 +1,39 @@
+package nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
+
+/**
+ * Represents a single value field which is a boolean Primitive, kept unboxed.
+ * @author Theologos Zacharopoulos
+ */
+public class MObjectFieldSingleBoolean extends MObjectFieldSingleUnboxed {
+
+    public MObjectFieldSingleBoolean(Field field, int slot, int unboxedSlot) throws UnknownTypeException {
+        super(field, slot, unboxedSlot);
+    }
+
+    @Override
+    protected boolean accepts(Object value) {
+        return value instanceof Boolean;
+    }
+
+    @Override
+    protected long toBits(Object value) {
+        return (Boolean) value ? 1L : 0L;
+    }
+
+    @Override
+    protected Object fromBits(long bits) {
+        return bits != 0L;
+    }
+
+    public boolean getBoolean(MObject owner) {
+        return getBits(owner) != 0L;
+    }
+
+    public void setBoolean(MObject owner, boolean value) {
+        setBits(owner, value ? 1L : 0L);
+    }
+}
@@ -0,0 +1,39 @@
+package nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
+
+/**
+ * Represents a single value field which is a double Primitive, kept unboxed.
+ * @author Theologos Zacharopoulos
+ */
+public class MObjectFieldSingleDouble extends MObjectFieldSingleUnboxed {
+
+    public MObjectFieldSingleDouble(Field field, int slot, int unboxedSlot) throws UnknownTypeException {
+        super(field, slot, unboxedSlot);
+    }
+
+    @Override
+    protected boolean accepts(Object value) {
+        return value instanceof Double;
+    }
+
+    @Override
+    protected long toBits(Object value) {
+        return Double.doubleToRawLongBits((Double) value);
+    }
+
+    @Override
+    protected Object fromBits(long bits) {
+        return Double.longBitsToDouble(bits);
+    }
+
+    public double getDouble(MObject owner) {
+        return Double.longBitsToDouble(getBits(owner));
+    }
+
+    public void setDouble(MObject owner, double value) {
+        setBits(owner, Double.doubleToRawLongBits(value));
+    }
+}
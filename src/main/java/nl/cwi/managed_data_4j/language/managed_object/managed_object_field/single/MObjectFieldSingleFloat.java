@@ -0,0 +1,39 @@
+package nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
+
+/**
+ * Represents a single value field which is a float Primitive, kept unboxed.
+ * @author Theologos Zacharopoulos
+ */
+public class MObjectFieldSingleFloat extends MObjectFieldSingleUnboxed {
+
+    public MObjectFieldSingleFloat(Field field, int slot, int unboxedSlot) throws UnknownTypeException {
+        super(field, slot, unboxedSlot);
+    }
+
+    @Override
+    protected boolean accepts(Object value) {
+        return value instanceof Float;
+    }
+
+    @Override
+    protected long toBits(Object value) {
+        return Float.floatToRawIntBits((Float) value);
+    }
+
+    @Override
+    protected Object fromBits(long bits) {
+        return Float.intBitsToFloat((int) bits);
+    }
+
+    public float getFloat(MObject owner) {
+        return Float.intBitsToFloat((int) getBits(owner));
+    }
+
+    public void setFloat(MObject owner, float value) {
+        setBits(owner, Float.floatToRawIntBits(value));
+    }
+}
@@ -0,0 +1,39 @@
+package nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
+
+/**
+ * Represents a single value field which is an int Primitive, kept unboxed.
+ * @author Theologos Zacharopoulos
+ */
+public class MObjectFieldSingleInteger extends MObjectFieldSingleUnboxed {
+
+    public MObjectFieldSingleInteger(Field field, int slot, int unboxedSlot) throws UnknownTypeException {
+        super(field, slot, unboxedSlot);
+    }
+
+    @Override
+    protected boolean accepts(Object value) {
+        return value instanceof Integer;
+    }
+
+    @Override
+    protected long toBits(Object value) {
+        return (Integer) value;
+    }
+
+    @Override
+    protected Object fromBits(long bits) {
+        return (int) bits;
+    }
+
+    public int getInt(MObject owner) {
+        return (int) getBits(owner);
+    }
+
+    public void setInt(MObject owner, int value) {
+        setBits(owner, value);
+    }
+}
@@ -0,0 +1,39 @@
+package nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
+
+/**
+ * Represents a single value field which is a long Primitive, kept unboxed.
+ * @author Theologos Zacharopoulos
+ */
+public class MObjectFieldSingleLong extends MObjectFieldSingleUnboxed {
+
+    public MObjectFieldSingleLong(Field field, int slot, int unboxedSlot) throws UnknownTypeException {
+        super(field, slot, unboxedSlot);
+    }
+
+    @Override
+    protected boolean accepts(Object value) {
+        return value instanceof Long;
+    }
+
+    @Override
+    protected long toBits(Object value) {
+        return (Long) value;
+    }
+
+    @Override
+    protected Object fromBits(long bits) {
+        return bits;
+    }
+
+    public long getLong(MObject owner) {
+        return getBits(owner);
+    }
+
+    public void setLong(MObject owner, long value) {
+        setBits(owner, value);
+    }
+}
@@ -4,12 +4,10 @@ import nl.cwi.managed_data_4j.M;
 import nl.cwi.managed_data_4j.language.managed_object.MObject;
 import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.InvalidFieldValueException;
 import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.NoKeyFieldException;
-import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
 import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldMany;
 import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
 import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
 
-import java.lang.reflect.Proxy;
 import java.util.Set;
 
 /**
@@ -18,30 +16,31 @@ import java.util.Set;
  */
 public class MObjectFieldSingleMObj extends MObjectFieldSingle {
 
-    public MObjectFieldSingleMObj(MObject owner, Field field) throws UnknownTypeException, InvalidFieldValueException {
-        super(owner, field);
+    public MObjectFieldSingleMObj(Field field, int slot) {
+        super(field, slot);
     }
 
     @Override
-    public void set(Object value) throws InvalidFieldValueException, NoKeyFieldException {
+    public void set(MObject owner, Object value) throws InvalidFieldValueException, NoKeyFieldException {
         if (value != null) {
             this.check(value);
         }
-        notify(get(), value);
-        __set(value);
+        notify(owner, get(owner), value);
+        __set(owner, value);
     }
 
-    public void __set(Object value) {
-        this.value = value;
+    public void __set(MObject owner, Object value) {
+        owner.__setSlot(this.slot, value);
     }
 
     /**
      * Notify any dependencies for the change of that field.
+     * @param owner the owner managed object
      * @param oldValue the old value of the field
      * @param newValue the old value of the field
      * @throws NoKeyFieldException if no field is found
      */
-    private void notify(Object oldValue, Object newValue) throws NoKeyFieldException {
+    private void notify(MObject owner, Object oldValue, Object newValue) throws NoKeyFieldException {
         // if the new value is the same as the old one, then nothing changes
         if (oldValue == newValue) return;
 
@@ -53,36 +52,36 @@ public class MObjectFieldSingleMObj extends MObjectFieldSingle {
 
                 // delete owner from old reference
                 if (oldValue != null) {
-                    final MObject oldValueMObject = (MObject) Proxy.getInvocationHandler(oldValue);
+                    final MObject oldValueMObject = MObject.of(oldValue);
                     final MObjectFieldMany oldValueMObjectInverseField =
                             (MObjectFieldMany) oldValueMObject._getField(inverse.name());
-                    oldValueMObjectInverseField.__delete(owner.getProxy());
+                    oldValueMObjectInverseField.__delete(oldValueMObject, owner.getProxy());
                 }
 
                 // insert owner to new inverse reference
                 if (newValue != null) {
-                    final MObject newValueMObject = (MObject) Proxy.getInvocationHandler(newValue);
+                    final MObject newValueMObject = MObject.of(newValue);
                     final MObjectFieldMany newValueMObjectInverseField =
                             (MObjectFieldMany) newValueMObject._getField(inverse.name());
-                    newValueMObjectInverseField.__insert(owner.getProxy());
+                    newValueMObjectInverseField.__insert(newValueMObject, owner.getProxy());
                 }
 
             } else { // otherwise, old and new are both managed objects
 
                 // set old inverse reference to null
                 if (oldValue != null) {
-                    final MObject oldValueMObject = (MObject) Proxy.getInvocationHandler(oldValue);
+                    final MObject oldValueMObject = MObject.of(oldValue);
                     final MObjectFieldSingleMObj oldValueMObjectInverseField =
                             (MObjectFieldSingleMObj) oldValueMObject._getField(inverse.name());
-                    oldValueMObjectInverseField.__set(null);
+                    oldValueMObjectInverseField.__set(oldValueMObject, null);
                 }
 
                 // set new inverse reference to owner
                 if (newValue != null) {
-                    final MObject newValueMObject = (MObject) Proxy.getInvocationHandler(newValue);
+                    final MObject newValueMObject = MObject.of(newValue);
                     final MObjectFieldSingleMObj newValueMObjectInverseField =
                             (MObjectFieldSingleMObj) newValueMObject._getField(inverse.name());
-                    newValueMObjectInverseField.__set(owner.getProxy());
+                    newValueMObjectInverseField.__set(newValueMObject, owner.getProxy());
                 }
             }
         }
@@ -108,9 +107,9 @@ public class MObjectFieldSingleMObj extends MObjectFieldSingle {
 
         boolean isSubKlass = false;
         if (fieldType.subKlasses() != null) {
+            final Set<Klass> supers = getAllSuperKlasses(valueSchemaKlass);
 
             for (Klass subKlass : fieldType.subKlasses()) {
-                Set<Klass> supers = getAllSuperKlasses(valueSchemaKlass);
 
                 for (Klass superKlass : supers) {
                     if ((superKlass != null && superKlass.name().equals(subKlass.name())) ||
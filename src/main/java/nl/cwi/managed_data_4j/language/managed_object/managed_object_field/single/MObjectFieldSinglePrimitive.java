@@ -1,6 +1,5 @@
 package nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single;
 
-import nl.cwi.managed_data_4j.language.managed_object.MObject;
 import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.InvalidFieldValueException;
 import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
 import nl.cwi.managed_data_4j.language.primitives.PrimitivesManager;
@@ -12,10 +11,12 @@ import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
  */
 public class MObjectFieldSinglePrimitive extends MObjectFieldSingle {
 
-    public MObjectFieldSinglePrimitive(MObject owner, Field field)
-            throws UnknownTypeException, InvalidFieldValueException
-    {
-        super(owner, field);
+    // the default value of the primitive type, the same for all the managed objects.
+    private final Object defaultValue;
+
+    public MObjectFieldSinglePrimitive(Field field, int slot) throws UnknownTypeException {
+        super(field, slot);
+        this.defaultValue = PrimitivesManager.getInstance().getDefaultValueForPrimitive(field.type().classOf());
     }
 
     @Override
@@ -31,6 +32,6 @@ public class MObjectFieldSinglePrimitive extends MObjectFieldSingle {
 
     @Override
     protected Object defaultValue() throws UnknownTypeException {
-        return PrimitivesManager.getInstance().getDefaultValueForPrimitive(field.type().classOf());
+        return this.defaultValue;
     }
 }
@@ -0,0 +1,135 @@
+package nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.InvalidFieldValueException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.NoKeyFieldException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
+
+/**
+ * Represents a single value field of a numeric or boolean Java primitive (e.g. int, not Integer),
+ * which keeps its value unboxed in the primitive slots of the owner (as raw bits).
+ * The fields of the boxed types keep their values as they are, since they are read as boxes,
+ * which would be boxed again on every read.
+ *
+ * The slot of the field holds UNBOXED while the value is in the primitive slot,
+ * any other value (e.g. null) is kept as it is in the slot.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public abstract class MObjectFieldSingleUnboxed extends MObjectFieldSinglePrimitive {
+
+    // marks a slot whose value is kept in the primitive slots of the owner.
+    public static final Object UNBOXED = new Object();
+
+    // the slot of the field in the primitive slots of the owner managed objects.
+    protected final int unboxedSlot;
+
+    public MObjectFieldSingleUnboxed(Field field, int slot, int unboxedSlot) throws UnknownTypeException {
+        super(field, slot);
+        this.unboxedSlot = unboxedSlot;
+    }
+
+    /**
+     * Creates an unboxed field, if the type of the field is a numeric or boolean Java primitive.
+     * @param field the field
+     * @param slot the slot of the field in the owner managed objects.
+     * @param unboxedSlot the slot of the field in the primitive slots of the owner managed objects.
+     * @return the unboxed field, null if the type of the field is not unboxed.
+     * @throws UnknownTypeException when the field type is unknown.
+     */
+    public static MObjectFieldSingleUnboxed create(Field field, int slot, int unboxedSlot) throws UnknownTypeException {
+        final Class<?> typeClass = field.type().classOf();
+
+        if (typeClass == int.class) {
+            return new MObjectFieldSingleInteger(field, slot, unboxedSlot);
+        }
+        if (typeClass == long.class) {
+            return new MObjectFieldSingleLong(field, slot, unboxedSlot);
+        }
+        if (typeClass == double.class) {
+            return new MObjectFieldSingleDouble(field, slot, unboxedSlot);
+        }
+        if (typeClass == float.class) {
+            return new MObjectFieldSingleFloat(field, slot, unboxedSlot);
+        }
+        if (typeClass == boolean.class) {
+            return new MObjectFieldSingleBoolean(field, slot, unboxedSlot);
+        }
+        return null;
+    }
+
+    /**
+     * Returns the slot of the field in the primitive slots of the owner managed objects.
+     * @return the primitive slot
+     */
+    public int getUnboxedSlot() {
+        return this.unboxedSlot;
+    }
+
+    /**
+     * Checks if the value is of the boxed type of the field.
+     * @param value the value
+     * @return true if it can be kept unboxed
+     */
+    protected abstract boolean accepts(Object value);
+
+    /**
+     * Converts a value of the boxed type of the field to raw bits.
+     * @param value the value
+     * @return the raw bits
+     */
+    protected abstract long toBits(Object value);
+
+    /**
+     * Converts raw bits to a value of the boxed type of the field.
+     * @param bits the raw bits
+     * @return the value
+     */
+    protected abstract Object fromBits(long bits);
+
+    /**
+     * The default value is kept unboxed,
+     * a new managed object has zero in its primitive slots (0, 0.0, false).
+     */
+    @Override
+    public Object initialValue(MObject owner) throws UnknownTypeException {
+        final Object defaultValue = defaultValue();
+        return accepts(defaultValue) && toBits(defaultValue) == 0L ? UNBOXED : defaultValue;
+    }
+
+    @Override
+    public void set(MObject owner, Object value) throws InvalidFieldValueException, NoKeyFieldException {
+        if (accepts(value)) {
+            setBits(owner, toBits(value));
+        } else {
+            super.set(owner, value);
+        }
+    }
+
+    @Override
+    public Object get(MObject owner) {
+        final Object value = owner.__getSlot(this.slot);
+        return value == UNBOXED ? fromBits(owner.__getUnboxed(this.unboxedSlot)) : value;
+    }
+
+    /**
+     * Returns the value of the field as raw bits, without boxing.
+     * @param owner the owner managed object
+     * @return the raw bits
+     */
+    protected long getBits(MObject owner) {
+        final Object value = owner.__getSlot(this.slot);
+        return value == UNBOXED ? owner.__getUnboxed(this.unboxedSlot) : toBits(value);
+    }
+
+    /**
+     * Sets the value of the field as raw bits, without boxing.
+     * @param owner the owner managed object
+     * @param bits the raw bits
+     */
+    protected void setBits(MObject owner, long bits) {
+        owner.__setUnboxed(this.unboxedSlot, bits);
+        owner.__setSlot(this.slot, UNBOXED);
+    }
+}
@@ -0,0 +1,165 @@
+package nl.cwi.managed_data_4j.language.managed_object.mapped;
+
+import nl.cwi.managed_data_4j.language.managed_object.KlassLayout;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.MObjectField;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldMany;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSingleUnboxed;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Path;
+
+/**
+ * The records of the managed objects of a Klass, in a mapped file, indexed by the object id.
+ *
+ * The file starts with a header:
+ *      magic, version, hash of the layout, number of slots, number of objects, number of the klass
+ * and then the records follow, one per object:
+ *      a tag per slot (the kind of the value, see MappedStore), padded to 8 bytes,
+ *      and 8 bytes per slot (the value, or where to find it).
+ *
+ * @author Theologos Zacharopoulos
+ */
+final class KlassFile implements Closeable {
+
+    private static final int MAGIC = 0x4D44344B;
+    private static final int VERSION = 1;
+
+    private static final int HEADER = 32;
+    private static final int COUNT_OFFSET = 16;
+    private static final int NUMBER_OFFSET = 20;
+
+    private final MappedRegion region;
+
+    private final KlassLayout layout;
+
+    // the number of the klass, used in the references to its objects
+    private final int number;
+
+    private final int slotCount;
+    private final int tagsSize;
+    private final int recordSize;
+
+    // <primitive slot, slot>, the raw bits of an unboxed field are the payload of its slot.
+    private final int[] slotsOfUnboxed;
+
+    // the slots of the many-fields
+    private final boolean[] many;
+
+    /**
+     * Opens the file of a Klass, creates it if it does not exist.
+     * @param file the file
+     * @param layout the layout of the Klass
+     * @param number the number of the klass, in case the file is new.
+     * @throws IOException in case the file can not be mapped, or its layout is not the layout of the Klass.
+     */
+    KlassFile(Path file, KlassLayout layout, int number) throws IOException {
+        this.layout = layout;
+        this.slotCount = layout.fields().length;
+        this.tagsSize = (this.slotCount + 7) & ~7;
+        this.recordSize = Math.max(8, this.tagsSize + 8 * this.slotCount);
+        this.region = new MappedRegion(file, HEADER + 64L * this.recordSize);
+
+        this.slotsOfUnboxed = new int[layout.unboxedCount()];
+        this.many = new boolean[this.slotCount];
+        for (int slot = 0; slot < this.slotCount; slot++) {
+            final MObjectField mObjectField = layout.mObjectFields()[slot];
+            if (mObjectField instanceof MObjectFieldSingleUnboxed) {
+                this.slotsOfUnboxed[((MObjectFieldSingleUnboxed) mObjectField).getUnboxedSlot()] = slot;
+            }
+            this.many[slot] = mObjectField instanceof MObjectFieldMany;
+        }
+
+        final MappedByteBuffer buffer = this.region.buffer();
+        if (this.region.isNew()) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(8, layout.fieldsHash());
+            buffer.putInt(12, this.slotCount);
+            buffer.putInt(COUNT_OFFSET, 0);
+            buffer.putInt(NUMBER_OFFSET, number);
+        } else if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not a managed data file: " + file);
+        } else if (buffer.getInt(8) != layout.fieldsHash() || buffer.getInt(12) != this.slotCount) {
+            throw new IOException("The fields of " + layout.klass().name() + " do not match the file " + file);
+        }
+        this.number = buffer.getInt(NUMBER_OFFSET);
+    }
+
+    KlassLayout layout() {
+        return this.layout;
+    }
+
+    int number() {
+        return this.number;
+    }
+
+    int slotOfUnboxed(int unboxedSlot) {
+        return this.slotsOfUnboxed[unboxedSlot];
+    }
+
+    boolean isMany(int slot) {
+        return this.many[slot];
+    }
+
+    /**
+     * Returns the number of the objects.
+     */
+    int count() {
+        return this.region.buffer().getInt(COUNT_OFFSET);
+    }
+
+    /**
+     * Adds the (empty) record of a new object.
+     * @return the id of the object
+     */
+    int add() {
+        final int id = count();
+        this.region.ensureCapacity(HEADER + (long) (id + 1) * this.recordSize);
+
+        final MappedByteBuffer buffer = this.region.buffer();
+        final int offset = offset(id);
+        for (int i = 0; i < this.recordSize; i += 8) {
+            buffer.putLong(offset + i, 0L);
+        }
+        buffer.putInt(COUNT_OFFSET, id + 1);
+        return id;
+    }
+
+    byte tag(int id, int slot) {
+        return this.region.buffer().get(offset(id) + slot);
+    }
+
+    long payload(int id, int slot) {
+        return this.region.buffer().getLong(offset(id) + this.tagsSize + 8 * slot);
+    }
+
+    void set(int id, int slot, byte tag, long payload) {
+        final MappedByteBuffer buffer = this.region.buffer();
+        final int offset = offset(id);
+        buffer.put(offset + slot, tag);
+        buffer.putLong(offset + this.tagsSize + 8 * slot, payload);
+    }
+
+    void setTag(int id, int slot, byte tag) {
+        this.region.buffer().put(offset(id) + slot, tag);
+    }
+
+    void setPayload(int id, int slot, long payload) {
+        this.region.buffer().putLong(offset(id) + this.tagsSize + 8 * slot, payload);
+    }
+
+    private int offset(int id) {
+        return HEADER + id * this.recordSize;
+    }
+
+    void force() {
+        this.region.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.region.close();
+    }
+}
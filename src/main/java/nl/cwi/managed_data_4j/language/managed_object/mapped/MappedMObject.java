@@ -0,0 +1,220 @@
+package nl.cwi.managed_data_4j.language.managed_object.mapped;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.dispatch.DispatchPlan;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.MObjectField;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.InvalidFieldValueException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.NoKeyFieldException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.IndexedList;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.KeyedSet;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldMany;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldManyList;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldManySet;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+import java.util.Collection;
+
+/**
+ * A Managed Object that keeps its values in the record of its id in the file of its Klass (see MappedStore).
+ *
+ * The single fields are read from and written to the mapped file directly,
+ * the many-fields are read from the file when they are first used,
+ * and, once they change, they are written back when the store is flushed
+ * (the store keeps the object until then).
+ *
+ * Thus the files are consistent only after a flush (or close) of the store.
+ * A single field is in the mapped file as soon as it is written, but the inverse many-field
+ * that it changes is not, e.g. after car.owner(person) and a crash before the flush,
+ * the car refers to the person in the files, but the cars of the person do not have the car.
+ * The mapped files are forced to the disk only by the flush as well.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class MappedMObject extends MObject {
+
+    private final MappedStore store;
+
+    // the file of the klass of the object
+    private final KlassFile file;
+
+    // the id of the object in the file
+    private final int id;
+
+    // the collections of the many-fields, by slot, null until they are used.
+    private Object[] many;
+
+    // true while a many-field is read from the file, its collection does not change then.
+    private boolean loading;
+
+    /**
+     * A new managed object, with a new record.
+     * @param schemaKlass the schema klass in which managed object belongs to
+     * @param store the store of the objects
+     * @param initializers initialization values for the object.
+     */
+    public MappedMObject(Klass schemaKlass, MappedStore store, Object... initializers) {
+        super(DispatchPlan.of(schemaKlass, MappedMObject.class));
+        this.store = store;
+        this.file = store.file(schemaKlass);
+        this.id = this.file.add();
+
+        this.setupFields();
+        this.initialize(initializers);
+    }
+
+    private MappedMObject(Klass schemaKlass, MappedStore store, int id) {
+        super(DispatchPlan.of(schemaKlass, MappedMObject.class));
+        this.store = store;
+        this.file = store.file(schemaKlass);
+        this.id = id;
+    }
+
+    /**
+     * The managed object of an existing record, its values are read when they are used.
+     * @param schemaKlass the schema klass of the object
+     * @param store the store of the objects
+     * @param id the id of the object in the file of its klass
+     * @return the managed object
+     */
+    public static MappedMObject existing(Klass schemaKlass, MappedStore store, int id) {
+        if (id < 0 || id >= store.count(schemaKlass)) {
+            throw new IndexOutOfBoundsException("No " + schemaKlass.name() + " with id " + id);
+        }
+        return new MappedMObject(schemaKlass, store, id);
+    }
+
+    /**
+     * Returns the id of the object in the file of its klass.
+     */
+    public int __id() {
+        return this.id;
+    }
+
+    @Override
+    protected void setupField(int slot) throws UnknownTypeException, InvalidFieldValueException {
+        final MObjectField mObjectField = this.layout.mObjectFields()[slot];
+
+        if (mObjectField == null) {
+            throw new UnknownTypeException("Type of field '" + this.layout.fields()[slot].name() + "' is NULL");
+        }
+
+        this.__setSlot(slot, initialValue(mObjectField));
+    }
+
+    @Override
+    protected Object initialValue(MObjectField mObjectField) throws UnknownTypeException {
+        if (mObjectField instanceof MObjectFieldManyList) {
+            return new MappedList(((MObjectFieldManyList) mObjectField).byReference());
+        }
+        if (mObjectField instanceof MObjectFieldManySet) {
+            return new MappedSet((MObjectFieldManySet) mObjectField);
+        }
+        return super.initialValue(mObjectField);
+    }
+
+    @Override
+    public Object __getSlot(int slot) {
+        if (this.file.isMany(slot)) {
+            return many(slot);
+        }
+        return this.store.read(this.file, this.id, slot);
+    }
+
+    @Override
+    public void __setSlot(int slot, Object value) {
+        if (this.file.isMany(slot)) {
+            many()[slot] = value;
+        } else {
+            this.store.write(this.file, this.id, slot, value);
+        }
+    }
+
+    @Override
+    public long __getUnboxed(int unboxedSlot) {
+        return this.file.payload(this.id, this.file.slotOfUnboxed(unboxedSlot));
+    }
+
+    @Override
+    public void __setUnboxed(int unboxedSlot, long bits) {
+        this.file.setPayload(this.id, this.file.slotOfUnboxed(unboxedSlot), bits);
+    }
+
+    private Object[] many() {
+        if (this.many == null) {
+            this.many = new Object[this.layout.fields().length];
+        }
+        return this.many;
+    }
+
+    // the collection of a many-field, read from the file the first time.
+    private Object many(int slot) {
+        final Object[] many = many();
+        if (many[slot] != null) {
+            return many[slot];
+        }
+
+        final MObjectFieldMany mObjectField = (MObjectFieldMany) this.layout.mObjectFields()[slot];
+        try {
+            // the (empty) collection is in the slot before the values are inserted, they use it.
+            many[slot] = initialValue(mObjectField);
+            this.loading = true;
+            for (Object value : this.store.readMany(this.file, this.id, slot)) {
+                mObjectField.__insert(this, value);
+            }
+        } catch (UnknownTypeException | NoKeyFieldException e) {
+            throw new RuntimeException("Error on loading field '" + mObjectField.getField().name() + "' of " + schemaKlass.name(), e);
+        } finally {
+            this.loading = false;
+        }
+        return many[slot];
+    }
+
+    /**
+     * Writes the many-fields that are in memory to the store.
+     */
+    void writeMany() {
+        for (int slot = 0; slot < this.many.length; slot++) {
+            if (this.many[slot] != null) {
+                this.store.writeMany(this.file, this.id, slot, (Collection<?>) this.layout.mObjectFields()[slot].get(this));
+            }
+        }
+    }
+
+    // called before a many-field changes, the object is kept by the store until it is flushed.
+    private void changing() {
+        if (!this.loading) {
+            this.store.addManyOwner(this);
+        }
+    }
+
+    /**
+     * The list of a List many-field, which registers the object for the next flush when it changes.
+     */
+    private final class MappedList extends IndexedList<Object> {
+
+        MappedList(boolean byReference) {
+            super(byReference);
+        }
+
+        @Override
+        protected void changing() {
+            MappedMObject.this.changing();
+        }
+    }
+
+    /**
+     * The set of a Set many-field, which registers the object for the next flush when it changes.
+     */
+    private final class MappedSet extends KeyedSet {
+
+        MappedSet(MObjectFieldManySet field) {
+            super(MappedMObject.this, field);
+        }
+
+        @Override
+        protected void changing() {
+            MappedMObject.this.changing();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package nl.cwi.managed_data_4j.language.managed_object.mapped;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A file mapped in memory, which grows (and is mapped again) when more space is needed.
+ * A mapped buffer is indexed by int, thus a region is at most 2GB.
+ *
+ * @author Theologos Zacharopoulos
+ */
+final class MappedRegion implements Closeable {
+
+    private final FileChannel channel;
+
+    private MappedByteBuffer buffer;
+
+    /**
+     * Maps a file, creates it if it does not exist.
+     * @param file the file
+     * @param minimumSize the minimum size of the mapping
+     * @throws IOException in case the file can not be mapped.
+     */
+    MappedRegion(Path file, long minimumSize) throws IOException {
+        this.channel = FileChannel.open(file,
+            StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(this.channel.size(), minimumSize));
+    }
+
+    /**
+     * Returns true if the file was just created (it was empty).
+     */
+    boolean isNew() {
+        return this.buffer.getInt(0) == 0;
+    }
+
+    /**
+     * Returns the current mapping, it changes when the region grows.
+     */
+    MappedByteBuffer buffer() {
+        return this.buffer;
+    }
+
+    /**
+     * Makes sure that the region has at least a size, doubles it otherwise.
+     * @param size the needed size in bytes
+     */
+    void ensureCapacity(long size) {
+        if (size <= this.buffer.capacity()) return;
+
+        long capacity = this.buffer.capacity();
+        while (capacity < size) {
+            capacity *= 2;
+        }
+        if (capacity > Integer.MAX_VALUE) {
+            throw new IllegalStateException("Mapped region is full (2GB)");
+        }
+        try {
+            this.buffer = this.channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes the changes of the region to the file.
+     */
+    void force() {
+        this.buffer.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        force();
+        this.channel.close();
+    }
+}
@@ -0,0 +1,451 @@
+package nl.cwi.managed_data_4j.language.managed_object.mapped;
+
+import nl.cwi.managed_data_4j.language.managed_object.KlassLayout;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSingleUnboxed;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * The storage of the managed objects of a schema, in memory mapped files in a directory:
+ *      - a file per Klass with the records of its objects (see KlassFile),
+ *      - the heap, with the values that do not fit in a record (strings, many-fields),
+ *      - the klasses, the names of the klasses by number.
+ *
+ * Every value in a record has a tag and 8 bytes (payload):
+ *      - numbers and booleans are kept in the payload (raw bits),
+ *      - strings and classes are kept in the heap, the payload is their offset (0 for the empty string),
+ *      - references to managed objects are the number of the klass and the id of the object,
+ *      - many-fields are lists of tagged values in the heap, the payload is their offset (0 if empty).
+ *
+ * The values in the heap are kept in blocks, a block has a capacity (a power of 2) and then the value:
+ *      - a string is its length and its bytes (UTF-8),
+ *      - a many-field is the number of its values and then the tagged values.
+ * A new value of a slot (or of a position of a many-field) is written in the block of the old value if it fits,
+ * otherwise a new block is added at the end of the heap, and the old one is not used again.
+ * There is no compaction, the heap grows until its limit (2GB, see MappedRegion).
+ *
+ * The files are opened as they are, only the files of the klasses that are used are mapped,
+ * and nothing is read before it is used, thus opening a store does not depend on the size of the model.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public final class MappedStore implements Closeable {
+
+    /**
+     * Finds the managed object of a reference, the same object for the same reference.
+     */
+    public interface ObjectResolver {
+        Object object(Klass klass, int id);
+    }
+
+    static final byte NULL = 0;
+    static final byte UNBOXED = 1;
+    static final byte STRING = 2;
+    static final byte INT = 3;
+    static final byte LONG = 4;
+    static final byte FLOAT = 5;
+    static final byte DOUBLE = 6;
+    static final byte BOOLEAN = 7;
+    static final byte REFERENCE = 8;
+    static final byte CLASS = 9;
+    static final byte MANY = 10;
+
+    private static final int HEAP_MAGIC = 0x4D443448;
+    private static final int HEAP_VERSION = 2;
+    private static final int HEAP_HEADER = 16;
+    private static final int HEAP_END_OFFSET = 8;
+
+    private static final String HEAP_FILE = "heap";
+    private static final String KLASSES_FILE = "klasses";
+
+    private final Path directory;
+
+    private final ObjectResolver resolver;
+
+    // <Klass name, Klass> of the schema
+    private final Map<String, Klass> klassesByName = new HashMap<>();
+
+    // the names of the klasses that have a file, by number
+    private final List<String> klassNumbers;
+
+    // <Klass, its file>, the files are opened when they are first used.
+    private final Map<Klass, KlassFile> files = new IdentityHashMap<>();
+
+    // <Klass number, its file>
+    private final Map<Integer, KlassFile> filesByNumber = new HashMap<>();
+
+    // the objects whose many-fields changed since the last flush, they are kept until they are written.
+    private final Set<MappedMObject> manyOwners = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    private final MappedRegion heap;
+
+    private MappedStore(Path directory, Schema schema, ObjectResolver resolver) throws IOException {
+        this.directory = directory;
+        this.resolver = resolver;
+        schema.klasses().forEach(klass -> this.klassesByName.put(klass.name(), klass));
+
+        final Path klassesFile = directory.resolve(KLASSES_FILE);
+        this.klassNumbers = Files.exists(klassesFile)
+            ? new ArrayList<>(Files.readAllLines(klassesFile, StandardCharsets.UTF_8))
+            : new ArrayList<>();
+
+        this.heap = new MappedRegion(directory.resolve(HEAP_FILE), 1 << 16);
+        final MappedByteBuffer buffer = this.heap.buffer();
+        if (this.heap.isNew()) {
+            buffer.putInt(0, HEAP_MAGIC);
+            buffer.putInt(4, HEAP_VERSION);
+            buffer.putLong(HEAP_END_OFFSET, HEAP_HEADER);
+        } else if (buffer.getInt(0) != HEAP_MAGIC || buffer.getInt(4) != HEAP_VERSION) {
+            throw new IOException("Not a managed data heap: " + directory.resolve(HEAP_FILE));
+        }
+    }
+
+    /**
+     * Opens the store of a schema in a directory, creates it if it does not exist.
+     * @param directory the directory of the files
+     * @param schema the schema of the managed objects
+     * @param resolver finds the managed objects of the references
+     * @return the store
+     * @throws IOException in case the files can not be mapped, or they are not of the schema.
+     */
+    public static MappedStore open(Path directory, Schema schema, ObjectResolver resolver) throws IOException {
+        Files.createDirectories(directory);
+        return new MappedStore(directory, schema, resolver);
+    }
+
+    /**
+     * Returns the number of the objects of a Klass.
+     * @param klass the schema klass
+     * @return the number of the objects
+     */
+    public int count(Klass klass) {
+        return file(klass).count();
+    }
+
+    /**
+     * Returns the file of a Klass, opens (or creates) it if it is not open yet.
+     */
+    synchronized KlassFile file(Klass klass) {
+        final KlassFile file = this.files.get(klass);
+        if (file != null) {
+            return file;
+        }
+
+        try {
+            int number = this.klassNumbers.indexOf(klass.name());
+            if (number < 0) {
+                this.klassNumbers.add(klass.name());
+                number = this.klassNumbers.size() - 1;
+                Files.write(this.directory.resolve(KLASSES_FILE),
+                    Collections.singletonList(klass.name()), StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+
+            final KlassFile newFile = new KlassFile(
+                this.directory.resolve(klass.name() + ".klass"), KlassLayout.of(klass), number);
+            this.files.put(klass, newFile);
+            this.filesByNumber.put(newFile.number(), newFile);
+            return newFile;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private KlassFile file(int number) {
+        final KlassFile file = this.filesByNumber.get(number);
+        if (file != null) {
+            return file;
+        }
+        final Klass klass = this.klassesByName.get(this.klassNumbers.get(number));
+        if (klass == null) {
+            throw new IllegalStateException("No klass " + this.klassNumbers.get(number) + " in the schema");
+        }
+        return file(klass);
+    }
+
+    // ================
+    // Values
+
+    /**
+     * Reads the value of a slot.
+     * @return the value, UNBOXED (MObjectFieldSingleUnboxed) in case the value is in the payload as raw bits.
+     */
+    Object read(KlassFile file, int id, int slot) {
+        return decode(file.tag(id, slot), file.payload(id, slot));
+    }
+
+    /**
+     * Writes the value of a slot.
+     */
+    void write(KlassFile file, int id, int slot, Object value) {
+        if (value == MObjectFieldSingleUnboxed.UNBOXED) {
+            file.setTag(id, slot, UNBOXED);
+        } else {
+            final byte tag = tagOf(value);
+            file.set(id, slot, tag, encode(tag, value, heapOffset(file.tag(id, slot), file.payload(id, slot))));
+        }
+    }
+
+    private Object decode(byte tag, long payload) {
+        switch (tag) {
+            case NULL: return null;
+            case UNBOXED: return MObjectFieldSingleUnboxed.UNBOXED;
+            case STRING: return readString(payload);
+            case INT: return (int) payload;
+            case LONG: return payload;
+            case FLOAT: return Float.intBitsToFloat((int) payload);
+            case DOUBLE: return Double.longBitsToDouble(payload);
+            case BOOLEAN: return payload != 0L;
+            case REFERENCE: {
+                final KlassFile file = file((int) (payload >>> 32));
+                return this.resolver.object(file.layout().klass(), (int) payload);
+            }
+            case CLASS: {
+                final String name = readString(payload);
+                try {
+                    return Class.forName(name, false, MappedStore.class.getClassLoader());
+                } catch (ClassNotFoundException e) {
+                    throw new IllegalStateException("Stored class not found: " + name, e);
+                }
+            }
+            default:
+                throw new IllegalStateException("Unknown tag of stored value: " + tag);
+        }
+    }
+
+    private byte tagOf(Object value) {
+        if (value == null) return NULL;
+        if (value instanceof String) return STRING;
+        if (value instanceof Integer) return INT;
+        if (value instanceof Long) return LONG;
+        if (value instanceof Float) return FLOAT;
+        if (value instanceof Double) return DOUBLE;
+        if (value instanceof Boolean) return BOOLEAN;
+        if (value instanceof Class) return CLASS;
+        if (MObject.isManaged(value) && MObject.of(value) instanceof MappedMObject) return REFERENCE;
+
+        throw new IllegalArgumentException("Cannot store a value of " + value.getClass().getName() +
+            (MObject.isManaged(value) ? " of another data manager" : ""));
+    }
+
+    /**
+     * Returns the payload of a value.
+     * @param oldBlock the block of the old value in the heap, where a string is written if it fits, 0 if none.
+     */
+    private long encode(byte tag, Object value, long oldBlock) {
+        switch (tag) {
+            case NULL: return 0L;
+            case STRING: return writeString((String) value, oldBlock);
+            case INT: return (Integer) value;
+            case LONG: return (Long) value;
+            case FLOAT: return Float.floatToRawIntBits((Float) value);
+            case DOUBLE: return Double.doubleToRawLongBits((Double) value);
+            case BOOLEAN: return (Boolean) value ? 1L : 0L;
+            case CLASS: return writeString(((Class<?>) value).getName(), oldBlock);
+            case REFERENCE: {
+                final MappedMObject mObject = (MappedMObject) MObject.of(value);
+                return ((long) file(mObject.schemaKlass()).number() << 32) | (mObject.__id() & 0xFFFFFFFFL);
+            }
+            default:
+                throw new IllegalStateException("Unknown tag of value: " + tag);
+        }
+    }
+
+    // ================
+    // Heap
+
+    /**
+     * Returns a block for a value, the old block of the slot if the value fits, a new one otherwise.
+     * @param oldBlock the block of the old value, 0 if none
+     * @param size the size of the value in bytes
+     * @return the offset of the block, the value is written after its capacity.
+     */
+    private long allocate(long oldBlock, int size) {
+        if (oldBlock != 0L && this.heap.buffer().getInt((int) oldBlock) >= size) {
+            return oldBlock;
+        }
+
+        // a power of 2, a value that grows (e.g. a many-field) moves only a few times
+        final int capacity = Math.max(8, Integer.highestOneBit(size - 1) << 1);
+        final long offset = this.heap.buffer().getLong(HEAP_END_OFFSET);
+        this.heap.ensureCapacity(offset + 4 + capacity);
+
+        final MappedByteBuffer buffer = this.heap.buffer();
+        buffer.putInt((int) offset, capacity);
+        buffer.putLong(HEAP_END_OFFSET, offset + 4 + capacity);
+        return offset;
+    }
+
+    // the block of a value in the heap, 0 if the value is not kept in the heap.
+    private static long heapOffset(byte tag, long payload) {
+        return tag == STRING || tag == CLASS || tag == MANY ? payload : 0L;
+    }
+
+    private long writeString(String value, long oldBlock) {
+        if (value.isEmpty()) return 0L;
+
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        final long offset = allocate(oldBlock, 4 + bytes.length);
+        final MappedByteBuffer buffer = this.heap.buffer();
+        buffer.putInt((int) offset + 4, bytes.length);
+        for (int i = 0; i < bytes.length; i++) {
+            buffer.put((int) offset + 8 + i, bytes[i]);
+        }
+        return offset;
+    }
+
+    private String readString(long offset) {
+        if (offset == 0L) return "";
+
+        final MappedByteBuffer buffer = this.heap.buffer();
+        final byte[] bytes = new byte[buffer.getInt((int) offset + 4)];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = buffer.get((int) offset + 8 + i);
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Reads the values of a many-field.
+     * @return the values, in order.
+     */
+    List<Object> readMany(KlassFile file, int id, int slot) {
+        if (file.tag(id, slot) != MANY || file.payload(id, slot) == 0L) {
+            return Collections.emptyList();
+        }
+
+        final int offset = (int) file.payload(id, slot);
+        final MappedByteBuffer buffer = this.heap.buffer();
+        final int count = buffer.getInt(offset + 4);
+        final byte[] tags = new byte[count];
+        final long[] payloads = new long[count];
+        for (int i = 0; i < count; i++) {
+            tags[i] = buffer.get(offset + 8 + 9 * i);
+            payloads[i] = buffer.getLong(offset + 8 + 9 * i + 1);
+        }
+
+        // decoded after the heap is read, a reference may open other files
+        final List<Object> values = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            values.add(decode(tags[i], payloads[i]));
+        }
+        return values;
+    }
+
+    /**
+     * Writes the values of a many-field, in case they changed.
+     */
+    void writeMany(KlassFile file, int id, int slot, Collection<?> values) {
+        final byte[] tags = new byte[values.size()];
+        final long[] payloads = new long[values.size()];
+        int i = 0;
+        for (Object value : values) {
+            tags[i] = tagOf(value);
+            payloads[i] = tags[i] == STRING || tags[i] == CLASS ? 0L : encode(tags[i], value, 0L);
+            i++;
+        }
+
+        final long oldOffset = file.tag(id, slot) == MANY ? file.payload(id, slot) : 0L;
+        if (file.tag(id, slot) == MANY && sameMany(oldOffset, tags, payloads, values)) {
+            return;
+        }
+        if (values.isEmpty()) {
+            file.set(id, slot, MANY, oldOffset == 0L ? 0L : writeEmptyMany(oldOffset));
+            return;
+        }
+
+        // the strings are written only when the values changed, in the blocks of the old strings at their positions
+        final int oldCount = oldOffset == 0L ? 0 : this.heap.buffer().getInt((int) oldOffset + 4);
+        i = 0;
+        for (Object value : values) {
+            if (tags[i] == STRING || tags[i] == CLASS) {
+                final long oldBlock = i < oldCount ? heapOffset(
+                    this.heap.buffer().get((int) oldOffset + 8 + 9 * i),
+                    this.heap.buffer().getLong((int) oldOffset + 8 + 9 * i + 1)) : 0L;
+                payloads[i] = encode(tags[i], value, oldBlock);
+            }
+            i++;
+        }
+
+        final long offset = allocate(oldOffset, 4 + 9 * values.size());
+        final MappedByteBuffer buffer = this.heap.buffer();
+        buffer.putInt((int) offset + 4, values.size());
+        for (i = 0; i < tags.length; i++) {
+            buffer.put((int) offset + 8 + 9 * i, tags[i]);
+            buffer.putLong((int) offset + 8 + 9 * i + 1, payloads[i]);
+        }
+        file.set(id, slot, MANY, offset);
+    }
+
+    // an empty many-field keeps its block, for the values that are added later.
+    private long writeEmptyMany(long offset) {
+        this.heap.buffer().putInt((int) offset + 4, 0);
+        return offset;
+    }
+
+    private boolean sameMany(long offset, byte[] tags, long[] payloads, Collection<?> values) {
+        if (offset == 0L) {
+            return tags.length == 0;
+        }
+
+        final MappedByteBuffer buffer = this.heap.buffer();
+        if (buffer.getInt((int) offset + 4) != tags.length) {
+            return false;
+        }
+
+        int i = 0;
+        for (Object value : values) {
+            final int position = (int) offset + 8 + 9 * i;
+            if (buffer.get(position) != tags[i]) {
+                return false;
+            }
+            if (tags[i] == STRING || tags[i] == CLASS) {
+                if (!decode(tags[i], buffer.getLong(position + 1)).equals(value)) return false;
+            } else if (buffer.getLong(position + 1) != payloads[i]) {
+                return false;
+            }
+            i++;
+        }
+        return true;
+    }
+
+    /**
+     * Registers an object whose many-fields changed, they are written at the next flush.
+     */
+    synchronized void addManyOwner(MappedMObject mObject) {
+        this.manyOwners.add(mObject);
+    }
+
+    /**
+     * Writes the many-fields that changed to the heap, and all the changes to the files.
+     * The objects are not kept by the store after.
+     */
+    public synchronized void flush() {
+        for (MappedMObject mObject : this.manyOwners) {
+            mObject.writeMany();
+        }
+        this.manyOwners.clear();
+        this.heap.force();
+        this.files.values().forEach(KlassFile::force);
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        flush();
+        for (KlassFile file : this.files.values()) {
+            file.close();
+        }
+        this.heap.close();
+    }
+}
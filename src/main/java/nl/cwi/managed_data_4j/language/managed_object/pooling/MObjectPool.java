@@ -0,0 +1,74 @@
+package nl.cwi.managed_data_4j.language.managed_object.pooling;
+
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+import java.util.ArrayDeque;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * The released managed objects of a data manager, per Klass.
+ * The pool keeps the objects as they are seen from the outside (proxies),
+ * at most a fixed number of them per Klass, the rest are left to the garbage collector.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class MObjectPool {
+
+    public static final int DEFAULT_CAPACITY = 1024;
+
+    // the maximum number of released objects per Klass.
+    private final int capacity;
+
+    // <Klass, released objects>, klasses are compared by reference
+    private final Map<Klass, ArrayDeque<Object>> released = new IdentityHashMap<>();
+
+    public MObjectPool(int capacity) {
+        if (capacity < 0) {
+            throw new IllegalArgumentException("Negative pool capacity: " + capacity);
+        }
+        this.capacity = capacity;
+    }
+
+    /**
+     * Takes a released object of a Klass.
+     * @param klass the schema klass
+     * @return the released object, null if there is none.
+     */
+    public synchronized Object poll(Klass klass) {
+        final ArrayDeque<Object> objects = this.released.get(klass);
+        return objects == null ? null : objects.pollLast();
+    }
+
+    /**
+     * Puts a released object in the pool.
+     * @param klass the schema klass of the object
+     * @param object the released object
+     * @return false if the pool of the Klass is full, thus the object is not kept.
+     */
+    public synchronized boolean offer(Klass klass, Object object) {
+        final ArrayDeque<Object> objects = this.released.computeIfAbsent(klass, k -> new ArrayDeque<>());
+        if (objects.size() >= this.capacity) {
+            return false;
+        }
+        objects.addLast(object);
+        return true;
+    }
+
+    /**
+     * Returns the number of the released objects of a Klass in the pool.
+     * @param klass the schema klass
+     * @return the number of the objects
+     */
+    public synchronized int size(Klass klass) {
+        final ArrayDeque<Object> objects = this.released.get(klass);
+        return objects == null ? 0 : objects.size();
+    }
+
+    /**
+     * Drops all the released objects.
+     */
+    public synchronized void clear() {
+        this.released.clear();
+    }
+}
@@ -0,0 +1,101 @@
+package nl.cwi.managed_data_4j.language.managed_object.pooling;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.MObjectField;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.InvalidFieldValueException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.NoKeyFieldException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldMany;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSingleMObj;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+import java.util.Arrays;
+
+/**
+ * A Managed Object that can be released to a pool, and then be recycled as a new managed object of its Klass.
+ *
+ * On release, the object is detached from the inverses of its fields,
+ * its single fields get their default values (PrimitivesManager) and its many fields are cleared in place,
+ * thus a recycled object keeps its proxy, its slots and its collections.
+ *
+ * Only the inverses are detached, any other reference to a released object is left as it is,
+ * it is up to the program to release only the objects that it does not refer to anymore.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class PooledMObject extends MObject implements Releasable {
+
+    // the pool that the object is released to.
+    private final MObjectPool pool;
+
+    private boolean released = false;
+
+    public PooledMObject(Klass schemaKlass, MObjectPool pool, Object... initializers) {
+        super(schemaKlass, initializers);
+        this.pool = pool;
+    }
+
+    @Override
+    public void release() {
+        if (this.released) {
+            throw new IllegalStateException("Object of " + schemaKlass.name() + " is already released.");
+        }
+
+        try {
+            this.reset();
+        } catch (InvalidFieldValueException | NoKeyFieldException | UnknownTypeException e) {
+            throw new RuntimeException("Error on release of " + schemaKlass.name(), e);
+        }
+        this.released = true;
+        this.pool.offer(schemaKlass, getProxy());
+    }
+
+    /**
+     * Detaches the object from the inverses of its fields, and resets the fields to their default values.
+     * @throws InvalidFieldValueException in case of an invalid default value.
+     * @throws NoKeyFieldException if an inverse Set has no key field.
+     * @throws UnknownTypeException in case there is a weird primitive.
+     */
+    protected void reset() throws InvalidFieldValueException, NoKeyFieldException, UnknownTypeException {
+        final MObjectField[] mObjectFields = this.layout.mObjectFields();
+
+        // first detach, the inverse Sets find the object by its key
+        for (int slot = 0; slot < mObjectFields.length; slot++) {
+            final MObjectField mObjectField = mObjectFields[slot];
+
+            if (mObjectField instanceof MObjectFieldMany) {
+                ((MObjectFieldMany) mObjectField).detach(this);
+            } else if (mObjectField instanceof MObjectFieldSingleMObj &&
+                       mObjectField.getInverse() != null && this.values[slot] != null) {
+                mObjectField.set(this, null);
+            }
+        }
+
+        // then reset, the many fields are already empty
+        for (int slot = 0; slot < mObjectFields.length; slot++) {
+            if (!(mObjectFields[slot] instanceof MObjectFieldMany)) {
+                this.values[slot] = initialValue(mObjectFields[slot]);
+            }
+        }
+
+        if (this.unboxedValues != null) {
+            Arrays.fill(this.unboxedValues, 0L);
+        }
+    }
+
+    /**
+     * Recycles a released object as a new one.
+     * @param initializers initialization values for the object.
+     */
+    public void __reuse(Object... initializers) {
+        if (!this.released) {
+            throw new IllegalStateException("Object of " + schemaKlass.name() + " is not released.");
+        }
+        this.released = false;
+        this.initialize(initializers);
+    }
+
+    public boolean __isReleased() {
+        return this.released;
+    }
+}
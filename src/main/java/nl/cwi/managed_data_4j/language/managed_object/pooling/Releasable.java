@@ -0,0 +1,16 @@
+package nl.cwi.managed_data_4j.language.managed_object.pooling;
+
+/**
+ * A managed object that can be given back to its data manager (see PoolingDataManager),
+ * to be recycled as a new managed object of the same Klass.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public interface Releasable {
+
+    /**
+     * Releases the object: detaches it from its inverses, resets its fields to their default values
+     * and puts it in the pool. The object must not be used after it is released.
+     */
+    void release();
+}
@@ -0,0 +1,81 @@
+package nl.cwi.managed_data_4j.language.managed_object.snapshot;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A read-only view of the managed objects of a data manager, as they were when the snapshot was taken
+ * (see SnapshotDataManager.snapshot).
+ *
+ * The objects of a snapshot are read through views, which have the interfaces of the schema,
+ * every object has one view per snapshot, and the objects that a view refers to are views of the same snapshot.
+ * A snapshot keeps the versions that it sees until it is closed, it should not be read afterwards.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public final class Snapshot implements AutoCloseable {
+
+    private final long version;
+
+    private final VersionClock clock;
+
+    // creates the proxy of a view.
+    private final Function<MObject, Object> proxies;
+
+    // <managed object, its view (proxy)>, objects are compared by reference
+    private final Map<Object, Object> views = new IdentityHashMap<>();
+
+    private boolean closed;
+
+    Snapshot(long version, VersionClock clock, Function<MObject, Object> proxies) {
+        this.version = version;
+        this.clock = clock;
+        this.proxies = proxies;
+    }
+
+    /**
+     * Returns the version of the snapshot, it sees the writes of this version and of the older ones.
+     */
+    public long version() {
+        return this.version;
+    }
+
+    /**
+     * Returns the view of a managed object in the snapshot.
+     * @param object a managed object of the data manager of the snapshot
+     * @return the view, objects of other data managers and primitives are returned as they are.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T of(T object) {
+        if (!MObject.isManaged(object)) {
+            return object;
+        }
+        final MObject mObject = MObject.of(object);
+        if (!(mObject instanceof SnapshotMObject)) {
+            return object;
+        }
+
+        synchronized (this.views) {
+            Object view = this.views.get(mObject);
+            if (view == null) {
+                view = this.proxies.apply(new SnapshotView((SnapshotMObject) mObject, this));
+                this.views.put(mObject, view);
+            }
+            return (T) view;
+        }
+    }
+
+    /**
+     * Closes the snapshot, its versions are dropped by the objects when they are written again.
+     */
+    @Override
+    public synchronized void close() {
+        if (!this.closed) {
+            this.closed = true;
+            this.clock.close(this.version);
+        }
+    }
+}
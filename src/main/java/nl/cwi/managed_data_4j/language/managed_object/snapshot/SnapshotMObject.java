@@ -0,0 +1,231 @@
+package nl.cwi.managed_data_4j.language.managed_object.snapshot;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.MObjectField;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.IndexedList;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.KeyedSet;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldMany;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldManyList;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldManySet;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A Managed Object which keeps the versions of its slots (see VersionClock),
+ * so that a snapshot reads the values that the object had when the snapshot was taken.
+ *
+ * Every slot keeps its current version and the older ones that an open snapshot may see, newest first:
+ *      - a write of a slot in the current version changes the value in place,
+ *      - the first write of a slot after a snapshot adds a new version,
+ *      - the first change of the collection of a many-field after a snapshot
+ *        keeps a copy of its managed objects as they were.
+ * The initial values (of the constructor) stay in the values of the object, as version 0.
+ *
+ * A writer does not wait for the readers of snapshots,
+ * except while a reader copies a collection that the writer is about to change for the first time.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class SnapshotMObject extends MObject {
+
+    private final VersionClock clock;
+
+    // the versions of the slots, and then of the primitive slots, null while the object is constructed.
+    // the versions of a many-field: its current version (no value, the collection is live) and the copies of its older versions.
+    private final AtomicReferenceArray<Version> versions;
+
+    public SnapshotMObject(Klass schemaKlass, VersionClock clock, Object... initializers) {
+        super(schemaKlass, initializers);
+        this.clock = clock;
+        this.versions = new AtomicReferenceArray<>(this.values.length + (this.unboxedValues == null ? 0 : this.unboxedValues.length));
+    }
+
+    @Override
+    protected Object initialValue(MObjectField mObjectField) throws UnknownTypeException {
+        if (mObjectField instanceof MObjectFieldManyList) {
+            return new VersionedList(mObjectField.getSlot(), ((MObjectFieldManyList) mObjectField).byReference());
+        }
+        if (mObjectField instanceof MObjectFieldManySet) {
+            return new VersionedSet(mObjectField.getSlot(), (MObjectFieldManySet) mObjectField);
+        }
+        return super.initialValue(mObjectField);
+    }
+
+    @Override
+    public Object __getSlot(int slot) {
+        if (this.versions == null || isMany(slot)) {
+            return super.__getSlot(slot);
+        }
+        final Version version = this.versions.get(slot);
+        return version == null ? this.values[slot] : version.value;
+    }
+
+    @Override
+    public void __setSlot(int slot, Object value) {
+        if (this.versions == null) {
+            super.__setSlot(slot, value);
+        } else {
+            write(slot, value, 0L);
+        }
+    }
+
+    @Override
+    public long __getUnboxed(int unboxedSlot) {
+        if (this.versions == null) {
+            return super.__getUnboxed(unboxedSlot);
+        }
+        final Version version = this.versions.get(this.values.length + unboxedSlot);
+        return version == null ? this.unboxedValues[unboxedSlot] : version.bits;
+    }
+
+    @Override
+    public void __setUnboxed(int unboxedSlot, long bits) {
+        if (this.versions == null) {
+            super.__setUnboxed(unboxedSlot, bits);
+        } else {
+            write(this.values.length + unboxedSlot, null, bits);
+        }
+    }
+
+    /**
+     * Returns the value of a slot as a snapshot sees it.
+     * @param slot the slot, not of a many-field
+     * @param snapshot the version of the snapshot
+     */
+    Object read(int slot, long snapshot) {
+        final Version version = at(slot, snapshot);
+        return version == null ? this.values[slot] : version.value;
+    }
+
+    /**
+     * Returns the raw bits of a primitive slot as a snapshot sees them.
+     * @param unboxedSlot the primitive slot
+     * @param snapshot the version of the snapshot
+     */
+    long readUnboxed(int unboxedSlot, long snapshot) {
+        final Version version = at(this.values.length + unboxedSlot, snapshot);
+        return version == null ? this.unboxedValues[unboxedSlot] : version.bits;
+    }
+
+    /**
+     * Returns the values of a many-field as a snapshot sees them, in a new list.
+     * @param slot the slot of the many-field
+     * @param snapshot the version of the snapshot
+     */
+    @SuppressWarnings("unchecked")
+    List<Object> readMany(int slot, long snapshot) {
+        final Collection<?> live = (Collection<?>) this.values[slot];
+
+        // the writer changes the collection after it has added the next version, see changing
+        synchronized (live) {
+            final Version current = this.versions.get(slot);
+            if (current == null || current.version <= snapshot) {
+                return new ArrayList<>(live);
+            }
+        }
+
+        final Version version = at(slot, snapshot);
+        if (version == null) {
+            throw new IllegalStateException("The versions of " + schemaKlass.name() + " that the snapshot sees are dropped, the snapshot is closed");
+        }
+        return new ArrayList<>((List<Object>) version.value);
+    }
+
+    private Version at(int index, long snapshot) {
+        final Version version = this.versions.get(index);
+        return version == null ? null : version.at(snapshot);
+    }
+
+    // a write of a slot, or of a primitive slot (index after the slots).
+    private void write(int index, Object value, long bits) {
+        final long current = this.clock.current();
+        final Version version = this.versions.get(index);
+
+        if (version != null && version.version == current) {
+            version.value = value;
+            version.bits = bits;
+        } else {
+            this.versions.lazySet(index, drop(new Version(current, value, bits, version)));
+        }
+    }
+
+    /**
+     * Called before the collection of a many-field changes, by the collection,
+     * keeps a copy of its managed objects, if it has not changed since the last snapshot.
+     */
+    private void changing(int slot, Collection<?> live) {
+        if (this.versions == null) {
+            return;
+        }
+
+        final long current = this.clock.current();
+        final Version version = this.versions.get(slot);
+        if (version != null && version.version == current) {
+            return;
+        }
+
+        synchronized (live) {
+            // the values before the change, only if an open snapshot may see them
+            Version older = null;
+            if (this.clock.oldest() != VersionClock.NONE) {
+                older = new Version(version == null ? 0 : version.version, new ArrayList<>(live), 0L,
+                    version == null ? null : version.older);
+            }
+            this.versions.lazySet(slot, drop(new Version(current, null, 0L, older)));
+        }
+    }
+
+    // drops the versions that are older than the version that the oldest open snapshot sees.
+    private Version drop(Version newest) {
+        final Version oldest = newest.at(this.clock.oldest());
+        if (oldest != null) {
+            oldest.older = null;
+        }
+        return newest;
+    }
+
+    private boolean isMany(int slot) {
+        return this.layout.mObjectFields()[slot] instanceof MObjectFieldMany;
+    }
+
+    /**
+     * The list of a List many-field, which keeps its older versions before it changes.
+     */
+    private final class VersionedList extends IndexedList<Object> {
+
+        private final int slot;
+
+        VersionedList(int slot, boolean byReference) {
+            super(byReference);
+            this.slot = slot;
+        }
+
+        @Override
+        protected void changing() {
+            SnapshotMObject.this.changing(this.slot, this);
+        }
+    }
+
+    /**
+     * The set of a Set many-field, which keeps its older versions before it changes.
+     */
+    private final class VersionedSet extends KeyedSet {
+
+        private final int slot;
+
+        VersionedSet(int slot, MObjectFieldManySet field) {
+            super(SnapshotMObject.this, field);
+            this.slot = slot;
+        }
+
+        @Override
+        protected void changing() {
+            SnapshotMObject.this.changing(this.slot, this);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package nl.cwi.managed_data_4j.language.managed_object.snapshot;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.dispatch.DispatchPlan;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.MObjectField;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldMany;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldManySet;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+
+/**
+ * The read-only view of a SnapshotMObject in a snapshot,
+ * its slots are the versions of the slots of the object that the snapshot sees,
+ * with the managed objects replaced by their views, and the many-fields as unmodifiable collections.
+ *
+ * @author Theologos Zacharopoulos
+ */
+final class SnapshotView extends MObject {
+
+    private final SnapshotMObject source;
+
+    private final Snapshot snapshot;
+
+    SnapshotView(SnapshotMObject source, Snapshot snapshot) {
+        super(DispatchPlan.of(source.schemaKlass(), SnapshotView.class));
+        this.source = source;
+        this.snapshot = snapshot;
+    }
+
+    @Override
+    public Object __getSlot(int slot) {
+        final MObjectField mObjectField = this.layout.mObjectFields()[slot];
+        if (!(mObjectField instanceof MObjectFieldMany)) {
+            return this.snapshot.of(this.source.read(slot, this.snapshot.version()));
+        }
+
+        final List<Object> values = this.source.readMany(slot, this.snapshot.version());
+        final List<Object> views = new ArrayList<>(values.size());
+        for (Object value : values) {
+            views.add(this.snapshot.of(value));
+        }
+        return mObjectField instanceof MObjectFieldManySet
+            ? Collections.unmodifiableSet(new LinkedHashSet<>(views))
+            : Collections.unmodifiableList(views);
+    }
+
+    @Override
+    public long __getUnboxed(int unboxedSlot) {
+        return this.source.readUnboxed(unboxedSlot, this.snapshot.version());
+    }
+
+    @Override
+    public void __setSlot(int slot, Object value) {
+        throw readOnly();
+    }
+
+    @Override
+    public void __setUnboxed(int unboxedSlot, long bits) {
+        throw readOnly();
+    }
+
+    @Override
+    public void _set(String name, Object value) {
+        throw readOnly();
+    }
+
+    private UnsupportedOperationException readOnly() {
+        return new UnsupportedOperationException("A snapshot of " + schemaKlass.name() + " is read-only");
+    }
+}
@@ -0,0 +1,42 @@
+package nl.cwi.managed_data_4j.language.managed_object.snapshot;
+
+/**
+ * A version of a slot of a SnapshotMObject, the value that the slot had from a version (epoch) on,
+ * linked to the older versions of the slot, newest first.
+ *
+ * The value of a version is only changed while its version is the current one,
+ * thus no snapshot sees it before it is final.
+ *
+ * @author Theologos Zacharopoulos
+ */
+final class Version {
+
+    // the version from which the slot has the value.
+    final long version;
+
+    // the value of the slot, the raw bits for a primitive slot.
+    Object value;
+    long bits;
+
+    // the older version of the slot, null if no open snapshot sees an older one.
+    Version older;
+
+    Version(long version, Object value, long bits, Version older) {
+        this.version = version;
+        this.value = value;
+        this.bits = bits;
+        this.older = older;
+    }
+
+    /**
+     * Returns the newest version that a snapshot sees, null if there is none.
+     * @param snapshot the version of the snapshot
+     */
+    Version at(long snapshot) {
+        Version version = this;
+        while (version != null && version.version > snapshot) {
+            version = version.older;
+        }
+        return version;
+    }
+}
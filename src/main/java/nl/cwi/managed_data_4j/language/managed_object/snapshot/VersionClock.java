@@ -0,0 +1,59 @@
+package nl.cwi.managed_data_4j.language.managed_object.snapshot;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+
+import java.util.TreeMap;
+import java.util.function.Function;
+
+/**
+ * The versions of the managed objects of a data manager (see SnapshotDataManager).
+ *
+ * The writes of the objects belong to the current version,
+ * a snapshot sees the writes up to the current version, and starts a new one.
+ * The versions that no open snapshot sees are dropped by the objects when they are written again.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public final class VersionClock {
+
+    // no open snapshot, the objects keep only their current versions.
+    static final long NONE = Long.MAX_VALUE;
+
+    // the version of the writes, it starts at 1, the initial values of the objects are version 0.
+    private volatile long current = 1;
+
+    // the version of the oldest open snapshot, NONE if there is none.
+    private volatile long oldest = NONE;
+
+    // <version, number of open snapshots of the version>
+    private final TreeMap<Long, Integer> open = new TreeMap<>();
+
+    long current() {
+        return this.current;
+    }
+
+    long oldest() {
+        return this.oldest;
+    }
+
+    /**
+     * Takes a snapshot of the objects, of the current version.
+     * @param proxies creates the proxy of a view of the snapshot
+     * @return the snapshot
+     */
+    public synchronized Snapshot snapshot(Function<MObject, Object> proxies) {
+        final long version = this.current;
+        this.current = version + 1;
+
+        this.open.merge(version, 1, Integer::sum);
+        this.oldest = this.open.firstKey();
+        return new Snapshot(version, this, proxies);
+    }
+
+    synchronized void close(long version) {
+        if (this.open.merge(version, -1, Integer::sum) == 0) {
+            this.open.remove(version);
+        }
+        this.oldest = this.open.isEmpty() ? NONE : this.open.firstKey();
+    }
+}
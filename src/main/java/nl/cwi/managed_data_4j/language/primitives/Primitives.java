@@ -12,8 +12,15 @@ public interface Primitives {
 
     String String();
     Class Class();
+
+    Long Long();
+    long _long();
+
     Float Float();
+    float _float();
+
     Double Double();
+    double _double();
 
     int[] __intArr(); // for enums
 }
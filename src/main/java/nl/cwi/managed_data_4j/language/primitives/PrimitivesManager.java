@@ -4,9 +4,10 @@ import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.error
 
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
-import java.util.LinkedHashSet;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 
 /**
  * Utilities needed for the Java primitives
@@ -14,21 +15,29 @@ import java.util.Set;
  */
 public class PrimitivesManager {
 
-    // initial primitives.
-    private final Set<AbstractPrimitive> primitives = new LinkedHashSet<>();
+    // initial primitives, read by every load and managed object (copy on write).
+    private final Set<AbstractPrimitive> primitives = new CopyOnWriteArraySet<>();
 
-    private static PrimitivesManager instance = null;
+    // the primitives definitions that are already loaded.
+    private final Set<Class<?>> definitions = new HashSet<>();
+
+    private static final PrimitivesManager instance = new PrimitivesManager();
 
     public static PrimitivesManager getInstance() {
-        if (instance == null) {
-            instance = new PrimitivesManager();
-        }
         return instance;
     }
 
     private PrimitivesManager() {}
 
-    public void loadPrimitives(Class<?> primitivesDefinition) {
+    /**
+     * Loads the primitives of a primitives definition, once.
+     * @param primitivesDefinition the primitives definition (interface)
+     */
+    public synchronized void loadPrimitives(Class<?> primitivesDefinition) {
+        if (!definitions.add(primitivesDefinition)) {
+            return;
+        }
+
         for (Method primDef : primitivesDefinition.getMethods()) {
             Class<?> primitiveClass = primDef.getReturnType();
             if (isMany(primitiveClass)) {
@@ -54,9 +63,15 @@ public class PrimitivesManager {
     private Object getDefaultValue(Class<?> primitiveClass) {
         if (primitiveClass.isAssignableFrom(String.class))  return "";
         if (primitiveClass.isAssignableFrom(Integer.class)) return 0;
+        if (primitiveClass.isAssignableFrom(Long.class))    return 0L;
         if (primitiveClass.isAssignableFrom(Float.class))   return 0.f;
         if (primitiveClass.isAssignableFrom(Double.class))  return 0.;
         if (primitiveClass.isAssignableFrom(Boolean.class)) return false;
+        if (primitiveClass.equals(int.class))     return 0;
+        if (primitiveClass.equals(long.class))    return 0L;
+        if (primitiveClass.equals(float.class))   return 0.f;
+        if (primitiveClass.equals(double.class))  return 0.;
+        if (primitiveClass.equals(boolean.class)) return false;
         if (primitiveClass.isAssignableFrom(Object.class))  return null;
         if (primitiveClass.isAssignableFrom(Class.class))   return null;
         return null;
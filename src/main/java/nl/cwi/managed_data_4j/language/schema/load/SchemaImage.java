@@ -0,0 +1,558 @@
+package nl.cwi.managed_data_4j.language.schema.load;
+
+import nl.cwi.managed_data_4j.framework.SchemaFactoryProvider;
+import nl.cwi.managed_data_4j.language.managed_object.dispatch.DispatchPlan;
+import nl.cwi.managed_data_4j.language.primitives.Primitives;
+import nl.cwi.managed_data_4j.language.primitives.PrimitivesManager;
+import nl.cwi.managed_data_4j.language.schema.boot.SchemaFactory;
+import nl.cwi.managed_data_4j.language.schema.models.definition.*;
+import nl.cwi.managed_data_4j.language.schema.models.definition.annotations.Inverse;
+
+import java.io.*;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.*;
+
+/**
+ * A compact binary image of a loaded schema, so that it can be loaded again
+ * without reflecting on the schema definitions (see SchemaLoader.loadImage).
+ *
+ * The image is made at build time, by the main method of this class, and has:
+ *      - a hash of the definitions that it was made of (see definitionsHash),
+ *      - a table of all the strings (names, class names), which are referred to by their index,
+ *      - the primitives definitions,
+ *      - the klasses with their classOf,
+ *      - the fields of every klass, their flags and types,
+ *      - the keys, the (declared) inverses, the supers and the subs of the klasses.
+ *
+ * A type is referred to by the index of its klass in the image, or by name (-1 - index of the name)
+ * if it is not a klass of the schema (e.g. the Klass of the schema schema, for schemaKlass).
+ * Every primitive field gets its own Primitive, the same way as a load does.
+ * An image is not loaded with definitions that have changed since it was made, it has to be made again.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class SchemaImage {
+
+    private static final int MAGIC = 0x4D44344A; // MD4J
+
+    private static final int VERSION = 2;
+
+    // the field flags
+    private static final int MANY     = 1;
+    private static final int OPTIONAL = 1 << 1;
+    private static final int KEY      = 1 << 2;
+    private static final int CONTAIN  = 1 << 3;
+
+    // the kinds of a field type
+    private static final int KLASS_TYPE     = 0;
+    private static final int PRIMITIVE_TYPE = 1;
+
+    // none, in place of an index
+    private static final int NONE = -1;
+
+    // the names of the java primitive classes, which cannot be found by Class.forName
+    private static final Map<String, Class<?>> javaPrimitiveClasses = new HashMap<>();
+    static {
+        for (Class<?> javaPrimitiveClass : new Class<?>[] {
+            boolean.class, byte.class, char.class, short.class, int.class, long.class, float.class, double.class, void.class })
+        {
+            javaPrimitiveClasses.put(javaPrimitiveClass.getName(), javaPrimitiveClass);
+        }
+    }
+
+    /**
+     * Loads a schema and writes its image to a file.
+     * Usage: SchemaImage [image file] [schema definition class]...
+     * @param args the image file and the (fully qualified) names of the schema definitions.
+     * @throws Exception in case a definition is not found or the image cannot be written.
+     */
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: SchemaImage <image file> <schema definition class>...");
+            System.exit(1);
+        }
+
+        final Class<?>[] schemaKlassesDef = new Class<?>[args.length - 1];
+        for (int i = 1; i < args.length; i++) {
+            schemaKlassesDef[i - 1] = Class.forName(args[i]);
+        }
+
+        final Schema schema = SchemaLoader.loadUncached(SchemaFactoryProvider.getSchemaFactory(), schemaKlassesDef);
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(args[0]))) {
+            write(schema, out, schemaKlassesDef);
+        }
+    }
+
+    /**
+     * Writes the image of a schema.
+     * @param schema the schema, loaded from the definitions
+     * @param out the stream to write the image to
+     * @param schemaKlassesDef the schemas definitions (interfaces) that the schema was loaded from.
+     * @throws IOException in case the image cannot be written.
+     */
+    public static void write(Schema schema, OutputStream out, Class<?>... schemaKlassesDef) throws IOException {
+        final List<Class<?>> primitivesDefinitions = new ArrayList<>();
+        for (Class<?> schemaKlassDef : schemaKlassesDef) {
+            addPrimitivesDefinitions(schemaKlassDef, primitivesDefinitions);
+        }
+
+        // the klasses in the order of the schema
+        final List<Klass> klasses = new ArrayList<>();
+        final Map<Klass, Integer> klassIndices = new IdentityHashMap<>();
+        for (Type type : schema.types()) {
+            if (type.schemaKlass().name().equals("Klass")) {
+                klassIndices.put((Klass) type, klasses.size());
+                klasses.add((Klass) type);
+            }
+        }
+
+        // the definitions in the order that they are read
+        final List<Class<?>> definitions = new ArrayList<>(primitivesDefinitions);
+        for (Klass klass : klasses) {
+            definitions.add(klass.classOf());
+        }
+
+        final Strings strings = new Strings();
+        final ByteArrayOutputStream body = new ByteArrayOutputStream();
+        final DataOutputStream data = new DataOutputStream(body);
+
+        // primitives definitions
+        data.writeInt(primitivesDefinitions.size());
+        for (Class<?> primitivesDefinition : primitivesDefinitions) {
+            data.writeInt(strings.of(primitivesDefinition.getName()));
+        }
+
+        // klasses
+        data.writeInt(klasses.size());
+        for (Klass klass : klasses) {
+            data.writeInt(strings.of(klass.name()));
+            data.writeInt(klass.classOf() == null ? NONE : strings.of(klass.classOf().getName()));
+        }
+
+        // fields, a field is referred to by its position in its klass
+        final List<List<Field>> fields = new ArrayList<>();
+        final Map<Field, Integer> fieldIndices = new IdentityHashMap<>();
+        for (Klass klass : klasses) {
+            final List<Field> klassFields = new ArrayList<>(klass.fields());
+            final int fieldsBefore = fieldIndices.size();
+            fields.add(klassFields);
+
+            data.writeInt(klassFields.size());
+            for (Field field : klassFields) {
+                fieldIndices.put(field, fieldIndices.size() - fieldsBefore);
+                data.writeInt(strings.of(field.name()));
+                data.writeByte(
+                    (field.many()     ? MANY     : 0) |
+                    (field.optional() ? OPTIONAL : 0) |
+                    (field.key()      ? KEY      : 0) |
+                    (field.contain()  ? CONTAIN  : 0));
+
+                final Type fieldType = field.type();
+                if (fieldType.schemaKlass().name().equals("Primitive")) {
+                    data.writeByte(PRIMITIVE_TYPE);
+                    data.writeInt(strings.of(fieldType.name()));
+                    data.writeInt(strings.of(fieldType.classOf().getName()));
+                } else {
+                    data.writeByte(KLASS_TYPE);
+                    data.writeInt(klassReference((Klass) fieldType, klassIndices, strings));
+                }
+            }
+        }
+
+        // keys
+        for (int k = 0; k < klasses.size(); k++) {
+            final Field key = klasses.get(k).key();
+            data.writeInt(key == null ? NONE : fieldIndices.get(key));
+        }
+
+        // inverses, (klass, field) of the inverse field that is declared (@Inverse) by the field.
+        // A declared inverse sets the inverse of the other field too, thus an inverse can be replaced by a later one,
+        // the declarations are kept instead of the inverses, and they are wired in the same order as in a load.
+        final Map<String, Integer> klassesByName = new HashMap<>();
+        for (int k = 0; k < klasses.size(); k++) {
+            klassesByName.put(klasses.get(k).name(), k);
+        }
+        for (int k = 0; k < klasses.size(); k++) {
+            final Map<String, Inverse> declaredInverses = declaredInverses(klasses.get(k).classOf());
+
+            for (Field field : fields.get(k)) {
+                final Inverse declaredInverse = declaredInverses.get(field.name());
+                final Integer inverseKlass = declaredInverse == null
+                    ? null
+                    : klassesByName.get(declaredInverse.other().getSimpleName());
+                final Field inverse = inverseKlass == null
+                    ? null
+                    : fields.get(inverseKlass).stream()
+                        .filter(inverseField -> inverseField.name().equals(declaredInverse.field()))
+                        .findFirst().orElse(null);
+
+                if (inverse == null) {
+                    data.writeInt(NONE);
+                } else {
+                    data.writeInt(inverseKlass);
+                    data.writeInt(fieldIndices.get(inverse));
+                }
+            }
+        }
+
+        // supers and subs
+        for (Klass klass : klasses) {
+            writeKlassReferences(klass.supers(), klassIndices, strings, data);
+        }
+        for (Klass klass : klasses) {
+            writeKlassReferences(klass.subKlasses(), klassIndices, strings, data);
+        }
+        data.flush();
+
+        final DataOutputStream image = new DataOutputStream(out);
+        image.writeInt(MAGIC);
+        image.writeInt(VERSION);
+        image.writeInt(definitionsHash(definitions));
+        image.writeInt(strings.values.size());
+        for (String value : strings.values) {
+            image.writeUTF(value);
+        }
+        body.writeTo(image);
+        image.flush();
+    }
+
+    /**
+     * Builds a schema from its image.
+     * The schema is built with the factory in the same order that a load builds it from the definitions,
+     * so it is the same as the one that the image was made of.
+     * @param factory the factory which creates the schema
+     * @param in the stream to read the image from
+     * @param classLoader the class loader of the definitions
+     * @return the new instance of Schema
+     * @throws IOException in case the image cannot be read, it refers to unknown classes,
+     *      or the definitions have changed since the image was made.
+     */
+    static Schema read(SchemaFactory factory, InputStream in, ClassLoader classLoader) throws IOException {
+        final DataInputStream data = new DataInputStream(in);
+        if (data.readInt() != MAGIC) {
+            throw new IOException("Not a schema image");
+        }
+        final int version = data.readInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported schema image version: " + version);
+        }
+        final int definitionsHash = data.readInt();
+
+        final String[] strings = new String[data.readInt()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = data.readUTF();
+        }
+
+        // primitives definitions
+        final Class<?>[] primitivesDefinitions = new Class<?>[data.readInt()];
+        for (int i = 0; i < primitivesDefinitions.length; i++) {
+            primitivesDefinitions[i] = classOf(strings[data.readInt()], classLoader);
+        }
+
+        final Schema schema = factory.Schema();
+
+        // klasses
+        final Klass[] klasses = new Klass[data.readInt()];
+        final Class<?>[] klassesClassOf = new Class<?>[klasses.length];
+        for (int k = 0; k < klasses.length; k++) {
+            final Klass klass = factory.Klass();
+            klass.name(strings[data.readInt()]);
+            klass.schema(schema);
+            klasses[k] = klass;
+
+            final int classOf = data.readInt();
+            klassesClassOf[k] = classOf == NONE ? null : classOf(strings[classOf], classLoader);
+        }
+
+        final List<Class<?>> definitions = new ArrayList<>(Arrays.asList(primitivesDefinitions));
+        definitions.addAll(Arrays.asList(klassesClassOf));
+        if (definitionsHash(definitions) != definitionsHash) {
+            throw new IOException("The schema definitions have changed since the schema image was made");
+        }
+        for (Class<?> primitivesDefinition : primitivesDefinitions) {
+            PrimitivesManager.getInstance().loadPrimitives(primitivesDefinition);
+        }
+
+        // fields, their types are wired after the owners, as in a load.
+        final Field[][] fields = new Field[klasses.length][];
+        final List<Runnable> fieldTypes = new ArrayList<>();
+        final Map<String, Type> externalTypes = new HashMap<>();
+        for (int k = 0; k < klasses.length; k++) {
+            fields[k] = new Field[data.readInt()];
+
+            for (int f = 0; f < fields[k].length; f++) {
+                final Field field = factory.Field();
+                field.name(strings[data.readInt()]);
+
+                final int flags = data.readByte();
+                field.contain((flags & CONTAIN) != 0);
+                field.key((flags & KEY) != 0);
+                field.many((flags & MANY) != 0);
+                field.optional((flags & OPTIONAL) != 0);
+                fields[k][f] = field;
+
+                if (data.readByte() == PRIMITIVE_TYPE) {
+                    final String primitiveName = strings[data.readInt()];
+                    final Class<?> primitiveClass = classOf(strings[data.readInt()], classLoader);
+                    fieldTypes.add(() -> {
+                        final Primitive primitive = factory.Primitive();
+                        primitive.name(primitiveName);
+                        primitive.schema(schema);
+                        primitive.classOf(primitiveClass);
+                        field.type(primitive);
+                    });
+                } else {
+                    final Type type = klassOf(data.readInt(), klasses, strings, factory, externalTypes);
+                    fieldTypes.add(() -> field.type(type));
+                }
+            }
+
+            // wire the owner klass in fields,
+            // it is inverse so it will refer to klass.fields() directly
+            for (Field field : fields[k]) {
+                field.owner(klasses[k]);
+            }
+        }
+        fieldTypes.forEach(Runnable::run);
+
+        // keys
+        final int[] keys = new int[klasses.length];
+        for (int k = 0; k < klasses.length; k++) {
+            keys[k] = data.readInt();
+        }
+
+        // inverses, in the order of the declarations
+        for (Field[] klassFields : fields) {
+            for (Field field : klassFields) {
+                final int inverseKlass = data.readInt();
+                if (inverseKlass != NONE) {
+                    field.inverse(fields[inverseKlass][data.readInt()]);
+                }
+            }
+        }
+
+        for (int k = 0; k < klasses.length; k++) {
+            if (keys[k] != NONE) {
+                klasses[k].key(fields[k][keys[k]]);
+            }
+        }
+
+        SchemaLoader.wireSchemaKlasses(schema.schemaKlass().schema());
+
+        // supers and subs
+        for (Klass klass : klasses) {
+            final Klass[] supers = readKlassReferences(data, klasses, strings, factory, externalTypes);
+            if (supers.length > 0) {
+                klass.supers(supers);
+            }
+        }
+        for (Klass klass : klasses) {
+            final Klass[] subs = readKlassReferences(data, klasses, strings, factory, externalTypes);
+            if (subs.length > 0) {
+                klass.subKlasses(subs);
+            }
+        }
+
+        for (int k = 0; k < klasses.length; k++) {
+            if (klassesClassOf[k] != null) {
+                klasses[k].classOf(klassesClassOf[k]);
+            }
+        }
+
+        // resolve the dispatch of the klasses once, it is shared by all their objects
+        DispatchPlan.prepare(schema.klasses());
+
+        return schema;
+    }
+
+    /**
+     * Returns a hash of schema definitions: their names, and the signatures and the annotations of their methods,
+     * which is the same in every run, to check that an image is read with the definitions that it was made of.
+     * @param definitions the schema definitions (interfaces), in the order of the image, null for a klass without class
+     * @return the hash of the definitions
+     */
+    static int definitionsHash(List<Class<?>> definitions) {
+        int hash = 1;
+        for (Class<?> definition : definitions) {
+            if (definition == null) {
+                hash = 31 * hash;
+                continue;
+            }
+            hash = 31 * hash + definition.getName().hashCode();
+
+            // the methods are not returned in any particular order
+            final List<String> signatures = new ArrayList<>();
+            for (Method method : definition.getMethods()) {
+                if (!Modifier.isStatic(method.getModifiers())) {
+                    signatures.add(signatureOf(method));
+                }
+            }
+            Collections.sort(signatures);
+            for (String signature : signatures) {
+                hash = 31 * hash + signature.hashCode();
+            }
+        }
+        return hash;
+    }
+
+    // e.g. owner(test_definition.schemas.Person[])test_definition.schemas.Person @...Inverse field=cars other=...Person
+    private static String signatureOf(Method method) {
+        final StringBuilder signature = new StringBuilder(method.getName()).append('(');
+        for (java.lang.reflect.Type parameterType : method.getGenericParameterTypes()) {
+            signature.append(parameterType.getTypeName()).append(',');
+        }
+        signature.append(')').append(method.getGenericReturnType().getTypeName());
+        if (method.isDefault()) {
+            signature.append(" default");
+        }
+
+        final Annotation[] annotations = method.getAnnotations();
+        Arrays.sort(annotations, Comparator.comparing((Annotation annotation) -> annotation.annotationType().getName()));
+        for (Annotation annotation : annotations) {
+            signature.append(" @").append(annotation.annotationType().getName());
+
+            final Method[] members = annotation.annotationType().getDeclaredMethods();
+            Arrays.sort(members, Comparator.comparing(Method::getName));
+            for (Method member : members) {
+                try {
+                    signature.append(' ').append(member.getName()).append('=');
+                    appendValue(signature, member.invoke(annotation));
+                } catch (ReflectiveOperationException e) {
+                    throw new IllegalStateException("Cannot read @" + annotation.annotationType().getSimpleName() + " of " + method.getName(), e);
+                }
+            }
+        }
+        return signature.toString();
+    }
+
+    private static void appendValue(StringBuilder signature, Object value) {
+        if (value instanceof Class) {
+            signature.append(((Class<?>) value).getName());
+        } else if (value != null && value.getClass().isArray()) {
+            signature.append('[');
+            for (int i = 0; i < Array.getLength(value); i++) {
+                appendValue(signature, Array.get(value, i));
+                signature.append(',');
+            }
+            signature.append(']');
+        } else {
+            signature.append(value);
+        }
+    }
+
+    private static void addPrimitivesDefinitions(Class<?> schemaClass, List<Class<?>> primitivesDefinitions) {
+        if (Primitives.class.isAssignableFrom(schemaClass)) {
+            if (!primitivesDefinitions.contains(schemaClass)) {
+                primitivesDefinitions.add(schemaClass);
+            }
+        } else {
+            for (Class<?> sup : schemaClass.getInterfaces()) {
+                addPrimitivesDefinitions(sup, primitivesDefinitions);
+            }
+        }
+    }
+
+    /**
+     * The inverses that are declared by the methods of a schema definition (see SchemaLoader.buildFieldsFromMethods).
+     * @param schemaKlassDefinition the Class of the klass, may be null
+     * @return the declared inverses, by field name
+     */
+    private static Map<String, Inverse> declaredInverses(Class<?> schemaKlassDefinition) {
+        final Map<String, Inverse> declaredInverses = new HashMap<>();
+        if (schemaKlassDefinition == null) {
+            return declaredInverses;
+        }
+
+        // the field of a name is the one of its last method
+        for (Method method : SchemaLoader.sortedMethods(schemaKlassDefinition)) {
+            if (!method.isDefault()) {
+                declaredInverses.put(method.getName(), method.getAnnotation(Inverse.class));
+            }
+        }
+        return declaredInverses;
+    }
+
+    private static int klassReference(Klass klass, Map<Klass, Integer> klassIndices, Strings strings) {
+        final Integer index = klassIndices.get(klass);
+        return index != null ? index : -1 - strings.of(klass.name());
+    }
+
+    private static void writeKlassReferences(
+        Set<Klass> references, Map<Klass, Integer> klassIndices, Strings strings, DataOutputStream data) throws IOException
+    {
+        data.writeInt(references.size());
+        for (Klass reference : references) {
+            data.writeInt(klassReference(reference, klassIndices, strings));
+        }
+    }
+
+    private static Klass[] readKlassReferences(
+        DataInputStream data, Klass[] klasses, String[] strings, SchemaFactory factory, Map<String, Type> externalTypes)
+        throws IOException
+    {
+        final Klass[] references = new Klass[data.readInt()];
+        for (int i = 0; i < references.length; i++) {
+            references[i] = klassOf(data.readInt(), klasses, strings, factory, externalTypes);
+        }
+        return references;
+    }
+
+    /**
+     * Finds a klass by its reference,
+     * a klass of the image, or a klass of the schema schema (see SchemaLoader.setupCacheForSchemaKlass).
+     */
+    private static Klass klassOf(
+        int reference, Klass[] klasses, String[] strings, SchemaFactory factory, Map<String, Type> externalTypes)
+        throws IOException
+    {
+        if (reference >= 0) {
+            return klasses[reference];
+        }
+
+        final String name = strings[-1 - reference];
+        Type type = externalTypes.get(name);
+        if (type == null) {
+            switch (name) {
+                case "Schema":    type = factory.Schema().schemaKlass();    break;
+                case "Primitive": type = factory.Primitive().schemaKlass(); break;
+                case "Klass":     type = factory.Klass().schemaKlass();     break;
+                case "Field":     type = factory.Field().schemaKlass();     break;
+                default:
+                    throw new IOException("Unknown type in schema image: " + name);
+            }
+            externalTypes.put(name, type);
+        }
+        return (Klass) type;
+    }
+
+    private static Class<?> classOf(String className, ClassLoader classLoader) throws IOException {
+        final Class<?> javaPrimitiveClass = javaPrimitiveClasses.get(className);
+        if (javaPrimitiveClass != null) {
+            return javaPrimitiveClass;
+        }
+
+        try {
+            return Class.forName(className, false, classLoader);
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Unknown class in schema image: " + className, e);
+        }
+    }
+
+    /**
+     * The string table of an image.
+     */
+    private static final class Strings {
+        private final List<String> values = new ArrayList<>();
+        private final Map<String, Integer> indices = new HashMap<>();
+
+        int of(String value) {
+            return this.indices.computeIfAbsent(value, v -> {
+                this.values.add(v);
+                return this.values.size() - 1;
+            });
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package nl.cwi.managed_data_4j.language.schema.load;
 
+import nl.cwi.managed_data_4j.language.managed_object.dispatch.DispatchPlan;
 import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.UnknownTypeException;
 import nl.cwi.managed_data_4j.language.primitives.Primitives;
 import nl.cwi.managed_data_4j.language.primitives.PrimitivesManager;
@@ -10,9 +11,16 @@ import nl.cwi.managed_data_4j.language.schema.models.definition.annotations.Cont
 import nl.cwi.managed_data_4j.language.schema.models.definition.annotations.Inverse;
 import nl.cwi.managed_data_4j.language.schema.models.definition.annotations.Key;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
 import java.lang.reflect.Method;
 import java.lang.reflect.ParameterizedType;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
 
 /**
  * Dynamically loads schemas.
@@ -54,8 +62,48 @@ public class SchemaLoader {
         }
     }
 
-    // helper cache for the loading process.
-    private static final Map<String, Type> typesCache = new LinkedHashMap<>();
+    /**
+     * Helper private class to keep the fields of a klass definition (interface),
+     * they are built from the methods of the definition, before the klass itself.
+     */
+    private static final class KlassDefinition {
+
+        public final Class<?> clazz;
+
+        // <fieldName, field>
+        public final Map<String, Field> fields;
+
+        // <classNameFieldNameCombo, FieldWithMethod>
+        public final Map<String, FieldWithMethod> fieldsWithMethods = new LinkedHashMap<>();
+
+        public KlassDefinition(Class<?> clazz, SchemaFactory factory) {
+            this.clazz = clazz;
+            this.fields = buildFieldsFromMethods(clazz.getSimpleName(), factory, clazz, this.fieldsWithMethods);
+        }
+    }
+
+    /**
+     * Helper private class to keep the state of a single load,
+     * thus many schemas can be loaded at the same time.
+     */
+    private static final class LoadContext {
+
+        // the factory which creates the schema
+        public final SchemaFactory factory;
+
+        // <type name, type>, the klasses created so far and the klasses of the schema schema.
+        public final Map<String, Type> typesCache = new LinkedHashMap<>();
+
+        public LoadContext(SchemaFactory factory) {
+            this.factory = factory;
+        }
+    }
+
+    // the loaded schemas, <(factory, definitions), schema>
+    private static final Map<SchemaKey, Schema> schemas = new ConcurrentHashMap<>();
+
+    // the keys of the factories that are not used anymore.
+    private static final ReferenceQueue<SchemaFactory> unusedFactories = new ReferenceQueue<>();
 
     /**
      * Bootstraps the schema schema
@@ -76,9 +124,13 @@ public class SchemaLoader {
      * Thus, we check if the Klass definition is given in schemaKlassesDef, and if not, then
      * we can the Klass definition from the schemaSchema itself.
      *
+     * @param context the context of the load
      * @param schemaKlassesDef the schemas definitions (interfaces) to be converted.
      */
-    private static void setupCacheForSchemaKlass(SchemaFactory schemaFactory, List<Class<?>> schemaKlassesDef) {
+    private static void setupCacheForSchemaKlass(LoadContext context, List<Class<?>> schemaKlassesDef) {
+        final SchemaFactory schemaFactory = context.factory;
+        final Map<String, Type> typesCache = context.typesCache;
+
         boolean includesSchemaDef    = schemaKlassesDef.stream().anyMatch(aClass -> aClass.getSimpleName().equals("Schema"));
         boolean includesPrimitiveDef = schemaKlassesDef.stream().anyMatch(aClass -> aClass.getSimpleName().equals("Primitive"));
         boolean includesKlassDef     = schemaKlassesDef.stream().anyMatch(aClass -> aClass.getSimpleName().equals("Klass"));
@@ -103,34 +155,124 @@ public class SchemaLoader {
 
     /**
      * Convert from a schema definitions (interface) to an instance of Schema.
+     * The schemas are loaded once per factory and definitions (in any order),
+     * a load of the same definitions with the same factory returns the same Schema.
      * @param factory the factory which creates the schema
      * @param schemaKlassesDef the schemas definitions (interfaces) to be converted.
      * @return the instance of Schema
      */
     public static Schema load(SchemaFactory factory, Class<?>... schemaKlassesDef) {
+        removeUnusedSchemas();
+
+        final SchemaKey key = new SchemaKey(factory, schemaKlassesDef, unusedFactories);
+        final Schema schema = schemas.get(key);
+        if (schema != null) {
+            return schema;
+        }
+
+        // loaded outside of the map, a load can take long and may load other schemas.
+        final Schema newSchema = loadUncached(factory, schemaKlassesDef);
+        final Schema existing = schemas.putIfAbsent(key, newSchema);
+        return existing != null ? existing : newSchema;
+    }
+
+    /**
+     * Convert from a schema definitions (interface) to a new instance of Schema, without caching it.
+     * @param factory the factory which creates the schema
+     * @param schemaKlassesDef the schemas definitions (interfaces) to be converted.
+     * @return the new instance of Schema
+     */
+    public static Schema loadUncached(SchemaFactory factory, Class<?>... schemaKlassesDef) {
+        return load(factory, false, schemaKlassesDef);
+    }
+
+    /**
+     * Convert from a schema definitions (interface) to a new instance of Schema, without caching it,
+     * the definitions are reflected and their fields are built in parallel (on the common fork-join pool).
+     *
+     * The klasses are then created and wired in the order of the definitions, on the calling thread,
+     * so the schema is the same as the one of loadUncached. It pays off for schemas with many klasses.
+     * @param factory the factory which creates the schema
+     * @param schemaKlassesDef the schemas definitions (interfaces) to be converted.
+     * @return the new instance of Schema
+     */
+    public static Schema loadParallel(SchemaFactory factory, Class<?>... schemaKlassesDef) {
+        return load(factory, true, schemaKlassesDef);
+    }
+
+    private static Schema load(SchemaFactory factory, boolean parallel, Class<?>... schemaKlassesDef) {
 
         // Filter out primitives by loading them separately
-        final List<Class<?>> schemaKlasses = new LinkedList<>();
+        final List<Class<?>> schemaKlasses = new ArrayList<>();
         for (Class<?> schemaClass : schemaKlassesDef) {
             addClass(schemaClass, schemaKlasses);
         }
 
+        final LoadContext context = new LoadContext(factory);
+
         // setup the cache for classes
-        setupCacheForSchemaKlass(factory, schemaKlasses);
+        setupCacheForSchemaKlass(context, schemaKlasses);
 
         // create an empty schema using the factory, will wire it later
         final Schema schema = factory.Schema();
 
+        // build the fields of every definition, the order of the definitions is kept
+        final List<KlassDefinition> definitions = (parallel ? schemaKlasses.parallelStream() : schemaKlasses.stream())
+            .map(schemaKlass -> new KlassDefinition(schemaKlass, factory))
+            .collect(Collectors.toList());
+
         // build the types from the schema klasses definition
-        final Set<Type> types = buildTypesFromClasses(factory, schema, schemaKlasses);
+        final Set<Type> types = buildTypesFromClasses(context, schema, definitions);
 
         // wire the types on schema
         // it is inverse so it will refer to schema.types() directly
         types.forEach(type -> type.schema(schema));
 
+        // resolve the dispatch of the klasses once, it is shared by all their objects
+        DispatchPlan.prepare(schema.klasses());
+
         return schema;
     }
 
+    /**
+     * Builds a schema from its image (see SchemaImage), without reflecting on the schema definitions.
+     * The classes of the image are found with the context class loader.
+     * @param factory the factory which creates the schema
+     * @param image the stream to read the image from
+     * @return the new instance of Schema
+     * @throws IOException in case the image cannot be read, it refers to unknown classes,
+     *      or the definitions have changed since the image was made.
+     */
+    public static Schema loadImage(SchemaFactory factory, InputStream image) throws IOException {
+        final ClassLoader contextClassLoader = Thread.currentThread().getContextClassLoader();
+        return loadImage(factory, image, contextClassLoader != null ? contextClassLoader : SchemaLoader.class.getClassLoader());
+    }
+
+    /**
+     * Builds a schema from its image (see SchemaImage), without reflecting on the schema definitions.
+     * @param factory the factory which creates the schema
+     * @param image the stream to read the image from
+     * @param classLoader the class loader of the schema definitions
+     * @return the new instance of Schema
+     * @throws IOException in case the image cannot be read, it refers to unknown classes,
+     *      or the definitions have changed since the image was made.
+     */
+    public static Schema loadImage(SchemaFactory factory, InputStream image, ClassLoader classLoader) throws IOException {
+        return SchemaImage.read(factory, image, classLoader);
+    }
+
+    /**
+     * Helper method
+     * Removes the schemas of the factories that are not used anymore.
+     */
+    private static void removeUnusedSchemas() {
+        Reference<? extends SchemaFactory> unused;
+        while ((unused = unusedFactories.poll()) != null) {
+            final Reference<? extends SchemaFactory> factoryReference = unused;
+            schemas.keySet().removeIf(key -> key.factory == factoryReference);
+        }
+    }
+
     private static void addClass(Class<?> schemaClass, List<Class<?>> schemaKlasses) {
     	if (Primitives.class.isAssignableFrom(schemaClass)) {
             primitiveManager.loadPrimitives(schemaClass);
@@ -142,7 +284,7 @@ public class SchemaLoader {
 		
 	}
 
-	private static void wireSchemaKlasses(Schema schemaSchema) {
+	static void wireSchemaKlasses(Schema schemaSchema) {
 
         // get the primitive's schemaKlass
         final Klass primitiveSchemaKlass = schemaSchema.klasses().stream()
@@ -178,10 +320,13 @@ public class SchemaLoader {
     }
 
     private static Set<Type> buildTypesFromClasses(
-            SchemaFactory factory,
+            LoadContext context,
             Schema schema,
-            List<Class<?>> schemaKlassesDefinition)
+            List<KlassDefinition> schemaKlassesDefinition)
     {
+        final SchemaFactory factory = context.factory;
+        final Map<String, Type> typesCache = context.typesCache;
+
         final Map<Type, TypeWithClass> types = new LinkedHashMap<>();
 
         // <classNameFieldNameCombo, FieldWithMethod>
@@ -193,11 +338,11 @@ public class SchemaLoader {
 
         // =================
         // Klasses
-        for (Class<?> schemaKlassDefinition : schemaKlassesDefinition) {
-            final String klassName = schemaKlassDefinition.getSimpleName();
+        for (KlassDefinition schemaKlassDefinition : schemaKlassesDefinition) {
+            final String klassName = schemaKlassDefinition.clazz.getSimpleName();
 
-            final Map<String, Field> fieldsForKlass =
-                buildFieldsFromMethods(klassName, factory, schemaKlassDefinition, allFieldsWithReturnType);
+            final Map<String, Field> fieldsForKlass = schemaKlassDefinition.fields;
+            allFieldsWithReturnType.putAll(schemaKlassDefinition.fieldsWithMethods);
 
             // create a new klass
             final Klass klass = factory.Klass();
@@ -211,10 +356,10 @@ public class SchemaLoader {
             typesCache.put(klass.name(), klass);
 
             // add the a new klass
-            types.put(klass, new TypeWithClass(klass, schemaKlassDefinition));
+            types.put(klass, new TypeWithClass(klass, schemaKlassDefinition.clazz));
         }
 
-        wireFieldTypes(factory, schema, allFieldsWithReturnType);
+        wireFieldTypes(context, schema, allFieldsWithReturnType);
         wireFieldInverse(allFieldsWithReturnType);
         wireFieldTypeKeys(types);
 
@@ -222,9 +367,10 @@ public class SchemaLoader {
 
         wireKlassSupers(types, typesCache);
         wireKlassSubs(types, typesCache);
-        wireKlassClassOf(types, schemaKlassesDefinition);
+        wireKlassClassOf(types, schemaKlassesDefinition.stream()
+            .map(schemaKlassDefinition -> schemaKlassDefinition.clazz)
+            .collect(Collectors.toList()));
 
-        typesCache.clear();
         return types.keySet();
     }
 
@@ -268,24 +414,7 @@ public class SchemaLoader {
     {
         final Map<String, Field> fieldsForKlass = new LinkedHashMap<>();
 
-        // The elements in the array returned getMethods(), are not sorted and are not in any particular order.
-        // Looks like it is not possible to get them in the definition order, by using reflection.
-        // So for now, the order of the methods are alphabetical, and it takes only the primitives in the ordering.
-        // That means that a constructor with initialization in the schema factory, should have order arguments
-        // in alphabetical order, and include only the primitives.
-        final Method[] fields = schemaKlassDefinition.getMethods();
-        Arrays.sort(fields, (Method o1, Method o2) -> {
-
-            // Order only the primitives and non-many,
-            // the rest put them at the end.
-            boolean isM1Comparable = ((!primitiveManager.isMany(o1.getReturnType())) && primitiveManager.isPrimitiveClass(o1.getReturnType()));
-            boolean isM2Comparable = ((!primitiveManager.isMany(o2.getReturnType())) && primitiveManager.isPrimitiveClass(o2.getReturnType()));
-
-            if ((!isM1Comparable) && (!isM2Comparable)) return 0;
-            if (!isM1Comparable) return 1;
-            if (!isM2Comparable) return -1;
-            return o1.getName().compareTo(o2.getName());
-        });
+        final Method[] fields = sortedMethods(schemaKlassDefinition);
 
         for (Method schemaKlassField : fields) {
             final String fieldName = schemaKlassField.getName();
@@ -323,17 +452,44 @@ public class SchemaLoader {
         return fieldsForKlass;
     }
 
+    /**
+     * The methods of a schema definition, in the order of its fields.
+     * @param schemaKlassDefinition the Class of the klass
+     * @return the methods, sorted
+     */
+    static Method[] sortedMethods(Class<?> schemaKlassDefinition) {
+        // The elements in the array returned getMethods(), are not sorted and are not in any particular order.
+        // Looks like it is not possible to get them in the definition order, by using reflection.
+        // So for now, the order of the methods are alphabetical, and it takes only the primitives in the ordering.
+        // That means that a constructor with initialization in the schema factory, should have order arguments
+        // in alphabetical order, and include only the primitives.
+        final Method[] methods = schemaKlassDefinition.getMethods();
+        Arrays.sort(methods, (Method o1, Method o2) -> {
+
+            // Order only the primitives and non-many,
+            // the rest put them at the end.
+            boolean isM1Comparable = ((!primitiveManager.isMany(o1.getReturnType())) && primitiveManager.isPrimitiveClass(o1.getReturnType()));
+            boolean isM2Comparable = ((!primitiveManager.isMany(o2.getReturnType())) && primitiveManager.isPrimitiveClass(o2.getReturnType()));
+
+            if ((!isM1Comparable) && (!isM2Comparable)) return 0;
+            if (!isM1Comparable) return 1;
+            if (!isM2Comparable) return -1;
+            return o1.getName().compareTo(o2.getName());
+        });
+        return methods;
+    }
+
     /**
      * For all the fields created, set the real types of the field.
      * The trick here is that in case of multi value (many), the type is not the collection but
      * but the Generic Return Type which we can take via reflection.
      *
-     * @param factory the schema factory
+     * @param context the context of the load
      * @param schema the schema
      * @param allFieldsWithReturnType all the created fields
      */
     private static void wireFieldTypes(
-        SchemaFactory factory,
+        LoadContext context,
         Schema schema,
         Map<String, FieldWithMethod> allFieldsWithReturnType)
     {
@@ -356,7 +512,7 @@ public class SchemaLoader {
                 fieldTypeClass = method.getReturnType();
             }
 
-            final Type fieldType = getFieldType(fieldTypeClass, schema, factory);
+            final Type fieldType = getFieldType(fieldTypeClass, schema, context);
             field.type(fieldType);
         }
     }
@@ -366,13 +522,18 @@ public class SchemaLoader {
      * @param allFieldsWithReturnType all the created fields
      */
     private static void wireFieldInverse(Map<String, FieldWithMethod> allFieldsWithReturnType) {
-        for (String classNameFieldNameCombo : allFieldsWithReturnType.keySet()) {
-            final Method method = allFieldsWithReturnType.get(classNameFieldNameCombo).method;
-            final Field field = allFieldsWithReturnType.get(classNameFieldNameCombo).field;
 
-            final Field fieldInverseField = buildInverse(method, allFieldsWithReturnType);
+        // <ownerName.fieldName, field>, the first field of the klass with that name
+        final Map<String, Field> fieldsByOwner = new HashMap<>();
+        for (FieldWithMethod fieldWithMethod : allFieldsWithReturnType.values()) {
+            final Field field = fieldWithMethod.field;
+            fieldsByOwner.putIfAbsent(field.owner().name() + "." + field.name(), field);
+        }
+
+        for (FieldWithMethod fieldWithMethod : allFieldsWithReturnType.values()) {
+            final Field fieldInverseField = buildInverse(fieldWithMethod.method, fieldsByOwner);
             if (fieldInverseField != null) {
-                field.inverse(fieldInverseField);
+                fieldWithMethod.field.inverse(fieldInverseField);
             }
         }
     }
@@ -401,13 +562,15 @@ public class SchemaLoader {
      * @param cache a type cache
      */
     private static void wireKlassSubs(Map<Type, TypeWithClass> types, Map<String, Type> cache) {
+        final Map<String, Set<Klass>> subsBySuperName = buildSubs(cache);
+
         types.keySet().stream()
             .filter(type -> type.schemaKlass().name().equals("Klass"))
             .map(Klass.class::cast)
             .forEach(klass -> {
                 final TypeWithClass typeWithClass = types.get(klass);
-                final Set<Klass> subKlasses = buildSubs(typeWithClass.clazz, cache);
-                if (subKlasses.size() > 0) {
+                final Set<Klass> subKlasses = subsBySuperName.get(typeWithClass.clazz.getSimpleName());
+                if (subKlasses != null) {
                     final Klass[] subsToArray = subKlasses.toArray(new Klass[subKlasses.size()]);
                     klass.subKlasses(subsToArray);
                 }
@@ -420,12 +583,18 @@ public class SchemaLoader {
      * @param schemaKlassesDefinition the class Of the Klass
      */
     public static void wireKlassClassOf(Map<Type, TypeWithClass> types, List<Class<?>> schemaKlassesDefinition) {
+
+        // <simple name, class>, the last definition with that name
+        final Map<String, Class<?>> classesByName = new HashMap<>();
+        for (Class<?> klassInterface : schemaKlassesDefinition) {
+            classesByName.put(klassInterface.getSimpleName(), klassInterface);
+        }
+
         for (Type type : types.keySet()) {
-            for (Class klassInterface : schemaKlassesDefinition) {
-                if (type.schemaKlass().name().equals("Klass")) {
-                    if (klassInterface.getSimpleName().equals(type.name())) {
-                        ((Klass) type).classOf(klassInterface);
-                    }
+            if (type.schemaKlass().name().equals("Klass")) {
+                final Class<?> klassInterface = classesByName.get(type.name());
+                if (klassInterface != null) {
+                    ((Klass) type).classOf(klassInterface);
                 }
             }
         }
@@ -434,51 +603,31 @@ public class SchemaLoader {
     /**
      * Builds an inverse field from a given method.
      * @param method the method
-     * @param allFieldsWithReturnType all the created fields
+     * @param fieldsByOwner all the created fields, by owner klass name and field name
      * @return the inverse field
      */
-    private static Field buildInverse(Method method, Map<String, FieldWithMethod> allFieldsWithReturnType) {
-        Field fieldInverseField = null;
+    private static Field buildInverse(Method method, Map<String, Field> fieldsByOwner) {
 
         // check if there is Inverse annotation in place
-        if (method.isAnnotationPresent(Inverse.class)) {
-            final Inverse fieldInverse = method.getAnnotation(Inverse.class);
-
-            // get the inverse-other klass
-            final Class<?> inverseOther = fieldInverse.other();
-            final String inverseOtherName = inverseOther.getSimpleName();
-
-            // get the inverse-field
-            final String fieldInverseFieldName = fieldInverse.field();
-
-            // check field name and owner
-            for (String classNameFieldNameCombo : allFieldsWithReturnType.keySet()) {
-                final Field fieldForSearch = allFieldsWithReturnType.get(classNameFieldNameCombo).field;
-
-                final String fieldForSearchName = fieldForSearch.name();
-                final String fieldForSearchOwnerName = fieldForSearch.owner().name();
-
-                if  (fieldForSearchName.equals(fieldInverseFieldName) &&
-                     fieldForSearchOwnerName.equals(inverseOtherName))
-                {
-                    fieldInverseField = fieldForSearch;
-                    break;
-                }
-            }
+        final Inverse fieldInverse = method.getAnnotation(Inverse.class);
+        if (fieldInverse == null) {
+            return null;
         }
-        return fieldInverseField;
+
+        // get the inverse-other klass and the inverse-field
+        return fieldsByOwner.get(fieldInverse.other().getSimpleName() + "." + fieldInverse.field());
     }
 
     /**
      * Build type for a field, from a type factory
      * @param fieldReturnClass the type of the field
      * @param schema the schema
-     * @param factory the schema factory
+     * @param context the context of the load
      * @return type for a field
      */
-    private static Type getFieldType(Class<?> fieldReturnClass, Schema schema, SchemaFactory factory) {
+    private static Type getFieldType(Class<?> fieldReturnClass, Schema schema, LoadContext context) {
         try {
-            return TypeFactory.getTypeFromClass(fieldReturnClass, schema, factory, typesCache);
+            return TypeFactory.getTypeFromClass(fieldReturnClass, schema, context.factory, context.typesCache);
         } catch (UnknownTypeException e) {
             throw new RuntimeException(e.getMessage());
         }
@@ -509,29 +658,58 @@ public class SchemaLoader {
     }
 
     /**
-     * Builds the subKlasses of a klass
-     * @param schemaKlassDefinition the class of the Klass
+     * Builds the subKlasses of all the klasses
      * @param cache a type cache
-     * @return a set of sub klasses
+     * @return the sub klasses by the name of their super klass
      */
-    private static Set<Klass> buildSubs(Class<?> schemaKlassDefinition, Map<String, Type> cache) {
-        final Set<Klass> subs = new LinkedHashSet<>();
+    private static Map<String, Set<Klass>> buildSubs(Map<String, Type> cache) {
+        final Map<String, Set<Klass>> subs = new HashMap<>();
 
         for (Type sub : cache.values()) {
             if (sub.schemaKlass().name().equals("Klass")) {
                 final Klass subKlass = (Klass) sub;
 
                 for (Klass superKlass : subKlass.supers()) {
-                    if (superKlass != null &&
-                        superKlass.name() != null &&
-                        superKlass.name().equals(schemaKlassDefinition.getSimpleName()))
-                    {
-                        subs.add(subKlass);
+                    if (superKlass != null && superKlass.name() != null) {
+                        subs.computeIfAbsent(superKlass.name(), name -> new LinkedHashSet<>()).add(subKlass);
                     }
                 }
             }
         }
 
-        return subs.isEmpty() ? Collections.emptySet() : subs;
+        return subs;
+    }
+
+    /**
+     * Key of a loaded schema, the factory (by reference) and the set of the definitions.
+     * The factory is weakly referenced, the schemas of an unused factory are removed.
+     */
+    private static final class SchemaKey {
+        private final WeakReference<SchemaFactory> factory;
+        private final int factoryHash;
+        private final Set<Class<?>> definitions;
+
+        SchemaKey(SchemaFactory factory, Class<?>[] definitions, ReferenceQueue<SchemaFactory> queue) {
+            this.factory = new WeakReference<>(factory, queue);
+            this.factoryHash = System.identityHashCode(factory);
+            this.definitions = new HashSet<>(Arrays.asList(definitions));
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof SchemaKey)) return false;
+
+            final SchemaKey other = (SchemaKey) o;
+            final SchemaFactory thisFactory = this.factory.get();
+            return thisFactory != null &&
+                thisFactory == other.factory.get() &&
+                this.definitions.equals(other.definitions);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * this.factoryHash + this.definitions.hashCode();
+        }
     }
-}
\ No newline at end of file
+}
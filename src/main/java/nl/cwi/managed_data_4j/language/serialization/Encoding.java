@@ -0,0 +1,160 @@
+package nl.cwi.managed_data_4j.language.serialization;
+
+import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * The binary format of managed object graphs (see MObjectWriter and MObjectReader).
+ *
+ * A stream has a header (magic, version) and then a sequence of items, every item starts with a varint:
+ *      - END: the end of the stream,
+ *      - ROOT: a reference to the root of the next graph,
+ *      - GRAPH_END: all the objects of the graph are written,
+ *      - RESET: the objects before are not referred to again, the ids start from 0 again,
+ *      - NEW: a klass and a varint count, that many objects of the klass get the next ids,
+ *              they are created at once, before the root or the record which refers to them first,
+ *      - RECORD + id: the values of the object with that id:
+ *              a bitmap of the null slots, then the values of the other slots in slot order.
+ *
+ * A reference to a managed object is its id (varint), the objects are numbered in the order
+ * they are first referred to.
+ * A klass is referred to by its number, the first reference to a klass is followed by its name
+ * and the hash of its fields (see KlassLayout.fieldsHash).
+ *
+ * The values are written according to the type of their field:
+ *      Integer and Long as zig-zag varints, Boolean as a byte, Double and Float as their raw bits,
+ *      String as the varint length of its UTF-8 bytes and the bytes, enums as the varint ordinal,
+ *      any other primitive (e.g. Object) as a tag and then the value,
+ *      many-fields as the varint number of the values and then the values.
+ *
+ * @author Theologos Zacharopoulos
+ */
+final class Encoding {
+
+    static final int MAGIC = 0x4D44344F;
+    static final int VERSION = 2;
+
+    // the items of a stream
+    static final int END = 0;
+    static final int ROOT = 1;
+    static final int GRAPH_END = 2;
+    static final int RESET = 3;
+    static final int NEW = 4;
+    static final int RECORD = 5;
+
+    // the kinds of values, by the type of their field
+    static final int OBJECT = 0;
+    static final int INTEGER = 1;
+    static final int LONG = 2;
+    static final int BOOLEAN = 3;
+    static final int DOUBLE = 4;
+    static final int FLOAT = 5;
+    static final int STRING = 6;
+    static final int ENUM = 7;
+    static final int ANY = 8;
+
+    // the tags of the values of ANY fields, OBJECT to STRING are used as they are
+    static final int CLASS = 9;
+    static final int ANY_ENUM = 10;
+
+    private Encoding() {}
+
+    /**
+     * Returns the kind of the values of a field, by its type.
+     */
+    static int kindOf(Field field) {
+        if (!field.type().schemaKlass().name().equals("Primitive")) {
+            return OBJECT;
+        }
+        return kindOfClass(field.type().classOf());
+    }
+
+    private static int kindOfClass(Class<?> typeClass) {
+        if (typeClass == Integer.class || typeClass == int.class) return INTEGER;
+        if (typeClass == Long.class || typeClass == long.class) return LONG;
+        if (typeClass == Boolean.class || typeClass == boolean.class) return BOOLEAN;
+        if (typeClass == Double.class || typeClass == double.class) return DOUBLE;
+        if (typeClass == Float.class || typeClass == float.class) return FLOAT;
+        if (typeClass == String.class) return STRING;
+        if (typeClass.isEnum()) return ENUM;
+        return ANY;
+    }
+
+    /**
+     * Returns the tag of a value of an ANY field.
+     * @throws IllegalArgumentException in case the value cannot be written.
+     */
+    static int tagOf(Object value, boolean managed) {
+        if (managed) return OBJECT;
+        if (value instanceof Class) return CLASS;
+        if (value instanceof Enum) return ANY_ENUM;
+
+        final int kind = kindOfClass(value.getClass());
+        if (kind == ANY || kind == ENUM) {
+            throw new IllegalArgumentException("Cannot serialize a value of " + value.getClass().getName());
+        }
+        return kind;
+    }
+
+    // ================
+    // Varints
+
+    static void writeVarLong(DataOutput out, long value) throws IOException {
+        while ((value & ~0x7FL) != 0L) {
+            out.writeByte((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.writeByte((int) value);
+    }
+
+    static long readVarLong(DataInput in) throws IOException {
+        long value = 0L;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final byte b = in.readByte();
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Malformed varint");
+    }
+
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        writeVarLong(out, value & 0xFFFFFFFFL);
+    }
+
+    static int readVarInt(DataInput in) throws IOException {
+        final long value = readVarLong(in);
+        if ((value & ~0xFFFFFFFFL) != 0L) {
+            throw new IOException("Malformed varint");
+        }
+        return (int) value;
+    }
+
+    static long zigZag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    static long unZigZag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    // ================
+    // Strings
+
+    static void writeString(DataOutput out, String value) throws IOException {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeVarInt(out, bytes.length);
+        out.write(bytes);
+    }
+
+    static String readString(DataInput in) throws IOException {
+        final byte[] bytes = new byte[readVarInt(in)];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,66 @@
+package nl.cwi.managed_data_4j.language.serialization;
+
+import nl.cwi.managed_data_4j.language.managed_object.KlassLayout;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.MObjectField;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldMany;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldManySet;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+/**
+ * How the values of the objects of a Klass are written, by slot, resolved once per Klass.
+ * @author Theologos Zacharopoulos
+ */
+final class KlassCodec {
+
+    final Klass klass;
+
+    final KlassLayout layout;
+
+    // the managed fields, in slot order.
+    final MObjectField[] mObjectFields;
+
+    // the kind of the values of every slot (see Encoding).
+    final int[] kinds;
+
+    // the constants of the enum types, by slot, null for other types.
+    final Object[][] enumConstants;
+
+    // the slots of the many-fields
+    final boolean[] many;
+
+    // the slots of the keyed Set many-fields
+    final boolean[] set;
+
+    // the slots of the spine (@Contain) fields
+    final boolean[] contain;
+
+    // the size of the null bitmap of a record
+    final int nullsSize;
+
+    KlassCodec(Klass klass) {
+        this.klass = klass;
+        this.layout = KlassLayout.of(klass);
+        this.mObjectFields = this.layout.mObjectFields();
+
+        final Field[] fields = this.layout.fields();
+        this.kinds = new int[fields.length];
+        this.enumConstants = new Object[fields.length][];
+        this.many = new boolean[fields.length];
+        this.set = new boolean[fields.length];
+        this.contain = new boolean[fields.length];
+        for (int slot = 0; slot < fields.length; slot++) {
+            if (this.mObjectFields[slot] == null) {
+                throw new IllegalStateException("Type of field '" + fields[slot].name() + "' is NULL");
+            }
+            this.kinds[slot] = Encoding.kindOf(fields[slot]);
+            if (this.kinds[slot] == Encoding.ENUM) {
+                this.enumConstants[slot] = fields[slot].type().classOf().getEnumConstants();
+            }
+            this.many[slot] = this.mObjectFields[slot] instanceof MObjectFieldMany;
+            this.set[slot] = this.mObjectFields[slot] instanceof MObjectFieldManySet;
+            this.contain[slot] = fields[slot].contain();
+        }
+        this.nullsSize = (fields.length + 7) / 8;
+    }
+}
@@ -0,0 +1,292 @@
+package nl.cwi.managed_data_4j.language.serialization;
+
+import nl.cwi.managed_data_4j.language.data_manager.IDataManager;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.MObjectField;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.InvalidFieldValueException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.NoKeyFieldException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldMany;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSingleMObj;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+
+import java.io.*;
+import java.util.*;
+
+import static nl.cwi.managed_data_4j.language.serialization.Encoding.*;
+
+/**
+ * Reads the graphs of managed objects of a stream of an MObjectWriter (see Encoding for the format),
+ * and creates the objects with a data manager, e.g.
+ *      try (MObjectReader reader = new MObjectReader(in, schema, new BasicDataManager())) {
+ *          final Activity activity = reader.read();
+ *      }
+ *
+ * The objects are created at once, as many of a klass as the stream announces before a record (see Encoding),
+ * and they are kept until the writer resets the stream.
+ * The values are set as they were written, both sides of the inverse fields are in the stream,
+ * thus the inverses are not updated again.
+ * The values of keyed Set fields are added when the whole graph is read, once their keys are known.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class MObjectReader implements Closeable {
+
+    private final DataInputStream in;
+
+    private final IDataManager dataManager;
+
+    // <Klass name, Klass> of the schema
+    private final Map<String, Klass> klassesByName = new HashMap<>();
+
+    // the klasses of the stream, by number
+    private final List<KlassCodec> klasses = new ArrayList<>();
+
+    // the objects of the stream, and their klasses, by id
+    private final List<Object> objects = new ArrayList<>();
+    private final List<KlassCodec> objectKlasses = new ArrayList<>();
+
+    // the keyed Set fields of the graph, to be filled when the graph is read.
+    private final List<PendingSet> pendingSets = new ArrayList<>();
+
+    private boolean ended = false;
+
+    /**
+     * Starts reading a stream of managed objects.
+     * @param in the input stream
+     * @param schema the schema of the managed objects
+     * @param dataManager the data manager which creates the managed objects
+     * @throws IOException in case the stream is not a stream of managed objects.
+     */
+    public MObjectReader(InputStream in, Schema schema, IDataManager dataManager) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(in, 1 << 16));
+        this.dataManager = dataManager;
+        schema.klasses().forEach(klass -> this.klassesByName.put(klass.name(), klass));
+
+        if (this.in.readInt() != MAGIC) {
+            throw new IOException("Not a stream of managed objects");
+        }
+        final int version = readVarInt(this.in);
+        if (version != VERSION) {
+            throw new IOException("Unsupported version of managed objects stream: " + version);
+        }
+    }
+
+    /**
+     * Reads the next graph of the stream.
+     * @return its root managed object, null at the end of the stream.
+     * @throws IOException in case the stream cannot be read, or does not match the schema.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T read() throws IOException {
+        if (this.ended) {
+            return null;
+        }
+
+        int start = readVarInt(this.in);
+        while (start == RESET || start == NEW) {
+            if (start == RESET) {
+                this.objects.clear();
+                this.objectKlasses.clear();
+            } else {
+                readNewObjects();
+            }
+            start = readVarInt(this.in);
+        }
+        if (start == END) {
+            this.ended = true;
+            return null;
+        }
+        if (start != ROOT) {
+            throw new IOException("Malformed managed objects stream: no root");
+        }
+        final Object root = readReference();
+
+        while (true) {
+            final int item = readVarInt(this.in);
+            if (item == GRAPH_END) break;
+            if (item == NEW) {
+                readNewObjects();
+                continue;
+            }
+            if (item < RECORD) {
+                throw new IOException("Malformed managed objects stream: unexpected end of graph");
+            }
+            readRecord(item - RECORD);
+        }
+
+        try {
+            for (PendingSet pendingSet : this.pendingSets) {
+                for (Object value : pendingSet.values) {
+                    pendingSet.field.__insert(pendingSet.owner, value);
+                }
+            }
+        } catch (NoKeyFieldException e) {
+            throw new IOException("Error on reading of a Set field", e);
+        } finally {
+            this.pendingSets.clear();
+        }
+        return (T) root;
+    }
+
+    private void readRecord(int id) throws IOException {
+        if (id >= this.objects.size()) {
+            throw new IOException("Malformed managed objects stream: unknown object " + id);
+        }
+
+        final MObject mObject = MObject.of(this.objects.get(id));
+        final KlassCodec codec = this.objectKlasses.get(id);
+
+        final byte[] nulls = new byte[codec.nullsSize];
+        this.in.readFully(nulls);
+
+        try {
+            for (int slot = 0; slot < codec.kinds.length; slot++) {
+                final MObjectField mObjectField = codec.mObjectFields[slot];
+                final boolean isNull = (nulls[slot >>> 3] & (1 << (slot & 7))) != 0;
+
+                if (codec.many[slot]) {
+                    if (isNull) continue;
+
+                    final int size = readVarInt(this.in);
+                    final Object[] values = new Object[size];
+                    for (int i = 0; i < size; i++) {
+                        values[i] = readValue(codec, slot, codec.kinds[slot]);
+                    }
+
+                    final MObjectFieldMany manyField = (MObjectFieldMany) mObjectField;
+                    if (codec.set[slot]) {
+                        this.pendingSets.add(new PendingSet(mObject, manyField, values));
+                    } else {
+                        for (Object value : values) {
+                            manyField.__insert(mObject, value);
+                        }
+                    }
+                } else {
+                    final Object value = isNull ? null : readValue(codec, slot, codec.kinds[slot]);
+                    if (mObjectField instanceof MObjectFieldSingleMObj) {
+                        ((MObjectFieldSingleMObj) mObjectField).__set(mObject, value);
+                    } else {
+                        mObjectField.set(mObject, value);
+                    }
+                }
+            }
+        } catch (InvalidFieldValueException | NoKeyFieldException e) {
+            throw new IOException("Error on reading of " + codec.klass.name() + " " + id, e);
+        }
+    }
+
+    private Object readValue(KlassCodec codec, int slot, int kind) throws IOException {
+        switch (kind) {
+            case OBJECT:  return readReference();
+            case INTEGER: return (int) unZigZag(readVarLong(this.in));
+            case LONG:    return unZigZag(readVarLong(this.in));
+            case BOOLEAN: return this.in.readBoolean();
+            case DOUBLE:  return Double.longBitsToDouble(this.in.readLong());
+            case FLOAT:   return Float.intBitsToFloat(this.in.readInt());
+            case STRING:  return readString(this.in);
+            case ENUM:    return constant(codec.enumConstants[slot], readVarInt(this.in));
+            default: {
+                final int tag = this.in.readUnsignedByte();
+                if (tag == CLASS) {
+                    return readClass();
+                }
+                if (tag == ANY_ENUM) {
+                    return constant(readClass().getEnumConstants(), readVarInt(this.in));
+                }
+                if (tag >= ENUM) {
+                    throw new IOException("Malformed managed objects stream: unknown tag " + tag);
+                }
+                return readValue(codec, slot, tag);
+            }
+        }
+    }
+
+    private Class<?> readClass() throws IOException {
+        final String name = readString(this.in);
+        try {
+            return Class.forName(name, false, MObjectReader.class.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Class of stream not found: " + name, e);
+        }
+    }
+
+    private static Object constant(Object[] constants, int ordinal) throws IOException {
+        if (constants == null || ordinal >= constants.length) {
+            throw new IOException("Malformed managed objects stream: unknown enum constant " + ordinal);
+        }
+        return constants[ordinal];
+    }
+
+    private Object readReference() throws IOException {
+        final int id = readVarInt(this.in);
+        if (id < this.objects.size()) {
+            return this.objects.get(id);
+        }
+        throw new IOException("Malformed managed objects stream: unknown object " + id);
+    }
+
+    /**
+     * Creates the objects of a NEW item at once, their values are set by their records.
+     */
+    private void readNewObjects() throws IOException {
+        final KlassCodec codec = readKlass();
+        final int count = readVarInt(this.in);
+        if (count <= 0) {
+            throw new IOException("Malformed managed objects stream: no new objects");
+        }
+
+        for (Object object : this.dataManager.createMany(codec.klass, count, null)) {
+            final MObject mObject = MObject.of(object);
+            if (mObject.getProxy() == null) {
+                mObject.setProxy(object);
+            }
+            this.objects.add(object);
+            this.objectKlasses.add(codec);
+        }
+    }
+
+    private KlassCodec readKlass() throws IOException {
+        final int number = readVarInt(this.in);
+        if (number < this.klasses.size()) {
+            return this.klasses.get(number);
+        }
+        if (number > this.klasses.size()) {
+            throw new IOException("Malformed managed objects stream: unknown klass " + number);
+        }
+
+        final String name = readString(this.in);
+        final int fieldsHash = this.in.readInt();
+        final Klass klass = this.klassesByName.get(name);
+        if (klass == null) {
+            throw new IOException("No klass " + name + " in the schema");
+        }
+
+        final KlassCodec codec = new KlassCodec(klass);
+        if (codec.layout.fieldsHash() != fieldsHash) {
+            throw new IOException("The fields of " + name + " do not match the stream");
+        }
+        this.klasses.add(codec);
+        return codec;
+    }
+
+    @Override
+    public void close() throws IOException {
+        this.in.close();
+    }
+
+    /**
+     * The values of a keyed Set field, which are added once the graph is read.
+     */
+    private static final class PendingSet {
+        final MObject owner;
+        final MObjectFieldMany field;
+        final Object[] values;
+
+        PendingSet(MObject owner, MObjectFieldMany field, Object[] values) {
+            this.owner = owner;
+            this.field = field;
+            this.values = values;
+        }
+    }
+}
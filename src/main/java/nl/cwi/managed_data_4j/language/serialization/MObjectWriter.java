@@ -0,0 +1,264 @@
+package nl.cwi.managed_data_4j.language.serialization;
+
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+import java.io.*;
+import java.util.*;
+
+import static nl.cwi.managed_data_4j.language.serialization.Encoding.*;
+
+/**
+ * Writes graphs of managed objects to a binary stream (see Encoding for the format),
+ * which can be read by an MObjectReader with the same schema, and any data manager.
+ *
+ * The objects of a graph are written by following the spine (@Contain fields) from its root,
+ * and then the objects that are only reached by cross-references.
+ * Every object is written once, and any reference to it is its id.
+ * The objects that a record refers to for the first time are announced before it, by klass,
+ * so that the reader creates them at once (see Encoding).
+ *
+ * Nothing is kept but the ids of the objects that are written, thus a large model can be written
+ * in parts, by many calls of write, which can refer to the objects of the previous parts, e.g.
+ *      try (MObjectWriter writer = new MObjectWriter(out)) {
+ *          writer.write(activity);
+ *      }
+ * The ids refer to the objects, so all the objects written since the start (or the last reset) stay in memory,
+ * in the writer and in the reader (e.g. the records of a MappedDataManager cannot be released).
+ * For models larger than the heap, reset the stream between parts which do not refer to each other,
+ * an object that is written again after a reset is read as a new object.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public class MObjectWriter implements Closeable, Flushable {
+
+    private final DataOutputStream out;
+
+    // <object, id>, objects are compared by reference
+    private final Map<Object, Integer> ids = new IdentityHashMap<>();
+
+    // the ids of the objects whose values are written
+    private final BitSet written = new BitSet();
+
+    // <Klass, its number in the stream>, klasses are compared by reference
+    private final Map<Klass, Integer> klassNumbers = new IdentityHashMap<>();
+
+    // <Klass, how its objects are written>, klasses are compared by reference
+    private final Map<Klass, KlassCodec> codecs = new IdentityHashMap<>();
+
+    // the objects to write, reached from the spine, and only from cross-references.
+    private final Deque<Object> spine = new ArrayDeque<>();
+    private final Deque<Object> crossReferenced = new ArrayDeque<>();
+
+    // the objects that a record refers to for the first time, in order
+    private final List<Object> newObjects = new ArrayList<>();
+
+    /**
+     * Starts a stream of managed objects.
+     * @param out the output stream
+     * @throws IOException in case the header cannot be written.
+     */
+    public MObjectWriter(OutputStream out) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(out, 1 << 16));
+        this.out.writeInt(MAGIC);
+        writeVarInt(this.out, VERSION);
+    }
+
+    /**
+     * Writes a managed object and all the objects that it reaches, which are not written yet.
+     * @param root the root managed object of the graph
+     * @throws IOException in case the stream cannot be written.
+     * @throws IllegalArgumentException in case a value cannot be written.
+     */
+    public void write(Object root) throws IOException {
+        if (!MObject.isManaged(root)) {
+            throw new IllegalArgumentException("Not a managed object: " + root);
+        }
+
+        if (!this.ids.containsKey(root)) {
+            identify(root, true);
+            writeNewObjects();
+        }
+        writeVarInt(this.out, ROOT);
+        writeReference(root, true);
+
+        while (true) {
+            Object next = this.spine.poll();
+            if (next == null) next = this.crossReferenced.poll();
+            if (next == null) break;
+
+            final int id = this.ids.get(next);
+            if (!this.written.get(id)) {
+                this.written.set(id);
+                writeRecord(next, id);
+            }
+        }
+        writeVarInt(this.out, GRAPH_END);
+    }
+
+    private void writeRecord(Object object, int id) throws IOException {
+        final MObject mObject = MObject.of(object);
+        final KlassCodec codec = codec(mObject.schemaKlass());
+        final int slots = codec.kinds.length;
+
+        final Object[] values = new Object[slots];
+        final byte[] nulls = new byte[codec.nullsSize];
+        for (int slot = 0; slot < slots; slot++) {
+            values[slot] = codec.mObjectFields[slot].get(mObject);
+            if (values[slot] == null) {
+                nulls[slot >>> 3] |= 1 << (slot & 7);
+            }
+        }
+
+        // the objects it refers to for the first time are created before the record
+        for (int slot = 0; slot < slots; slot++) {
+            if (values[slot] == null || (codec.kinds[slot] != OBJECT && codec.kinds[slot] != ANY)) continue;
+
+            if (codec.many[slot]) {
+                for (Object value : (Collection<?>) values[slot]) {
+                    identify(value, codec.contain[slot]);
+                }
+            } else {
+                identify(values[slot], codec.contain[slot]);
+            }
+        }
+        writeNewObjects();
+
+        writeVarInt(this.out, RECORD + id);
+        this.out.write(nulls);
+
+        for (int slot = 0; slot < slots; slot++) {
+            if (values[slot] == null) continue;
+
+            if (codec.many[slot]) {
+                final Collection<?> many = (Collection<?>) values[slot];
+                writeVarInt(this.out, many.size());
+                for (Object value : many) {
+                    writeValue(codec.kinds[slot], value, codec.contain[slot]);
+                }
+            } else {
+                writeValue(codec.kinds[slot], values[slot], codec.contain[slot]);
+            }
+        }
+    }
+
+    private void writeValue(int kind, Object value, boolean contain) throws IOException {
+        switch (kind) {
+            case OBJECT:  writeReference(value, contain); break;
+            case INTEGER: writeVarLong(this.out, zigZag((Integer) value)); break;
+            case LONG:    writeVarLong(this.out, zigZag((Long) value)); break;
+            case BOOLEAN: this.out.writeBoolean((Boolean) value); break;
+            case DOUBLE:  this.out.writeLong(Double.doubleToRawLongBits((Double) value)); break;
+            case FLOAT:   this.out.writeInt(Float.floatToRawIntBits((Float) value)); break;
+            case STRING:  writeString(this.out, (String) value); break;
+            case ENUM:    writeVarInt(this.out, ((Enum<?>) value).ordinal()); break;
+            default: {
+                final int tag = tagOf(value, MObject.isManaged(value));
+                this.out.writeByte(tag);
+                if (tag == CLASS) {
+                    writeString(this.out, ((Class<?>) value).getName());
+                } else if (tag == ANY_ENUM) {
+                    writeString(this.out, ((Enum<?>) value).getDeclaringClass().getName());
+                    writeVarInt(this.out, ((Enum<?>) value).ordinal());
+                } else {
+                    writeValue(tag, value, contain);
+                }
+            }
+        }
+    }
+
+    private void writeReference(Object object, boolean contain) throws IOException {
+        final Integer id = this.ids.get(object);
+        if (id == null) {
+            throw new IllegalArgumentException("Cannot serialize a value of " + object.getClass().getName());
+        }
+        writeVarInt(this.out, id);
+
+        // reached from the spine, the first time or after a cross-reference
+        if (contain && !this.written.get(id)) {
+            this.spine.add(object);
+        }
+    }
+
+    /**
+     * Gives the next id to a managed object that has none yet, it is created by the reader with the next NEW item.
+     * @param value a value of an object field or of an ANY field
+     * @param contain true if it is reached from the spine
+     */
+    private void identify(Object value, boolean contain) {
+        if (value == null || this.ids.containsKey(value) || !MObject.isManaged(value)) {
+            return;
+        }
+        this.ids.put(value, this.ids.size());
+        this.newObjects.add(value);
+
+        // the contained ones are queued when the reference is written
+        if (!contain) {
+            this.crossReferenced.add(value);
+        }
+    }
+
+    /**
+     * Writes a NEW item for every run of the new objects with the same klass.
+     */
+    private void writeNewObjects() throws IOException {
+        int start = 0;
+        while (start < this.newObjects.size()) {
+            final Klass klass = MObject.of(this.newObjects.get(start)).schemaKlass();
+            int end = start + 1;
+            while (end < this.newObjects.size() && MObject.of(this.newObjects.get(end)).schemaKlass() == klass) {
+                end++;
+            }
+
+            writeVarInt(this.out, NEW);
+            writeKlass(klass);
+            writeVarInt(this.out, end - start);
+            start = end;
+        }
+        this.newObjects.clear();
+    }
+
+    private void writeKlass(Klass klass) throws IOException {
+        final Integer number = this.klassNumbers.get(klass);
+        if (number != null) {
+            writeVarInt(this.out, number);
+            return;
+        }
+
+        final int newNumber = this.klassNumbers.size();
+        this.klassNumbers.put(klass, newNumber);
+        writeVarInt(this.out, newNumber);
+        writeString(this.out, klass.name());
+        this.out.writeInt(codec(klass).layout.fieldsHash());
+    }
+
+    private KlassCodec codec(Klass klass) {
+        return this.codecs.computeIfAbsent(klass, KlassCodec::new);
+    }
+
+    /**
+     * Forgets the objects that are written so far, the writer and the reader of the stream keep them no more.
+     * The next graphs cannot refer to them, if they reach them, they are written again, as new objects.
+     * @throws IOException in case the stream cannot be written.
+     */
+    public void reset() throws IOException {
+        writeVarInt(this.out, RESET);
+        this.ids.clear();
+        this.written.clear();
+    }
+
+    @Override
+    public void flush() throws IOException {
+        this.out.flush();
+    }
+
+    /**
+     * Ends the stream, and closes the output stream.
+     * @throws IOException in case the stream cannot be written.
+     */
+    @Override
+    public void close() throws IOException {
+        writeVarInt(this.out, END);
+        this.out.close();
+    }
+}
@@ -0,0 +1,164 @@
+package nl.cwi.managed_data_4j.language.utils;
+
+import nl.cwi.managed_data_4j.language.data_manager.IDataManager;
+import nl.cwi.managed_data_4j.language.managed_object.KlassLayout;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.MObjectField;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.InvalidFieldValueException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.errors.NoKeyFieldException;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldMany;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.single.MObjectFieldSingleMObj;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+
+import java.util.*;
+
+/**
+ * The state of a single deep copy of a graph of managed objects (see MObjectUtils.copy).
+ *
+ * The copy is made in passes over the spine:
+ *      - the spine is walked once, to find (and count) its objects,
+ *      - the copies of every Klass are created at once (createMany), as many as the objects of the Klass,
+ *      - the single fields of the copies are set, then the many fields,
+ *        so the keys of the copies are already set when they are added to keyed Sets.
+ * The values are set raw, without inverses, since both sides of an inverse pair are copied.
+ *
+ * @author Theologos Zacharopoulos
+ */
+final class GraphCopy {
+
+    private final IDataManager dataManager;
+
+    // the objects of the spine, in the order of the walk
+    private final List<Object> spine = new ArrayList<>();
+
+    // <object of the spine, its copy>, objects are compared by reference
+    private final Map<Object, Object> copies = new IdentityHashMap<>();
+
+    GraphCopy(IDataManager dataManager) {
+        this.dataManager = dataManager;
+    }
+
+    Object copy(Object root) {
+        walk(root);
+        create();
+
+        for (Object object : this.spine) {
+            copyFields(object, false);
+        }
+        for (Object object : this.spine) {
+            copyFields(object, true);
+        }
+        return this.copies.get(root);
+    }
+
+    /**
+     * Walks the spine (the @Contain fields), the objects are kept without copies yet.
+     */
+    private void walk(Object root) {
+        final Deque<Object> stack = new ArrayDeque<>();
+        stack.push(root);
+        this.copies.put(root, null);
+
+        while (!stack.isEmpty()) {
+            final Object object = stack.pop();
+            this.spine.add(object);
+
+            final MObject mObject = MObject.of(object);
+            final KlassLayout layout = KlassLayout.of(mObject.schemaKlass());
+            final Field[] fields = layout.fields();
+            final MObjectField[] mObjectFields = layout.mObjectFields();
+
+            for (int slot = 0; slot < fields.length; slot++) {
+                if (!fields[slot].contain() || mObjectFields[slot] == null) continue;
+
+                final Object value = mObjectFields[slot].get(mObject);
+                if (value instanceof Collection) {
+                    for (Object element : (Collection<?>) value) {
+                        push(stack, element);
+                    }
+                } else {
+                    push(stack, value);
+                }
+            }
+        }
+    }
+
+    private void push(Deque<Object> stack, Object child) {
+        if (MObject.isManaged(child) && !this.copies.containsKey(child)) {
+            this.copies.put(child, null);
+            stack.push(child);
+        }
+    }
+
+    /**
+     * Creates the copies, Klass by Klass.
+     */
+    private void create() {
+        final Map<Klass, List<Object>> objectsOfKlasses = new IdentityHashMap<>();
+        for (Object object : this.spine) {
+            objectsOfKlasses.computeIfAbsent(MObject.of(object).schemaKlass(), klass -> new ArrayList<>()).add(object);
+        }
+
+        objectsOfKlasses.forEach((klass, objects) -> {
+            final List<Object> klassCopies = this.dataManager.createMany(klass, objects.size(), null);
+            for (int i = 0; i < objects.size(); i++) {
+                final Object copy = klassCopies.get(i);
+                final MObject copyMObject = MObject.of(copy);
+                if (copyMObject.getProxy() == null) {
+                    copyMObject.setProxy(copy);
+                }
+                this.copies.put(objects.get(i), copy);
+            }
+        });
+    }
+
+    /**
+     * Copies either the single or the many fields of an object to its copy.
+     */
+    private void copyFields(Object object, boolean many) {
+        final MObject mObject = MObject.of(object);
+        final MObject copy = MObject.of(this.copies.get(object));
+        final MObjectField[] mObjectFields = KlassLayout.of(mObject.schemaKlass()).mObjectFields();
+
+        try {
+            for (MObjectField mObjectField : mObjectFields) {
+                if (mObjectField == null || (mObjectField instanceof MObjectFieldMany) != many) continue;
+
+                final Object value = mObjectField.get(mObject);
+                if (many) {
+                    for (Object element : (Collection<?>) value) {
+                        final Object elementCopy = map(element, mObjectField);
+                        if (elementCopy != null) {
+                            ((MObjectFieldMany) mObjectField).__insert(copy, elementCopy);
+                        }
+                    }
+                } else if (mObjectField instanceof MObjectFieldSingleMObj) {
+                    ((MObjectFieldSingleMObj) mObjectField).__set(copy, map(value, mObjectField));
+                } else {
+                    mObjectField.set(copy, map(value, mObjectField));
+                }
+            }
+        } catch (InvalidFieldValueException | NoKeyFieldException e) {
+            throw new IllegalStateException("Error on copy of " + mObject.schemaKlass().name(), e);
+        }
+    }
+
+    /**
+     * Maps a value to the copy:
+     *      - an object of the spine to its copy,
+     *      - an object out of the spine stays the same, unless the field has an inverse,
+     *        since the object would not refer back to the copy (then null),
+     *      - a primitive stays the same.
+     */
+    private Object map(Object value, MObjectField mObjectField) {
+        if (!MObject.isManaged(value)) {
+            return value;
+        }
+        final Object copy = this.copies.get(value);
+        if (copy != null) {
+            return copy;
+        }
+        return mObjectField.getInverse() == null ? value : null;
+    }
+}
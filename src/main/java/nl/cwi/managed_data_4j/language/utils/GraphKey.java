@@ -0,0 +1,49 @@
+package nl.cwi.managed_data_4j.language.utils;
+
+import nl.cwi.managed_data_4j.M;
+
+/**
+ * A graph of managed objects as the key of a map (e.g. a cache of models),
+ * with the structural hash (MObjectUtils.hash) and the structural equality (MObjectUtils.equals) of the graph.
+ *
+ * The hash is computed once, when the key is created, two keys with different hashes are not equal without a walk.
+ * Like any key, the graph must not change while it is in a map.
+ *
+ * @author Theologos Zacharopoulos
+ */
+public final class GraphKey {
+
+    private final M root;
+
+    private final long hash;
+
+    public GraphKey(M root) {
+        this.root = root;
+        this.hash = MObjectUtils.hash(root);
+    }
+
+    public M root() {
+        return this.root;
+    }
+
+    public long hash() {
+        return this.hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof GraphKey)) {
+            return false;
+        }
+        final GraphKey other = (GraphKey) o;
+        return this.hash == other.hash && MObjectUtils.equals(this.root, other.root);
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(this.hash);
+    }
+}
@@ -3,10 +3,12 @@ package nl.cwi.managed_data_4j.language.utils;
 import java.util.*;
 
 import nl.cwi.managed_data_4j.M;
+import nl.cwi.managed_data_4j.language.data_manager.IDataManager;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.hashing.HashedMObject;
 import nl.cwi.managed_data_4j.language.primitives.PrimitivesManager;
 import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
 import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
-import nl.cwi.managed_data_4j.language.schema.models.definition.Type;
 
 public class MObjectUtils {
     private static final PrimitivesManager primitiveManager = PrimitivesManager.getInstance();
@@ -15,175 +17,572 @@ public class MObjectUtils {
         return object.schemaKlass().name().equals(clazz.getSimpleName());
     }
 
+    /**
+     * Structural equality of two graphs of managed objects.
+     *
+     * The graphs are compared along the spine (primitive and @Contain fields), klass by name and field by field in name order,
+     * with the elements of many-fields in order, after the managed objects are sorted by name.
+     * Every object of x is matched to one object of y, then the cross-references (the other fields)
+     * have to refer to the matched objects, if they refer to objects of the spine.
+     *
+     * The graphs are walked with a worklist and the objects are matched by reference,
+     * thus the size of the graphs is not limited by the stack, and every collection is sorted once.
+     * Two graphs whose roots keep different hashes (see HashingDataManager) are not equal, without a walk.
+     *
+     * @param x the root of the first graph
+     * @param y the root of the second graph
+     * @return true if the graphs are equal
+     */
     public static boolean equals(M x, M y) {
+        if (GraphHash.haveDifferentHashes(x, y)) {
+            return false;
+        }
+        return new GraphEquality().equals(x, y);
+    }
 
-        final Map<Object, Object> equalityMap = new HashMap<>();
-        final Map<Object, List<Object>> crossReferences = new HashMap<>();
+    /**
+     * Structural hash of a graph of managed objects, consistent with equals:
+     * equal graphs have the same hash, in any run and in any JVM.
+     *
+     * The hash is computed along the spine, as equals compares it:
+     * the name of the Klass, then the fields in name order, the primitives by value,
+     * the many-fields by their elements (managed objects sorted by name) and the contained objects by their hash.
+     * The cross-references count only with the size of the many cross-references,
+     * since equals only checks that they refer to the matched objects.
+     *
+     * The objects of a HashingDataManager keep their hash until they change,
+     * thus only the changed objects and their containers are hashed again.
+     *
+     * @param root the root of the graph
+     * @return the 64 bit hash of the graph
+     */
+    public static long hash(M root) {
+        return new GraphHash().hash(root);
+    }
 
-        return e(equalityMap, crossReferences, x, y) // Check first only the spine tree
-            && crossReferencesCheck(equalityMap, crossReferences); // Then check cross references
+    /**
+     * Deep copy of a graph of managed objects, along the spine (the @Contain fields).
+     *
+     * Every object of the spine is copied, with the data manager, the references to objects of the spine
+     * (contained, cross-references and inverses) refer to their copies, the primitives are the same.
+     * The references to objects out of the spine are kept, except for fields with an inverse,
+     * which are dropped, since the objects would not refer back to the copies.
+     *
+     * @param root the root of the graph
+     * @param dataManager the data manager of the copies, of the schema of the graph
+     * @return the copy of the root
+     */
+    @SuppressWarnings("unchecked")
+    public static <T extends M> T copy(T root, IDataManager dataManager) {
+        return (T) new GraphCopy(dataManager).copy(root);
     }
 
-    private static boolean crossReferencesCheck(Map<Object, Object> equalityMap, Map<Object, List<Object>> crossReferences) {
-        for (Object crossReferenceObject : crossReferences.keySet()) {
-            for (Object equalityCheckedObject : equalityMap.keySet()) {
-
-                // if a cross-reference that has been already checked is found
-                if (crossReferenceObject == equalityCheckedObject) {
-                    // then check their equivalence
-                    final Object equalityValue = equalityMap.get(equalityCheckedObject);
-                    final List<Object> crossRefValues = crossReferences.get(crossReferenceObject);
-
-                    boolean crossRefValueFound = false;
-                    for (Object crossRefValue : crossRefValues) {
-                        if (equalityValue == crossRefValue) {
-                            crossRefValueFound = true;
-                            break;
-                        }
-                    }
+    /**
+     * The state of a single hash computation.
+     *
+     * The spine is walked in post-order with a stack, a contained object is hashed before its container.
+     * An object that is reached again while its container is being hashed (a cycle of the spine)
+     * counts with a constant, and then no hash of the walk is kept, since it depends on the start of the walk.
+     */
+    private static final class GraphHash {
 
-                    if (!crossRefValueFound) {
-                        return false;
+        private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+        private static final long FNV_PRIME = 0x100000001b3L;
+
+        private static final long NULL = 0x6e756c6cL;
+        private static final long CYCLE = 0x6379636c65L;
+        private static final long OTHER = 0x6f74686572L;
+
+        // marks the objects of the stack whose children are already hashed.
+        private static final Object HASH = new Object();
+
+        // <object, its hash>, null while the object is being hashed, objects are compared by reference
+        private final Map<Object, Long> hashes = new IdentityHashMap<>();
+
+        // the objects to hash, an object is pushed twice: to push its children, then to hash it (under HASH)
+        private final Deque<Object> stack = new ArrayDeque<>();
+
+        // the hashed objects of the walk and their hashes (object, hash, object, hash, ...), kept at the end.
+        private final List<Object> hashed = new ArrayList<>();
+
+        // <Klass, its fields sorted by name>, klasses are compared by reference
+        private final Map<Klass, Field[]> sortedFields = new IdentityHashMap<>();
+
+        // <Class, hash of its name>
+        private final Map<Class<?>, Long> classHashes = new IdentityHashMap<>();
+
+        // <Class, if it is a primitive class>
+        private final Map<Class<?>, Boolean> primitiveClasses = new IdentityHashMap<>();
+
+        // true if the spine has a cycle.
+        private boolean cycle = false;
+
+        /**
+         * Returns true if both objects keep their hashes and the hashes are different.
+         */
+        static boolean haveDifferentHashes(Object x, Object y) {
+            final HashedMObject xHashed = hashedMObjectOf(x);
+            final HashedMObject yHashed = hashedMObjectOf(y);
+            return xHashed != null && yHashed != null &&
+                   xHashed.__isHashed() && yHashed.__isHashed() &&
+                   xHashed.__hash() != yHashed.__hash();
+        }
+
+        long hash(Object root) {
+            final HashedMObject rootHashed = hashedMObjectOf(root);
+            if (rootHashed != null && rootHashed.__isHashed()) {
+                return rootHashed.__hash();
+            }
+
+            this.stack.push(root);
+            while (!this.stack.isEmpty()) {
+                final Object object = this.stack.pop();
+                if (object == HASH) {
+                    hashObject(this.stack.pop());
+                } else if (!this.hashes.containsKey(object)) {
+                    this.hashes.put(object, null);
+                    this.stack.push(object);
+                    this.stack.push(HASH);
+                    pushChildren(object);
+                }
+            }
+
+            if (!this.cycle) {
+                for (int i = 0; i < this.hashed.size(); i += 2) {
+                    ((HashedMObject) this.hashed.get(i)).__keepHash((Long) this.hashed.get(i + 1));
+                }
+            }
+            return this.hashes.get(root);
+        }
+
+        /**
+         * Pushes the managed objects of the spine fields of an object,
+         * unless they are already hashed or they keep their hash.
+         */
+        private void pushChildren(Object object) {
+            final MObject mObject = MObject.isManaged(object) ? MObject.of(object) : null;
+            final HashedMObject container = mObject instanceof HashedMObject ? (HashedMObject) mObject : null;
+
+            for (Field field : sortedFields(mObject != null ? mObject.schemaKlass() : ((M) object).schemaKlass())) {
+                if (!isSpine(field)) continue;
+
+                final Object value = getValueFromField(object, mObject, field);
+                if (value instanceof Collection) {
+                    for (Object element : (Collection<?>) value) {
+                        pushChild(container, element);
                     }
+                } else {
+                    pushChild(container, value);
                 }
             }
         }
-        return true;
-    }
 
-    private static boolean e(Map<Object, Object> equalityMap, Map<Object, List<Object>> crossReferences, Object x, Object y) {
+        private void pushChild(HashedMObject container, Object child) {
+            if (!(child instanceof M) || isPrimitiveClass(child.getClass()) || this.hashes.containsKey(child)) {
+                return;
+            }
 
-        // check for null first
-        if (x == null && y == null) {
-            // System.out.println(" x and y are NULL");
-            return true;
-        } else if ((x == null && y != null) || (x != null && y == null)) {
-            // System.out.println(" one of x and y is NULL");
-            return false;
+            final HashedMObject childHashed = hashedMObjectOf(child);
+            if (childHashed != null) {
+                childHashed.__setContainer(container);
+                if (childHashed.__isHashed()) {
+                    this.hashes.put(child, childHashed.__hash());
+                    return;
+                }
+            }
+            this.stack.push(child);
         }
 
-        // primitive leaf, just compare values
-        if (primitiveManager.isPrimitiveClass(x.getClass()) &&
-            primitiveManager.isPrimitiveClass(y.getClass()) &&
-            x.getClass().equals(y.getClass()))
-        {
-            // System.out.println(" << Primitive >> : (x = " + x + " | y = " + y + ")");
-            equalityMap.put(x, y);
-            return x.equals(y);
+        /**
+         * Hashes an object, after the objects of its spine.
+         */
+        private void hashObject(Object object) {
+            final MObject mObject = MObject.isManaged(object) ? MObject.of(object) : null;
+            final Klass klass = mObject != null ? mObject.schemaKlass() : ((M) object).schemaKlass();
+            final Field[] fields = sortedFields(klass);
+
+            long hash = mix(hashString(klass.name()), fields.length);
+            for (Field field : fields) {
+                final Object value = getValueFromField(object, mObject, field);
+                if (isSpine(field)) {
+                    hash = mix(hash, hashValue(value));
+                } else {
+                    // the cross-references, only the size of the many ones
+                    hash = mix(hash, value instanceof Collection ? ((Collection<?>) value).size() : 0);
+                }
+            }
+
+            hash = finish(hash);
+            this.hashes.put(object, hash);
+            if (mObject instanceof HashedMObject) {
+                this.hashed.add(mObject);
+                this.hashed.add(hash);
+            }
         }
 
-        // vector leaf
-        if (primitiveManager.isMany(x.getClass()) && primitiveManager.isMany(y.getClass())) {
-            // System.out.println(" << Vector >> ");
+        private long hashValue(Object value) {
+            if (value == null) {
+                return NULL;
+            }
+
+            if (value instanceof Collection) {
+                final Collection<?> collection = (Collection<?>) value;
+                long hash = mix(NULL, collection.size());
+                if (!collection.isEmpty()) {
+                    for (Object element : sortedByName(collection)) {
+                        hash = mix(hash, hashValue(element));
+                    }
+                }
+                return hash;
+            }
+
+            if (isPrimitiveClass(value.getClass())) {
+                return mix(hashClass(value.getClass()), hashPrimitive(value));
+            }
+
+            if (!(value instanceof M)) {
+                return OTHER;
+            }
 
-            final Collection<Object> xCollection = (Collection<Object>) x;
-            final Collection<Object> yCollection = (Collection<Object>) y;
-            final List<Object> xVector = new LinkedList<>(xCollection);
-            final List<Object> yVector = new LinkedList<>(yCollection);
-            final int xLen = xVector.size();
-            final int yLen = yVector.size();
+            final Long hash = this.hashes.get(value);
+            if (hash == null) {
+                // reached again while it is being hashed
+                this.cycle = true;
+                return CYCLE;
+            }
+            return hash;
+        }
 
-            return
-                xLen == yLen && // they should have the same size (structure)
-                (xLen == 0 || areVectorsEqual(equalityMap, crossReferences, xVector, yVector, 0)); // if the len is 0 then true, otherwise compare
+        /**
+         * Hashes a primitive by its value, or by its name, not by hashCode, which may differ in other runs.
+         */
+        private long hashPrimitive(Object value) {
+            if (value instanceof String) {
+                return hashString((String) value);
+            } else if (value instanceof Integer || value instanceof Long ||
+                       value instanceof Short || value instanceof Byte) {
+                return ((Number) value).longValue();
+            } else if (value instanceof Double) {
+                return Double.doubleToLongBits((Double) value);
+            } else if (value instanceof Float) {
+                return Float.floatToIntBits((Float) value);
+            } else if (value instanceof Boolean) {
+                return (Boolean) value ? 1 : 0;
+            } else if (value instanceof Character) {
+                return (Character) value;
+            } else if (value instanceof Enum) {
+                return hashString(((Enum<?>) value).name());
+            } else if (value instanceof Class) {
+                return hashString(((Class<?>) value).getName());
+            }
+            return OTHER;
         }
 
-        // Managed Objects leaf
-        final M mObjectX = ((M) x);
-        final Klass xKlass = mObjectX.schemaKlass();
+        private boolean isPrimitiveClass(Class<?> valueClass) {
+            Boolean primitive = this.primitiveClasses.get(valueClass);
+            if (primitive == null) {
+                primitive = primitiveManager.isPrimitiveClass(valueClass);
+                this.primitiveClasses.put(valueClass, primitive);
+            }
+            return primitive;
+        }
 
-        final M mObjectY = ((M) y);
-        final Klass yKlass = mObjectY.schemaKlass();
+        private long hashClass(Class<?> valueClass) {
+            Long hash = this.classHashes.get(valueClass);
+            if (hash == null) {
+                hash = hashString(valueClass.getName());
+                this.classHashes.put(valueClass, hash);
+            }
+            return hash;
+        }
 
-        final List<Field> xFields = new LinkedList<>(xKlass.fields());
-        // System.out.println(" <<Object>> (x) : " + xKlass.name());
+        // the spine fields: the primitive and the @Contain ones.
+        private static boolean isSpine(Field field) {
+            return field.contain() || field.type().schemaKlass().name().equals("Primitive");
+        }
 
-        final List<Field> yFields = new LinkedList<>(yKlass.fields());
-        // System.out.println(" <<Object>> (y) : " + yKlass.name());
+        private Field[] sortedFields(Klass klass) {
+            Field[] fields = this.sortedFields.get(klass);
+            if (fields == null) {
+                fields = klass.fields().toArray(new Field[0]);
+                Arrays.sort(fields, Comparator.comparing(Field::name));
+                this.sortedFields.put(klass, fields);
+            }
+            return fields;
+        }
 
-        // sort fields by name, this way we know we compare the field with the right order
-        Collections.sort(xFields, (o1, o2) -> o1.name().compareTo(o2.name()));
-        Collections.sort(yFields, (o1, o2) -> o1.name().compareTo(o2.name()));
+        private static HashedMObject hashedMObjectOf(Object value) {
+            if (!MObject.isManaged(value)) {
+                return null;
+            }
+            final MObject mObject = MObject.of(value);
+            return mObject instanceof HashedMObject ? (HashedMObject) mObject : null;
+        }
 
-        boolean areFieldsEqual = xFields.size() == yFields.size() && // they should have the same size (branch number)
-            (xFields.size() == 0 ||
-            areFieldsEqual(equalityMap, crossReferences, x, xFields, y, yFields, 0)); // if the len is 0 then true, otherwise compare
+        // FNV-1a of the characters of a string.
+        private static long hashString(String string) {
+            long hash = FNV_OFFSET;
+            for (int i = 0; i < string.length(); i++) {
+                hash = (hash ^ string.charAt(i)) * FNV_PRIME;
+            }
+            return hash;
+        }
 
-        equalityMap.put(x, y);
+        private static long mix(long hash, long value) {
+            long bits = value * 0x9e3779b97f4a7c15L;
+            bits ^= bits >>> 32;
+            return (Long.rotateLeft(hash, 29) ^ bits) * 0xbf58476d1ce4e5b9L;
+        }
 
-        return areFieldsEqual;
+        // the final mix of the hash of an object, every bit of the hash depends on every bit of its fields.
+        private static long finish(long hash) {
+            hash ^= hash >>> 33;
+            hash *= 0xff51afd7ed558ccdL;
+            hash ^= hash >>> 33;
+            hash *= 0xc4ceb9fe1a85ec53L;
+            hash ^= hash >>> 33;
+            return hash;
+        }
     }
 
-    private static boolean areVectorsEqual(
-        Map<Object, Object> equalityMap,
-        Map<Object, List<Object>> crossReferences,
-        List<Object> xVector,
-        List<Object> yVector,
-        int n)
-    {
-        // end
-        if (((xVector.size() == yVector.size()) && xVector.size() == n)) {
-            return true;
+    /**
+     * The state of a single equality check.
+     */
+    private static final class GraphEquality {
+
+        // <object of x, its match in y>, objects are compared by reference
+        private final Map<Object, Object> matches = new IdentityHashMap<>();
+
+        // the pairs of objects to compare (x, y, x, y, ...)
+        private final Deque<Object> worklist = new ArrayDeque<>();
+
+        // the pairs of cross-references (x, y, x, y, ...), checked after the spine
+        private final List<Object> crossReferences = new ArrayList<>();
+
+        // <Klass, its fields sorted by name>, klasses are compared by reference
+        private final Map<Klass, Field[]> sortedFields = new IdentityHashMap<>();
+
+        // <Class, if it is a primitive class>
+        private final Map<Class<?>, Boolean> primitiveClasses = new IdentityHashMap<>();
+
+        boolean equals(Object x, Object y) {
+            if (!pair(x, y)) {
+                return false;
+            }
+
+            // first only the spine tree
+            while (!this.worklist.isEmpty()) {
+                final Object xObject = this.worklist.pop();
+                final Object yObject = this.worklist.pop();
+                if (!areFieldsEqual(xObject, yObject)) {
+                    return false;
+                }
+            }
+
+            // then the cross references
+            return areCrossReferencesEqual();
         }
 
-        // in case the vector contains M objects and its a set,
-        // then we need to order them in order to check for equality.
-        // Sort the vectors based on the field's name
-        if (xVector.size() > 0 && xVector.get(0) instanceof M) {
-            Collections.sort(xVector, ReflectionUtils.fieldNameComparison());
-            Collections.sort(yVector, ReflectionUtils.fieldNameComparison());
+        /**
+         * Compares two values of the spine, the primitives and the sizes at once,
+         * the managed objects are matched and compared later.
+         */
+        private boolean pair(Object x, Object y) {
+            if (x == null || y == null) {
+                return x == y;
+            }
+
+            final boolean xPrimitive = isPrimitiveClass(x.getClass());
+            final boolean yPrimitive = isPrimitiveClass(y.getClass());
+            if (xPrimitive || yPrimitive) {
+                return xPrimitive && yPrimitive && x.getClass() == y.getClass() && x.equals(y);
+            }
+
+            final boolean xMany = primitiveManager.isMany(x.getClass());
+            final boolean yMany = primitiveManager.isMany(y.getClass());
+            if (xMany || yMany) {
+                return xMany && yMany && areVectorsEqual((Collection<?>) x, (Collection<?>) y);
+            }
+
+            if (!(x instanceof M) || !(y instanceof M)) {
+                return false;
+            }
+
+            final Object match = this.matches.get(x);
+            if (match != null) {
+                return match == y;
+            }
+            this.matches.put(x, y);
+            this.worklist.push(y);
+            this.worklist.push(x);
+            return true;
         }
 
-        // continue
-        return e(equalityMap, crossReferences, xVector.get(n), yVector.get(n)) &&
-            areVectorsEqual(equalityMap, crossReferences, xVector, yVector, n + 1);
-    }
+        private boolean areVectorsEqual(Collection<?> xCollection, Collection<?> yCollection) {
+            if (xCollection.size() != yCollection.size()) {
+                return false;
+            }
+            if (xCollection.isEmpty()) {
+                return true;
+            }
 
-    private static boolean areFieldsEqual(
-            Map<Object, Object> equalityMap,
-            Map<Object, List<Object>> crossReferences,
-            Object x, List<Field> xFields,
-            Object y, List<Field> yFields,
-            int n)
-    {
-        if (xFields.size() == n && xFields.size() == yFields.size()) {
+            final Object[] xVector = sortedByName(xCollection);
+            final Object[] yVector = sortedByName(yCollection);
+            for (int i = 0; i < xVector.length; i++) {
+                if (!pair(xVector[i], yVector[i])) {
+                    return false;
+                }
+            }
             return true;
-        } else {
+        }
+
+        private boolean areFieldsEqual(Object x, Object y) {
+            // the managed objects are resolved once, not by every field access
+            final MObject xMObject = MObject.isManaged(x) ? MObject.of(x) : null;
+            final MObject yMObject = MObject.isManaged(y) ? MObject.of(y) : null;
 
-            final Field xField = xFields.get(n);
-            final Field yField = yFields.get(n);
+            final Klass xKlass = xMObject != null ? xMObject.schemaKlass() : ((M) x).schemaKlass();
+            final Klass yKlass = yMObject != null ? yMObject.schemaKlass() : ((M) y).schemaKlass();
 
-            // System.out.println("\t(x) Field name: " + xField.name());
-            // System.out.println("\t(y) Field name: " + yField.name());
+            // they should be of the same klass (by name, the schemas may differ)
+            if (xKlass != yKlass && !xKlass.name().equals(yKlass.name())) {
+                return false;
+            }
+
+            final Field[] xFields = sortedFields(xKlass);
+            final Field[] yFields = sortedFields(yKlass);
+
+            // they should have the same size (branch number)
+            if (xFields.length != yFields.length) {
+                return false;
+            }
 
-            final Object xFieldValue = getValueFromField(x, xField.name(), xField.type());
-            final Object yFieldValue = getValueFromField(y, yField.name(), yField.type());
+            for (int i = 0; i < xFields.length; i++) {
+                final Field xField = xFields[i];
+                final Field yField = yFields[i];
 
-            final boolean isPrimitive = xField.type().schemaKlass().name().equals("Primitive");
+                final Object xFieldValue = getValueFromField(x, xMObject, xField);
+                final Object yFieldValue = getValueFromField(y, yMObject, yField);
 
-            // Check Contain only for non primitives
-            // So, if not primitive and not in Spine tree, just skip
-            if (!isPrimitive && !(xField.contain() || yField.contain())) {
-                // System.out.println(" [Cross-Reference] <" + xField.name() + ">"); // Cross reference
+                final boolean isPrimitive = xField.type().schemaKlass().name().equals("Primitive");
 
-                // support multiple values, add value to cross references
-                if (!crossReferences.containsKey(xFieldValue)) {
-                    crossReferences.put(xFieldValue, new LinkedList<>());
+                // Check Contain only for non primitives
+                // So, if not primitive and not in Spine tree, it is a cross reference
+                if (!isPrimitive && !(xField.contain() || yField.contain())) {
+                    this.crossReferences.add(xFieldValue);
+                    this.crossReferences.add(yFieldValue);
+                } else if (!pair(xFieldValue, yFieldValue)) {
+                    return false;
                 }
-                crossReferences.get(xFieldValue).add(yFieldValue);
+            }
+            return true;
+        }
+
+        /**
+         * A cross-reference to an object of the spine has to refer to its match,
+         * a many cross-reference has to have the matches of its values.
+         */
+        private boolean areCrossReferencesEqual() {
+            for (int i = 0; i < this.crossReferences.size(); i += 2) {
+                final Object x = this.crossReferences.get(i);
+                final Object y = this.crossReferences.get(i + 1);
+
+                if (x instanceof Collection && y instanceof Collection) {
+                    final Collection<?> xCollection = (Collection<?>) x;
+                    final Collection<?> yCollection = (Collection<?>) y;
+                    if (xCollection.size() != yCollection.size()) {
+                        return false;
+                    }
 
-                return areFieldsEqual(equalityMap, crossReferences, x, xFields, y, yFields, n + 1);
+                    Set<Object> yValues = null;
+                    for (Object xValue : xCollection) {
+                        final Object match = this.matches.get(xValue);
+                        if (match == null) continue;
+
+                        if (yValues == null) {
+                            yValues = Collections.newSetFromMap(new IdentityHashMap<>());
+                            yValues.addAll(yCollection);
+                        }
+                        if (!yValues.contains(match)) {
+                            return false;
+                        }
+                    }
+                } else if (x != null) {
+                    final Object match = this.matches.get(x);
+                    if (match != null && match != y) {
+                        return false;
+                    }
+                }
             }
-            // System.out.println(" [Contain] <" + xField.name() + ">"); // Spine
+            return true;
+        }
 
-            return e(equalityMap, crossReferences, xFieldValue, yFieldValue) &&
-                areFieldsEqual(equalityMap, crossReferences, x, xFields, y, yFields, n + 1);
+        private Field[] sortedFields(Klass klass) {
+            Field[] fields = this.sortedFields.get(klass);
+            if (fields == null) {
+                // sort fields by name, this way we know we compare the field with the right order
+                fields = klass.fields().toArray(new Field[0]);
+                Arrays.sort(fields, Comparator.comparing(Field::name));
+                this.sortedFields.put(klass, fields);
+            }
+            return fields;
+        }
+
+        private boolean isPrimitiveClass(Class<?> valueClass) {
+            Boolean primitive = this.primitiveClasses.get(valueClass);
+            if (primitive == null) {
+                primitive = primitiveManager.isPrimitiveClass(valueClass);
+                this.primitiveClasses.put(valueClass, primitive);
+            }
+            return primitive;
         }
     }
 
-    private static Object getValueFromField(Object instance, String fieldName, Type fieldType) {
+    /**
+     * Sorts the values of a vector once, the managed objects by their name (if they have one),
+     * in case the vector is a set of managed objects, to compare them in order.
+     * The sort is stable, values with the same name keep their order, values without name come last, in their order.
+     */
+    private static Object[] sortedByName(Collection<?> collection) {
+        final Object[] values = collection.toArray();
+        if (!(values[0] instanceof M)) {
+            return values;
+        }
+
+        final String[] names = new String[values.length];
+        final Integer[] order = new Integer[values.length];
+        for (int i = 0; i < values.length; i++) {
+            names[i] = nameOf(values[i]);
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing((Integer i) -> names[i], Comparator.nullsLast(Comparator.<String>naturalOrder())));
+
+        final Object[] sorted = new Object[values.length];
+        for (int i = 0; i < values.length; i++) {
+            sorted[i] = values[order[i]];
+        }
+        return sorted;
+    }
+
+    private static String nameOf(Object value) {
+        if (MObject.isManaged(value)) {
+            final MObject mObject = MObject.of(value);
+            if (!mObject.__hasField("name")) {
+                return null;
+            }
+            final Object name = mObject._get("name");
+            return name instanceof String ? (String) name : null;
+        }
+        final Object name = ReflectionUtils.getValueFromFieldSafe(value, "name", String.class);
+        return name instanceof String ? (String) name : null;
+    }
+
+    private static Object getValueFromField(Object instance, MObject mObject, Field field) {
         try {
-            return ReflectionUtils.getValueFromField(instance, fieldName, fieldType.classOf());
+            if (mObject != null) {
+                return mObject._get(field.name());
+            }
+            return ReflectionUtils.getValueFromField(instance, field.name(), field.type().classOf());
         } catch (Throwable e) {
             System.err.println("Error on getting field's value: " + e.getCause());
         }
@@ -1,11 +1,50 @@
 package nl.cwi.managed_data_4j.language.utils;
 
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.MObjectFieldMany;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.util.Comparator;
-
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reads and writes the fields of schema objects (e.g. String name(String... name)) by their name.
+ *
+ * The fields of managed objects are accessed directly through the managed object (_get, _set).
+ * Any other object is accessed through method handles that are built once per (class, field name)
+ * and cached by class, thus a call is a single invoke, without method lookup or reflective invocation.
+ *
+ * @author Theologos Zacharopoulos
+ */
 public class ReflectionUtils {
 
+    // the type of the getters: (instance) -> value
+    private static final MethodType GETTER_TYPE = MethodType.methodType(Object.class, Object.class);
+
+    // the type of the setters: (instance, value) -> void
+    private static final MethodType SETTER_TYPE = MethodType.methodType(void.class, Object.class, Object.class);
+
+    // <class, <field name, getter>>
+    private static final ClassValue<Map<String, MethodHandle>> getters = new AccessorCache();
+
+    // <class, <field name, setter>>
+    private static final ClassValue<Map<String, MethodHandle>> setters = new AccessorCache();
+
+    private static final Comparator<Object> fieldNameComparison = (Object o1, Object o2) -> {
+        String o1Name = (String) getValueFromFieldSafe(o1, "name", String.class);
+        String o2Name = (String) getValueFromFieldSafe(o2, "name", String.class);
+
+        if (o1Name != null && o2Name != null) {
+            return o1Name.compareTo(o2Name);
+        }
+        return 0;
+    };
+
     public static Object getValueFromFieldSafe(Object instance, String fieldName, Class<?> fieldType) {
         try {
             return ReflectionUtils.getValueFromField(instance, fieldName, fieldType);
@@ -15,64 +54,36 @@ public class ReflectionUtils {
         return null;
     }
 
+    /**
+     * Gets the value of a field
+     * @param instance the instance of the object to get the field from
+     * @param fieldName the field name of the field
+     * @param fieldType the class of the field
+     * @return the value of the field
+     * @throws Throwable in case of invocation error.
+     */
     public static Object getValueFromField(Object instance, String fieldName, Class<?> fieldType) throws Throwable {
-
-        Method method;
-        try {
-            // try with a method without params
-            method = instance.getClass().getMethod(fieldName);
-        } catch (NoSuchMethodException e) {
-
-            if (fieldType.isArray()) {
-                // if it does not work, get the params.
-                method = instance.getClass().getMethod(fieldName, fieldType);
-            } else {
-                // if it does not work, get the params.
-                Class<?> parameterType = Array.newInstance(fieldType, 0).getClass();
-                method = instance.getClass().getMethod(fieldName, parameterType);
+        if (MObject.isManaged(instance)) {
+            final MObject mObject = MObject.of(instance);
+            if (mObject.__hasField(fieldName)) {
+                return mObject._get(fieldName);
             }
         }
 
-        // needs to be accessible in order to invoke it
-        method.setAccessible(true);
-
-        // in case the method needs parameters, we need to construct the parameter type
-        if (method.getParameters().length > 0) {
-
-            // We need the following in order to invoke the method with this kind of parameter
-            // Get the parameter type, and get the first one
-            final Class<?>[] parameterTypes = method.getParameterTypes();
-            final Class<?> firstParameterType = parameterTypes[0];
-
-            // In case of vargs, make it from array to single type
-            // after, create an empty array of that type, this way we can invoke methods that need
-            // empty vargs as parameters.
-            Object emptyArrayOfFirstParameterType;
-            if (firstParameterType.isArray()) {
-                emptyArrayOfFirstParameterType = Array.newInstance(firstParameterType.getComponentType(), 0);
-            } else {
-                emptyArrayOfFirstParameterType = Array.newInstance(firstParameterType, 0);
-            }
-
-            return method.invoke(instance, emptyArrayOfFirstParameterType);
-        } else {
-            return method.invoke(instance);
+        final Map<String, MethodHandle> classGetters = getters.get(instance.getClass());
+        MethodHandle getter = classGetters.get(fieldName);
+        if (getter == null) {
+            getter = createGetter(instance.getClass(), fieldName, fieldType);
+            classGetters.put(fieldName, getter);
         }
+        return (Object) getter.invokeExact(instance);
     }
 
     /**
      * Helper method, Compare based on the field's name
      */
     public static Comparator<Object> fieldNameComparison() {
-        return (Object o1, Object o2) -> {
-            String o1Name = (String) getValueFromFieldSafe(o1, "name", String.class);
-            String o2Name = (String) getValueFromFieldSafe(o2, "name", String.class);
-
-            if (o1Name != null && o2Name != null) {
-                return o1Name.compareTo(o2Name);
-            }
-            return 0;
-        };
+        return fieldNameComparison;
     }
 
     public static void setValueToFieldSafe(Object instance, String fieldName, Class<?> typeClass, Object value) {
@@ -91,34 +102,100 @@ public class ReflectionUtils {
      * @throws Throwable in case of invocation error.
      */
     public static void setValueToField(Object instance, String fieldName, Class<?> typeClass, Object value)  throws Throwable {
+        if (MObject.isManaged(instance)) {
+            final MObject mObject = MObject.of(instance);
+            if (mObject.__hasField(fieldName)) {
+                // a many-field takes the value as a single element array, like its method.
+                if (mObject._getField(fieldName) instanceof MObjectFieldMany) {
+                    mObject._set(fieldName, new Object[] { value });
+                } else {
+                    mObject._set(fieldName, value);
+                }
+                return;
+            }
+        }
+
+        final Map<String, MethodHandle> classSetters = setters.get(instance.getClass());
+        MethodHandle setter = classSetters.get(fieldName);
+        if (setter == null) {
+            setter = createSetter(instance.getClass(), fieldName, typeClass);
+            classSetters.put(fieldName, setter);
+        }
+        setter.invokeExact(instance, value);
+    }
+
+    /**
+     * Builds the getter of a field, the method of the field without params,
+     * or its varargs method with an empty array of params.
+     * @param type the class of the instances
+     * @param fieldName the field name of the field
+     * @param fieldType the class of the field
+     * @return a handle of type (Object instance)Object
+     * @throws ReflectiveOperationException in case there is no such method.
+     */
+    private static MethodHandle createGetter(Class<?> type, String fieldName, Class<?> fieldType) throws ReflectiveOperationException {
         Method method;
+        try {
+            // try with a method without params
+            method = type.getMethod(fieldName);
+        } catch (NoSuchMethodException e) {
 
-        // Get params method params.
-        Class<?> parameterType = Array.newInstance(typeClass, 0).getClass();
-        method = instance.getClass().getMethod(fieldName, parameterType);
+            if (fieldType.isArray()) {
+                // if it does not work, get the params.
+                method = type.getMethod(fieldName, fieldType);
+            } else {
+                // if it does not work, get the params.
+                Class<?> parameterType = Array.newInstance(fieldType, 0).getClass();
+                method = type.getMethod(fieldName, parameterType);
+            }
+        }
 
         // needs to be accessible in order to invoke it
         method.setAccessible(true);
+        MethodHandle handle = MethodHandles.lookup().unreflect(method);
 
-        // We need the following in order to invoke the method with this kind of parameter
-        // Get the parameter type, and get the first one
-        final Class<?>[] parameterTypes = method.getParameterTypes();
-        final Class<?> firstParameterType = parameterTypes[0];
-
-        // In case of vargs, make it from array to single type
-        // after, create an empty array of that type, this way we can invoke methods that need
-        // empty vargs as parameters.
-        Object arrayOfParameterType;
-        if (firstParameterType.isArray()) {
-            arrayOfParameterType = Array.newInstance(firstParameterType.getComponentType(), 1);
-        } else {
-            arrayOfParameterType = Array.newInstance(firstParameterType, 1);
+        // in case the method needs parameters, bind an empty array of the (varargs) parameter type,
+        // this way we can invoke methods that need empty vargs as parameters.
+        if (method.getParameterCount() > 0) {
+            final Class<?> firstParameterType = method.getParameterTypes()[0];
+            final Object emptyArrayOfFirstParameterType = firstParameterType.isArray()
+                ? Array.newInstance(firstParameterType.getComponentType(), 0)
+                : Array.newInstance(firstParameterType, 0);
+
+            handle = MethodHandles.insertArguments(handle.asFixedArity(), 1, emptyArrayOfFirstParameterType);
         }
+        return handle.asType(GETTER_TYPE);
+    }
+
+    /**
+     * Builds the setter of a field, its varargs method with a single element array of params.
+     * @param type the class of the instances
+     * @param fieldName the field name of the field
+     * @param typeClass the class of the field
+     * @return a handle of type (Object instance, Object value)void
+     * @throws ReflectiveOperationException in case there is no such method.
+     */
+    private static MethodHandle createSetter(Class<?> type, String fieldName, Class<?> typeClass) throws ReflectiveOperationException {
+        final Class<?> parameterType = Array.newInstance(typeClass, 0).getClass();
+        final Method method = type.getMethod(fieldName, parameterType);
+
+        // needs to be accessible in order to invoke it
+        method.setAccessible(true);
 
-        // push the value to the parameter type array.
-        Array.set(arrayOfParameterType, 0, value);
+        // the value is collected into a single element array of the parameter type
+        return MethodHandles.lookup().unreflect(method)
+            .asFixedArity()
+            .asCollector(parameterType, 1)
+            .asType(SETTER_TYPE);
+    }
 
-        // invoke the method to set the field value
-        method.invoke(instance, arrayOfParameterType);
+    /**
+     * The accessors of a class, by field name.
+     */
+    private static final class AccessorCache extends ClassValue<Map<String, MethodHandle>> {
+        @Override
+        protected Map<String, MethodHandle> computeValue(Class<?> type) {
+            return new ConcurrentHashMap<>();
+        }
     }
 }
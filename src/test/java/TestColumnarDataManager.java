@@ -0,0 +1,154 @@
+import nl.cwi.managed_data_4j.framework.SchemaFactoryProvider;
+import nl.cwi.managed_data_4j.language.data_manager.ColumnarDataManager;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.columnar.ColumnarMObject;
+import nl.cwi.managed_data_4j.language.managed_object.columnar.KlassColumns;
+import nl.cwi.managed_data_4j.language.primitives.Primitives;
+import nl.cwi.managed_data_4j.language.schema.boot.SchemaFactory;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaLoader;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+import org.junit.Before;
+import org.junit.Test;
+import test_definition.PersonFactory;
+import test_definition.schemas.Address;
+import test_definition.schemas.Car;
+import test_definition.schemas.Person;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestColumnarDataManager {
+
+    private ColumnarDataManager dataManager;
+    private PersonFactory personFactory;
+    private Klass personKlass;
+
+    @Before
+    public void setup() {
+        final SchemaFactory schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+        final Schema schema = SchemaLoader.load(schemaFactory, Person.class, Address.class, Car.class, Primitives.class);
+
+        dataManager = new ColumnarDataManager();
+        personFactory = dataManager.factory(PersonFactory.class, schema);
+        personKlass = schema.klasses().stream().filter(klass -> klass.name().equals("Person")).findFirst().get();
+    }
+
+    @Test
+    public void fields_Test() {
+        final Person person = personFactory.Person(26, "Alex");
+        assertTrue(MObject.of(person) instanceof ColumnarMObject);
+        assertEquals("Alex", person.name());
+        assertEquals(new Integer(26), person.age());
+
+        person.name("Nick");
+        person.age(null);
+        person.grades(1, 2);
+        person.friends(personFactory.Person(25, "George"));
+        person.value(4.5);
+        assertEquals("Nick", person.name());
+        assertEquals(null, person.age());
+        assertEquals(2, person.grades().size());
+        assertEquals("George", person.friends().get(0).name());
+        assertEquals(4.5, person.value());
+
+        // inverses
+        final Car car = personFactory.Car("Audi");
+        person.cars(car);
+        assertTrue(car.owner() == person);
+        car.owner(null);
+        assertEquals(0, person.cars().size());
+    }
+
+    @Test
+    public void columns_Test() {
+        final List<Person> persons = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            persons.add(personFactory.Person(i, "Person" + i));
+        }
+        persons.get(0).age(null);
+
+        final KlassColumns columns = dataManager.columns(personKlass);
+        assertEquals(100, columns.size());
+
+        // the objects keep their values, after the columns grow
+        for (int i = 0; i < persons.size(); i++) {
+            assertTrue(columns.object(i) == persons.get(i));
+            assertEquals("Person" + i, persons.get(i).name());
+        }
+
+        // the null age is left out
+        assertEquals(99, columns.longs("age").count());
+        assertEquals(4950, columns.longs("age").sum());
+        assertEquals(4950.0, columns.doubles("age").sum(), 0.0);
+    }
+
+    @Test
+    public void unused_objects_Test() throws InterruptedException {
+        final WeakReference<Person> alex = new WeakReference<>(personFactory.Person(26, "Alex"));
+        final KlassColumns columns = dataManager.columns(personKlass);
+
+        // the columns keep the values, not the object, it is opened again by its id
+        collect(alex);
+        assertNull(alex.get());
+        final Person opened = (Person) columns.object(0);
+        assertEquals("Alex", opened.name());
+        assertEquals(new Integer(26), opened.age());
+        assertTrue(columns.object(0) == opened);
+        assertEquals(26, columns.longs("age").sum());
+
+        // the sets of the columns refer to the opened object
+        final Car car = personFactory.Car("Audi");
+        opened.cars().add(car);
+        assertTrue(car.owner() == opened);
+    }
+
+    @Test
+    public void release_Test() {
+        final Person alex = personFactory.Person(26, "Alex");
+        final Person george = personFactory.Person(25, "George");
+        final KlassColumns columns = dataManager.columns(personKlass);
+
+        // the values are dropped, and the id is reused
+        dataManager.release(alex);
+        assertEquals(1, columns.size());
+        assertEquals(25, columns.longs("age").sum());
+
+        final Person nick = personFactory.Person(27, "Nick");
+        assertEquals(0, ((ColumnarMObject) MObject.of(nick)).__id());
+        assertEquals(2, columns.ids());
+        assertEquals("Nick", nick.name());
+        assertEquals("George", george.name());
+        assertEquals(52, columns.longs("age").sum());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void released_object_Test() {
+        final Person alex = personFactory.Person(26, "Alex");
+        dataManager.release(alex);
+        dataManager.columns(personKlass).object(0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void scan_non_numeric_Test() {
+        personFactory.Person(26, "Alex");
+        dataManager.columns(personKlass).longs("name");
+    }
+
+    @Test(expected = NoSuchFieldError.class)
+    public void scan_missing_field_Test() {
+        dataManager.columns(personKlass).longs("height");
+    }
+
+    private static void collect(WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 20 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+    }
+}
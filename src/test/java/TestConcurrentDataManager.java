@@ -0,0 +1,150 @@
+import nl.cwi.examples.state_machine.StateMachineFactory;
+import nl.cwi.examples.state_machine.schemas.Machine;
+import nl.cwi.examples.state_machine.schemas.State;
+import nl.cwi.examples.state_machine.schemas.Transition;
+import nl.cwi.managed_data_4j.framework.SchemaFactoryProvider;
+import nl.cwi.managed_data_4j.language.data_manager.ConcurrentDataManager;
+import nl.cwi.managed_data_4j.language.primitives.Primitives;
+import nl.cwi.managed_data_4j.language.schema.boot.SchemaFactory;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaLoader;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+import org.junit.Before;
+import org.junit.Test;
+import test_definition.PersonFactory;
+import test_definition.schemas.Address;
+import test_definition.schemas.Car;
+import test_definition.schemas.Person;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestConcurrentDataManager {
+
+    private static final int THREADS = 8;
+    private static final int ITERATIONS = 1000;
+
+    private PersonFactory personFactory;
+
+    @Before
+    public void setup() {
+        final SchemaFactory schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+        final Schema personSchema = SchemaLoader.load(
+                schemaFactory, Person.class, Address.class, Car.class, Primitives.class);
+
+        personFactory = new ConcurrentDataManager().factory(PersonFactory.class, personSchema);
+    }
+
+    @Test
+    public void concurrent_many_add_Test() throws Exception {
+        final Person person = personFactory.Person(26, "Alex");
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                person.friends(personFactory.Person(i, "Friend" + thread + "_" + i));
+
+                // iterating while the others add
+                if (i % 100 == 0) {
+                    person.friends().forEach(Person::name);
+                }
+            }
+        });
+
+        assertEquals(THREADS * ITERATIONS, person.friends().size());
+    }
+
+    @Test
+    public void concurrent_inverse_Test() throws Exception {
+        final List<Person> owners = new ArrayList<>();
+        final List<Car> cars = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++) {
+            owners.add(personFactory.Person(i, "Owner" + i));
+            cars.add(personFactory.Car("Car" + i));
+        }
+
+        runConcurrently(thread -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                cars.get((thread + i) % cars.size()).owner(owners.get((thread * i) % owners.size()));
+            }
+        });
+
+        // every car is in the cars of its owner, and only there.
+        int ownedCars = 0;
+        for (Person owner : owners) {
+            for (Car car : owner.cars()) {
+                assertTrue(car.owner() == owner);
+            }
+            ownedCars += owner.cars().size();
+        }
+        assertEquals(cars.size(), ownedCars);
+    }
+
+    @Test
+    public void live_set_Test() {
+        final Person alex = personFactory.Person(26, "Alex");
+        final Car audi = personFactory.Car("Audi");
+
+        // the set of the field is changed, with its inverses
+        assertTrue(alex.cars().add(audi));
+        assertTrue(audi.owner() == alex);
+        assertTrue(alex.cars().contains(audi));
+
+        for (Car car : alex.cars()) {
+            alex.cars().remove(car);
+        }
+        assertTrue(alex.cars().isEmpty());
+        assertNull(audi.owner());
+    }
+
+    @Test
+    public void inverse_list_Test() {
+        final Schema schema = SchemaLoader.load(SchemaFactoryProvider.getSchemaFactory(), Machine.class, State.class, Transition.class);
+        final StateMachineFactory factory = new ConcurrentDataManager().factory(StateMachineFactory.class, schema);
+        final State opened = factory.State();
+        final State closed = factory.State();
+        final Transition close = factory.Transition();
+
+        // the transitions are compared by reference, as in the other data managers
+        close.from(opened);
+        close.from(closed);
+        closed.out(close);
+        assertEquals(0, opened.out().size());
+        assertEquals(1, closed.out().size());
+
+        // iterating while it changes
+        for (Transition transition : closed.out()) {
+            closed.out().remove(transition);
+        }
+        assertTrue(closed.out().isEmpty());
+    }
+
+    private interface Task {
+        void run(int thread) throws Exception;
+    }
+
+    private static void runConcurrently(Task task) throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                final int threadId = thread;
+                futures.add(executor.submit(() -> {
+                    task.run(threadId);
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get(60, TimeUnit.SECONDS);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+import nl.cwi.examples.uml_activity_diagram.examples.TestActivity6;
+import nl.cwi.examples.uml_activity_diagram.helpers.FactoriesProvider;
+import nl.cwi.examples.uml_activity_diagram.schemas.runtime_diagram.runtime_activity.RuntimeActivity;
+import nl.cwi.examples.uml_activity_diagram.schemas.static_diagram.nodes.ActivityNode;
+import nl.cwi.managed_data_4j.framework.SchemaFactoryProvider;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.CopyOnWriteDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.GeneratedDataManager;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.copy_on_write.CopyOnWriteMObject;
+import nl.cwi.managed_data_4j.language.primitives.Primitives;
+import nl.cwi.managed_data_4j.language.schema.boot.SchemaFactory;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaLoader;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+import nl.cwi.managed_data_4j.language.utils.MObjectUtils;
+import org.junit.Before;
+import org.junit.Test;
+import test_definition.PersonFactory;
+import test_definition.schemas.Address;
+import test_definition.schemas.Car;
+import test_definition.schemas.Person;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestCopy {
+
+    private Schema schema;
+    private PersonFactory personFactory;
+    private CopyOnWriteDataManager copyOnWriteDataManager;
+    private PersonFactory copyOnWriteFactory;
+
+    @Before
+    public void setup() {
+        final SchemaFactory schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+        schema = SchemaLoader.load(schemaFactory, Person.class, Address.class, Car.class, Primitives.class);
+
+        personFactory = new BasicDataManager().factory(PersonFactory.class, schema);
+        copyOnWriteDataManager = new CopyOnWriteDataManager();
+        copyOnWriteFactory = copyOnWriteDataManager.factory(PersonFactory.class, schema);
+    }
+
+    @Test
+    public void copy_Test() {
+        final Person alex = person(personFactory);
+        final Person copy = MObjectUtils.copy(alex, new BasicDataManager());
+
+        assertTrue(MObjectUtils.equals(alex, copy));
+        assertFalse(copy == alex);
+        assertFalse(copy.friends().get(0) == alex.friends().get(0));
+
+        // the inverses refer to the copies
+        assertTrue(copy.address().tenant() == copy);
+        assertTrue(copy.cars().iterator().next().owner() == copy);
+        assertTrue(copy.friends().get(0).cars().iterator().next().owner() == copy.friends().get(0));
+
+        // they change apart
+        copy.friends().get(0).name("Martin");
+        copy.cars(personFactory.Car("BMW"));
+        assertEquals("George", alex.friends().get(0).name());
+        assertEquals(1, alex.cars().size());
+    }
+
+    @Test
+    public void copy_generated_Test() {
+        final Person alex = person(personFactory);
+        final GeneratedDataManager generatedDataManager = new GeneratedDataManager();
+        generatedDataManager.factory(PersonFactory.class, schema);
+
+        final Person copy = MObjectUtils.copy(alex, generatedDataManager);
+        assertTrue(MObjectUtils.equals(alex, copy));
+        assertTrue(copy.address().tenant() == copy);
+    }
+
+    @Test
+    public void copy_out_of_spine_Test() {
+        final Person alex = person(personFactory);
+
+        // the tenant is out of the spine of the address, it would not refer back to the copy
+        final Address address = MObjectUtils.copy(alex.address(), new BasicDataManager());
+        assertEquals("Science Park", address.street());
+        assertNull(address.tenant());
+        assertTrue(alex.address().tenant() == alex);
+    }
+
+    @Test
+    public void fork_Test() {
+        final Person alex = person(copyOnWriteFactory);
+        final Person fork = copyOnWriteDataManager.fork(alex);
+
+        assertTrue(MObjectUtils.equals(alex, copyOnWriteDataManager.fork(alex)));
+
+        // the values are shared until a write
+        assertEquals("Alex", fork.name());
+        final Address address = fork.address();
+        assertTrue(shared(fork) && shared(address));
+        assertTrue(address.tenant() == fork);
+
+        address.street("Dam");
+        assertFalse(shared(address));
+        assertTrue(shared(fork));
+        assertEquals("Dam", fork.address().street());
+        assertEquals("Science Park", alex.address().street());
+
+        // the fork changes
+        assertTrue(fork.cars().iterator().next().owner() == fork);
+        final Person george = fork.friends().get(0);
+        george.name("Martin");
+        assertEquals("Martin", george.name());
+        assertEquals("George", alex.friends().get(0).name());
+
+        // the original changes
+        final Person martin = alex.friends().get(1);
+        martin.age(40);
+        assertEquals(Integer.valueOf(22), fork.friends().get(1).age());
+
+        // an inverse of the fork
+        final Car audi = fork.cars().iterator().next();
+        audi.owner(george);
+        assertTrue(fork.cars().isEmpty());
+        assertEquals(2, george.cars().size());
+        assertTrue(alex.cars().iterator().next().owner() == alex);
+    }
+
+    @Test
+    public void fork_isolated_Test() {
+        final Person alex = person(copyOnWriteFactory);
+        final Person george = alex.friends().get(0);
+        final Car fiat = george.cars().iterator().next();
+        final Person fork = copyOnWriteDataManager.fork(alex);
+
+        // the original changes before the copies are created
+        george.name("ChangedAfterFork");
+        fiat.brand("Ferrari");
+        alex.address().street("Dam");
+        alex.friends().remove(1);
+
+        assertEquals("George", fork.friends().get(0).name());
+        assertEquals("Fiat", fork.friends().get(0).cars().iterator().next().brand());
+        assertEquals("Science Park", fork.address().street());
+        assertEquals(2, fork.friends().size());
+        assertEquals("Martin", fork.friends().get(1).name());
+        assertEquals("ChangedAfterFork", alex.friends().get(0).name());
+    }
+
+    @Test
+    public void fork_of_fork_Test() {
+        final Person alex = person(copyOnWriteFactory);
+        final Person fork = copyOnWriteDataManager.fork(alex);
+        final Person forkOfFork = copyOnWriteDataManager.fork(fork);
+
+        fork.name("George");
+        assertEquals("Alex", forkOfFork.name());
+        assertTrue(forkOfFork.address().tenant() == forkOfFork);
+
+        forkOfFork.friends().get(0).name("Martin");
+        assertEquals("George", fork.friends().get(0).name());
+        assertEquals("George", alex.friends().get(0).name());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void fork_other_data_manager_Test() {
+        copyOnWriteDataManager.fork(person(personFactory));
+    }
+
+    @Test
+    public void activity_Test() {
+        final RuntimeActivity activity =
+            (RuntimeActivity) TestActivity6.getActivity(FactoriesProvider.getRuntimeActivityDiagramFactory(new BasicDataManager()));
+        final RuntimeActivity copy = MObjectUtils.copy(activity, new BasicDataManager());
+        assertTrue(MObjectUtils.equals(activity, copy));
+
+        // the copy runs the same way, the activity does not run
+        copy.main(Collections.emptyList());
+        assertTrue(copy.trace().executedNodes().size() > 0);
+        assertNull(activity.trace());
+
+        activity.main(Collections.emptyList());
+        assertEquals(names(activity.trace().executedNodes()), names(copy.trace().executedNodes()));
+    }
+
+    @Test
+    public void fork_activity_Test() {
+        final CopyOnWriteDataManager dataManager = new CopyOnWriteDataManager();
+        final RuntimeActivity activity =
+            (RuntimeActivity) TestActivity6.getActivity(FactoriesProvider.getRuntimeActivityDiagramFactory(dataManager));
+        final RuntimeActivity fork = dataManager.fork(activity);
+
+        // the fork runs the same way, the activity does not run
+        fork.main(Collections.emptyList());
+        assertTrue(fork.trace().executedNodes().size() > 0);
+        assertNull(activity.trace());
+
+        activity.main(Collections.emptyList());
+        assertEquals(names(activity.trace().executedNodes()), names(fork.trace().executedNodes()));
+    }
+
+    // a person with two friends, an address and a car, the first friend has a car too.
+    private static Person person(PersonFactory factory) {
+        final Person person = factory.Person(24, "Alex");
+        person.grades(8, 9);
+        person.friends(factory.Person(20, "George"), factory.Person(22, "Martin"));
+        person.friends().get(0).cars(factory.Car("Fiat"));
+        person.address(factory.Address("Amsterdam", 242, "Science Park"));
+        person.cars(factory.Car("Audi"));
+        return person;
+    }
+
+    private static boolean shared(Object object) {
+        return ((CopyOnWriteMObject) MObject.of(object)).__isShared();
+    }
+
+    private static List<String> names(List<ActivityNode> nodes) {
+        return nodes.stream().map(ActivityNode::name).collect(Collectors.toList());
+    }
+}
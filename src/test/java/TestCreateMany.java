@@ -0,0 +1,147 @@
+import nl.cwi.examples.ccconcerns.patterns.lockable.Lockable;
+import nl.cwi.examples.ccconcerns.patterns.lockable.LockableDataManager;
+import nl.cwi.managed_data_4j.IFactory;
+import nl.cwi.managed_data_4j.M;
+import nl.cwi.managed_data_4j.framework.SchemaFactoryProvider;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.GeneratedDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.IDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.PoolingDataManager;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.pooling.Releasable;
+import nl.cwi.managed_data_4j.language.primitives.Primitives;
+import nl.cwi.managed_data_4j.language.schema.boot.SchemaFactory;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaLoader;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+import org.junit.Before;
+import org.junit.Test;
+import test_definition.PersonFactory;
+import test_definition.schemas.Address;
+import test_definition.schemas.Car;
+import test_definition.schemas.Person;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestCreateMany {
+
+    private Schema schema;
+
+    @Before
+    public void setup() {
+        final SchemaFactory schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+        schema = SchemaLoader.load(schemaFactory, Person.class, Address.class, Car.class, Primitives.class);
+    }
+
+    @Test
+    public void proxy_createMany_Test() {
+        createMany(new BasicDataManager());
+    }
+
+    @Test
+    public void generated_createMany_Test() {
+        createMany(new GeneratedDataManager());
+    }
+
+    @Test
+    public void additional_interfaces_createMany_Test() {
+        final LockableDataManager dataManager = new LockableDataManager();
+        dataManager.factory(PersonFactory.class, schema);
+
+        final List<Person> persons = dataManager.createMany(klass("Person"), 2, (person, i) -> person.name("P" + i));
+        ((Lockable) persons.get(0)).lock();
+
+        try {
+            persons.get(0).name("Locked");
+            assertTrue(false);
+        } catch (IllegalStateException e) {
+            assertEquals("P0", persons.get(0).name());
+        }
+        persons.get(1).name("Unlocked");
+        assertEquals("Unlocked", persons.get(1).name());
+    }
+
+    @Test
+    public void without_factory_createMany_Test() {
+        // the interfaces of the data manager do not depend on a factory of the schema
+        final List<Person> persons = new LockableDataManager().createMany(klass("Person"), 2, null);
+        assertTrue(persons.get(0) instanceof Lockable && persons.get(1) instanceof Lockable);
+
+        final List<Person> pooled = new PoolingDataManager().createMany(klass("Person"), 1, null);
+        assertTrue(pooled.get(0) instanceof Releasable);
+    }
+
+    @Test
+    public void default_createMany_Test() {
+        // a data manager that does not implement createMany
+        final BasicDataManager basic = new BasicDataManager();
+        final IDataManager dataManager = new IDataManager() {
+            @Override
+            public <T extends IFactory> T factory(Class<T> factoryClass, Schema schema, Class<?>... additionalInterfaces) {
+                return basic.factory(factoryClass, schema, additionalInterfaces);
+            }
+
+            @Override
+            public M createManagedObject(Klass klass, Object... inits) {
+                return basic.createManagedObject(klass, inits);
+            }
+        };
+
+        final List<Integer> indexes = new ArrayList<>();
+        final List<MObject> persons = dataManager.createMany(klass("Person"), 3, (MObject person, int i) -> indexes.add(i));
+        assertEquals(3, persons.size());
+        assertEquals("Person", persons.get(2).schemaKlass().name());
+        assertEquals(Arrays.asList(0, 1, 2), indexes);
+    }
+
+    @Test
+    public void empty_createMany_Test() {
+        assertTrue(new BasicDataManager().createMany(klass("Person"), 0, null).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void negative_createMany_Test() {
+        new GeneratedDataManager().createMany(klass("Person"), -1, null);
+    }
+
+    private void createMany(IDataManager dataManager) {
+        final List<Person> persons = dataManager.createMany(klass("Person"), 100, (Person person, int i) -> {
+            person.name("Person" + i);
+            person.age(i);
+        });
+        final List<Car> cars = dataManager.createMany(klass("Car"), 100, (Car car, int i) -> {
+            car.brand("Car" + i);
+            car.owner(persons.get(i));
+        });
+
+        assertEquals(100, persons.size());
+        for (int i = 0; i < persons.size(); i++) {
+            final Person person = persons.get(i);
+            assertEquals("Person", person.schemaKlass().name());
+            assertEquals("Person" + i, person.name());
+            assertEquals(new Integer(i), person.age());
+            assertEquals(0, person.friends().size());
+
+            // the inverse of the owner
+            assertEquals(1, person.cars().size());
+            assertTrue(person.cars().iterator().next() == cars.get(i));
+        }
+
+        // without initializer, the default values
+        final List<Person> defaults = dataManager.createMany(klass("Person"), 3, null);
+        assertEquals(3, defaults.size());
+        for (Person person : defaults) {
+            assertEquals("", person.name());
+            assertEquals(0, person.grades().size());
+        }
+    }
+
+    private Klass klass(String name) {
+        return schema.klasses().stream().filter(klass -> klass.name().equals(name)).findFirst().get();
+    }
+}
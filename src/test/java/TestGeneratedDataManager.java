@@ -0,0 +1,144 @@
+import nl.cwi.managed_data_4j.framework.SchemaFactoryProvider;
+import nl.cwi.managed_data_4j.language.data_manager.GeneratedDataManager;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.primitives.Primitives;
+import nl.cwi.managed_data_4j.language.schema.boot.SchemaFactory;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaLoader;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+import org.junit.Before;
+import org.junit.Test;
+import test_definition.APersonFactory;
+import test_definition.PersonFactory;
+import test_definition.data_manager.TestMObject;
+import test_definition.schemas.APerson;
+import test_definition.schemas.Address;
+import test_definition.schemas.Car;
+import test_definition.schemas.Person;
+
+import java.io.Serializable;
+import java.lang.reflect.Proxy;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestGeneratedDataManager {
+
+    private PersonFactory personFactory;
+    private APersonFactory aPersonFactory;
+    private PersonFactory testPersonFactory;
+    private Schema personSchema;
+
+    @Before
+    public void setup() {
+        final SchemaFactory schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+
+        personSchema = SchemaLoader.load(schemaFactory,
+                APerson.class, Person.class, Address.class, Car.class, Primitives.class);
+
+        final GeneratedDataManager generatedDataManager = new GeneratedDataManager();
+        personFactory = generatedDataManager.factory(PersonFactory.class, personSchema);
+        aPersonFactory = generatedDataManager.factory(APersonFactory.class, personSchema);
+
+        final GeneratedDataManager testDataManager = new GeneratedDataManager() {
+            @Override
+            protected Class<? extends MObject> managedObjectClass() {
+                return TestMObject.class;
+            }
+        };
+        testPersonFactory = testDataManager.factory(PersonFactory.class, personSchema);
+    }
+
+    @Test
+    public void generated_not_proxy_Test() {
+        Person person = personFactory.Person(26, "Alex");
+
+        assertFalse(Proxy.isProxyClass(person.getClass()));
+        assertTrue(person instanceof MObject);
+        assertEquals("Person", person.schemaKlass().name());
+        assertEquals("Alex", person.name());
+        assertEquals(new Integer(26), person.age());
+    }
+
+    @Test
+    public void fields_Test() {
+        Person person = personFactory.Person();
+        person.name("Alex");
+        person.grades(1, 2);
+        person.friends(personFactory.Person(25, "George"), personFactory.Person(27, "Nick"));
+        person.cars(personFactory.Car("Tesla"), personFactory.Car("Ford"));
+
+        assertEquals("Alex", person.name());
+        assertEquals(2, person.grades().size());
+        assertEquals(2, person.friends().size());
+        assertEquals(2, person.cars().size());
+
+        person.name(null);
+        person.grades(null);
+        assertEquals(null, person.name());
+        assertEquals(0, person.grades().size());
+    }
+
+    @Test
+    public void structure_inverse_Test() {
+        Person person = personFactory.Person(26, "Alex");
+        Address address = personFactory.Address("Amsterdam", 242, "Science Park");
+        address.tenant(person);
+
+        assertEquals(address, person.address());
+
+        Car car = personFactory.Car("Tesla");
+        car.owner(person);
+        assertEquals(1, person.cars().size());
+
+        car.owner(personFactory.Person(25, "George"));
+        assertEquals(0, person.cars().size());
+    }
+
+    @Test
+    public void default_method_invocation_Test() {
+        Person person = personFactory.Person();
+        person.name("Alex");
+        assertEquals("__Alex__", person.getNameWithFormat());
+
+        APerson aPerson = aPersonFactory.Person();
+        aPerson.name("Alex");
+        assertEquals("%%Alex%%", aPerson.getNameWithFormat());
+    }
+
+    @Test
+    public void additional_interfaces_Test() {
+        final GeneratedDataManager dataManager = new GeneratedDataManager() {
+            @Override
+            protected Class<?>[] additionalInterfaces() {
+                return new Class<?>[]{ Serializable.class };
+            }
+        };
+        final Klass personKlass = personSchema.klasses().stream()
+            .filter(klass -> klass.name().equals("Person")).findFirst().get();
+
+        // the objects that are created without a factory have the interfaces of the data manager as well
+        final List<Person> persons = dataManager.createMany(personKlass, 1, null);
+        assertTrue(persons.get(0) instanceof Serializable);
+        assertTrue(dataManager.createManagedObject(personKlass) instanceof Serializable);
+
+        final Person person = dataManager.factory(PersonFactory.class, personSchema).Person(26, "Alex");
+        assertTrue(person instanceof Serializable);
+        assertTrue(person.getClass() == persons.get(0).getClass());
+    }
+
+    @Test
+    public void data_manager_hooks_Test() {
+        Person person = testPersonFactory.Person();
+        person.value(44);
+        person.age(44);
+
+        assertEquals(44 * 2, person.value());
+        assertEquals(new Integer(666), person.age());
+
+        assertEquals("NewName", person.justReturnWhatYouGet("NewName"));
+        assertEquals("NewName1", person.name());
+    }
+}
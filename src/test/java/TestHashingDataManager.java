@@ -0,0 +1,186 @@
+import nl.cwi.managed_data_4j.framework.SchemaFactoryProvider;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.HashingDataManager;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.hashing.Fingerprinted;
+import nl.cwi.managed_data_4j.language.managed_object.hashing.HashedMObject;
+import nl.cwi.managed_data_4j.language.primitives.Primitives;
+import nl.cwi.managed_data_4j.language.schema.boot.SchemaFactory;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaLoader;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+import nl.cwi.managed_data_4j.language.utils.GraphKey;
+import nl.cwi.managed_data_4j.language.utils.MObjectUtils;
+import org.junit.Before;
+import org.junit.Test;
+import test_definition.PersonFactory;
+import test_definition.schemas.Address;
+import test_definition.schemas.Car;
+import test_definition.schemas.Person;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestHashingDataManager {
+
+    private PersonFactory basicFactory;
+    private PersonFactory hashingFactory;
+
+    @Before
+    public void setup() {
+        final SchemaFactory schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+        final Schema schema = SchemaLoader.load(schemaFactory, Person.class, Address.class, Car.class, Primitives.class);
+
+        basicFactory = new BasicDataManager().factory(PersonFactory.class, schema);
+        hashingFactory = new HashingDataManager().factory(PersonFactory.class, schema);
+    }
+
+    @Test
+    public void hash_Test() {
+        final Person basic = person(basicFactory, "Alex");
+        final Person hashing = person(hashingFactory, "Alex");
+
+        // equal graphs of any data manager, the same hash
+        assertTrue(MObjectUtils.equals(basic, hashing));
+        assertEquals(MObjectUtils.hash(basic), MObjectUtils.hash(hashing));
+        assertEquals(MObjectUtils.hash(basic), ((Fingerprinted) hashing).fingerprint());
+
+        // the same in every run
+        assertEquals(STABLE_HASH, MObjectUtils.hash(basic));
+
+        // other values of the spine, other hash
+        assertTrue(MObjectUtils.hash(basic) != MObjectUtils.hash(person(basicFactory, "George")));
+    }
+
+    @Test
+    public void fingerprint_Test() {
+        final Person person = person(hashingFactory, "Alex");
+        final Person george = person.friends().get(0);
+        final Person martin = person.friends().get(1);
+        final long fingerprint = ((Fingerprinted) person).fingerprint();
+
+        // kept until a change
+        assertTrue(hashed(person) && hashed(george) && hashed(martin));
+        assertEquals(fingerprint, ((Fingerprinted) person).fingerprint());
+
+        // a change drops the hashes of the object and of its containers only
+        george.age(21);
+        assertFalse(hashed(george) || hashed(person));
+        assertTrue(hashed(martin));
+        assertTrue(fingerprint != ((Fingerprinted) person).fingerprint());
+        assertEquals(MObjectUtils.hash(copy(person)), ((Fingerprinted) person).fingerprint());
+
+        george.age(20);
+        assertEquals(fingerprint, ((Fingerprinted) person).fingerprint());
+    }
+
+    @Test
+    public void fingerprint_many_Test() {
+        final Person person = person(hashingFactory, "Alex");
+        final Person george = person.friends().get(0);
+        final long fingerprint = ((Fingerprinted) person).fingerprint();
+
+        // a change directly through the collections
+        george.grades().add(10);
+        assertFalse(hashed(person));
+        assertEquals(MObjectUtils.hash(copy(person)), ((Fingerprinted) person).fingerprint());
+
+        george.grades().remove(Integer.valueOf(10));
+        assertEquals(fingerprint, ((Fingerprinted) person).fingerprint());
+
+        // an inverse, the car moves from the cars of alex to the cars of george
+        final Car car = person.cars().iterator().next();
+        car.owner(george);
+        assertFalse(hashed(person));
+        assertEquals(MObjectUtils.hash(copy(person)), ((Fingerprinted) person).fingerprint());
+        assertTrue(person.cars().isEmpty());
+
+        car.owner(person);
+        assertEquals(fingerprint, ((Fingerprinted) person).fingerprint());
+    }
+
+    @Test
+    public void equals_Test() {
+        final Person alex = person(hashingFactory, "Alex");
+        final Person george = person(hashingFactory, "George");
+
+        assertTrue(((Fingerprinted) alex).fingerprint() != ((Fingerprinted) george).fingerprint());
+        assertFalse(MObjectUtils.equals(alex, george));
+
+        george.name("Alex");
+        assertEquals(((Fingerprinted) alex).fingerprint(), ((Fingerprinted) george).fingerprint());
+        assertTrue(MObjectUtils.equals(alex, george));
+    }
+
+    @Test
+    public void graph_key_Test() {
+        final Map<GraphKey, String> cache = new HashMap<>();
+        cache.put(new GraphKey(person(basicFactory, "Alex")), "Alex");
+        cache.put(new GraphKey(person(hashingFactory, "George")), "George");
+
+        assertEquals("Alex", cache.get(new GraphKey(person(hashingFactory, "Alex"))));
+        assertEquals("George", cache.get(new GraphKey(person(basicFactory, "George"))));
+        assertEquals(null, cache.get(new GraphKey(person(basicFactory, "Martin"))));
+    }
+
+    @Test
+    public void deep_spine_Test() {
+        Person first = hashingFactory.Person(0, "Alex");
+        for (int i = 1; i < 100000; i++) {
+            final Person person = hashingFactory.Person(i, "Person" + i);
+            person.friends(first);
+            first = person;
+        }
+        final long fingerprint = ((Fingerprinted) first).fingerprint();
+        assertEquals(fingerprint, ((Fingerprinted) first).fingerprint());
+    }
+
+    @Test
+    public void spine_cycle_Test() {
+        final Person person = hashingFactory.Person(24, "Alex");
+        final Person friend = hashingFactory.Person(20, "George");
+        person.friends(friend);
+        friend.friends(person);
+
+        // not kept, the hash of a cycle depends on where it starts
+        final long fingerprint = ((Fingerprinted) person).fingerprint();
+        assertFalse(hashed(person) || hashed(friend));
+        assertEquals(fingerprint, ((Fingerprinted) person).fingerprint());
+    }
+
+    // the hash of the graph of person(factory, "Alex"), in any run.
+    private static final long STABLE_HASH = -861855971284957529L;
+
+    // a person with two friends, an address and a car.
+    private static Person person(PersonFactory factory, String name) {
+        final Person person = factory.Person(24, name);
+        person.grades(8, 9);
+        person.friends(factory.Person(20, "George"), factory.Person(22, "Martin"));
+        person.address(factory.Address("Amsterdam", 242, "Science Park"));
+        person.cars(factory.Car("Audi"));
+        return person;
+    }
+
+    // a copy of a person of person(...), with a basic data manager.
+    private Person copy(Person person) {
+        final Person copy = basicFactory.Person(person.age(), person.name());
+        copy.grades(person.grades().toArray(new Integer[0]));
+        for (Person friend : person.friends()) {
+            final Person friendCopy = basicFactory.Person(friend.age(), friend.name());
+            friendCopy.grades(friend.grades().toArray(new Integer[0]));
+            friendCopy.cars(friend.cars().stream().map(car -> basicFactory.Car(car.brand())).toArray(Car[]::new));
+            copy.friends(friendCopy);
+        }
+        final Address address = person.address();
+        copy.address(basicFactory.Address(address.city(), address.number(), address.street()));
+        copy.cars(person.cars().stream().map(car -> basicFactory.Car(car.brand())).toArray(Car[]::new));
+        return copy;
+    }
+
+    private static boolean hashed(Object object) {
+        return ((HashedMObject) MObject.of(object)).__isHashed();
+    }
+}
@@ -0,0 +1,230 @@
+import nl.cwi.managed_data_4j.framework.SchemaFactoryProvider;
+import nl.cwi.managed_data_4j.language.data_manager.MappedDataManager;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.mapped.MappedMObject;
+import nl.cwi.managed_data_4j.language.primitives.Primitives;
+import nl.cwi.managed_data_4j.language.schema.boot.SchemaFactory;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaLoader;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import test_definition.PersonFactory;
+import test_definition.schemas.Address;
+import test_definition.schemas.Car;
+import test_definition.schemas.Person;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.RandomAccessFile;
+import java.lang.ref.WeakReference;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestMappedDataManager {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Schema schema;
+    private Klass personKlass;
+    private Klass carKlass;
+    private Path directory;
+
+    @Before
+    public void setup() throws IOException {
+        final SchemaFactory schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+        schema = SchemaLoader.load(schemaFactory, Person.class, Address.class, Car.class, Primitives.class);
+        personKlass = klass("Person");
+        carKlass = klass("Car");
+        directory = folder.newFolder("model").toPath();
+    }
+
+    @Test
+    public void fields_Test() throws IOException {
+        try (MappedDataManager dataManager = new MappedDataManager(directory, schema)) {
+            final PersonFactory personFactory = dataManager.factory(PersonFactory.class, schema);
+
+            final Person person = personFactory.Person(26, "Alex");
+            assertTrue(MObject.of(person) instanceof MappedMObject);
+            assertEquals("Alex", person.name());
+            assertEquals(new Integer(26), person.age());
+
+            person.name("Nick");
+            person.age(null);
+            person.grades(1, 2);
+            person.friends(personFactory.Person(25, "George"));
+            person.value(4.5);
+            assertEquals("Nick", person.name());
+            assertEquals(null, person.age());
+            assertEquals(2, person.grades().size());
+            assertEquals("George", person.friends().get(0).name());
+            assertEquals(4.5, person.value());
+
+            // inverses
+            final Car car = personFactory.Car("Audi");
+            person.cars(car);
+            assertTrue(car.owner() == person);
+            car.owner(null);
+            assertEquals(0, person.cars().size());
+        }
+    }
+
+    @Test
+    public void reopen_Test() throws IOException {
+        try (MappedDataManager dataManager = new MappedDataManager(directory, schema)) {
+            final PersonFactory personFactory = dataManager.factory(PersonFactory.class, schema);
+
+            final Person alex = personFactory.Person(26, "Alex");
+            final Person george = personFactory.Person(25, "George");
+            alex.grades(7, 8, 9);
+            alex.friends(george);
+            alex.value("value");
+            alex.cars(personFactory.Car("Audi"), personFactory.Car("BMW"));
+            george.age(null);
+            george.value(Arrays.class);
+        }
+
+        try (MappedDataManager dataManager = new MappedDataManager(directory, schema)) {
+            assertEquals(2, dataManager.size(personKlass));
+            assertEquals(2, dataManager.size(carKlass));
+
+            final List<Person> persons = dataManager.objects(personKlass);
+            final Person alex = persons.get(0);
+            final Person george = persons.get(1);
+            assertEquals("Alex", alex.name());
+            assertEquals(new Integer(26), alex.age());
+            assertEquals(Arrays.asList(7, 8, 9), alex.grades());
+            assertEquals("value", alex.value());
+            assertEquals(null, george.age());
+            assertEquals(Arrays.class, george.value());
+
+            // a single object per record
+            assertTrue(alex.friends().get(0) == george);
+            assertTrue(dataManager.object(personKlass, 0) == alex);
+
+            // references and inverses
+            assertEquals(2, alex.cars().size());
+            for (Car car : alex.cars()) {
+                assertTrue(car.owner() == alex);
+            }
+
+            // changes after reopening
+            final PersonFactory personFactory = dataManager.factory(PersonFactory.class, schema);
+            alex.name("Alexander");
+            alex.grades(10);
+            george.cars(personFactory.Car("Fiat"));
+        }
+
+        try (MappedDataManager dataManager = new MappedDataManager(directory, schema)) {
+            final Person alex = dataManager.<Person>objects(personKlass).get(0);
+            final Person george = dataManager.<Person>objects(personKlass).get(1);
+            assertEquals("Alexander", alex.name());
+            assertEquals(Arrays.asList(7, 8, 9, 10), alex.grades());
+            assertEquals(3, dataManager.size(carKlass));
+            assertEquals("Fiat", george.cars().iterator().next().brand());
+            assertTrue(george.cars().iterator().next().owner() == george);
+        }
+    }
+
+    @Test
+    public void heap_reuse_Test() throws IOException {
+        try (MappedDataManager dataManager = new MappedDataManager(directory, schema)) {
+            final PersonFactory personFactory = dataManager.factory(PersonFactory.class, schema);
+            final Person alex = personFactory.Person(26, "Alex");
+            final Person george = personFactory.Person(25, "George");
+
+            // the values that fit are written in the blocks of the old values
+            for (int i = 0; i < 20000; i++) {
+                alex.name("Alex " + i % 1000);
+            }
+            for (int i = 0; i < 1000; i++) {
+                alex.friends(george);
+                dataManager.flush();
+                alex.friends().clear();
+                dataManager.flush();
+            }
+            alex.friends(george);
+        }
+        assertEquals(1 << 16, Files.size(directory.resolve("heap")));
+
+        try (MappedDataManager dataManager = new MappedDataManager(directory, schema)) {
+            final Person alex = dataManager.<Person>objects(personKlass).get(0);
+            assertEquals("Alex 999", alex.name());
+            assertEquals("George", alex.friends().get(0).name());
+        }
+    }
+
+    @Test
+    public void unused_objects_Test() throws IOException, InterruptedException {
+        try (MappedDataManager dataManager = new MappedDataManager(directory, schema)) {
+            final WeakReference<Person> alex = new WeakReference<>(alexWithFriend(dataManager.factory(PersonFactory.class, schema)));
+
+            // kept until its friends are flushed, then it is opened again when it is reached
+            collect(alex);
+            assertTrue(alex.get() != null);
+            dataManager.flush();
+            collect(alex);
+            assertNull(alex.get());
+
+            final Person reopened = dataManager.<Person>objects(personKlass).get(0);
+            assertEquals("Alex", reopened.name());
+            assertEquals("George", reopened.friends().get(0).name());
+        }
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void missing_object_Test() throws IOException {
+        try (MappedDataManager dataManager = new MappedDataManager(directory, schema)) {
+            dataManager.object(personKlass, 0);
+        }
+    }
+
+    @Test(expected = IOException.class)
+    public void invalid_heap_Test() throws IOException {
+        Files.write(directory.resolve("heap"), new byte[] { 1, 2, 3, 4 });
+        new MappedDataManager(directory, schema).close();
+    }
+
+    @Test(expected = UncheckedIOException.class)
+    public void layout_mismatch_Test() throws IOException {
+        try (MappedDataManager dataManager = new MappedDataManager(directory, schema)) {
+            dataManager.factory(PersonFactory.class, schema).Person(26, "Alex");
+        }
+
+        // another hash of the fields of Person
+        try (RandomAccessFile file = new RandomAccessFile(directory.resolve("Person.klass").toFile(), "rw")) {
+            file.seek(8);
+            file.writeInt(42);
+        }
+
+        try (MappedDataManager dataManager = new MappedDataManager(directory, schema)) {
+            dataManager.size(personKlass);
+        }
+    }
+
+    private static Person alexWithFriend(PersonFactory personFactory) {
+        final Person alex = personFactory.Person(26, "Alex");
+        alex.friends(personFactory.Person(25, "George"));
+        return alex;
+    }
+
+    private static void collect(WeakReference<?> reference) throws InterruptedException {
+        for (int i = 0; i < 20 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+    }
+
+    private Klass klass(String name) {
+        return schema.klasses().stream().filter(klass -> klass.name().equals(name)).findFirst().get();
+    }
+}
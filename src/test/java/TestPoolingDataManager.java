@@ -0,0 +1,153 @@
+import nl.cwi.examples.uml_activity_diagram.examples.TestActivity6;
+import nl.cwi.examples.uml_activity_diagram.helpers.FactoriesProvider;
+import nl.cwi.examples.uml_activity_diagram.schemas.runtime_diagram.runtime_activity.RuntimeActivity;
+import nl.cwi.examples.uml_activity_diagram.schemas.static_diagram.nodes.ActivityNode;
+import nl.cwi.managed_data_4j.framework.SchemaFactoryProvider;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.IDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.PoolingDataManager;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.managed_object.pooling.Releasable;
+import nl.cwi.managed_data_4j.language.primitives.Primitives;
+import nl.cwi.managed_data_4j.language.schema.boot.SchemaFactory;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaLoader;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+import org.junit.Before;
+import org.junit.Test;
+import test_definition.PersonFactory;
+import test_definition.schemas.Address;
+import test_definition.schemas.Car;
+import test_definition.schemas.Person;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestPoolingDataManager {
+
+    private Schema schema;
+    private PoolingDataManager dataManager;
+    private PersonFactory personFactory;
+
+    @Before
+    public void setup() {
+        final SchemaFactory schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+        schema = SchemaLoader.load(schemaFactory, Person.class, Address.class, Car.class, Primitives.class);
+
+        dataManager = new PoolingDataManager();
+        personFactory = dataManager.factory(PersonFactory.class, schema);
+    }
+
+    @Test
+    public void recycle_Test() {
+        final Person person = personFactory.Person(26, "Alex");
+        person.grades(1, 2, 3);
+        person.friends(personFactory.Person(25, "George"));
+
+        ((Releasable) person).release();
+        assertEquals(1, dataManager.pool().size(person.schemaKlass()));
+
+        // the released object, with the default values
+        final Person recycled = personFactory.Person();
+        assertTrue(recycled == person);
+        assertEquals(0, dataManager.pool().size(person.schemaKlass()));
+        assertEquals("", recycled.name());
+        assertEquals(new Integer(0), recycled.age());
+        assertEquals(0, recycled.grades().size());
+        assertEquals(0, recycled.friends().size());
+
+        // a new object
+        assertFalse(personFactory.Person() == person);
+    }
+
+    @Test
+    public void recycle_with_initializers_Test() {
+        final Person person = personFactory.Person(26, "Alex");
+        ((Releasable) person).release();
+
+        final Person recycled = personFactory.Person(30, "Nick");
+        assertTrue(recycled == person);
+        assertEquals("Nick", recycled.name());
+        assertEquals(new Integer(30), recycled.age());
+    }
+
+    @Test
+    public void release_detaches_inverses_Test() {
+        final Person person = personFactory.Person(26, "Alex");
+        final Car audi = personFactory.Car("Audi");
+        final Car ford = personFactory.Car("Ford");
+        person.cars(audi, ford);
+        assertTrue(audi.owner() == person);
+
+        // a released owner
+        ((Releasable) person).release();
+        assertEquals(null, audi.owner());
+        assertEquals(null, ford.owner());
+
+        // a released car
+        final Person other = personFactory.Person(30, "Nick");
+        other.cars(audi, ford);
+        ((Releasable) audi).release();
+        assertEquals(1, other.cars().size());
+        assertTrue(other.cars().iterator().next() == ford);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void release_twice_Test() {
+        final Person person = personFactory.Person(26, "Alex");
+        ((Releasable) person).release();
+        ((Releasable) person).release();
+    }
+
+    @Test
+    public void capacity_Test() {
+        final PoolingDataManager noPoolDataManager = new PoolingDataManager(0);
+        final PersonFactory noPoolFactory = noPoolDataManager.factory(PersonFactory.class, schema);
+
+        final Person person = noPoolFactory.Person(26, "Alex");
+        ((Releasable) person).release();
+        assertEquals(0, noPoolDataManager.pool().size(person.schemaKlass()));
+        assertFalse(noPoolFactory.Person() == person);
+    }
+
+    @Test
+    public void activity_Test() {
+        final int[] offers = new int[2];
+        final List<String> nodes = run(new BasicDataManager() {
+            @Override
+            public MObject createManagedObject(Klass klass, Object... inits) {
+                if (klass.name().equals("Offer")) offers[0]++;
+                return super.createManagedObject(klass, inits);
+            }
+        });
+        final PoolingDataManager poolingDataManager = new PoolingDataManager() {
+            @Override
+            public MObject createManagedObject(Klass klass, Object... inits) {
+                if (klass.name().equals("Offer")) offers[1]++;
+                return super.createManagedObject(klass, inits);
+            }
+        };
+
+        // the activity runs the same way, with the taken offers recycled
+        assertEquals(nodes, run(poolingDataManager));
+        assertTrue(offers[1] > 0 && offers[1] < offers[0]);
+    }
+
+    // runs an activity with the objects of a data manager, returns the names of the executed nodes.
+    private static List<String> run(IDataManager dataManager) {
+        FactoriesProvider.useDataManager(dataManager);
+        try {
+            final RuntimeActivity activity =
+                (RuntimeActivity) TestActivity6.getActivity(FactoriesProvider.getRuntimeActivityDiagramFactory());
+            activity.main(Collections.emptyList());
+            return activity.trace().executedNodes().stream().map(ActivityNode::name).collect(Collectors.toList());
+        } finally {
+            FactoriesProvider.useDataManager(new BasicDataManager());
+        }
+    }
+}
@@ -0,0 +1,85 @@
+import nl.cwi.managed_data_4j.framework.SchemaFactoryProvider;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.GeneratedDataManager;
+import nl.cwi.managed_data_4j.language.primitives.Primitives;
+import nl.cwi.managed_data_4j.language.schema.boot.SchemaFactory;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaLoader;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+import org.junit.Before;
+import org.junit.Test;
+import test_definition.AccountFactory;
+import test_definition.schemas.Account;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestPrimitiveFields {
+
+    private AccountFactory proxyFactory;
+    private AccountFactory generatedFactory;
+
+    @Before
+    public void setup() {
+        final SchemaFactory schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+        final Schema accountSchema = SchemaLoader.load(schemaFactory, Account.class, Primitives.class);
+
+        proxyFactory = new BasicDataManager().factory(AccountFactory.class, accountSchema);
+        generatedFactory = new GeneratedDataManager().factory(AccountFactory.class, accountSchema);
+    }
+
+    @Test
+    public void default_values_Test() {
+        for (AccountFactory factory : new AccountFactory[] { proxyFactory, generatedFactory }) {
+            Account account = factory.Account();
+
+            assertEquals(0, account.balance());
+            assertEquals(0L, account.total());
+            assertEquals(0., account.rate(), 0.);
+            assertEquals(0.f, account.fee(), 0.f);
+            assertFalse(account.open());
+            assertEquals(new Integer(0), account.visits());
+        }
+    }
+
+    @Test
+    public void set_get_Test() {
+        for (AccountFactory factory : new AccountFactory[] { proxyFactory, generatedFactory }) {
+            Account account = factory.Account(-5, 1.5f, true, 0.25, Long.MAX_VALUE, 1000);
+
+            assertEquals(-5, account.balance());
+            assertEquals(1.5f, account.fee(), 0.f);
+            assertTrue(account.open());
+            assertEquals(0.25, account.rate(), 0.);
+            assertEquals(Long.MAX_VALUE, account.total());
+            assertEquals(new Integer(1000), account.visits());
+
+            account.balance(100000);
+            account.rate(-1.75);
+            account.open(false);
+            account.visits(2000);
+
+            assertEquals(100000, account.balance());
+            assertEquals(-1.75, account.rate(), 0.);
+            assertFalse(account.open());
+            assertEquals(new Integer(2000), account.visits());
+            assertEquals(100010, account.deposit(10));
+
+            account.visits((Integer) null);
+            assertNull(account.visits());
+        }
+    }
+
+    @Test
+    public void boxed_values_Test() {
+        for (AccountFactory factory : new AccountFactory[] { proxyFactory, generatedFactory }) {
+            final Account account = factory.Account();
+
+            // a field of a boxed type returns the box that it is given, it is not boxed again
+            final Integer visits = 100000;
+            account.visits(visits);
+            assertTrue(account.visits() == visits);
+        }
+    }
+}
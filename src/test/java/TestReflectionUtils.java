@@ -0,0 +1,107 @@
+import nl.cwi.managed_data_4j.framework.SchemaFactoryProvider;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.GeneratedDataManager;
+import nl.cwi.managed_data_4j.language.primitives.Primitives;
+import nl.cwi.managed_data_4j.language.schema.boot.SchemaFactory;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaLoader;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+import nl.cwi.managed_data_4j.language.utils.ReflectionUtils;
+import org.junit.Before;
+import org.junit.Test;
+import test_definition.PersonFactory;
+import test_definition.schemas.Address;
+import test_definition.schemas.Car;
+import test_definition.schemas.Person;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestReflectionUtils {
+
+    private PersonFactory proxyFactory;
+    private PersonFactory generatedFactory;
+
+    @Before
+    public void setup() {
+        final SchemaFactory schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+        final Schema personSchema = SchemaLoader.load(
+                schemaFactory, Person.class, Address.class, Car.class, Primitives.class);
+
+        proxyFactory = new BasicDataManager().factory(PersonFactory.class, personSchema);
+        generatedFactory = new GeneratedDataManager().factory(PersonFactory.class, personSchema);
+    }
+
+    @Test
+    public void managed_object_get_set_Test() throws Throwable {
+        for (PersonFactory factory : new PersonFactory[] { proxyFactory, generatedFactory }) {
+            final Person person = factory.Person(26, "Alex");
+            final Person friend = factory.Person(27, "Nick");
+
+            assertEquals("Alex", ReflectionUtils.getValueFromField(person, "name", String.class));
+            assertEquals(26, ReflectionUtils.getValueFromField(person, "age", Integer.class));
+
+            ReflectionUtils.setValueToField(person, "name", String.class, "George");
+            assertEquals("George", person.name());
+
+            // a many-field gets the value added
+            ReflectionUtils.setValueToField(person, "friends", Person.class, friend);
+            assertEquals(1, person.friends().size());
+            assertTrue(friend == person.friends().get(0));
+        }
+    }
+
+    @Test
+    public void plain_object_get_set_Test() throws Throwable {
+        final Plain plain = new Plain();
+
+        ReflectionUtils.setValueToField(plain, "name", String.class, "Alex");
+        ReflectionUtils.setValueToField(plain, "count", int.class, 3);
+
+        assertEquals("Alex", ReflectionUtils.getValueFromField(plain, "name", String.class));
+        assertEquals(3, ReflectionUtils.getValueFromField(plain, "count", int.class));
+
+        // the cached accessors are used by the next calls
+        ReflectionUtils.setValueToField(plain, "name", String.class, "Nick");
+        assertEquals("Nick", ReflectionUtils.getValueFromField(new Plain().copy(plain), "name", String.class));
+    }
+
+    @Test
+    public void field_name_comparison_Test() {
+        final List<Object> persons = new ArrayList<>(Arrays.asList(
+            proxyFactory.Person(1, "Nick"),
+            generatedFactory.Person(2, "Alex"),
+            proxyFactory.Person(3, "George")));
+
+        persons.sort(ReflectionUtils.fieldNameComparison());
+
+        assertEquals("Alex", ((Person) persons.get(0)).name());
+        assertEquals("George", ((Person) persons.get(1)).name());
+        assertEquals("Nick", ((Person) persons.get(2)).name());
+    }
+
+    // a schema-like object which is not managed.
+    public static class Plain {
+        private String name;
+        private int count;
+
+        public String name(String... name) {
+            if (name.length > 0) this.name = name[0];
+            return this.name;
+        }
+
+        public int count(int... count) {
+            if (count.length > 0) this.count = count[0];
+            return this.count;
+        }
+
+        public Plain copy(Plain other) {
+            this.name = other.name;
+            this.count = other.count;
+            return this;
+        }
+    }
+}
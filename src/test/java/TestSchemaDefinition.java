@@ -1,5 +1,6 @@
 import nl.cwi.managed_data_4j.framework.SchemaFactoryProvider;
 import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.managed_object.managed_object_field.many.IndexedList;
 import nl.cwi.managed_data_4j.language.primitives.Primitives;
 import nl.cwi.managed_data_4j.language.schema.boot.SchemaFactory;
 import nl.cwi.managed_data_4j.language.schema.load.SchemaLoader;
@@ -13,7 +14,9 @@ import test_definition.schemas.Address;
 import test_definition.schemas.Car;
 import test_definition.schemas.Person;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 import java.util.Set;
 
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -301,4 +304,80 @@ public class TestSchemaDefinition {
         assertEquals("%%Alex%%", person.getNameWithFormat());
         assertEquals("Hello", person.justReturnWhatYouGet("Hello"));
     }
+
+    @Test
+    public void many_list_membership_Test() {
+        Person person = personFactory.Person();
+        Person friend = personFactory.Person(25, "George");
+        Person otherFriend = personFactory.Person(27, "Nick");
+
+        person.friends(friend, otherFriend, friend);
+        assertEquals(2, person.friends().size());
+        assertTrue(person.friends().contains(friend));
+
+        person.friends().remove(friend);
+        assertEquals(1, person.friends().size());
+        assertTrue(otherFriend == person.friends().get(0));
+
+        person.grades(1, 2, 2);
+        assertEquals(2, person.grades().size());
+    }
+
+    @Test
+    public void many_list_holes_Test() {
+        final List<Integer> list = new IndexedList<>(false);
+        final List<Integer> expected = new ArrayList<>();
+        final Random random = new Random(42);
+
+        // removes at random leave holes, the positional reads skip them
+        for (int i = 0; i < 2000; i++) {
+            final int value = random.nextInt(500);
+            if (expected.isEmpty() || random.nextInt(3) > 0) {
+                list.add(value);
+                expected.add(value);
+            } else if (random.nextBoolean()) {
+                final int index = random.nextInt(expected.size());
+                assertEquals(expected.remove(index), list.remove(index));
+            } else {
+                assertEquals(expected.remove(Integer.valueOf(value)), list.remove(Integer.valueOf(value)));
+            }
+
+            final int index = random.nextInt(expected.size() + 1);
+            if (index < expected.size()) {
+                assertEquals(expected.get(index), list.get(index));
+                assertEquals(expected.indexOf(expected.get(index)), list.indexOf(expected.get(index)));
+            }
+        }
+        assertEquals(expected, list);
+    }
+
+    @Test
+    public void many_set_live_view_Test() {
+        Person person = personFactory.Person();
+        Person otherPerson = personFactory.Person();
+        Car car = personFactory.Car("Audi");
+        Car otherCar = personFactory.Car("BMW");
+
+        final Set<Car> cars = person.cars();
+        assertTrue(cars == person.cars());
+
+        // changes through the view update the inverse
+        cars.add(car);
+        assertEquals(1, person.cars().size());
+        assertTrue(car.owner() == person);
+
+        // changes through the field are seen by the view
+        person.cars(otherCar);
+        assertEquals(2, cars.size());
+        assertTrue(cars.contains(otherCar));
+
+        cars.remove(car);
+        assertEquals(1, cars.size());
+        assertTrue(car.owner() == null);
+
+        // a car leaves the cars of its old owner
+        otherCar.owner(otherPerson);
+        assertEquals(0, cars.size());
+        assertTrue(otherPerson.cars().contains(otherCar));
+    }
 }
@@ -0,0 +1,234 @@
+import nl.cwi.examples.uml_activity_diagram.helpers.FactoriesProvider;
+import nl.cwi.managed_data_4j.framework.SchemaFactoryProvider;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.GeneratedDataManager;
+import nl.cwi.managed_data_4j.language.managed_object.KlassLayout;
+import nl.cwi.managed_data_4j.language.managed_object.KlassMObject;
+import nl.cwi.managed_data_4j.language.managed_object.MObject;
+import nl.cwi.managed_data_4j.language.primitives.Primitives;
+import nl.cwi.managed_data_4j.language.schema.boot.SchemaFactory;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaImage;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaLoader;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Field;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Type;
+import org.junit.Test;
+import test_definition.PersonFactory;
+import test_definition.schemas.Address;
+import test_definition.schemas.Car;
+import test_definition.schemas.Person;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestSchemaLoader {
+
+    private static final int THREADS = 8;
+
+    @Test
+    public void cached_load_Test() {
+        final SchemaFactory schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+
+        final Schema schema = SchemaLoader.load(
+                schemaFactory, Person.class, Address.class, Car.class, Primitives.class);
+
+        // the same definitions, in any order
+        assertTrue(schema == SchemaLoader.load(
+                schemaFactory, Car.class, Address.class, Person.class, Primitives.class));
+
+        // other definitions
+        assertFalse(schema == SchemaLoader.load(schemaFactory, Person.class, Address.class, Car.class));
+
+        // not cached
+        assertFalse(schema == SchemaLoader.loadUncached(
+                schemaFactory, Person.class, Address.class, Car.class, Primitives.class));
+    }
+
+    @Test
+    public void uncached_load_collected_Test() throws InterruptedException {
+        final SchemaFactory schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+
+        // the layouts, the dispatch plans and the generated classes of a schema go away with it
+        final WeakReference<Schema> schema = new WeakReference<>(useUncached(schemaFactory));
+        for (int i = 0; i < 50 && schema.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        assertNull(schema.get());
+    }
+
+    @Test
+    public void klass_layout_Test() {
+        final Schema schema = SchemaLoader.loadUncached(SchemaFactoryProvider.getSchemaFactory(),
+            Person.class, Address.class, Car.class, Primitives.class);
+        final Person person = new BasicDataManager().factory(PersonFactory.class, schema).Person(26, "Alex");
+
+        // only the klasses keep the layouts of their objects
+        assertTrue(MObject.of(person.schemaKlass()) instanceof KlassMObject);
+        assertTrue(KlassLayout.of(person.schemaKlass()) == KlassLayout.of(person.schemaKlass()));
+        assertFalse(MObject.of(person) instanceof KlassMObject);
+    }
+
+    @Test
+    public void concurrent_load_Test() throws Exception {
+        final SchemaFactory schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+        final int klasses = SchemaLoader.loadUncached(
+                schemaFactory, Person.class, Address.class, Car.class, Primitives.class).klasses().size();
+
+        final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            final List<Future<Schema>> futures = new ArrayList<>();
+            for (int thread = 0; thread < THREADS; thread++) {
+                futures.add(executor.submit(() -> SchemaLoader.loadUncached(
+                        schemaFactory, Person.class, Address.class, Car.class, Primitives.class)));
+            }
+
+            for (Future<Schema> future : futures) {
+                final Schema schema = future.get(60, TimeUnit.SECONDS);
+
+                // every load has its own, complete klasses
+                assertEquals(klasses, schema.klasses().size());
+                for (Klass klass : schema.klasses()) {
+                    assertTrue(klass.schema() == schema);
+                    klass.fields().forEach(field -> assertTrue(field.type() != null));
+                }
+
+                final PersonFactory personFactory = new BasicDataManager().factory(PersonFactory.class, schema);
+                final Person person = personFactory.Person(26, "Alex");
+                person.cars(personFactory.Car("Audi"));
+                assertTrue(person.cars().iterator().next().owner() == person);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void parallel_load_Test() {
+        final SchemaFactory schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+
+        final Class<?>[] personDefinitions = { Person.class, Address.class, Car.class, Primitives.class };
+        assertEquals(
+            describe(SchemaLoader.loadUncached(schemaFactory, personDefinitions)),
+            describe(SchemaLoader.loadParallel(schemaFactory, personDefinitions)));
+
+        final Class<?>[] activityDefinitions = FactoriesProvider.runtimeActivityDiagramDefinitions();
+        assertEquals(
+            describe(SchemaLoader.loadUncached(schemaFactory, activityDefinitions)),
+            describe(SchemaLoader.loadParallel(schemaFactory, activityDefinitions)));
+
+        final Schema schema = SchemaLoader.loadParallel(schemaFactory, personDefinitions);
+        final PersonFactory personFactory = new BasicDataManager().factory(PersonFactory.class, schema);
+        final Person person = personFactory.Person(26, "Alex");
+        person.cars(personFactory.Car("Audi"));
+        assertTrue(person.cars().iterator().next().owner() == person);
+    }
+
+    @Test
+    public void image_load_Test() throws Exception {
+        final SchemaFactory schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+
+        final Class<?>[] personDefinitions = { Person.class, Address.class, Car.class, Primitives.class };
+        final Schema personSchema = SchemaLoader.loadUncached(schemaFactory, personDefinitions);
+        assertEquals(describe(personSchema), describe(SchemaLoader.loadImage(schemaFactory, image(personSchema, personDefinitions))));
+
+        final Class<?>[] activityDefinitions = FactoriesProvider.runtimeActivityDiagramDefinitions();
+        final Schema activitySchema = SchemaLoader.loadUncached(schemaFactory, activityDefinitions);
+        assertEquals(describe(activitySchema), describe(SchemaLoader.loadImage(schemaFactory, image(activitySchema, activityDefinitions))));
+
+        final Schema schema = SchemaLoader.loadImage(schemaFactory, image(personSchema, personDefinitions));
+        final PersonFactory personFactory = new BasicDataManager().factory(PersonFactory.class, schema);
+        final Person person = personFactory.Person(26, "Alex");
+        person.cars(personFactory.Car("Audi"));
+        assertTrue(person.cars().iterator().next().owner() == person);
+    }
+
+    @Test(expected = IOException.class)
+    public void image_load_invalid_Test() throws Exception {
+        SchemaLoader.loadImage(SchemaFactoryProvider.getSchemaFactory(), new ByteArrayInputStream(new byte[] { 1, 2, 3, 4 }));
+    }
+
+    @Test(expected = IOException.class)
+    public void image_load_changed_definitions_Test() throws Exception {
+        final Class<?>[] definitions = { Person.class, Address.class, Car.class, Primitives.class };
+        final Schema schema = SchemaLoader.loadUncached(SchemaFactoryProvider.getSchemaFactory(), definitions);
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SchemaImage.write(schema, out, definitions);
+
+        // the hash of the definitions follows the magic number and the version
+        final byte[] image = out.toByteArray();
+        image[11] ^= 1;
+        SchemaLoader.loadImage(SchemaFactoryProvider.getSchemaFactory(), new ByteArrayInputStream(image));
+    }
+
+    private static InputStream image(Schema schema, Class<?>... definitions) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        SchemaImage.write(schema, out, definitions);
+        return new ByteArrayInputStream(out.toByteArray());
+    }
+
+    // loads a schema without the cache, and creates objects of it, as proxies and as generated objects.
+    private static Schema useUncached(SchemaFactory schemaFactory) {
+        final Schema schema = SchemaLoader.loadUncached(schemaFactory, Person.class, Address.class, Car.class, Primitives.class);
+        for (PersonFactory factory : Arrays.asList(
+                new BasicDataManager().factory(PersonFactory.class, schema),
+                new GeneratedDataManager().factory(PersonFactory.class, schema))) {
+            factory.Person(24, "Alex").cars(factory.Car("Audi"));
+        }
+        return schema;
+    }
+
+    /**
+     * Describes the types of a schema, in order, with their fields, keys, inverses, supers and subs.
+     */
+    private static String describe(Schema schema) {
+        final StringBuilder description = new StringBuilder();
+
+        for (Type type : schema.types()) {
+            description.append(type.schemaKlass().name()).append(' ').append(type.name()).append('\n');
+            if (!type.schemaKlass().name().equals("Klass")) continue;
+
+            final Klass klass = (Klass) type;
+            assertTrue(klass.schema() == schema);
+
+            description
+                .append(" classOf ").append(klass.classOf())
+                .append(" key ").append(klass.key() == null ? null : klass.key().name())
+                .append(" supers ").append(klass.supers().stream().map(Klass::name).collect(Collectors.toList()))
+                .append(" subs ").append(klass.subKlasses().stream().map(Klass::name).collect(Collectors.toList()))
+                .append('\n');
+
+            for (Field field : klass.fields()) {
+                assertTrue(field.owner() == klass);
+                description
+                    .append("  ").append(field.name()).append(' ').append(field.type().name())
+                    .append(" many ").append(field.many())
+                    .append(" optional ").append(field.optional())
+                    .append(" key ").append(field.key())
+                    .append(" contain ").append(field.contain())
+                    .append(" inverse ").append(field.inverse() == null
+                        ? null
+                        : field.inverse().owner().name() + "." + field.inverse().name())
+                    .append('\n');
+            }
+        }
+        return description.toString();
+    }
+}
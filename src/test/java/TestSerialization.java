@@ -0,0 +1,207 @@
+import nl.cwi.examples.uml_activity_diagram.examples.TestActivity6;
+import nl.cwi.examples.uml_activity_diagram.helpers.FactoriesProvider;
+import nl.cwi.examples.uml_activity_diagram.schemas.runtime_diagram.runtime_activity.RuntimeActivity;
+import nl.cwi.examples.uml_activity_diagram.schemas.static_diagram.nodes.ActivityNode;
+import nl.cwi.managed_data_4j.framework.SchemaFactoryProvider;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.GeneratedDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.IDataManager;
+import nl.cwi.managed_data_4j.language.primitives.Primitives;
+import nl.cwi.managed_data_4j.language.schema.boot.SchemaFactory;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaLoader;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Klass;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+import nl.cwi.managed_data_4j.language.serialization.MObjectReader;
+import nl.cwi.managed_data_4j.language.serialization.MObjectWriter;
+import nl.cwi.managed_data_4j.language.utils.MObjectUtils;
+import org.junit.Before;
+import org.junit.Test;
+import test_definition.PersonFactory;
+import test_definition.schemas.Address;
+import test_definition.schemas.Car;
+import test_definition.schemas.Person;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestSerialization {
+
+    private Schema schema;
+    private PersonFactory personFactory;
+
+    @Before
+    public void setup() {
+        final SchemaFactory schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+        schema = SchemaLoader.load(schemaFactory, Person.class, Address.class, Car.class, Primitives.class);
+        personFactory = new BasicDataManager().factory(PersonFactory.class, schema);
+    }
+
+    @Test
+    public void round_trip_Test() throws IOException {
+        final Person alex = personFactory.Person(26, "Alex");
+        final Person george = personFactory.Person(-25, "George");
+        alex.grades(7, -8, 9);
+        alex.friends(george);
+        alex.address(personFactory.Address("Amsterdam", 12, "Science Park"));
+        alex.cars(personFactory.Car("Audi"), personFactory.Car("BMW"));
+        alex.value(4.5);
+        george.age(null);
+        george.value(Arrays.class);
+
+        // read by another data manager
+        final Person copy = (Person) read(write(alex), new GeneratedDataManager()).get(0);
+
+        assertEquals("Alex", copy.name());
+        assertEquals(new Integer(26), copy.age());
+        assertEquals(Arrays.asList(7, -8, 9), copy.grades());
+        assertEquals(4.5, copy.value());
+        assertEquals("Science Park", copy.address().street());
+        assertTrue(copy.address().tenant() == copy);
+
+        final Person georgeCopy = copy.friends().get(0);
+        assertEquals("George", georgeCopy.name());
+        assertNull(georgeCopy.age());
+        assertEquals(Arrays.class, georgeCopy.value());
+
+        assertEquals(Arrays.asList("Audi", "BMW"),
+            copy.cars().stream().map(Car::brand).collect(Collectors.toList()));
+        for (Car car : copy.cars()) {
+            assertTrue(car.owner() == copy);
+        }
+
+        assertTrue(MObjectUtils.equals(alex, copy));
+    }
+
+    @Test
+    public void many_graphs_Test() throws IOException {
+        final Person alex = personFactory.Person(26, "Alex");
+        final Car audi = personFactory.Car("Audi");
+        audi.owner(alex);
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MObjectWriter writer = new MObjectWriter(out)) {
+            writer.write(alex);
+            writer.write(audi);
+            writer.write(personFactory.Person(25, "George"));
+        }
+
+        final List<Object> roots = read(out.toByteArray(), new BasicDataManager());
+        assertEquals(3, roots.size());
+
+        // a root of a previous graph is referred to by its id
+        final Person alexCopy = (Person) roots.get(0);
+        final Car audiCopy = (Car) roots.get(1);
+        assertTrue(audiCopy.owner() == alexCopy);
+        assertTrue(alexCopy.cars().iterator().next() == audiCopy);
+        assertEquals("George", ((Person) roots.get(2)).name());
+    }
+
+    @Test
+    public void reset_Test() throws IOException {
+        final Person alex = personFactory.Person(26, "Alex");
+        alex.friends(personFactory.Person(25, "George"));
+
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MObjectWriter writer = new MObjectWriter(out)) {
+            writer.write(alex);
+            writer.reset();
+            writer.write(alex.friends().get(0));
+        }
+
+        // after the reset, the friend is written again, as a new object
+        final List<Object> roots = read(out.toByteArray(), new BasicDataManager());
+        final Person alexCopy = (Person) roots.get(0);
+        final Person georgeCopy = (Person) roots.get(1);
+        assertTrue(MObjectUtils.equals(alex.friends().get(0), georgeCopy));
+        assertFalse(alexCopy.friends().get(0) == georgeCopy);
+    }
+
+    @Test
+    public void create_at_once_Test() throws IOException {
+        final Person alex = personFactory.Person(26, "Alex");
+        alex.friends(personFactory.Person(25, "George"), personFactory.Person(27, "Nick"), personFactory.Person(28, "Martin"));
+        alex.cars(personFactory.Car("Audi"), personFactory.Car("BMW"));
+
+        // the friends and the cars are created by one call each
+        final List<Integer> counts = new ArrayList<>();
+        final BasicDataManager dataManager = new BasicDataManager() {
+            @Override
+            public <T> List<T> createMany(Klass klass, int count, ObjIntConsumer<? super T> initializer) {
+                counts.add(count);
+                return super.createMany(klass, count, initializer);
+            }
+        };
+        assertTrue(MObjectUtils.equals(alex, (Person) read(write(alex), dataManager).get(0)));
+        assertEquals(Arrays.asList(1, 3, 2), counts);
+    }
+
+    @Test
+    public void activity_Test() throws IOException {
+        final RuntimeActivity activity =
+            (RuntimeActivity) TestActivity6.getActivity(FactoriesProvider.getRuntimeActivityDiagramFactory());
+        final byte[] bytes = write(activity);
+
+        final RuntimeActivity copy = (RuntimeActivity) read(bytes, FactoriesProvider.loadRuntimeActivityDiagramSchema(), new BasicDataManager()).get(0);
+        assertEquals(activity.nodes().size(), copy.nodes().size());
+        assertEquals(activity.edges().size(), copy.edges().size());
+
+        // the copy runs the same way
+        activity.main(Collections.emptyList());
+        copy.main(Collections.emptyList());
+        assertTrue(activity.trace().executedNodes().size() > 0);
+        assertEquals(names(activity.trace().executedNodes()), names(copy.trace().executedNodes()));
+
+        // after a run, with the trace and the tokens
+        final RuntimeActivity runCopy = (RuntimeActivity) read(write(activity), FactoriesProvider.loadRuntimeActivityDiagramSchema(), new BasicDataManager()).get(0);
+        assertEquals(names(activity.trace().executedNodes()), names(runCopy.trace().executedNodes()));
+    }
+
+    @Test(expected = IOException.class)
+    public void invalid_stream_Test() throws IOException {
+        read(new byte[] { 1, 2, 3, 4, 5 }, new BasicDataManager());
+    }
+
+    @Test(expected = IOException.class)
+    public void truncated_stream_Test() throws IOException {
+        final byte[] bytes = write(personFactory.Person(26, "Alex"));
+        read(Arrays.copyOf(bytes, bytes.length - 4), new BasicDataManager());
+    }
+
+    private static List<String> names(List<ActivityNode> nodes) {
+        return nodes.stream().map(ActivityNode::name).collect(Collectors.toList());
+    }
+
+    private static byte[] write(Object root) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (MObjectWriter writer = new MObjectWriter(out)) {
+            writer.write(root);
+        }
+        return out.toByteArray();
+    }
+
+    private List<Object> read(byte[] bytes, IDataManager dataManager) throws IOException {
+        return read(bytes, schema, dataManager);
+    }
+
+    private static List<Object> read(byte[] bytes, Schema schema, IDataManager dataManager) throws IOException {
+        final List<Object> roots = new ArrayList<>();
+        try (MObjectReader reader = new MObjectReader(new ByteArrayInputStream(bytes), schema, dataManager)) {
+            for (Object root = reader.read(); root != null; root = reader.read()) {
+                roots.add(root);
+            }
+        }
+        return roots;
+    }
+}
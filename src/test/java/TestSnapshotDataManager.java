@@ -0,0 +1,222 @@
+import nl.cwi.examples.runtime_state_machine.RuntimeStateMachineFactory;
+import nl.cwi.examples.runtime_state_machine.schemas.RMachine;
+import nl.cwi.examples.runtime_state_machine.schemas.RState;
+import nl.cwi.examples.state_machine.SimpleDoors;
+import nl.cwi.examples.state_machine.schemas.State;
+import nl.cwi.examples.state_machine.schemas.Transition;
+import nl.cwi.managed_data_4j.framework.SchemaFactoryProvider;
+import nl.cwi.managed_data_4j.language.data_manager.BasicDataManager;
+import nl.cwi.managed_data_4j.language.data_manager.SnapshotDataManager;
+import nl.cwi.managed_data_4j.language.managed_object.snapshot.Snapshot;
+import nl.cwi.managed_data_4j.language.primitives.Primitives;
+import nl.cwi.managed_data_4j.language.schema.boot.SchemaFactory;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaLoader;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+import nl.cwi.managed_data_4j.language.utils.MObjectUtils;
+import org.junit.Before;
+import org.junit.Test;
+import test_definition.PersonFactory;
+import test_definition.schemas.Address;
+import test_definition.schemas.Car;
+import test_definition.schemas.Person;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class TestSnapshotDataManager {
+
+    private SchemaFactory schemaFactory;
+    private SnapshotDataManager dataManager;
+    private PersonFactory factory;
+
+    @Before
+    public void setup() {
+        schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+        final Schema schema = SchemaLoader.load(schemaFactory, Person.class, Address.class, Car.class, Primitives.class);
+
+        dataManager = new SnapshotDataManager();
+        factory = dataManager.factory(PersonFactory.class, schema);
+    }
+
+    @Test
+    public void snapshot_Test() {
+        final Person alex = person();
+        final Snapshot snapshot = dataManager.snapshot();
+
+        alex.name("Martin");
+        alex.age(40);
+        alex.grades(5);
+        alex.friends().get(0).name("Nick");
+        alex.address(factory.Address("Rotterdam", 1, "Coolsingel"));
+        alex.cars(factory.Car("BMW"));
+
+        final Person view = snapshot.of(alex);
+        assertEquals("Alex", view.name());
+        assertEquals(Integer.valueOf(24), view.age());
+        assertEquals(Arrays.asList(8, 9), view.grades());
+        assertEquals("George", view.friends().get(0).name());
+        assertEquals("Science Park", view.address().street());
+        assertEquals(1, view.cars().size());
+        assertEquals("Audi", view.cars().iterator().next().brand());
+
+        // the views refer to the views of the same snapshot
+        assertTrue(view.address().tenant() == view);
+        assertTrue(view.cars().iterator().next().owner() == view);
+        assertTrue(snapshot.of(alex.friends().get(0)) == view.friends().get(0));
+
+        // the objects are written as usual
+        assertEquals("Martin", alex.name());
+        assertEquals(Integer.valueOf(40), alex.age());
+        assertEquals("Coolsingel", alex.address().street());
+        assertEquals(2, alex.cars().size());
+        snapshot.close();
+    }
+
+    @Test
+    public void snapshot_equals_copy_Test() {
+        final Person alex = person();
+        final Person copy = MObjectUtils.copy(alex, new BasicDataManager());
+        final Snapshot snapshot = dataManager.snapshot();
+
+        alex.friends().remove(0);
+        alex.friends().get(0).age(30);
+        alex.cars().clear();
+
+        assertTrue(MObjectUtils.equals(copy, snapshot.of(alex)));
+        assertEquals(MObjectUtils.hash(copy), MObjectUtils.hash(snapshot.of(alex)));
+        snapshot.close();
+    }
+
+    @Test
+    public void versions_Test() {
+        final Person alex = person();
+        final Snapshot first = dataManager.snapshot();
+        alex.name("George");
+        alex.friends(factory.Person(30, "Nick"));
+        final Snapshot second = dataManager.snapshot();
+        alex.name("Martin");
+        alex.friends().clear();
+
+        assertEquals("Alex", first.of(alex).name());
+        assertEquals("George", second.of(alex).name());
+        assertEquals("Martin", alex.name());
+        assertEquals(2, first.of(alex).friends().size());
+        assertEquals(3, second.of(alex).friends().size());
+        assertTrue(alex.friends().isEmpty());
+
+        // the versions of the closed snapshot are dropped, the others are kept
+        first.close();
+        alex.name("Nick");
+        alex.friends(factory.Person(40, "Alex"));
+        assertEquals("George", second.of(alex).name());
+        assertEquals(3, second.of(alex).friends().size());
+
+        // a snapshot sees the objects that are created after older snapshots
+        final Snapshot third = dataManager.snapshot();
+        second.close();
+        alex.friends().get(0).name("Alex Jr.");
+        assertEquals("Alex", third.of(alex).friends().get(0).name());
+        third.close();
+    }
+
+    @Test
+    public void live_reads_Test() {
+        final Person alex = person();
+        alex.friends(factory.Person(30, "Nick"));
+        final Snapshot snapshot = dataManager.snapshot();
+
+        // the reads of the writer do not move the elements of a list, a snapshot may be copying them
+        final List<Person> friends = alex.friends();
+        final Person nick = friends.get(2);
+        friends.remove(0);
+        final Iterator<Person> iterator = friends.iterator();
+        assertEquals("Martin", iterator.next().name());
+        assertEquals("Martin", friends.get(0).name());
+        assertEquals(1, friends.indexOf(nick));
+        assertTrue(iterator.next() == nick);
+
+        assertEquals(3, snapshot.of(alex).friends().size());
+        snapshot.close();
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void read_only_Test() {
+        final Person alex = person();
+        dataManager.snapshot().of(alex).name("Martin");
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void read_only_many_Test() {
+        final Person alex = person();
+        dataManager.snapshot().of(alex).friends().clear();
+    }
+
+    @Test
+    public void monitor_Test() throws InterruptedException {
+        final Schema schema = SchemaLoader.load(schemaFactory, Transition.class, RMachine.class, RState.class);
+        final SnapshotDataManager machineDataManager = new SnapshotDataManager();
+        final RMachine machine = (RMachine) SimpleDoors.doors(machineDataManager.factory(RuntimeStateMachineFactory.class, schema));
+        machine.current(machine.start());
+        machine.states().forEach(state -> ((RState) state).count(0));
+
+        // the machine publishes a snapshot after every event, the monitor checks that it is consistent:
+        // every event counts once, and the machine is closed after an even number of events.
+        final AtomicReference<Snapshot> published = new AtomicReference<>(machineDataManager.snapshot());
+        final AtomicBoolean running = new AtomicBoolean(true);
+        final AtomicReference<String> inconsistency = new AtomicReference<>();
+
+        final Thread monitor = new Thread(() -> {
+            while (running.get() && inconsistency.get() == null) {
+                final RMachine view = published.get().of(machine);
+                int events = 0;
+                for (State state : view.states()) {
+                    events += ((RState) state).count();
+                }
+                final String expected = events % 2 == 0 ? "Closed" : "Opened";
+                if (!expected.equals(view.current().name())) {
+                    inconsistency.set(view.current().name() + " after " + events + " events");
+                }
+            }
+        });
+        monitor.start();
+
+        for (int i = 0; i < 5000; i++) {
+            step(machine, i % 2 == 0 ? "open" : "close");
+            published.set(machineDataManager.snapshot());
+        }
+        running.set(false);
+        monitor.join();
+
+        assertNull(inconsistency.get());
+        assertEquals("Closed", machine.current().name());
+    }
+
+    // RMachine.execute, without the output.
+    private static void step(RMachine machine, String event) {
+        final RState current = (RState) machine.current();
+        for (Transition transition : current.out()) {
+            if (transition.event().equals(event)) {
+                current.count(current.count() + 1);
+                machine.current(transition.to());
+                return;
+            }
+        }
+    }
+
+    // a person with two friends, an address and a car.
+    private Person person() {
+        final Person person = factory.Person(24, "Alex");
+        person.grades(8, 9);
+        person.friends(factory.Person(20, "George"), factory.Person(22, "Martin"));
+        person.address(factory.Address("Amsterdam", 242, "Science Park"));
+        person.cars(factory.Car("Audi"));
+        return person;
+    }
+}
@@ -0,0 +1,268 @@
+import nl.cwi.examples.ccconcerns.patterns.transaction.ConflictException;
+import nl.cwi.examples.ccconcerns.patterns.transaction.FieldWrite;
+import nl.cwi.examples.ccconcerns.patterns.transaction.TransactionalDataManager;
+import nl.cwi.examples.runtime_state_machine.RuntimeStateMachineFactory;
+import nl.cwi.examples.runtime_state_machine.schemas.RMachine;
+import nl.cwi.examples.runtime_state_machine.schemas.RState;
+import nl.cwi.examples.state_machine.SimpleDoors;
+import nl.cwi.examples.state_machine.schemas.Transition;
+import nl.cwi.managed_data_4j.framework.SchemaFactoryProvider;
+import nl.cwi.managed_data_4j.language.primitives.Primitives;
+import nl.cwi.managed_data_4j.language.schema.boot.SchemaFactory;
+import nl.cwi.managed_data_4j.language.schema.load.SchemaLoader;
+import nl.cwi.managed_data_4j.language.schema.models.definition.Schema;
+import org.junit.Before;
+import org.junit.Test;
+import test_definition.PersonFactory;
+import test_definition.schemas.Address;
+import test_definition.schemas.Car;
+import test_definition.schemas.Person;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class TestTransactionalDataManager {
+
+    private SchemaFactory schemaFactory;
+    private TransactionalDataManager dataManager;
+    private PersonFactory factory;
+
+    // the writes of every commit
+    private List<List<FieldWrite>> commits;
+
+    @Before
+    public void setup() {
+        schemaFactory = SchemaFactoryProvider.getSchemaFactory();
+        final Schema schema = SchemaLoader.load(schemaFactory, Person.class, Address.class, Car.class, Primitives.class);
+
+        dataManager = new TransactionalDataManager();
+        factory = dataManager.factory(PersonFactory.class, schema);
+
+        commits = new ArrayList<>();
+        dataManager.addObserver(commits::add);
+    }
+
+    @Test
+    public void commit_Test() throws InterruptedException {
+        final Person alex = person();
+        final Address oldAddress = alex.address();
+        final Address newAddress = factory.Address("Rotterdam", 1, "Coolsingel");
+
+        dataManager.begin();
+        alex.name("Martin");
+        alex.age(40);
+        alex.address(newAddress);
+        alex.friends().remove(0);
+
+        // the transaction sees its writes and their inverses
+        assertEquals("Martin", alex.name());
+        assertEquals(Integer.valueOf(40), alex.age());
+        assertTrue(newAddress.tenant() == alex);
+        assertNull(oldAddress.tenant());
+        assertEquals(1, alex.friends().size());
+
+        // other threads do not
+        final AtomicReference<String> name = new AtomicReference<>();
+        final AtomicReference<Person> tenant = new AtomicReference<>();
+        final Thread reader = new Thread(() -> {
+            name.set(alex.name());
+            tenant.set(oldAddress.tenant());
+        });
+        reader.start();
+        reader.join();
+        assertEquals("Alex", name.get());
+        assertTrue(tenant.get() == alex);
+        assertTrue(commits.isEmpty());
+
+        dataManager.commit();
+        assertFalse(dataManager.inTransaction());
+        assertEquals("Martin", alex.name());
+        assertEquals(Integer.valueOf(40), alex.age());
+        assertTrue(newAddress.tenant() == alex);
+        assertNull(oldAddress.tenant());
+        assertEquals("Martin", alex.friends().get(0).name());
+
+        // one notification, with the inverses
+        assertEquals(1, commits.size());
+        assertEquals(Arrays.asList("address", "age", "friends", "name", "tenant", "tenant"), fields(commits.get(0)));
+    }
+
+    @Test
+    public void rollback_Test() {
+        final Person alex = person();
+        final Car audi = alex.cars().iterator().next();
+
+        dataManager.begin();
+        alex.name("Martin");
+        alex.friends().clear();
+        audi.owner(factory.Person(30, "Nick"));
+        alex.cars(factory.Car("BMW"));
+        assertTrue(alex.cars().size() == 1 && alex.cars().iterator().next() != audi);
+        dataManager.rollback();
+
+        assertEquals("Alex", alex.name());
+        assertEquals(2, alex.friends().size());
+        assertEquals(1, alex.cars().size());
+        assertTrue(alex.cars().iterator().next() == audi);
+        assertTrue(audi.owner() == alex);
+        assertTrue(commits.isEmpty());
+    }
+
+    @Test
+    public void atomically_Test() {
+        final Person alex = person();
+        try {
+            dataManager.atomically(() -> {
+                alex.name("Martin");
+                throw new IllegalArgumentException();
+            });
+            fail();
+        } catch (IllegalArgumentException e) {
+            assertEquals("Alex", alex.name());
+            assertFalse(dataManager.inTransaction());
+        }
+
+        dataManager.atomically(() -> alex.name("Martin"));
+        assertEquals("Martin", alex.name());
+        assertEquals(1, commits.size());
+    }
+
+    @Test
+    public void no_writes_Test() {
+        final Person alex = person();
+
+        // reads of many-fields are not writes
+        dataManager.atomically(() -> alex.friends().forEach(Person::name));
+        assertTrue(commits.isEmpty());
+    }
+
+    @Test
+    public void conflict_Test() {
+        final Person alex = person();
+        final Car bmw = factory.Car("BMW");
+        final Car fiat = factory.Car("Fiat");
+
+        dataManager.begin();
+        assertEquals(1, alex.cars().size());
+
+        // another transaction adds a car, after this one has read the cars
+        inOtherThread(() -> dataManager.atomically(() -> bmw.owner(alex)));
+        fiat.owner(alex);
+        try {
+            dataManager.commit();
+            fail();
+        } catch (ConflictException e) {
+            assertFalse(dataManager.inTransaction());
+        }
+
+        // the other commit is kept, none of the writes of this one is applied
+        assertTrue(bmw.owner() == alex);
+        assertNull(fiat.owner());
+        assertEquals(Arrays.asList("Audi", "BMW"), brands(alex));
+        assertEquals(1, commits.size());
+
+        // atomically runs the action again, on the values of the other commit
+        final Car opel = factory.Car("Opel");
+        final AtomicInteger runs = new AtomicInteger();
+        dataManager.atomically(() -> {
+            alex.cars().size();
+            if (runs.incrementAndGet() == 1) {
+                inOtherThread(() -> dataManager.atomically(() -> opel.owner(alex)));
+            }
+            fiat.owner(alex);
+        });
+        assertEquals(2, runs.get());
+        assertTrue(opel.owner() == alex && fiat.owner() == alex);
+        assertEquals(Arrays.asList("Audi", "BMW", "Fiat", "Opel"), brands(alex));
+        assertEquals(3, commits.size());
+    }
+
+    @Test
+    public void no_conflict_Test() {
+        final Person alex = person();
+        final Person george = alex.friends().get(0);
+
+        // the transactions write different objects
+        dataManager.begin();
+        alex.name("Martin");
+        inOtherThread(() -> dataManager.atomically(() -> george.name("Nick")));
+        dataManager.commit();
+
+        assertEquals("Martin", alex.name());
+        assertEquals("Nick", george.name());
+        assertEquals(2, commits.size());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void no_transaction_Test() {
+        dataManager.commit();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void nested_transaction_Test() {
+        dataManager.begin();
+        try {
+            dataManager.begin();
+        } finally {
+            dataManager.rollback();
+        }
+    }
+
+    @Test
+    public void machine_Test() {
+        final Schema schema = SchemaLoader.load(schemaFactory, Transition.class, RMachine.class, RState.class);
+        final TransactionalDataManager machineDataManager = new TransactionalDataManager();
+        final RMachine machine = (RMachine) SimpleDoors.doors(machineDataManager.factory(RuntimeStateMachineFactory.class, schema));
+        machine.current(machine.start());
+        machine.states().forEach(state -> ((RState) state).count(0));
+
+        final List<List<FieldWrite>> machineCommits = new ArrayList<>();
+        machineDataManager.addObserver(machineCommits::add);
+
+        // a batch of events, notified once
+        machineDataManager.atomically(() -> Arrays.asList("open", "close", "open").forEach(machine::execute));
+        assertEquals(1, machineCommits.size());
+        assertEquals(Arrays.asList("count", "count", "current"), fields(machineCommits.get(0)));
+        assertEquals("Opened", machine.current().name());
+    }
+
+    // the names of the written fields, sorted.
+    private static List<String> fields(List<FieldWrite> writes) {
+        return writes.stream().map(FieldWrite::field).sorted().collect(Collectors.toList());
+    }
+
+    // the brands of the cars of a person, sorted.
+    private static List<String> brands(Person person) {
+        return person.cars().stream().map(Car::brand).sorted().collect(Collectors.toList());
+    }
+
+    // runs an action in a new thread, and waits for it.
+    private static void inOtherThread(Runnable action) {
+        final Thread thread = new Thread(action);
+        thread.start();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // a person with two friends, an address and a car.
+    private Person person() {
+        final Person person = factory.Person(24, "Alex");
+        person.friends(factory.Person(20, "George"), factory.Person(22, "Martin"));
+        person.address(factory.Address("Amsterdam", 242, "Science Park"));
+        person.cars(factory.Car("Audi"));
+        return person;
+    }
+}
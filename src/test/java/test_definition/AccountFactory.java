@@ -0,0 +1,9 @@
+package test_definition;
+
+import nl.cwi.managed_data_4j.IFactory;
+import test_definition.schemas.Account;
+
+public interface AccountFactory extends IFactory {
+    Account Account();
+    Account Account(int balance, float fee, boolean open, double rate, long total, Integer visits);
+}
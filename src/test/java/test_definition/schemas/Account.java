@@ -0,0 +1,25 @@
+package test_definition.schemas;
+
+import nl.cwi.managed_data_4j.M;
+import nl.cwi.managed_data_4j.language.schema.models.definition.annotations.Optional;
+
+public interface Account extends M {
+
+    int balance(int... balance);
+
+    long total(long... total);
+
+    double rate(double... rate);
+
+    float fee(float... fee);
+
+    boolean open(boolean... open);
+
+    @Optional
+    Integer visits(Integer... visits);
+
+    default int deposit(int amount) {
+        balance(balance() + amount);
+        return balance();
+    }
+}
@@ -237,4 +237,64 @@ public class TestEquality {
 
         assertFalse(MObjectUtils.equals(person1, person2));
     }
+
+    @Test
+    public void unnamed_vector_equality_Test() {
+        // named and unnamed friends, more than the merges of the sort start with
+        Person person1 = personFactory.Person(24, "Alex");
+        Person person2 = personFactory.Person(24, "Alex");
+        for (int i = 0; i < 40; i++) {
+            person1.friends().add(i % 2 == 0 ? unnamed(i) : personFactory.Person(i, "Friend" + (100 - i)));
+            person2.friends().add(i % 2 == 0 ? unnamed(i) : personFactory.Person(40 - i, "Friend" + (60 + i)));
+        }
+
+        assertTrue(MObjectUtils.equals(person1, person2));
+        assertEquals(MObjectUtils.hash(person1), MObjectUtils.hash(person2));
+
+        person2.friends().get(0).age(1);
+        assertFalse(MObjectUtils.equals(person1, person2));
+    }
+
+    @Test
+    public void deep_spine_equality_Test() {
+        assertTrue(MObjectUtils.equals(chain(100000, "Alex"), chain(100000, "Alex")));
+        assertFalse(MObjectUtils.equals(chain(100000, "Alex"), chain(100000, "George")));
+    }
+
+    @Test
+    public void spine_cycle_equality_Test() {
+        Person person1 = personFactory.Person(24, "Alex");
+        Person person1Friend = personFactory.Person(20, "George");
+        person1.friends(person1Friend);
+        person1Friend.friends(person1);
+
+        Person person2 = personFactory.Person(24, "Alex");
+        Person person2Friend = personFactory.Person(20, "George");
+        person2.friends(person2Friend);
+        person2Friend.friends(person2);
+
+        assertTrue(MObjectUtils.equals(person1, person2));
+
+        // a friend of its own, instead of its friend
+        person2Friend.friends().clear();
+        person2Friend.friends(person2Friend);
+        assertFalse(MObjectUtils.equals(person1, person2));
+    }
+
+    // a chain of friends, the last one has the given name.
+    private Person unnamed(int age) {
+        Person person = personFactory.Person(age, "");
+        person.name(null);
+        return person;
+    }
+
+    private Person chain(int length, String lastName) {
+        Person first = personFactory.Person(0, lastName);
+        for (int i = 1; i < length; i++) {
+            Person person = personFactory.Person(i, "Person" + i);
+            person.friends(first);
+            first = person;
+        }
+        return first;
+    }
 }